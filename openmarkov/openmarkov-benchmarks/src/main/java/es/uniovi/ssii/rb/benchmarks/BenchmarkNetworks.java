@@ -0,0 +1,124 @@
+package es.uniovi.ssii.rb.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.openmarkov.core.exception.IncompatibleEvidenceException;
+import org.openmarkov.core.exception.InvalidStateException;
+import org.openmarkov.core.exception.NotEvaluableNetworkException;
+import org.openmarkov.core.exception.ParserException;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.Finding;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.inference.likelihoodWeighting.LogicSampling;
+import org.openmarkov.io.probmodel.reader.PGMXReader_0_2;
+
+/**
+ * Networks bundled with openmarkov (<code>src/main/resources/networks</code>) and the seeded random queries
+ * the benchmarks run on them
+ */
+public class BenchmarkNetworks {
+
+	/**
+	 * Reads a network from the resources of openmarkov
+	 *
+	 * @param fileName name of the file, for example <code>asia.pgmx</code>
+	 * @return the network
+	 * @throws ParserException if the file can not be parsed
+	 * @throws IOException     if the file does not exist or can not be read
+	 */
+	public static ProbNet load(String fileName) throws ParserException, IOException {
+		try (InputStream inputStream = BenchmarkNetworks.class.getResourceAsStream("/networks/" + fileName)) {
+			if (inputStream == null) {
+				throw new IOException("Network " + fileName + " not found in the resources of openmarkov");
+			}
+			return new PGMXReader_0_2().loadProbNet(fileName, inputStream);
+		}
+	}
+
+	/**
+	 * Creates random queries whose evidence is compatible with the network: the findings of each query are
+	 * taken from a configuration drawn by logic sampling, so that its probability is not zero.
+	 *
+	 * @param probNet                network
+	 * @param numQueries             number of queries
+	 * @param numFindings            number of findings of each query
+	 * @param numVariablesOfInterest number of variables of interest of each query, not included in the evidence
+	 * @param seed                   seed of the random choices
+	 * @return the queries
+	 * @throws NotEvaluableNetworkException if the network can not be sampled
+	 */
+	public static List<Query> createQueries(ProbNet probNet, int numQueries, int numFindings,
+			int numVariablesOfInterest, long seed) throws NotEvaluableNetworkException {
+		LogicSampling sampling = new LogicSampling(probNet);
+		sampling.setSampleSize(numQueries);
+		sampling.setSeed(seed);
+		sampling.setStoringSamples(true);
+		try {
+			sampling.getPosteriorValues();
+		} catch (IncompatibleEvidenceException e) {
+			// there is no evidence
+			throw new IllegalStateException(e);
+		}
+		List<Variable> sampledVariables = sampling.getVariablesToSample();
+		double[][] samples = sampling.getSamples();
+
+		Random random = new Random(seed);
+		List<Query> queries = new ArrayList<>(numQueries);
+		for (double[] sample : samples) {
+			List<Integer> indices = new ArrayList<>(sampledVariables.size());
+			for (int i = 0; i < sampledVariables.size(); i++) {
+				indices.add(i);
+			}
+			Collections.shuffle(indices, random);
+			int numFindingsOfQuery = Math.min(numFindings, indices.size());
+			EvidenceCase evidence = new EvidenceCase();
+			for (int i = 0; i < numFindingsOfQuery; i++) {
+				int index = indices.get(i);
+				try {
+					evidence.addFinding(new Finding(sampledVariables.get(index), (int) sample[index]));
+				} catch (InvalidStateException | IncompatibleEvidenceException e) {
+					// each variable appears once and its state was sampled from the network
+					throw new IllegalStateException(e);
+				}
+			}
+			List<Variable> variablesOfInterest = new ArrayList<>();
+			for (int i = numFindingsOfQuery; i < indices.size() && variablesOfInterest.size() < numVariablesOfInterest;
+				 i++) {
+				variablesOfInterest.add(sampledVariables.get(indices.get(i)));
+			}
+			queries.add(new Query(evidence, variablesOfInterest));
+		}
+		return queries;
+	}
+
+	/**
+	 * Evidence and variables of interest of a query
+	 */
+	public static class Query {
+		private final EvidenceCase evidence;
+
+		private final List<Variable> variablesOfInterest;
+
+		public Query(EvidenceCase evidence, List<Variable> variablesOfInterest) {
+			this.evidence = evidence;
+			this.variablesOfInterest = variablesOfInterest;
+		}
+
+		public EvidenceCase getEvidence() {
+			return evidence;
+		}
+
+		/**
+		 * @return a copy of the variables of interest, because some algorithms modify the list they receive
+		 */
+		public List<Variable> getVariablesOfInterest() {
+			return new ArrayList<>(variablesOfInterest);
+		}
+	}
+}
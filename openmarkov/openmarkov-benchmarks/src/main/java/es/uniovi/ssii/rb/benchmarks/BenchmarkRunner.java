@@ -0,0 +1,79 @@
+package es.uniovi.ssii.rb.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the options of the JMH command line, adding the GC profiler so that the allocation
+ * rate of every benchmark is reported. For example, to measure the queries of Hugin on ALARM:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar QueryBenchmark -p network=alarm.pgmx -p algorithm=HUGIN
+ * </pre>
+ * <p>
+ * The results can be checked against a baseline (see <code>RegressionBaseline</code>) with these system
+ * properties:
+ * <ul>
+ * <li><code>baseline</code>: file of the baseline. The run fails when any result is a regression, or when the
+ * file does not exist.</li>
+ * <li><code>baseline.update</code>: if <code>true</code>, the results are written to the baseline instead of
+ * being compared with it. This is the way to create it.</li>
+ * <li><code>baseline.tolerance</code>: relative worsening allowed. 0.1 by default.</li>
+ * </ul>
+ */
+public class BenchmarkRunner {
+
+	private static final double DEFAULT_TOLERANCE = 0.1;
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList() || commandLineOptions
+				.shouldListWithParams() || commandLineOptions.shouldListProfilers() || commandLineOptions
+				.shouldListResultFormats()) {
+			Main.main(args);
+			return;
+		}
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+		options.addProfiler(GCProfiler.class);
+		Collection<RunResult> runResults = new Runner(options.build()).run();
+
+		String baselineFile = System.getProperty("baseline");
+		if (baselineFile == null) {
+			return;
+		}
+		Path baselinePath = Paths.get(baselineFile);
+		RegressionBaseline current = RegressionBaseline.of(runResults);
+		if (Boolean.getBoolean("baseline.update")) {
+			current.write(baselinePath);
+			System.out.println("Baseline written to " + baselinePath);
+			return;
+		}
+		if (!Files.exists(baselinePath)) {
+			System.out.println("There is no baseline at " + baselinePath
+					+ "; create it with -Dbaseline.update=true on the machine that runs the comparison");
+			System.exit(1);
+		}
+		double tolerance = Double.parseDouble(System.getProperty("baseline.tolerance", "" + DEFAULT_TOLERANCE));
+		List<String> regressions = RegressionBaseline.read(baselinePath).getRegressions(current, tolerance);
+		if (regressions.isEmpty()) {
+			System.out.println("No regressions with respect to " + baselinePath);
+			return;
+		}
+		System.out.println(regressions.size() + " regressions with respect to " + baselinePath + ":");
+		for (String regression : regressions) {
+			System.out.println("\t" + regression);
+		}
+		System.exit(1);
+	}
+}
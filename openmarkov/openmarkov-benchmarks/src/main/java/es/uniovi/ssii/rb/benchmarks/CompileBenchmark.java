@@ -0,0 +1,29 @@
+package es.uniovi.ssii.rb.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openmarkov.core.inference.tasks.Propagation;
+
+/**
+ * Time to prepare each algorithm for the queries on a network: checks and snapshot of the network for all of
+ * them, plus the junction tree for Hugin and the ancestral order for the samplers
+ */
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MILLISECONDS) @Warmup(iterations = 3)
+@Measurement(iterations = 5) @Fork(1) @State(Scope.Benchmark) public class CompileBenchmark {
+
+	@Param({ "VE", "HUGIN", "LOGIC_SAMPLING", "LIKELIHOOD_WEIGHTING" }) public InferenceAlgorithmType algorithm;
+
+	@Benchmark public Propagation compile(NetworkState networkState) throws Exception {
+		return algorithm.compile(networkState.probNet, QueryBenchmark.DEFAULT_SAMPLE_SIZE, QueryBenchmark.SEED);
+	}
+}
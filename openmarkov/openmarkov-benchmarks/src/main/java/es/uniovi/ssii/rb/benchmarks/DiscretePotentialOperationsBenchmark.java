@@ -0,0 +1,118 @@
+package es.uniovi.ssii.rb.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
+
+/**
+ * Table kernels of <code>DiscretePotentialOperations</code> and their concurrent versions on synthetic factor
+ * sets (see <code>FactorSet</code>). The product of the factors is computed once per trial and is the input of
+ * the kernels that work on a single potential; the first half of the variables of the union is the one that is
+ * eliminated.
+ * <p>
+ * The parameters cover the two orderings of the variables on one size of table, so that the whole benchmark takes
+ * less than a minute and can run as the regression gate; other sizes can be given with <code>-p</code>.
+ */
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS) @Fork(1) @State(Scope.Benchmark)
+public class DiscretePotentialOperationsBenchmark {
+
+	private static final long SEED = 9762L;
+
+	@Param({ "3" }) public int numFactors;
+
+	@Param({ "4" }) public int factorVariables;
+
+	@Param({ "3" }) public int cardinality;
+
+	@Param({ "0.5" }) public double overlap;
+
+	@Param({ "ALIGNED", "SHUFFLED" }) public FactorSet.Ordering ordering;
+
+	private List<TablePotential> factors;
+
+	private List<Variable> variablesToKeep;
+
+	private List<Variable> variablesToEliminate;
+
+	private TablePotential product;
+
+	private TablePotential jointProduct;
+
+	private List<Variable> reversedVariables;
+
+	@Setup(Level.Trial) public void createFactors() {
+		FactorSet factorSet = new FactorSet(numFactors, factorVariables, cardinality, overlap, ordering, SEED);
+		factors = factorSet.getFactors();
+		List<Variable> variables = factorSet.getVariables();
+		variablesToEliminate = new ArrayList<>(variables.subList(0, variables.size() / 2));
+		variablesToKeep = new ArrayList<>(variables.subList(variables.size() / 2, variables.size()));
+		product = DiscretePotentialOperations.multiply(factors);
+		jointProduct = new TablePotential(product.getVariables(), PotentialRole.JOINT_PROBABILITY,
+				product.values.clone());
+		reversedVariables = new ArrayList<>(product.getVariables());
+		Collections.reverse(reversedVariables);
+	}
+
+	@Benchmark public TablePotential multiply() {
+		return DiscretePotentialOperations.multiply(factors);
+	}
+
+	@Benchmark public TablePotential multiplyConcurrent() throws Exception {
+		return org.openmarkov.core.model.network.potential.operation.concurrent.DiscretePotentialOperations
+				.multiply(factors);
+	}
+
+	@Benchmark public TablePotential multiplyAndMarginalize() {
+		return DiscretePotentialOperations.multiplyAndMarginalize(factors, variablesToKeep, variablesToEliminate);
+	}
+
+	@Benchmark public TablePotential multiplyAndMarginalizeConcurrent() throws Exception {
+		return org.openmarkov.core.model.network.potential.operation.concurrent.DiscretePotentialOperations
+				.multiplyAndMarginalize(factors, variablesToKeep, variablesToEliminate);
+	}
+
+	@Benchmark public TablePotential marginalize() {
+		return DiscretePotentialOperations.marginalize(product, variablesToKeep);
+	}
+
+	@Benchmark public TablePotential reorder() {
+		return DiscretePotentialOperations.reorder(product, reversedVariables);
+	}
+
+	@Benchmark public Potential divide() {
+		return DiscretePotentialOperations.divide(product, factors.get(0));
+	}
+
+	@Benchmark public Potential divideConcurrent() {
+		return org.openmarkov.core.model.network.potential.operation.concurrent.DiscretePotentialOperations
+				.divide(product, factors.get(0));
+	}
+
+	/**
+	 * <code>normalize</code> works in place; normalizing again a normalized table repeats the same work
+	 */
+	@Benchmark public TablePotential normalize() throws Exception {
+		return DiscretePotentialOperations.normalize(jointProduct);
+	}
+}
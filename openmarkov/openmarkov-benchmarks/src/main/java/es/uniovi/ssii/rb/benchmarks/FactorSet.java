@@ -0,0 +1,92 @@
+package es.uniovi.ssii.rb.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+
+/**
+ * Synthetic set of table potentials for the benchmarks of the potential operations. The factors form a chain in
+ * which each one shares a fraction of its variables with the previous one, so the size of the product is
+ * controlled by the number of factors, their number of variables, the cardinality and the overlap.
+ */
+public class FactorSet {
+
+	/**
+	 * Order of the variables in each factor
+	 */
+	public enum Ordering {
+		/**
+		 * All the factors list their variables in the order of the union, as after a topological sort
+		 */
+		ALIGNED,
+		/**
+		 * Each factor lists its variables in a random order, which breaks the contiguity of the accumulated offsets
+		 */
+		SHUFFLED
+	}
+
+	// Attributes
+	private final List<Variable> variables;
+
+	private final List<TablePotential> factors;
+
+	// Constructor
+
+	/**
+	 * @param numFactors      number of factors
+	 * @param factorVariables number of variables of each factor
+	 * @param cardinality     number of states of each variable
+	 * @param overlap         fraction of the variables of each factor that also belong to the previous one
+	 * @param ordering        order of the variables in each factor
+	 * @param seed            seed of the orders and of the values
+	 */
+	public FactorSet(int numFactors, int factorVariables, int cardinality, double overlap, Ordering ordering,
+			long seed) {
+		Random random = new Random(seed);
+		int sharedVariables = Math.min(factorVariables, (int) Math.round(overlap * factorVariables));
+		variables = new ArrayList<>();
+		factors = new ArrayList<>(numFactors);
+		List<Variable> previousFactorVariables = new ArrayList<>();
+		for (int i = 0; i < numFactors; i++) {
+			List<Variable> factorVariableList = new ArrayList<>();
+			// the variables shared with the previous factor are its last ones
+			factorVariableList.addAll(previousFactorVariables
+					.subList(previousFactorVariables.size() - Math.min(sharedVariables, previousFactorVariables.size()),
+							previousFactorVariables.size()));
+			while (factorVariableList.size() < factorVariables) {
+				Variable variable = new Variable("X" + variables.size(), cardinality);
+				variables.add(variable);
+				factorVariableList.add(variable);
+			}
+			previousFactorVariables = factorVariableList;
+			List<Variable> potentialVariables = new ArrayList<>(factorVariableList);
+			if (ordering == Ordering.SHUFFLED) {
+				Collections.shuffle(potentialVariables, random);
+			}
+			TablePotential factor = new TablePotential(potentialVariables, PotentialRole.CONDITIONAL_PROBABILITY);
+			for (int j = 0; j < factor.values.length; j++) {
+				// strictly positive, so that the factors can be divided
+				factor.values[j] = 0.05 + random.nextDouble();
+			}
+			factors.add(factor);
+		}
+	}
+
+	// Methods
+
+	/**
+	 * @return The union of the variables of the factors, in order of creation
+	 */
+	public List<Variable> getVariables() {
+		return variables;
+	}
+
+	public List<TablePotential> getFactors() {
+		return factors;
+	}
+}
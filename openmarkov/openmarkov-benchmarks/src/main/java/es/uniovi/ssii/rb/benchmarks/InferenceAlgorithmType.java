@@ -0,0 +1,89 @@
+package es.uniovi.ssii.rb.benchmarks;
+
+import java.util.Map;
+
+import org.openmarkov.core.exception.IncompatibleEvidenceException;
+import org.openmarkov.core.exception.NotEvaluableNetworkException;
+import org.openmarkov.core.exception.UnexpectedInferenceException;
+import org.openmarkov.core.inference.tasks.Propagation;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.inference.huginPropagation.HuginPropagation;
+import org.openmarkov.inference.likelihoodWeighting.LikelihoodWeighting;
+import org.openmarkov.inference.likelihoodWeighting.LogicSampling;
+import org.openmarkov.inference.likelihoodWeighting.StochasticPropagation;
+import org.openmarkov.inference.variableElimination.tasks.VEPropagation;
+
+import es.uniovi.ssii.rb.benchmarks.BenchmarkNetworks.Query;
+
+/**
+ * Inference algorithms measured by the benchmarks
+ */
+public enum InferenceAlgorithmType {
+
+	VE {
+		@Override public Propagation compile(ProbNet probNet, int sampleSize, long seed)
+				throws NotEvaluableNetworkException {
+			return new VEPropagation(probNet);
+		}
+	},
+
+	HUGIN {
+		@Override public Propagation compile(ProbNet probNet, int sampleSize, long seed)
+				throws NotEvaluableNetworkException {
+			HuginPropagation propagation = new HuginPropagation(probNet);
+			propagation.compilePriorPotentials();
+			return propagation;
+		}
+	},
+
+	LOGIC_SAMPLING {
+		@Override public Propagation compile(ProbNet probNet, int sampleSize, long seed)
+				throws NotEvaluableNetworkException {
+			return initialize(new LogicSampling(probNet), sampleSize, seed);
+		}
+	},
+
+	LIKELIHOOD_WEIGHTING {
+		@Override public Propagation compile(ProbNet probNet, int sampleSize, long seed)
+				throws NotEvaluableNetworkException {
+			return initialize(new LikelihoodWeighting(probNet), sampleSize, seed);
+		}
+	};
+
+	/**
+	 * Creates the algorithm and carries out the work that does not depend on the query: the junction tree of
+	 * Hugin, the ancestral order of the samplers, and the checks and the snapshot of the network of all of them
+	 *
+	 * @param probNet    network
+	 * @param sampleSize number of samples of the stochastic algorithms
+	 * @param seed       seed of the stochastic algorithms
+	 * @return the algorithm, ready to receive a query
+	 * @throws NotEvaluableNetworkException if the algorithm can not evaluate the network
+	 */
+	public abstract Propagation compile(ProbNet probNet, int sampleSize, long seed)
+			throws NotEvaluableNetworkException;
+
+	/**
+	 * @param propagation algorithm returned by <code>compile</code>
+	 * @param query       evidence and variables of interest
+	 * @return the posterior probabilities of the variables of interest
+	 * @throws IncompatibleEvidenceException if the evidence has probability zero, or all the samples have weight
+	 *                                       zero
+	 * @throws NotEvaluableNetworkException  if the algorithm can not evaluate the network
+	 * @throws UnexpectedInferenceException  if the inference fails
+	 */
+	public Map<Variable, TablePotential> query(Propagation propagation, Query query)
+			throws IncompatibleEvidenceException, NotEvaluableNetworkException, UnexpectedInferenceException {
+		propagation.setVariablesOfInterest(query.getVariablesOfInterest());
+		propagation.setPostResolutionEvidence(query.getEvidence());
+		return propagation.getPosteriorValues();
+	}
+
+	private static StochasticPropagation initialize(StochasticPropagation propagation, int sampleSize, long seed) {
+		propagation.setSampleSize(sampleSize);
+		propagation.setSeed(seed);
+		return propagation;
+	}
+}
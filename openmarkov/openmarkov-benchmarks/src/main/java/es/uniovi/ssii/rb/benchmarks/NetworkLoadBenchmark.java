@@ -0,0 +1,29 @@
+package es.uniovi.ssii.rb.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openmarkov.core.model.network.ProbNet;
+
+/**
+ * Time to parse each of the bundled networks
+ */
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MILLISECONDS) @Warmup(iterations = 3)
+@Measurement(iterations = 5) @Fork(1) @State(Scope.Benchmark) public class NetworkLoadBenchmark {
+
+	@Param({ "asia.pgmx", "alarm.pgmx", "Child.pgmx", "insurance.pgmx", "water.pgmx", "win95pts.pgmx", "Pigs.pgmx",
+			"Diabetes.pgmx", "Barley.pgmx", "Link.pgmx" }) public String network;
+
+	@Benchmark public ProbNet load() throws Exception {
+		return BenchmarkNetworks.load(network);
+	}
+}
@@ -0,0 +1,23 @@
+package es.uniovi.ssii.rb.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openmarkov.core.model.network.ProbNet;
+
+/**
+ * Network of a benchmark, loaded once per trial
+ */
+@State(Scope.Benchmark) public class NetworkState {
+
+	@Param({ "asia.pgmx", "alarm.pgmx", "Child.pgmx", "insurance.pgmx", "water.pgmx", "win95pts.pgmx", "Pigs.pgmx",
+			"Diabetes.pgmx", "Barley.pgmx", "Link.pgmx" }) public String network;
+
+	ProbNet probNet;
+
+	@Setup(Level.Trial) public void load() throws Exception {
+		probNet = BenchmarkNetworks.load(network);
+	}
+}
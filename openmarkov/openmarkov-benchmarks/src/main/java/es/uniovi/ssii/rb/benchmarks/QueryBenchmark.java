@@ -0,0 +1,105 @@
+package es.uniovi.ssii.rb.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openmarkov.core.exception.IncompatibleEvidenceException;
+import org.openmarkov.core.inference.tasks.Propagation;
+
+import es.uniovi.ssii.rb.benchmarks.BenchmarkNetworks.Query;
+
+/**
+ * Latency of the queries on a compiled algorithm. The queries are drawn, with a fixed seed, from configurations
+ * of the network, so every run of the benchmark evaluates the same compatible evidence sets.
+ * <p>
+ * <code>VEPropagation</code> can not be reused for several queries because it keeps its first result, so each
+ * query needs a freshly compiled algorithm. They are compiled before each iteration, outside the measured time,
+ * and each iteration runs a batch of queries, one per algorithm, measured as a whole: the queries of the small
+ * networks take microseconds, too little to time them one by one. The time reported is that of a query. The
+ * size of the batch can be changed with the <code>-bs</code> and <code>-wbs</code> options of JMH, together
+ * with <code>-opi</code>, so that the time of the batch is divided by the number of queries. As each warmup
+ * iteration runs only a batch, there are many of them.
+ */
+@BenchmarkMode(Mode.SingleShotTime) @OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 30, batchSize = QueryBenchmark.BATCH_SIZE)
+@Measurement(iterations = 10, batchSize = QueryBenchmark.BATCH_SIZE)
+@OperationsPerInvocation(QueryBenchmark.BATCH_SIZE) @Fork(1) @State(Scope.Thread) public class QueryBenchmark {
+
+	static final int DEFAULT_SAMPLE_SIZE = 10000;
+
+	static final long SEED = 9762L;
+
+	static final int BATCH_SIZE = 32;
+
+	private static final int NUM_QUERIES = 16;
+
+	@Param({ "VE", "HUGIN", "LOGIC_SAMPLING", "LIKELIHOOD_WEIGHTING" }) public InferenceAlgorithmType algorithm;
+
+	@Param({ "0", "2", "5" }) public int numFindings;
+
+	@Param({ "6" }) public int numVariablesOfInterest;
+
+	@Param({ "" + DEFAULT_SAMPLE_SIZE }) public int sampleSize;
+
+	private List<Query> queries;
+
+	private int nextQuery;
+
+	/**
+	 * Queries of the batch of the current iteration and the algorithms compiled for them
+	 */
+	private Query[] batchQueries;
+
+	private Propagation[] propagations;
+
+	private int nextInvocation;
+
+	@Setup(Level.Trial) public void createQueries(NetworkState networkState) throws Exception {
+		queries = BenchmarkNetworks
+				.createQueries(networkState.probNet, NUM_QUERIES, numFindings, numVariablesOfInterest, SEED);
+		nextQuery = 0;
+	}
+
+	@Setup(Level.Iteration) public void compile(NetworkState networkState, IterationParams iterationParams)
+			throws Exception {
+		int batchSize = iterationParams.getBatchSize();
+		batchQueries = new Query[batchSize];
+		propagations = new Propagation[batchSize];
+		for (int i = 0; i < batchSize; i++) {
+			batchQueries[i] = queries.get(nextQuery);
+			nextQuery = (nextQuery + 1) % queries.size();
+			propagations[i] = algorithm.compile(networkState.probNet, sampleSize, SEED);
+		}
+		nextInvocation = 0;
+	}
+
+	/**
+	 * @return the posterior probabilities, or the exception when all the samples of logic sampling contradict
+	 * the evidence, which is the expected outcome with many findings
+	 */
+	@Benchmark public Object query() throws Exception {
+		Propagation propagation = propagations[nextInvocation];
+		// Released as soon as it is used, so the batch does not keep the results of all the queries
+		propagations[nextInvocation] = null;
+		Query query = batchQueries[nextInvocation++];
+		try {
+			return algorithm.query(propagation, query);
+		} catch (IncompatibleEvidenceException e) {
+			return e;
+		}
+	}
+}
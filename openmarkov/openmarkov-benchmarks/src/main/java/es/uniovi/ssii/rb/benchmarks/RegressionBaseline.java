@@ -0,0 +1,178 @@
+package es.uniovi.ssii.rb.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+/**
+ * Baseline of the scores of a set of benchmarks, stored as a tab separated file with one line per benchmark and
+ * combination of parameters:
+ *
+ * <pre>
+ * benchmark	parameters	mode	score	error	unit
+ * </pre>
+ * <p>
+ * A new result is a regression when its score is worse than the score of the baseline by more than the relative
+ * tolerance. The errors are only stored for reference: with few iterations they are too wide to be discounted
+ * without hiding regressions. The time modes are better when lower and the throughput is better when higher.
+ */
+public class RegressionBaseline {
+
+	private static final String HEADER = "benchmark\tparameters\tmode\tscore\terror\tunit";
+
+	// Attributes
+	private final Map<String, Entry> entries;
+
+	// Constructor
+	private RegressionBaseline(Map<String, Entry> entries) {
+		this.entries = entries;
+	}
+
+	// Methods
+
+	/**
+	 * @param runResults results of a run of JMH
+	 * @return The baseline with the primary result of each benchmark
+	 */
+	public static RegressionBaseline of(Collection<RunResult> runResults) {
+		Map<String, Entry> entries = new LinkedHashMap<>();
+		for (RunResult runResult : runResults) {
+			BenchmarkParams params = runResult.getParams();
+			Result<?> result = runResult.getPrimaryResult();
+			Entry entry = new Entry(params.getBenchmark(), getParameters(params), params.getMode().shortLabel(),
+					result.getScore(), result.getScoreError(), result.getScoreUnit());
+			entries.put(entry.getKey(), entry);
+		}
+		return new RegressionBaseline(entries);
+	}
+
+	/**
+	 * @param path file written by <code>write</code>
+	 * @return The baseline stored in <code>path</code>
+	 * @throws IOException if the file can not be read or has a wrong format
+	 */
+	public static RegressionBaseline read(Path path) throws IOException {
+		Map<String, Entry> entries = new LinkedHashMap<>();
+		List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+		for (int i = 1; i < lines.size(); i++) {
+			String line = lines.get(i);
+			if (line.isEmpty()) {
+				continue;
+			}
+			String[] fields = line.split("\t", -1);
+			if (fields.length != 6) {
+				throw new IOException(path + ":" + (i + 1) + ": expected 6 fields but found " + fields.length);
+			}
+			try {
+				Entry entry = new Entry(fields[0], fields[1], fields[2], Double.parseDouble(fields[3]),
+						Double.parseDouble(fields[4]), fields[5]);
+				entries.put(entry.getKey(), entry);
+			} catch (NumberFormatException e) {
+				throw new IOException(path + ":" + (i + 1) + ": " + e.getMessage());
+			}
+		}
+		return new RegressionBaseline(entries);
+	}
+
+	/**
+	 * @param path file where the baseline is written. Its directory is created if it does not exist
+	 * @throws IOException if the file can not be written
+	 */
+	public void write(Path path) throws IOException {
+		List<String> lines = new ArrayList<>(entries.size() + 1);
+		lines.add(HEADER);
+		for (Entry entry : entries.values()) {
+			lines.add(entry.toString());
+		}
+		if (path.toAbsolutePath().getParent() != null) {
+			Files.createDirectories(path.toAbsolutePath().getParent());
+		}
+		Files.write(path, lines, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param current   scores of the current run
+	 * @param tolerance relative worsening allowed, for example 0.1 for a 10 %
+	 * @return A description of each benchmark of <code>current</code> that is a regression with respect to this
+	 * baseline. The benchmarks that are not in the baseline are ignored
+	 */
+	public List<String> getRegressions(RegressionBaseline current, double tolerance) {
+		List<String> regressions = new ArrayList<>();
+		for (Entry entry : current.entries.values()) {
+			Entry baselineEntry = entries.get(entry.getKey());
+			if (baselineEntry != null && entry.isRegressionOf(baselineEntry, tolerance)) {
+				regressions.add(String.format(Locale.ROOT, "%s [%s] %s: %.3f %s, baseline %.3f %s (%+.1f %%)",
+						entry.benchmark, entry.parameters, entry.mode, entry.score, entry.unit, baselineEntry.score,
+						baselineEntry.unit, 100 * (entry.score - baselineEntry.score) / baselineEntry.score));
+			}
+		}
+		return regressions;
+	}
+
+	private static String getParameters(BenchmarkParams params) {
+		StringBuilder parameters = new StringBuilder();
+		for (String key : params.getParamsKeys()) {
+			if (parameters.length() > 0) {
+				parameters.append(',');
+			}
+			parameters.append(key).append('=').append(params.getParam(key));
+		}
+		return parameters.toString();
+	}
+
+	/**
+	 * Score of a benchmark with a combination of parameters
+	 */
+	private static class Entry {
+		private final String benchmark;
+
+		private final String parameters;
+
+		private final String mode;
+
+		private final double score;
+
+		private final double error;
+
+		private final String unit;
+
+		private Entry(String benchmark, String parameters, String mode, double score, double error, String unit) {
+			this.benchmark = benchmark;
+			this.parameters = parameters;
+			this.mode = mode;
+			this.score = score;
+			// JMH does not estimate the error with a single iteration
+			this.error = Double.isNaN(error) ? 0 : error;
+			this.unit = unit;
+		}
+
+		private String getKey() {
+			return benchmark + "\t" + parameters + "\t" + mode;
+		}
+
+		private boolean isRegressionOf(Entry baseline, double tolerance) {
+			if (!unit.equals(baseline.unit)) {
+				return false;
+			}
+			if ("thrpt".equals(mode)) {
+				return score < baseline.score * (1 - tolerance);
+			}
+			return score > baseline.score * (1 + tolerance);
+		}
+
+		@Override public String toString() {
+			return getKey() + "\t" + score + "\t" + error + "\t" + unit;
+		}
+	}
+}
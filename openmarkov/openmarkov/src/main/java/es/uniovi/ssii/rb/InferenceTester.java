@@ -96,7 +96,7 @@ public class InferenceTester {
 
 		propagation.setPostResolutionEvidence(evidence);
 
-		System.out.print("Variable elimination\n");
+		System.out.print("Hugin propagation\n");
 		long startTime = System.nanoTime();
 		try {
 			Map<Variable, TablePotential> posteriorProbabilities = propagation.getPosteriorValues();
@@ -126,7 +126,7 @@ public class InferenceTester {
 
 		propagation.setPostResolutionEvidence(evidence);
 
-		System.out.print("Variable elimination\n");
+		System.out.print("Logic sampling\n");
 		long startTime = System.nanoTime();
 		try {
 			Map<Variable, TablePotential> posteriorProbabilities = propagation.getPosteriorValues();
@@ -156,7 +156,7 @@ public class InferenceTester {
 
 		propagation.setPostResolutionEvidence(evidence);
 
-		System.out.print("Variable elimination\n");
+		System.out.print("Likelihood weighting\n");
 		long startTime = System.nanoTime();
 		try {
 			Map<Variable, TablePotential> posteriorProbabilities = propagation.getPosteriorValues();
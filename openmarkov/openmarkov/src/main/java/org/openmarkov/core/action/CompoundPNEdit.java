@@ -21,7 +21,7 @@ import org.openmarkov.core.model.network.ProbNet;
  * A compound edit is a complex edition composed of several editions. This is an
  * abstract class.
  */
-@SuppressWarnings("serial") public abstract class CompoundPNEdit extends CompoundEdit implements PNEdit {
+@SuppressWarnings("serial") public abstract class CompoundPNEdit extends CompoundEdit implements PNEdit, MemoryBoundedEdit {
 	// Attribute
 	protected ProbNet probNet;
 	private boolean generatedEdits;
@@ -85,4 +85,23 @@ import org.openmarkov.core.model.network.ProbNet;
 		return probNet;
 	}
 
+	/**
+	 * @return The sum of the estimated sizes of the edits that compose this edit
+	 */
+	@Override public long getEstimatedSize() {
+		long size = OBJECT_SIZE;
+		for (UndoableEdit edit : edits) {
+			size += (edit instanceof MemoryBoundedEdit) ? ((MemoryBoundedEdit) edit).getEstimatedSize() : OBJECT_SIZE;
+		}
+		return size;
+	}
+
+	@Override public void compact(UndoSpillFile spillFile) {
+		for (UndoableEdit edit : edits) {
+			if (edit instanceof MemoryBoundedEdit) {
+				((MemoryBoundedEdit) edit).compact(spillFile);
+			}
+		}
+	}
+
 }
@@ -51,7 +51,7 @@ import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOp
  * 5. Calculate P(x|a, b, c, y) through P(x|a, b, c, y) = P(x, y|a, b, c) / P(y|a, b, c) and assign to node X this probability.
  */
 @SuppressWarnings("serial")
-public class InvertLinkAndUpdatePotentialsEdit extends BaseLinkEdit {
+public class InvertLinkAndUpdatePotentialsEdit extends BaseLinkEdit implements MemoryBoundedEdit {
 
     // Logger
     protected Logger logger;
@@ -285,6 +285,21 @@ public class InvertLinkAndUpdatePotentialsEdit extends BaseLinkEdit {
 		return "Invert link and update potentials";
 	}
 
+	@Override public long getEstimatedSize() {
+		long size = OBJECT_SIZE + MemoryBoundedEdit.estimateSize(parentsOldPotentials) + MemoryBoundedEdit
+				.estimateSize(childsOldPotentials);
+		if (xNewPotential != null) {
+			size += MemoryBoundedEdit.estimateSize(xNewPotential) + MemoryBoundedEdit.estimateSize(yNewPotential);
+		}
+		return size;
+	}
+
+	/**
+	 * The potentials are computed by the edit, so they are kept whole
+	 */
+	@Override public void compact(UndoSpillFile spillFile) {
+	}
+
 	public String toString() {
 		return "Invert link and update potentials: " + variable1 + "-->" + variable2 + " ==> " + variable1 + "<--" + variable2;
 	}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.action;
+
+import java.util.Collection;
+
+import org.openmarkov.core.model.network.potential.ExactDistrPotential;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.TablePotential;
+
+/**
+ * Edit that estimates the memory it keeps for undo and redo, so that <code>UndoManagerSupport</code> can bound
+ * the memory of the undo history, and that can reduce it once it is no longer the last edit done.
+ */
+public interface MemoryBoundedEdit {
+
+	/**
+	 * Bytes assumed for an object whose size is not estimated
+	 */
+	long OBJECT_SIZE = 64;
+
+	/**
+	 * @return Estimated number of bytes kept by this edit
+	 */
+	long getEstimatedSize();
+
+	/**
+	 * Reduces the memory kept by this edit. It is only invoked on edits that are not the last one done, so the
+	 * listeners of the network have already received them.
+	 *
+	 * @param spillFile file where the edit can move its data. It can be null
+	 */
+	void compact(UndoSpillFile spillFile);
+
+	/**
+	 * @param potential <code>Potential</code>
+	 * @return Estimated number of bytes of <code>potential</code>
+	 */
+	static long estimateSize(Potential potential) {
+		if (potential instanceof TablePotential) {
+			double[] values = ((TablePotential) potential).values;
+			return OBJECT_SIZE + (values != null ? 8L * values.length : 0);
+		}
+		if (potential instanceof ExactDistrPotential) {
+			return OBJECT_SIZE + estimateSize(((ExactDistrPotential) potential).getTablePotential());
+		}
+		return OBJECT_SIZE;
+	}
+
+	/**
+	 * @param potentials <code>Collection</code> of <code>Potential</code>. It can be null
+	 * @return Estimated number of bytes of <code>potentials</code>
+	 */
+	static long estimateSize(Collection<? extends Potential> potentials) {
+		long size = 0;
+		if (potentials != null) {
+			for (Potential potential : potentials) {
+				size += estimateSize(potential);
+			}
+		}
+		return size;
+	}
+}
@@ -19,6 +19,7 @@ import org.openmarkov.core.exception.ConstraintViolationException;
 import org.openmarkov.core.exception.DoEditException;
 import org.openmarkov.core.exception.NonProjectablePotentialException;
 import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.model.network.ProbNet;
 import org.openmarkov.core.model.network.constraint.PNConstraint;
 
 /**
@@ -29,6 +30,9 @@ import org.openmarkov.core.model.network.constraint.PNConstraint;
  * <li>If the action is not vetoed (with a {@code Exception}) for a
  * listener it does the edition.
  * </ol>
+ * Several edits can be grouped in a transaction (see {@code beginTransaction}): they are neither announced
+ * nor checked one by one, the constraints check the resulting network once when the transaction is committed
+ * and the listeners receive a single {@code TransactionEdit}.
  *
  * @author marias
  */
@@ -58,6 +62,21 @@ public class PNESupport extends UndoableEditSupport {
 	 */
 	private Stack<OpenParenthesisEdit> openParenthesisStack;
 
+	/**
+	 * Edits of the transaction in progress, or null
+	 */
+	private TransactionEdit transaction;
+
+	/**
+	 * Number of nested transactions in progress
+	 */
+	private int transactionDepth;
+
+	/**
+	 * Number of edits done, undone or redone
+	 */
+	private long modificationCount;
+
 	// Constructor
 
 	/**
@@ -91,6 +110,10 @@ public class PNESupport extends UndoableEditSupport {
 	public void announceEdit(PNEdit edit)
 			throws ConstraintViolationException, NonProjectablePotentialException,
 			WrongCriterionException {
+		if (transaction != null) {
+			// The constraints are checked when the transaction is committed
+			return;
+		}
 		UndoableEditEvent event = new UndoableEditEvent(this, edit);
 		for (UndoableEditListener listener : listeners) {
 			((PNUndoableEditListener) listener).undoableEditWillHappen(event);
@@ -110,6 +133,11 @@ public class PNESupport extends UndoableEditSupport {
 		// May return an exception
 
 		edit.doEdit();
+		modificationCount++;
+		if (transaction != null) {
+			transaction.addDoneEdit(edit);
+			return;
+		}
 		if (withUndo) {
 			//edit.setSignificant(significantEdits);
 			//editCount++;
@@ -146,6 +174,7 @@ public class PNESupport extends UndoableEditSupport {
 				} while (!openParenthesisFound);
 			}
 			undoManagerSupport.undo();
+			modificationCount++;
 			for (UndoableEditListener listener : listeners) {
 				((PNUndoableEditListener) listener).undoEditHappened(event);
 			}
@@ -160,6 +189,7 @@ public class PNESupport extends UndoableEditSupport {
 		if (withUndo && undoManagerSupport.canRedo()) {
 			UndoableEditEvent event = new UndoableEditEvent(this, undoManagerSupport.editToBeRedone());
 			undoManagerSupport.redo();
+			modificationCount++;
 			for (UndoableEditListener listener : listeners) {
 				((PNUndoableEditListener) listener).undoableEditHappened(event);
 			}
@@ -297,6 +327,7 @@ public class PNESupport extends UndoableEditSupport {
 				}
 				undoManagerSupport.undo();
 				numberOfEditsToBeDeleted++;
+				modificationCount++;
 
 				UndoableEditEvent eventDeleted = new UndoableEditEvent(this, null);
 				for (UndoableEditListener listener : listeners) {
@@ -320,4 +351,92 @@ public class PNESupport extends UndoableEditSupport {
 		return openParenthesisStack;
 	}
 
+	/**
+	 * Starts a transaction. Until it is committed, the edits are done without announcing them to the listeners,
+	 * so the constraints do not check them, and without storing them for undo. Transactions can be nested: only
+	 * the outermost one is committed.
+	 *
+	 * @param probNet {@code ProbNet} edited
+	 */
+	public void beginTransaction(ProbNet probNet) {
+		if (transactionDepth++ == 0) {
+			transaction = new TransactionEdit(probNet);
+		}
+	}
+
+	/**
+	 * Ends the transaction. When it is the outermost one, the constraints check the network; if all of them are
+	 * fulfilled, or were not fulfilled before the transaction either, the edits of the transaction are stored
+	 * for undo as a single {@code TransactionEdit}, which is notified to the listeners. Otherwise the edits are
+	 * undone.
+	 *
+	 * @throws ConstraintViolationException if the network does not fulfill a constraint. The transaction is
+	 *                                      rolled back
+	 */
+	public void commitTransaction() throws ConstraintViolationException {
+		if (transactionDepth == 0) {
+			throw new IllegalStateException("There is no transaction in progress.");
+		}
+		if (--transactionDepth > 0) {
+			return;
+		}
+		TransactionEdit transaction = this.transaction;
+		this.transaction = null;
+		transaction.end();
+		if (transaction.getNumEdits() == 0) {
+			return;
+		}
+		ProbNet probNet = transaction.getProbNet();
+		for (UndoableEditListener listener : listeners) {
+			if (listener instanceof PNConstraint && !((PNConstraint) listener).checkProbNet(probNet)) {
+				transaction.undo();
+				modificationCount++;
+				// The edits, which have not been checked one by one, are only rejected if the network
+				// fulfilled the constraint before the transaction
+				if (((PNConstraint) listener).checkProbNet(probNet)) {
+					throw new ConstraintViolationException("The transaction violates the constraint " + listener);
+				}
+				transaction.redo();
+				modificationCount++;
+			}
+		}
+		if (withUndo) {
+			undoManagerSupport.addEdit(transaction);
+		}
+		postEdit(transaction);
+	}
+
+	/**
+	 * Undoes the edits of the transaction in progress, including those of the nested transactions, and ends it
+	 * without notifying the listeners.
+	 */
+	public void rollbackTransaction() {
+		if (transactionDepth == 0) {
+			throw new IllegalStateException("There is no transaction in progress.");
+		}
+		TransactionEdit transaction = this.transaction;
+		this.transaction = null;
+		transactionDepth = 0;
+		transaction.end();
+		if (transaction.getNumEdits() > 0) {
+			transaction.undo();
+			modificationCount++;
+		}
+	}
+
+	/**
+	 * @return The number of edits done, undone or redone through this object, which changes whenever the network
+	 * is modified by an edit
+	 */
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
+	/**
+	 * @return {@code true} if there is a transaction in progress
+	 */
+	public boolean isInTransaction() {
+		return transactionDepth > 0;
+	}
+
 }
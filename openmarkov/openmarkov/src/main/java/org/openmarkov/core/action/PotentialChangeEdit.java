@@ -7,20 +7,53 @@
 
 package org.openmarkov.core.action;
 
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import javax.swing.undo.CannotUndoException;
+
 import org.openmarkov.core.exception.DoEditException;
+import org.openmarkov.core.model.network.Node;
 import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
 
 /**
- * Changes an old potential for a new potential
+ * Changes an old potential for a new potential.
+ * <p>
+ * When both potentials are tables that only differ in their values, <code>compact</code> replaces them by a
+ * <code>TableDiff</code>: the edit keeps them only weakly and, when undone or redone, it rebuilds the potential
+ * that is not in the network from the one that is.
  */
-@SuppressWarnings("serial") public class PotentialChangeEdit extends SimplePNEdit {
+@SuppressWarnings("serial") public class PotentialChangeEdit extends SimplePNEdit implements MemoryBoundedEdit {
 
 	// Attribute
 	private Potential newPotential;
 
 	private Potential oldPotential;
 
+	// Compact form of the edit
+	private TableDiff diff;
+
+	private WeakReference<Potential> weakNewPotential;
+
+	private WeakReference<Potential> weakOldPotential;
+
+	private List<Variable> variables;
+
+	private PotentialRole role;
+
+	private int newHashCode;
+
+	private int oldHashCode;
+
+	// True when the old potential is in the network
+	private boolean undone;
+
 	// Constructor
 
 	/**
@@ -35,31 +68,155 @@ import org.openmarkov.core.model.network.potential.Potential;
 	}
 
 	@Override public void doEdit() throws DoEditException {
-		if (probNet.removePotential(oldPotential) == null) {
-			throw new DoEditException("Can not remove potential: " + oldPotential.toString());
+		Potential oldPotential = getOldPotential();
+		if (oldPotential == null || probNet.removePotential(oldPotential) == null) {
+			throw new DoEditException("Can not remove potential: " + oldPotential);
 		}
-		probNet.addPotential(newPotential);
+		probNet.addPotential(getNewPotential());
+		undone = false;
 	}
 
 	public void undo() {
 		super.undo();
+		Potential newPotential = getNewPotential();
+		if (newPotential == null) {
+			throw new CannotUndoException();
+		}
+		Potential oldPotential = getOldPotential();
 		probNet.removePotential(newPotential);
 		probNet.addPotential(oldPotential);
+		undone = true;
 	}
 
 	/**
 	 * @return A {@code String} with the variables of both potentials.
 	 */
 	public String toString() {
+		if (diff != null) {
+			return "ChangePotentialEdit: " + variables + " --> " + variables;
+		}
 		return "ChangePotentialEdit: " + oldPotential.getVariables() + " --> " + newPotential.getVariables();
 	}
 
 	public Potential getNewPotential() {
-		return newPotential;
+		return (diff == null) ? newPotential : resolve(true);
 	}
 
 	public Potential getOldPotential() {
-		return oldPotential;
+		return (diff == null) ? oldPotential : resolve(false);
+	}
+
+	@Override public long getEstimatedSize() {
+		if (diff != null) {
+			return OBJECT_SIZE + diff.getEstimatedSize();
+		}
+		// The other potential is in the network
+		return OBJECT_SIZE + MemoryBoundedEdit.estimateSize(undone ? newPotential : oldPotential);
+	}
+
+	@Override public void compact(UndoSpillFile spillFile) {
+		if (diff == null) {
+			if (!isCompactable()) {
+				return;
+			}
+			double[] oldValues = ((TablePotential) oldPotential).values;
+			double[] newValues = ((TablePotential) newPotential).values;
+			TableDiff tableDiff = TableDiff.between(oldValues, newValues);
+			if (spillFile == null && tableDiff.getEstimatedSize() >= MemoryBoundedEdit
+					.estimateSize(undone ? newPotential : oldPotential)) {
+				// Most of the values have changed: the difference would not save memory
+				return;
+			}
+			diff = tableDiff;
+			variables = newPotential.getVariables();
+			role = newPotential.getPotentialRole();
+			newHashCode = Arrays.hashCode(newValues);
+			oldHashCode = Arrays.hashCode(oldValues);
+			weakNewPotential = new WeakReference<>(newPotential);
+			weakOldPotential = new WeakReference<>(oldPotential);
+			newPotential = null;
+			oldPotential = null;
+		}
+		if (spillFile != null) {
+			diff.spill(spillFile);
+		}
+	}
+
+	/**
+	 * @return True if both potentials are tables that only differ in their values
+	 */
+	private boolean isCompactable() {
+		if (oldPotential == null || newPotential == null || oldPotential.getClass() != TablePotential.class
+				|| newPotential.getClass() != TablePotential.class) {
+			return false;
+		}
+		TablePotential oldTable = (TablePotential) oldPotential;
+		TablePotential newTable = (TablePotential) newPotential;
+		return oldTable.getNumVariables() > 0 && oldTable.getVariables().equals(newTable.getVariables())
+				&& oldTable.getPotentialRole() == newTable.getPotentialRole()
+				&& oldTable.getCriterion() == newTable.getCriterion()
+				&& Objects.equals(oldTable.getComment(), newTable.getComment())
+				&& oldTable.getInitialPosition() == newTable.getInitialPosition()
+				&& oldTable.uncertainValues == newTable.uncertainValues
+				&& oldTable.strategyTrees == newTable.strategyTrees && oldTable.values != null
+				&& newTable.values != null && oldTable.values.length == newTable.values.length;
+	}
+
+	/**
+	 * @param newSide true for the new potential and false for the old one
+	 * @return The potential while it is alive; otherwise, the potential found in the network or rebuilt from
+	 * the other one, or null if the network no longer contains the one it should
+	 */
+	private Potential resolve(boolean newSide) {
+		WeakReference<Potential> reference = newSide ? weakNewPotential : weakOldPotential;
+		Potential potential = reference.get();
+		if (potential == null) {
+			if (newSide != undone) {
+				potential = findInNetwork(newSide ? newHashCode : oldHashCode);
+			} else {
+				Potential other = resolve(!newSide);
+				potential = (other != null) ? rebuild((TablePotential) other, newSide) : null;
+			}
+			if (newSide) {
+				weakNewPotential = new WeakReference<>(potential);
+			} else {
+				weakOldPotential = new WeakReference<>(potential);
+			}
+		}
+		return potential;
+	}
+
+	/**
+	 * The potential kept by this edit may have been replaced in the network by an equal one rebuilt by another
+	 * edit, so it is looked for by content.
+	 *
+	 * @param hashCode hash code of the values of the potential
+	 * @return The table of the network with the variables, role and values of the potential, or null
+	 */
+	private Potential findInNetwork(int hashCode) {
+		Node node = probNet.getNode(variables.get(0));
+		if (node != null) {
+			for (Potential potential : node.getPotentials()) {
+				if (potential.getClass() == TablePotential.class && potential.getPotentialRole() == role
+						&& potential.getVariables().equals(variables)
+						&& Arrays.hashCode(((TablePotential) potential).values) == hashCode) {
+					return potential;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param other   potential of the other side of the edit
+	 * @param newSide true to rebuild the new potential and false to rebuild the old one
+	 * @return A copy of <code>other</code> with the values of the potential rebuilt
+	 */
+	private TablePotential rebuild(TablePotential other, boolean newSide) {
+		TablePotential potential = new TablePotential(other);
+		potential.setCriterion(other.getCriterion());
+		diff.applyTo(potential.values, newSide);
+		return potential;
 	}
 
 }
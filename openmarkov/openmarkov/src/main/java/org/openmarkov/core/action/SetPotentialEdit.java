@@ -82,7 +82,7 @@ import org.openmarkov.core.model.network.potential.plugin.PotentialType;
 
 		List<Potential> potentials = new ArrayList<>();
 		if (newPotential == null) {
-			PotentialManager relationTypeManager = new PotentialManager();
+			PotentialManager relationTypeManager = PotentialManager.getUniqueInstance();
 
 			if (newPotentialType.equals(PotentialManager.getPotentialName(CycleLengthShift.class))) {
 				newPotential = relationTypeManager
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.action;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Sparse difference between two tables of the same length. It stores the positions that differ with their
+ * old and new values, so each table can be rebuilt from the other one. The difference can be moved to an
+ * <code>UndoSpillFile</code>, from which it is read each time it is applied.
+ */
+class TableDiff {
+
+	// Attributes
+	private final int length;
+
+	private int[] positions;
+
+	private double[] oldValues;
+
+	private double[] newValues;
+
+	private UndoSpillFile spillFile;
+
+	private long spillPosition;
+
+	// Constructor
+	private TableDiff(int[] positions, double[] oldValues, double[] newValues) {
+		this.length = positions.length;
+		this.positions = positions;
+		this.oldValues = oldValues;
+		this.newValues = newValues;
+	}
+
+	// Methods
+
+	/**
+	 * @param oldTable old values
+	 * @param newTable new values, with the same length as <code>oldTable</code>
+	 * @return The difference between both tables
+	 */
+	static TableDiff between(double[] oldTable, double[] newTable) {
+		int[] positions = new int[16];
+		int length = 0;
+		for (int i = 0; i < oldTable.length; i++) {
+			// Bitwise comparison, so that NaN and -0.0 are restored exactly
+			if (Double.doubleToRawLongBits(oldTable[i]) != Double.doubleToRawLongBits(newTable[i])) {
+				if (length == positions.length) {
+					positions = Arrays.copyOf(positions, 2 * length);
+				}
+				positions[length++] = i;
+			}
+		}
+		positions = Arrays.copyOf(positions, length);
+		double[] oldValues = new double[length];
+		double[] newValues = new double[length];
+		for (int i = 0; i < length; i++) {
+			oldValues[i] = oldTable[positions[i]];
+			newValues[i] = newTable[positions[i]];
+		}
+		return new TableDiff(positions, oldValues, newValues);
+	}
+
+	/**
+	 * @param tableLength length of the tables
+	 * @return Estimated number of bytes of a difference of <code>tableLength</code> positions
+	 */
+	static long estimateSize(int tableLength) {
+		return MemoryBoundedEdit.OBJECT_SIZE + 20L * tableLength;
+	}
+
+	/**
+	 * @return Number of positions that differ
+	 */
+	int getLength() {
+		return length;
+	}
+
+	/**
+	 * @return Estimated number of bytes kept in memory
+	 */
+	long getEstimatedSize() {
+		return (spillFile == null) ? estimateSize(length) : MemoryBoundedEdit.OBJECT_SIZE;
+	}
+
+	/**
+	 * Writes the new or the old values in <code>table</code>
+	 *
+	 * @param table     table to modify
+	 * @param newValues true to write the new values and false to write the old ones
+	 */
+	void applyTo(double[] table, boolean newValues) {
+		int[] positions = this.positions;
+		double[] values = newValues ? this.newValues : this.oldValues;
+		if (spillFile != null) {
+			ByteBuffer buffer = spillFile.read(spillPosition, 20 * length);
+			positions = new int[length];
+			buffer.asIntBuffer().get(positions);
+			buffer.position(4 * length + (newValues ? 8 * length : 0));
+			values = new double[length];
+			buffer.asDoubleBuffer().get(values);
+		}
+		for (int i = 0; i < length; i++) {
+			table[positions[i]] = values[i];
+		}
+	}
+
+	/**
+	 * Moves the difference to <code>spillFile</code>
+	 *
+	 * @param spillFile <code>UndoSpillFile</code>
+	 */
+	void spill(UndoSpillFile spillFile) {
+		if (this.spillFile != null || length == 0) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(20 * length);
+		buffer.asIntBuffer().put(positions);
+		buffer.position(4 * length);
+		buffer.asDoubleBuffer().put(oldValues);
+		buffer.position(12 * length);
+		buffer.asDoubleBuffer().put(newValues);
+		buffer.rewind();
+		spillPosition = spillFile.write(buffer);
+		this.spillFile = spillFile;
+		positions = null;
+		oldValues = null;
+		newValues = null;
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.action;
+
+import javax.swing.undo.UndoableEdit;
+
+import org.openmarkov.core.model.network.ProbNet;
+
+/**
+ * Edits done in a transaction of a <code>PNESupport</code>. They are applied as they are done, and the
+ * transaction is stored for undo and announced to the listeners as a single edit when it is committed.
+ *
+ * @see PNESupport#beginTransaction(ProbNet)
+ */
+@SuppressWarnings("serial") public class TransactionEdit extends CompoundPNEdit {
+
+	// Constructor
+
+	/**
+	 * @param probNet <tt>ProbNet</tt>
+	 */
+	public TransactionEdit(ProbNet probNet) {
+		super(probNet);
+	}
+
+	// Methods
+
+	/**
+	 * The edits are added as they are done
+	 */
+	@Override public void generateEdits() {
+	}
+
+	/**
+	 * @param edit edit already done
+	 */
+	void addDoneEdit(PNEdit edit) {
+		edits.add(edit);
+	}
+
+	/**
+	 * @return Number of edits of the transaction
+	 */
+	public int getNumEdits() {
+		return edits.size();
+	}
+
+	public String toString() {
+		StringBuilder buffer = new StringBuilder("TransactionEdit: ");
+		buffer.append(edits.size()).append(" edits");
+		for (UndoableEdit edit : edits) {
+			buffer.append("\n  ").append(edit);
+		}
+		return buffer.toString();
+	}
+
+}
@@ -7,7 +7,10 @@
 
 package org.openmarkov.core.action;
 
+import java.io.IOException;
 import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Vector;
 
 import javax.swing.UIManager;
@@ -21,6 +24,11 @@ import javax.swing.undo.UndoableEdit;
 
 /**
  * This class is based on undoManager copy from Sun by Ray Ryan.
+ * <p>
+ * Besides the limit in the number of edits, it bounds the estimated memory kept by the edits: when the
+ * byte limit is exceeded, the <code>MemoryBoundedEdit</code>s older than the last one done are compacted and,
+ * if that is not enough, the oldest edits are discarded. The edits between an <code>OpenParenthesisEdit</code>
+ * and its <code>CloseParenthesisEdit</code> are discarded together.
  *
  * @author Miguel Palacios
  */
@@ -33,6 +41,23 @@ public class UndoManagerSupport extends CompoundEdit implements UndoableEditList
 	int indexOfNextAdd;
 	int limit;
 
+	/**
+	 * Default maximum number of bytes kept by the edits
+	 */
+	public static final long DEFAULT_BYTE_LIMIT = 256L << 20;
+
+	// Bytes assumed for the edits that do not estimate their size
+	private static final long DEFAULT_EDIT_SIZE = MemoryBoundedEdit.OBJECT_SIZE;
+
+	long byteLimit = DEFAULT_BYTE_LIMIT;
+
+	// Estimated size of each edit kept
+	private Map<UndoableEdit, Long> editSizes = new IdentityHashMap<>();
+
+	private long estimatedSize;
+
+	private transient UndoSpillFile spillFile;
+
 	/**
 	 * Creates a new {@code UndoManager}.
 	 */
@@ -93,6 +118,8 @@ public class UndoManagerSupport extends CompoundEdit implements UndoableEditList
 		}
 		edits = new Vector();
 		indexOfNextAdd = 0;
+		editSizes.clear();
+		estimatedSize = 0;
 		// TODO: PENDING(rjrjr) when vector grows a removeRange() method
 		// (expected in JDK 1.2), trimEdits() will be nice and
 		// efficient, and this method can call that instead.
@@ -164,6 +191,7 @@ public class UndoManagerSupport extends CompoundEdit implements UndoableEditList
 				//              System.out.println("JUM: Discarding " +
 				//                                 e.getUndoPresentationName());
 				e.die();
+				forgetSize(e);
 				// PENDING(rjrjr) when Vector supports range deletion (JDK
 				// 1.2) , we can optimize the next line considerably.
 				edits.removeElementAt(i);
@@ -424,9 +452,13 @@ public class UndoManagerSupport extends CompoundEdit implements UndoableEditList
 		// this UndoManager is no longer in progress). So make sure
 		// the indexOfNextAdd is pointed at the right place.
 		indexOfNextAdd = edits.size();
+		if (indexOfNextAdd > 0 && edits.lastElement() == anEdit) {
+			updateSize(anEdit);
+		}
 
 		// Enforce the limit
 		trimForLimit();
+		trimForByteLimit();
 
 		return retVal;
 	}
@@ -530,7 +562,8 @@ public class UndoManagerSupport extends CompoundEdit implements UndoableEditList
 	 * @return a String representation of this object
 	 */
 	public String toString() {
-		return super.toString() + " limit: " + limit + " indexOfNextAdd: " + indexOfNextAdd;
+		return super.toString() + " limit: " + limit + " indexOfNextAdd: " + indexOfNextAdd + " byteLimit: "
+				+ byteLimit + " estimatedSize: " + estimatedSize;
 	}
 
 	//Finish code of UndoManager from Sun
@@ -542,4 +575,115 @@ public class UndoManagerSupport extends CompoundEdit implements UndoableEditList
 
 	}
 
+	/**
+	 * @return The maximum number of bytes kept by the edits. A value less than 0 indicates that it is not limited
+	 */
+	public synchronized long getByteLimit() {
+		return byteLimit;
+	}
+
+	/**
+	 * Sets the maximum number of bytes kept by the edits, compacting and discarding edits if needed. A value less
+	 * than 0 indicates that it is not limited. The default is <code>DEFAULT_BYTE_LIMIT</code>.
+	 *
+	 * @param byteLimit the new limit
+	 */
+	public synchronized void setByteLimit(long byteLimit) {
+		this.byteLimit = byteLimit;
+		trimForByteLimit();
+	}
+
+	/**
+	 * @return The estimated number of bytes kept by the edits
+	 */
+	public synchronized long getEstimatedSize() {
+		return estimatedSize;
+	}
+
+	/**
+	 * When <code>spill</code> is true, the edits compacted move their data to a temporary file, which is deleted
+	 * when <code>spill</code> is set to false or the virtual machine exits.
+	 *
+	 * @param spill true to move the data of the edits compacted to a temporary file
+	 * @throws IOException if the file can not be created or closed
+	 */
+	public synchronized void setSpillToFile(boolean spill) throws IOException {
+		if (spill && spillFile == null) {
+			spillFile = new UndoSpillFile();
+		} else if (!spill && spillFile != null) {
+			// The edits spilled need the file
+			discardAllEdits();
+			spillFile.close();
+			spillFile = null;
+		}
+	}
+
+	/**
+	 * @return True if the edits compacted move their data to a temporary file
+	 */
+	public synchronized boolean isSpillToFile() {
+		return spillFile != null;
+	}
+
+	/**
+	 * Compacts the edits older than the last one done and, while the byte limit is exceeded, discards the
+	 * oldest ones. The last edit done is always kept.
+	 */
+	protected void trimForByteLimit() {
+		if (byteLimit < 0 || estimatedSize <= byteLimit) {
+			return;
+		}
+		for (int i = 0; i < indexOfNextAdd - 1 && estimatedSize > byteLimit; i++) {
+			UndoableEdit edit = edits.elementAt(i);
+			if (edit instanceof MemoryBoundedEdit) {
+				((MemoryBoundedEdit) edit).compact(spillFile);
+				updateSize(edit);
+			}
+		}
+		while (estimatedSize > byteLimit) {
+			int endOfOldest = getEndOfOldestEdit();
+			if (endOfOldest < 0 || endOfOldest >= indexOfNextAdd - 1) {
+				break;
+			}
+			trimEdits(0, endOfOldest);
+		}
+	}
+
+	/**
+	 * @return The index of the last edit that must be discarded with the oldest one, or -1 if the oldest edit is
+	 * an <code>OpenParenthesisEdit</code> whose <code>CloseParenthesisEdit</code> has not been added yet
+	 */
+	private int getEndOfOldestEdit() {
+		if (edits.isEmpty()) {
+			return -1;
+		}
+		UndoableEdit oldest = edits.firstElement();
+		if (!(oldest instanceof OpenParenthesisEdit)) {
+			return 0;
+		}
+		for (int i = 1; i < edits.size(); i++) {
+			UndoableEdit edit = edits.elementAt(i);
+			if (edit instanceof CloseParenthesisEdit
+					&& ((CloseParenthesisEdit) edit).getOpenParenthesisEdit() == oldest) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void updateSize(UndoableEdit edit) {
+		long size = (edit instanceof MemoryBoundedEdit) ?
+				((MemoryBoundedEdit) edit).getEstimatedSize() :
+				DEFAULT_EDIT_SIZE;
+		Long previousSize = editSizes.put(edit, size);
+		estimatedSize += size - (previousSize != null ? previousSize : 0);
+	}
+
+	private void forgetSize(UndoableEdit edit) {
+		Long size = editSizes.remove(edit);
+		if (size != null) {
+			estimatedSize -= size;
+		}
+	}
+
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.action;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Temporary file where the edits of the undo history move the data they keep. The file only grows: the space
+ * of the edits discarded is recovered when the file is closed, which deletes it.
+ */
+public class UndoSpillFile implements Closeable {
+
+	// Attributes
+	private final Path path;
+
+	private final FileChannel channel;
+
+	private long size;
+
+	// Constructor
+	public UndoSpillFile() throws IOException {
+		path = Files.createTempFile("openmarkov-undo", ".tmp");
+		path.toFile().deleteOnExit();
+		channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.DELETE_ON_CLOSE);
+	}
+
+	// Methods
+
+	/**
+	 * @param buffer data to write, from its position to its limit
+	 * @return The position of the data in the file
+	 */
+	public synchronized long write(ByteBuffer buffer) {
+		long position = size;
+		try {
+			while (buffer.hasRemaining()) {
+				size += channel.write(buffer, size);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return position;
+	}
+
+	/**
+	 * @param position position of the data in the file
+	 * @param length   number of bytes to read
+	 * @return A buffer with the data, ready to be read
+	 */
+	public synchronized ByteBuffer read(long position, int length) {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		try {
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, position + buffer.position()) < 0) {
+					throw new IOException("Unexpected end of " + path);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * @return Number of bytes written in the file
+	 */
+	public synchronized long getSize() {
+		return size;
+	}
+
+	@Override public synchronized void close() throws IOException {
+		channel.close();
+	}
+}
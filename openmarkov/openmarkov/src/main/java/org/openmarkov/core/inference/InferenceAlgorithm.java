@@ -28,7 +28,8 @@ import org.openmarkov.core.model.network.type.NetworkType;
 public abstract class InferenceAlgorithm implements Task {
 
 	/**
-	 * This is a copy of the {@code ProbNet} received.
+	 * This is a copy of the {@code ProbNet} received, taken by an {@code InferenceSession}
+	 * so that the edits of the inference do not reach the network received.
 	 */
 	protected ProbNet probNet;
 	/**
@@ -52,7 +53,7 @@ public abstract class InferenceAlgorithm implements Task {
 	 * @throws NotEvaluableNetworkException NotEvaluableNetworkException
 	 */
 	public InferenceAlgorithm(ProbNet network) throws NotEvaluableNetworkException {
-		this.probNet = network.copy();
+		this.probNet = new InferenceSession(network).getProbNet();
 		this.preResolutionEvidence = new EvidenceCase();
 		this.conditioningVariables = new ArrayList<>();
 		checkEvaluability();
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.inference;
+
+import java.util.Vector;
+
+import javax.swing.event.UndoableEditListener;
+
+import org.openmarkov.core.action.PNESupport;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.constraint.PNConstraint;
+
+/**
+ * Snapshot of a network on which an inference can apply edits without affecting the network it was taken
+ * from, which may be open for edition.
+ * <p>
+ * <code>ProbNet.copy()</code> creates a new <code>PNESupport</code> but shares the list of listeners of the
+ * original network, so the listeners that the inference registers (for example, the elimination heuristics)
+ * would be added to the editable network and its listeners would be notified of the edits of the inference.
+ * The snapshot has its own list of listeners, which only contains its constraints, and its edits are not
+ * stored for undo, so they neither grow the undo history nor take the locks of the
+ * <code>UndoManagerSupport</code> of the editable network.
+ * <p>
+ * As in <code>ProbNet.copy()</code>, variables and potentials are shared with the original network; the
+ * inference algorithms replace them instead of modifying them.
+ */
+public class InferenceSession {
+
+	// Attributes
+	private final ProbNet originalProbNet;
+
+	private final ProbNet probNet;
+
+	// Constructor
+
+	/**
+	 * @param probNet network whose snapshot is taken
+	 */
+	public InferenceSession(ProbNet probNet) {
+		this.originalProbNet = probNet;
+		this.probNet = probNet.copy();
+		PNESupport pNESupport = this.probNet.getPNESupport();
+		Vector<UndoableEditListener> listeners = new Vector<>();
+		for (PNConstraint constraint : this.probNet.getConstraints()) {
+			listeners.add(constraint);
+		}
+		pNESupport.setListeners(listeners);
+		pNESupport.setWithUndo(false);
+	}
+
+	// Methods
+
+	/**
+	 * @return The snapshot, on which the inference works
+	 */
+	public ProbNet getProbNet() {
+		return probNet;
+	}
+
+	/**
+	 * @return The network the snapshot was taken from
+	 */
+	public ProbNet getOriginalProbNet() {
+		return originalProbNet;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.inference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs independent tasks of an inference algorithm as fork-join tasks, propagating the checked exception that
+ * the tasks may throw.
+ */
+public class ParallelTasks {
+
+	/**
+	 * Task that returns a result and may throw a checked exception
+	 *
+	 * @param <T> type of the result
+	 * @param <E> type of the checked exception
+	 */
+	public interface Task<T, E extends Exception> {
+		T call() throws E;
+	}
+
+	// Methods
+
+	/**
+	 * Runs the tasks as fork-join tasks: in the current pool when this is called from a fork-join task, so
+	 * nested calls split the work of the same pool, and in the common pool otherwise.
+	 *
+	 * @param tasks         independent tasks
+	 * @param exceptionType class of the checked exception of the tasks
+	 * @param <T>           type of the results
+	 * @param <E>           type of the checked exception
+	 * @return The results of the tasks, in the same order
+	 * @throws E if a task throws it. The unchecked exceptions of the tasks are thrown as they are
+	 */
+	public static <T, E extends Exception> List<T> invokeAll(List<? extends Task<? extends T, E>> tasks,
+			Class<E> exceptionType) throws E {
+		List<ForkJoinTask<? extends T>> forkJoinTasks = new ArrayList<>(tasks.size());
+		for (Task<? extends T, E> task : tasks) {
+			forkJoinTasks.add(ForkJoinTask.adapt(task::call));
+		}
+		try {
+			if (ForkJoinTask.inForkJoinPool()) {
+				ForkJoinTask.invokeAll(forkJoinTasks);
+			} else {
+				ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(forkJoinTasks)));
+			}
+		} catch (RuntimeException e) {
+			// ForkJoinTask.adapt wraps the checked exceptions
+			for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+				if (exceptionType.isInstance(cause)) {
+					throw exceptionType.cast(cause);
+				}
+			}
+			throw e;
+		}
+		List<T> results = new ArrayList<>(forkJoinTasks.size());
+		for (ForkJoinTask<? extends T> task : forkJoinTasks) {
+			results.add(task.join());
+		}
+		return results;
+	}
+}
@@ -23,7 +23,6 @@ import org.openmarkov.core.model.network.type.DecisionAnalysisNetworkType;
 import org.openmarkov.core.model.network.type.InfluenceDiagramType;
 import org.openmarkov.core.model.network.type.TuningNetworkType;
 import org.openmarkov.plugin.PluginLoader;
-import org.openmarkov.plugin.service.FilterIF;
 import org.openmarkov.plugin.service.PluginLoaderIF;
 
 /**
@@ -48,7 +47,7 @@ public class InferenceManager {
 	/**
 	 * Constructor for InferenceManager.
 	 */
-	@SuppressWarnings("unchecked") public InferenceManager() {
+	@SuppressWarnings("unchecked") private InferenceManager() {
 		super();
 		this.pluginsLoader = new PluginLoader();
 		this.inferenceAlgorithms = new HashMap<>();
@@ -64,6 +63,19 @@ public class InferenceManager {
 		}
 	}
 
+	/**
+	 * Singleton pattern.
+	 *
+	 * @return The unique instance.
+	 */
+	public static InferenceManager getUniqueInstance() {
+		return InstanceHolder.instance;
+	}
+
+	private static class InstanceHolder {
+		private static final InferenceManager instance = new InferenceManager();
+	}
+
 	/**
 	 * Returns the list of the names of the algorithms that can evaluate the
 	 * given instance of ProbNet
@@ -235,8 +247,7 @@ public class InferenceManager {
 	 */
 	private List<Class<?>> findAllInferencePlugins() {
 		try {
-			FilterIF filter = org.openmarkov.plugin.Filter.filter().toBeAnnotatedBy(InferenceAnnotation.class);
-			return pluginsLoader.loadAllPlugins(filter);
+			return pluginsLoader.loadAnnotatedPlugins(InferenceAnnotation.class);
 		} catch (Exception e) {
 		}
 		return null;
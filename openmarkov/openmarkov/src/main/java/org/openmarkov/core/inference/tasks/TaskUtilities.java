@@ -16,6 +16,7 @@ import org.openmarkov.core.exception.NodeNotFoundException;
 import org.openmarkov.core.exception.NonProjectablePotentialException;
 import org.openmarkov.core.exception.WrongCriterionException;
 import org.openmarkov.core.inference.BasicOperations;
+import org.openmarkov.core.inference.InferenceOptions;
 import org.openmarkov.core.model.network.EvidenceCase;
 import org.openmarkov.core.model.network.Node;
 import org.openmarkov.core.model.network.NodeType;
@@ -27,6 +28,8 @@ import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.constraint.OnlyChanceNodes;
 import org.openmarkov.core.model.network.potential.Potential;
 import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.treeadd.TreeADDOperations;
+import org.openmarkov.core.model.network.potential.treeadd.TreeADDPotential;
 
 /**
  * @author artasom
@@ -317,4 +320,50 @@ public class TaskUtilities {
 		return markovNetworkInference;
 	}
 
+	/**
+	 * Projects the potentials like {@link #projectTablesAndBuildMarkovDecisionNetwork(ProbNet, EvidenceCase)},
+	 * but the tree/ADD probability potentials whose projection takes less space than the table
+	 * are kept as trees, so that the variable elimination can exploit their context-specific independences.
+	 *
+	 * @param network Network
+	 * @param evidence Evidence
+	 * @return Projected network
+	 * @throws IncompatibleEvidenceException IncompatibleEvidenceException
+	 */
+	public static ProbNet projectTreesAndBuildMarkovDecisionNetwork(ProbNet network, EvidenceCase evidence)
+			throws IncompatibleEvidenceException {
+		List<TablePotential> projectedTablePotentials = new ArrayList<>();
+		List<Potential> projectedPotentials = new ArrayList<>();
+
+		try {
+			for (Potential potential : network.getSortedPotentials()) {
+				InferenceOptions inferenceOptions = new InferenceOptions(network, null);
+				Potential treeFactor = null;
+				if (potential instanceof TreeADDPotential && !potential.isAdditive()) {
+					treeFactor = TreeADDOperations
+							.project((TreeADDPotential) potential, evidence, inferenceOptions, projectedTablePotentials);
+				}
+				if (TreeADDOperations.isSmallerThanTable(treeFactor)) {
+					projectedPotentials.add(treeFactor);
+				} else {
+					for (TablePotential tablePotential : potential
+							.tableProject(evidence, inferenceOptions, projectedTablePotentials)) {
+						projectedTablePotentials.add(tablePotential);
+						if (tablePotential.getVariables().size() != 0 || (
+								tablePotential.isAdditive() ?
+										tablePotential.values[0] != 0 :
+										tablePotential.values[0] != 1
+						)) {
+							projectedPotentials.add(tablePotential);
+						}
+					}
+				}
+			}
+		} catch (NonProjectablePotentialException | WrongCriterionException e1) {
+			throw new IncompatibleEvidenceException("Unexpected inference exception :" + e1.getMessage());
+		}
+
+		return network.buildMarkovDecisionNetwork(projectedPotentials);
+	}
+
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.io.database;
+
+import java.util.Arrays;
+
+/**
+ * Column of a <code>CaseDatabase</code>: the index of the state of one variable in each case, or
+ * <code>CaseDatabase.MISSING_VALUE</code> when the value is unknown. The indices are stored in the narrowest
+ * array able to hold them: a <code>byte[]</code> for the variables of less than 128 states, a
+ * <code>short[]</code> for those of less than 32768 states and an <code>int[]</code> for the rest.
+ * <p>
+ * The capacity of a column may be larger than the number of cases of the database that contains it.
+ */
+public abstract class CaseColumn {
+
+	// Methods
+
+	/**
+	 * @param numStates number of states of the variable
+	 * @param capacity  number of cases
+	 * @return A column able to store <code>capacity</code> cases of a variable of <code>numStates</code> states,
+	 * all of them missing
+	 */
+	public static CaseColumn create(int numStates, int capacity) {
+		CaseColumn column;
+		if (numStates <= Byte.MAX_VALUE) {
+			column = new ByteColumn(capacity);
+		} else if (numStates <= Short.MAX_VALUE) {
+			column = new ShortColumn(capacity);
+		} else {
+			column = new IntColumn(capacity);
+		}
+		column.fill(0, capacity);
+		return column;
+	}
+
+	/**
+	 * @param caseIndex index of the case
+	 * @return The index of the state in the case, or <code>CaseDatabase.MISSING_VALUE</code>
+	 */
+	public abstract int getState(int caseIndex);
+
+	/**
+	 * @param caseIndex index of the case
+	 * @param state     index of the state, or <code>CaseDatabase.MISSING_VALUE</code>
+	 */
+	public abstract void setState(int caseIndex, int state);
+
+	/**
+	 * Copies the states of consecutive cases, which is faster than calling <code>getState</code> for each one
+	 *
+	 * @param firstCase index of the first case
+	 * @param numCases  number of cases
+	 * @param states    array that receives the states from the position 0
+	 */
+	public abstract void getStates(int firstCase, int numCases, int[] states);
+
+	/**
+	 * @return The number of cases that the column can store
+	 */
+	public abstract int getCapacity();
+
+	/**
+	 * @return The maximum number of states that the column can store
+	 */
+	public abstract int getMaxNumStates();
+
+	/**
+	 * @param capacity  capacity of the new column
+	 * @param numStates number of states that the new column must store
+	 * @return This column, if it has the capacity and can store the states, or otherwise a copy with the given
+	 * capacity, widened if needed
+	 */
+	public CaseColumn resize(int capacity, int numStates) {
+		if (capacity == getCapacity() && numStates <= getMaxNumStates()) {
+			return this;
+		}
+		return copy(capacity, numStates);
+	}
+
+	/**
+	 * @param capacity  capacity of the new column
+	 * @param numStates number of states that the new column must store
+	 * @return A copy of this column with the given capacity, widened if needed. The cases beyond the capacity of
+	 * this column are missing in the copy.
+	 */
+	public CaseColumn copy(int capacity, int numStates) {
+		CaseColumn column = create(Math.max(numStates, getMaxNumStates()), capacity);
+		int numCases = Math.min(capacity, getCapacity());
+		if (column.getClass() == getClass()) {
+			column.copyFrom(this, numCases);
+		} else {
+			for (int i = 0; i < numCases; i++) {
+				column.setState(i, getState(i));
+			}
+		}
+		return column;
+	}
+
+	/**
+	 * Sets the cases of a range as missing
+	 *
+	 * @param fromCase first case (inclusive)
+	 * @param toCase   last case (exclusive)
+	 */
+	protected abstract void fill(int fromCase, int toCase);
+
+	/**
+	 * @param column   column of the same class as this one
+	 * @param numCases number of cases to copy
+	 */
+	protected abstract void copyFrom(CaseColumn column, int numCases);
+
+	private static class ByteColumn extends CaseColumn {
+		private final byte[] states;
+
+		private ByteColumn(int capacity) {
+			states = new byte[capacity];
+		}
+
+		@Override public int getState(int caseIndex) {
+			return states[caseIndex];
+		}
+
+		@Override public void setState(int caseIndex, int state) {
+			states[caseIndex] = (byte) state;
+		}
+
+		@Override public void getStates(int firstCase, int numCases, int[] states) {
+			for (int i = 0; i < numCases; i++) {
+				states[i] = this.states[firstCase + i];
+			}
+		}
+
+		@Override public int getCapacity() {
+			return states.length;
+		}
+
+		@Override public int getMaxNumStates() {
+			return Byte.MAX_VALUE;
+		}
+
+		@Override protected void fill(int fromCase, int toCase) {
+			Arrays.fill(states, fromCase, toCase, (byte) CaseDatabase.MISSING_VALUE);
+		}
+
+		@Override protected void copyFrom(CaseColumn column, int numCases) {
+			System.arraycopy(((ByteColumn) column).states, 0, states, 0, numCases);
+		}
+	}
+
+	private static class ShortColumn extends CaseColumn {
+		private final short[] states;
+
+		private ShortColumn(int capacity) {
+			states = new short[capacity];
+		}
+
+		@Override public int getState(int caseIndex) {
+			return states[caseIndex];
+		}
+
+		@Override public void setState(int caseIndex, int state) {
+			states[caseIndex] = (short) state;
+		}
+
+		@Override public void getStates(int firstCase, int numCases, int[] states) {
+			for (int i = 0; i < numCases; i++) {
+				states[i] = this.states[firstCase + i];
+			}
+		}
+
+		@Override public int getCapacity() {
+			return states.length;
+		}
+
+		@Override public int getMaxNumStates() {
+			return Short.MAX_VALUE;
+		}
+
+		@Override protected void fill(int fromCase, int toCase) {
+			Arrays.fill(states, fromCase, toCase, (short) CaseDatabase.MISSING_VALUE);
+		}
+
+		@Override protected void copyFrom(CaseColumn column, int numCases) {
+			System.arraycopy(((ShortColumn) column).states, 0, states, 0, numCases);
+		}
+	}
+
+	private static class IntColumn extends CaseColumn {
+		private final int[] states;
+
+		private IntColumn(int capacity) {
+			states = new int[capacity];
+		}
+
+		@Override public int getState(int caseIndex) {
+			return states[caseIndex];
+		}
+
+		@Override public void setState(int caseIndex, int state) {
+			states[caseIndex] = state;
+		}
+
+		@Override public void getStates(int firstCase, int numCases, int[] states) {
+			System.arraycopy(this.states, firstCase, states, 0, numCases);
+		}
+
+		@Override public int getCapacity() {
+			return states.length;
+		}
+
+		@Override public int getMaxNumStates() {
+			return Integer.MAX_VALUE;
+		}
+
+		@Override protected void fill(int fromCase, int toCase) {
+			Arrays.fill(states, fromCase, toCase, CaseDatabase.MISSING_VALUE);
+		}
+
+		@Override protected void copyFrom(CaseColumn column, int numCases) {
+			System.arraycopy(((IntColumn) column).states, 0, states, 0, numCases);
+		}
+	}
+}
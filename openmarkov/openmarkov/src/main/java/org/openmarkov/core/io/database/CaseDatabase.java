@@ -8,45 +8,133 @@
 package org.openmarkov.core.io.database;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.openmarkov.core.model.network.Variable;
 
+/**
+ * Set of cases of a list of variables. The cases are stored by columns, one <code>CaseColumn</code> for each
+ * variable, which keeps the index of the state of the variable in each case in a <code>byte[]</code> or a
+ * <code>short[]</code> for the usual number of states, and <code>MISSING_VALUE</code> when it is unknown.
+ */
 public class CaseDatabase {
+
+	/**
+	 * Index of the state of a variable whose value is unknown in a case
+	 */
+	public static final int MISSING_VALUE = -1;
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	// Attributes
 	private List<Variable> variables;
-	private int[][] cases;
+
+	/**
+	 * Index of each variable, for the lookups by name and by variable
+	 */
+	private Map<String, Integer> variableIndicesByName;
+
+	private Map<Variable, Integer> variableIndices;
+
+	private CaseColumn[] columns;
+
+	private int numCases;
+
+	// Constructor
 
 	/**
 	 * Constructor for CaseDatabase.
 	 *
 	 * @param variables List of variables
-	 * @param cases     bidimensional array with the cases
+	 * @param cases     bidimensional array with the cases: the element <code>[i][j]</code> is the index of the
+	 *                  state of the variable <code>j</code> in the case <code>i</code>
 	 */
 	public CaseDatabase(List<Variable> variables, int[][] cases) {
-		super();
-		this.variables = new ArrayList<>(variables);
-		this.cases = cases;
+		this(variables, cases.length);
+		for (int[] newCase : cases) {
+			addCase(newCase);
+		}
 	}
 
-	public CaseDatabase(CaseDatabase database) {
+	/**
+	 * Creates an empty database, to which the cases are added with <code>addCase</code>
+	 *
+	 * @param variables List of variables
+	 */
+	public CaseDatabase(List<Variable> variables) {
+		this(variables, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty database, to which the cases are added with <code>addCase</code>
+	 *
+	 * @param variables List of variables
+	 * @param capacity  number of cases that the database can store before growing
+	 */
+	public CaseDatabase(List<Variable> variables, int capacity) {
 		super();
-		this.variables = new ArrayList<>(database.getVariables());
-		int[][] casesToCopy = database.getCases();
-		this.cases = new int[casesToCopy.length][variables.size()];
+		setVariables(variables);
+		this.columns = new CaseColumn[this.variables.size()];
+		for (int j = 0; j < columns.length; j++) {
+			columns[j] = CaseColumn.create(this.variables.get(j).getNumStates(), capacity);
+		}
+		this.numCases = 0;
+	}
 
-		for (int i = 0; i < cases.length; ++i) {
-			for (int j = 0; j < cases[i].length; ++i) {
-				cases[i][j] = casesToCopy[i][j];
+	/**
+	 * Creates a database on columns already filled, for example by a reader
+	 *
+	 * @param variables List of variables
+	 * @param columns   a column for each variable, in the same order
+	 * @param numCases  number of cases, not greater than the capacity of the columns
+	 */
+	public CaseDatabase(List<Variable> variables, CaseColumn[] columns, int numCases) {
+		super();
+		if (columns.length != variables.size()) {
+			throw new IllegalArgumentException(
+					"The database has " + variables.size() + " variables but " + columns.length + " columns");
+		}
+		setVariables(variables);
+		this.columns = new CaseColumn[columns.length];
+		for (int j = 0; j < columns.length; j++) {
+			if (columns[j].getCapacity() < numCases) {
+				throw new IllegalArgumentException("The column of " + this.variables.get(j).getName() + " has "
+						+ columns[j].getCapacity() + " cases instead of " + numCases);
 			}
+			this.columns[j] = columns[j].resize(columns[j].getCapacity(), this.variables.get(j).getNumStates());
+		}
+		this.numCases = numCases;
+	}
+
+	public CaseDatabase(CaseDatabase database) {
+		super();
+		setVariables(database.getVariables());
+		this.numCases = database.getNumCases();
+		this.columns = new CaseColumn[variables.size()];
+		for (int j = 0; j < columns.length; j++) {
+			columns[j] = database.columns[j].copy(numCases, variables.get(j).getNumStates());
 		}
 	}
 
+	// Methods
+
 	/**
-	 * Returns the cases.
+	 * Returns the cases. The array is built on every call from the columns of the database, so the changes in
+	 * it do not modify the database.
 	 *
-	 * @return the cases.
+	 * @return the cases: the element <code>[i][j]</code> is the index of the state of the variable
+	 * <code>j</code> in the case <code>i</code>, or <code>MISSING_VALUE</code>
 	 */
 	public int[][] getCases() {
+		int[][] cases = new int[numCases][columns.length];
+		for (int j = 0; j < columns.length; j++) {
+			CaseColumn column = columns[j];
+			for (int i = 0; i < numCases; i++) {
+				cases[i][j] = column.getState(i);
+			}
+		}
 		return cases;
 	}
 
@@ -66,15 +154,17 @@ public class CaseDatabase {
 	 * @return Variable given the name
 	 */
 	public Variable getVariable(String name) {
-		Variable variable = null;
-		int i = 0;
-		while (variable == null && i < variables.size()) {
-			if (variables.get(i).getName().equals(name)) {
-				variable = variables.get(i);
-			}
-			++i;
-		}
-		return variable;
+		Integer index = variableIndicesByName.get(name);
+		return (index != null) ? variables.get(index) : null;
+	}
+
+	/**
+	 * @param variable Variable
+	 * @return the position of the variable in the database, or -1 if it is not in the database
+	 */
+	public int getVariableIndex(Variable variable) {
+		Integer index = variableIndices.get(variable);
+		return (index != null) ? index : -1;
 	}
 
 	/**
@@ -84,25 +174,95 @@ public class CaseDatabase {
 	 */
 	public int[] getCases(Variable variable) {
 		int[] casesOfVariable = null;
-		int indexOfVariable = variables.indexOf(variable);
+		int indexOfVariable = getVariableIndex(variable);
 
 		if (indexOfVariable != -1) {
-			casesOfVariable = new int[cases.length];
-			for (int i = 0; i < cases.length; ++i) {
-				casesOfVariable[i] = cases[i][indexOfVariable];
-			}
+			casesOfVariable = new int[numCases];
+			columns[indexOfVariable].getStates(0, numCases, casesOfVariable);
 		}
 
 		return casesOfVariable;
 	}
 
+	/**
+	 * Returns the column of a variable, which gives access to its cases without copying them. Its capacity may
+	 * be greater than the number of cases.
+	 *
+	 * @param variableIndex position of the variable in the database
+	 * @return the column of the variable
+	 */
+	public CaseColumn getColumn(int variableIndex) {
+		return columns[variableIndex];
+	}
+
+	/**
+	 * @param caseIndex     index of the case
+	 * @param variableIndex position of the variable in the database
+	 * @return the index of the state of the variable in the case, or <code>MISSING_VALUE</code>
+	 */
+	public int getState(int caseIndex, int variableIndex) {
+		if (caseIndex >= numCases) {
+			throw new IndexOutOfBoundsException("Case " + caseIndex + " of a database of " + numCases + " cases");
+		}
+		return columns[variableIndex].getState(caseIndex);
+	}
+
+	/**
+	 * Adds a case at the end of the database
+	 *
+	 * @param newCase index of the state of each variable, or <code>MISSING_VALUE</code>
+	 */
+	public void addCase(int[] newCase) {
+		if (newCase.length != columns.length) {
+			throw new IllegalArgumentException(
+					"The case has " + newCase.length + " values but the database has " + columns.length + " variables");
+		}
+		for (int j = 0; j < columns.length; j++) {
+			int state = newCase[j];
+			if (state < MISSING_VALUE || state >= variables.get(j).getNumStates()) {
+				throw new IllegalArgumentException(
+						"Wrong state " + state + " of the variable " + variables.get(j).getName());
+			}
+		}
+		if (numCases == getCapacity()) {
+			int capacity = Math.max(DEFAULT_CAPACITY, numCases + (numCases >> 1));
+			for (int j = 0; j < columns.length; j++) {
+				columns[j] = columns[j].resize(capacity, variables.get(j).getNumStates());
+			}
+		}
+		for (int j = 0; j < columns.length; j++) {
+			columns[j].setState(numCases, newCase[j]);
+		}
+		numCases++;
+	}
+
 	/**
 	 * Returns the number of cases
 	 *
 	 * @return number of cases
 	 */
 	public int getNumCases() {
-		return cases.length;
+		return numCases;
+	}
+
+	private int getCapacity() {
+		return (columns.length > 0) ? columns[0].getCapacity() : Integer.MAX_VALUE;
+	}
+
+	private void setVariables(List<Variable> variables) {
+		this.variables = new ArrayList<>(variables);
+		this.variableIndicesByName = new HashMap<>();
+		this.variableIndices = new HashMap<>();
+		for (int j = 0; j < this.variables.size(); j++) {
+			Variable variable = this.variables.get(j);
+			// as the linear search did, the first variable with a name is found
+			if (!variableIndicesByName.containsKey(variable.getName())) {
+				variableIndicesByName.put(variable.getName(), j);
+			}
+			if (!variableIndices.containsKey(variable)) {
+				variableIndices.put(variable, j);
+			}
+		}
 	}
 
 }
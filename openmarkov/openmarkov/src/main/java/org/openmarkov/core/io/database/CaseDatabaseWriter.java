@@ -8,7 +8,31 @@
 package org.openmarkov.core.io.database;
 
 import java.io.IOException;
+import java.util.List;
+
+import org.openmarkov.core.model.network.Variable;
 
 public interface CaseDatabaseWriter {
 	void save(String filename, CaseDatabase database) throws IOException;
+
+	/**
+	 * Saves cases given in batches, so that they need not be in memory at the same time. By default the
+	 * batches are joined into a database that is saved with <code>save(String, CaseDatabase)</code>; the writers
+	 * that can append the cases of each batch to the file override it.
+	 *
+	 * @param filename  name of the file
+	 * @param variables variables of the cases, the same in all the batches
+	 * @param batches   databases with consecutive cases
+	 * @throws IOException if the file can not be written
+	 */
+	default void save(String filename, List<Variable> variables, Iterable<CaseDatabase> batches)
+			throws IOException {
+		CaseDatabase database = new CaseDatabase(variables);
+		for (CaseDatabase batch : batches) {
+			for (int[] newCase : batch.getCases()) {
+				database.addCase(newCase);
+			}
+		}
+		save(filename, database);
+	}
 }
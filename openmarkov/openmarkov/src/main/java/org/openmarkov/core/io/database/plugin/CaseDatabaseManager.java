@@ -13,7 +13,6 @@ import java.util.List;
 import org.openmarkov.core.io.database.CaseDatabaseReader;
 import org.openmarkov.core.io.database.CaseDatabaseWriter;
 import org.openmarkov.plugin.PluginLoader;
-import org.openmarkov.plugin.service.FilterIF;
 import org.openmarkov.plugin.service.PluginLoaderIF;
 
 /**
@@ -40,7 +39,7 @@ public class CaseDatabaseManager {
 	/**
 	 * Gets a FormatManager instance
 	 */
-	public CaseDatabaseManager() {
+	private CaseDatabaseManager() {
 		super();
 		this.pluginsLoader = new PluginLoader();
 		this.readerPlugins = new LinkedHashMap<>();
@@ -57,6 +56,19 @@ public class CaseDatabaseManager {
 		}
 	}
 
+	/**
+	 * Singleton pattern.
+	 *
+	 * @return The unique instance.
+	 */
+	public static CaseDatabaseManager getUniqueInstance() {
+		return InstanceHolder.instance;
+	}
+
+	private static class InstanceHolder {
+		private static final CaseDatabaseManager instance = new CaseDatabaseManager();
+	}
+
 	/**
 	 * This method gets all the plugins with CaseDatabaseFormat annotations
 	 *
@@ -64,8 +76,7 @@ public class CaseDatabaseManager {
 	 */
 	private List<Class<?>> findAllFormatPlugins() {
 		try {
-			FilterIF filter = org.openmarkov.plugin.Filter.filter().toBeAnnotatedBy(CaseDatabaseFormat.class);
-			return pluginsLoader.loadAllPlugins(filter);
+			return pluginsLoader.loadAnnotatedPlugins(CaseDatabaseFormat.class);
 		} catch (Exception e) {
 		}
 		return null;
@@ -19,7 +19,6 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import org.openmarkov.core.io.ProbNetReader;
 import org.openmarkov.core.io.ProbNetWriter;
 import org.openmarkov.plugin.PluginLoader;
-import org.openmarkov.plugin.service.FilterIF;
 import org.w3c.dom.Document;
 
 /**
@@ -31,7 +30,6 @@ import org.w3c.dom.Document;
  * @see FormatType
  */
 public class FormatManager {
-	private static FormatManager instance = null;
 
 	/**
 	 * The Reader role
@@ -129,10 +127,11 @@ public class FormatManager {
 	 * @return FormatManager instance
 	 */
 	public static FormatManager getInstance() {
-		if (instance == null) {
-			instance = new FormatManager();
-		}
-		return instance;
+		return InstanceHolder.instance;
+	}
+
+	private static class InstanceHolder {
+		private static final FormatManager instance = new FormatManager();
 	}
 
 	/**
@@ -143,8 +142,7 @@ public class FormatManager {
 	private List<Class<?>> findAllFormatPlugins() {
 		PluginLoader pluginsLoader = new PluginLoader();
 		try {
-			FilterIF filter = org.openmarkov.plugin.Filter.filter().toBeAnnotatedBy(FormatType.class);
-			return pluginsLoader.loadAllPlugins(filter);
+			return pluginsLoader.loadAnnotatedPlugins(FormatType.class);
 		} catch (Exception e) {
 		}
 		return null;
@@ -269,13 +267,16 @@ public class FormatManager {
 	public ProbNetReader getProbNetReader(String fileName) throws Exception {
 		String fileExtension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
 		String fileVersion = "";
-		if (!fileExtension.equals("elv")) {
+		if (fileExtension.equals("pgmx")) {
 			DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
 			DocumentBuilder docBuilder = docBuilderFactory.newDocumentBuilder();
 			Document doc = docBuilder.parse(new File(fileName));
 			fileVersion = doc.getDocumentElement().getAttribute("formatVersion");
 			//Removing the last index of the version
 			fileVersion = fileVersion.substring(0, fileVersion.lastIndexOf('.'));
+		} else if (!fileExtension.equals("elv") && readerClasses.containsKey(fileExtension)) {
+			// Binary formats, like snapshots, have only one reader
+			fileVersion = readerClasses.get(fileExtension).keySet().iterator().next();
 		}
 		ProbNetReader reader = getProbNetReader(fileExtension, fileVersion);
 		return reader;
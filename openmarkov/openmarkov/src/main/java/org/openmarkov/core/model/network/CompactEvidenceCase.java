@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.model.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evidence case stored in arrays indexed by the position of the variables in a {@code Layout}, which is shared
+ * by all the evidence cases of a network. For each variable it stores the index of the observed state, or
+ * {@code NO_FINDING}, and the numerical value, which is {@code NaN} for the findings of finite-states
+ * variables.
+ * <p>
+ * Unlike {@code EvidenceCase}, it does not allocate objects to add, remove or iterate the findings, so it can
+ * be reused for many evidence cases:
+ * <pre>
+ * for (int i = 0; i &lt; evidence.getNumFindings(); i++) {
+ *     int variableIndex = evidence.getVariableIndex(i);
+ *     int state = evidence.getState(variableIndex);
+ * }
+ * </pre>
+ * The findings are iterated in the order in which they were added. This class is not thread-safe.
+ *
+ * @see EvidenceCase
+ */
+public class CompactEvidenceCase {
+
+	/**
+	 * State index of the variables that have no finding
+	 */
+	public static final int NO_FINDING = -1;
+
+	// Attributes
+	private final Layout layout;
+
+	private final int[] states;
+
+	private final double[] numericalValues;
+
+	/**
+	 * Indices of the variables that have a finding, in the order in which they were added
+	 */
+	private final int[] observedVariables;
+
+	/**
+	 * Position of each variable in {@code observedVariables}, or -1
+	 */
+	private final int[] positions;
+
+	private int numFindings;
+
+	// Constructors
+
+	/**
+	 * Creates an empty evidence case
+	 *
+	 * @param layout {@code Layout}
+	 */
+	public CompactEvidenceCase(Layout layout) {
+		this.layout = layout;
+		int numVariables = layout.getNumVariables();
+		states = new int[numVariables];
+		numericalValues = new double[numVariables];
+		observedVariables = new int[numVariables];
+		positions = new int[numVariables];
+		Arrays.fill(states, NO_FINDING);
+		Arrays.fill(numericalValues, Double.NaN);
+		Arrays.fill(positions, -1);
+	}
+
+	/**
+	 * @param layout       {@code Layout}
+	 * @param evidenceCase {@code EvidenceCase}. It can be null
+	 * @throws IllegalArgumentException if a variable of {@code evidenceCase} is not in {@code layout}
+	 */
+	public CompactEvidenceCase(Layout layout, EvidenceCase evidenceCase) {
+		this(layout);
+		setFindings(evidenceCase);
+	}
+
+	/**
+	 * Copy constructor
+	 *
+	 * @param evidenceCase {@code CompactEvidenceCase}
+	 */
+	public CompactEvidenceCase(CompactEvidenceCase evidenceCase) {
+		this.layout = evidenceCase.layout;
+		states = evidenceCase.states.clone();
+		numericalValues = evidenceCase.numericalValues.clone();
+		observedVariables = evidenceCase.observedVariables.clone();
+		positions = evidenceCase.positions.clone();
+		numFindings = evidenceCase.numFindings;
+	}
+
+	// Methods
+
+	/**
+	 * @return The layout of the variables
+	 */
+	public Layout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * @return The number of findings
+	 */
+	public int getNumFindings() {
+		return numFindings;
+	}
+
+	/**
+	 * @return {@code true} if there are no findings
+	 */
+	public boolean isEmpty() {
+		return numFindings == 0;
+	}
+
+	/**
+	 * @param position position of the finding, between 0 and {@code getNumFindings() - 1}
+	 * @return The index of the variable of the finding
+	 */
+	public int getVariableIndex(int position) {
+		return observedVariables[position];
+	}
+
+	/**
+	 * @param variableIndex index of the variable in the layout
+	 * @return {@code true} if the variable has a finding
+	 */
+	public boolean contains(int variableIndex) {
+		return positions[variableIndex] >= 0;
+	}
+
+	/**
+	 * @param variable {@code Variable}
+	 * @return {@code true} if the variable belongs to the layout and has a finding
+	 */
+	public boolean contains(Variable variable) {
+		int variableIndex = layout.getIndex(variable);
+		return variableIndex >= 0 && positions[variableIndex] >= 0;
+	}
+
+	/**
+	 * @param variableIndex index of the variable in the layout
+	 * @return The index of the observed state, or {@code NO_FINDING}
+	 */
+	public int getState(int variableIndex) {
+		return states[variableIndex];
+	}
+
+	/**
+	 * @param variableIndex index of the variable in the layout
+	 * @return The observed value of a numeric or discretized variable, or {@code NaN}
+	 */
+	public double getNumericalValue(int variableIndex) {
+		return numericalValues[variableIndex];
+	}
+
+	/**
+	 * Sets the finding of a finite-states variable, replacing the previous one
+	 *
+	 * @param variableIndex index of the variable in the layout
+	 * @param state         index of the observed state
+	 */
+	public void setFinding(int variableIndex, int state) {
+		setFinding(variableIndex, state, Double.NaN);
+	}
+
+	/**
+	 * Sets a finding, replacing the previous one
+	 *
+	 * @param variableIndex  index of the variable in the layout
+	 * @param state          index of the observed state
+	 * @param numericalValue observed value, or {@code NaN}
+	 */
+	public void setFinding(int variableIndex, int state, double numericalValue) {
+		if (positions[variableIndex] < 0) {
+			positions[variableIndex] = numFindings;
+			observedVariables[numFindings++] = variableIndex;
+		}
+		states[variableIndex] = state;
+		numericalValues[variableIndex] = numericalValue;
+	}
+
+	/**
+	 * Sets a finding, replacing the previous one
+	 *
+	 * @param finding {@code Finding}
+	 * @throws IllegalArgumentException if the variable of {@code finding} is not in the layout
+	 */
+	public void setFinding(Finding finding) {
+		// getNumericalValue returns the state index when there is no numerical value
+		setFinding(layout.getIndexOrThrow(finding.getVariable()), finding.stateIndex, finding.numericalValue);
+	}
+
+	/**
+	 * Replaces the findings by those of {@code evidenceCase}
+	 *
+	 * @param evidenceCase {@code EvidenceCase}. It can be null
+	 * @throws IllegalArgumentException if a variable of {@code evidenceCase} is not in the layout
+	 */
+	public void setFindings(EvidenceCase evidenceCase) {
+		clear();
+		if (evidenceCase != null) {
+			for (Finding finding : evidenceCase.findings.values()) {
+				setFinding(finding);
+			}
+		}
+	}
+
+	/**
+	 * Removes the finding of a variable, if any. The last finding takes the position of the removed one.
+	 *
+	 * @param variableIndex index of the variable in the layout
+	 */
+	public void removeFinding(int variableIndex) {
+		int position = positions[variableIndex];
+		if (position >= 0) {
+			int lastVariableIndex = observedVariables[--numFindings];
+			observedVariables[position] = lastVariableIndex;
+			positions[lastVariableIndex] = position;
+			positions[variableIndex] = -1;
+			states[variableIndex] = NO_FINDING;
+			numericalValues[variableIndex] = Double.NaN;
+		}
+	}
+
+	/**
+	 * Removes all the findings. It takes time proportional to the number of findings.
+	 */
+	public void clear() {
+		for (int i = 0; i < numFindings; i++) {
+			int variableIndex = observedVariables[i];
+			positions[variableIndex] = -1;
+			states[variableIndex] = NO_FINDING;
+			numericalValues[variableIndex] = Double.NaN;
+		}
+		numFindings = 0;
+	}
+
+	/**
+	 * @return An {@code EvidenceCase} with the same findings
+	 */
+	public EvidenceCase toEvidenceCase() {
+		List<Finding> findings = new ArrayList<>(numFindings);
+		for (int i = 0; i < numFindings; i++) {
+			int variableIndex = observedVariables[i];
+			Variable variable = layout.getVariable(variableIndex);
+			Finding finding;
+			if (variable.getVariableType() == VariableType.NUMERIC) {
+				finding = new Finding(variable, numericalValues[variableIndex]);
+				finding.stateIndex = states[variableIndex];
+			} else {
+				finding = new Finding(variable, states[variableIndex]);
+				finding.numericalValue = numericalValues[variableIndex];
+			}
+			findings.add(finding);
+		}
+		return new EvidenceCase(findings);
+	}
+
+	public String toString() {
+		StringBuilder buffer = new StringBuilder("[");
+		for (int i = 0; i < numFindings; i++) {
+			int variableIndex = observedVariables[i];
+			if (i > 0) {
+				buffer.append(", ");
+			}
+			buffer.append(layout.getVariable(variableIndex).getName()).append(": ");
+			if (Double.isNaN(numericalValues[variableIndex])) {
+				buffer.append(states[variableIndex]);
+			} else {
+				buffer.append(numericalValues[variableIndex]);
+			}
+		}
+		return buffer.append("]").toString();
+	}
+
+	/**
+	 * Assignment of consecutive indices to the variables of a network. It is immutable, so it can be shared by
+	 * any number of evidence cases and threads.
+	 */
+	public static class Layout {
+
+		private final Variable[] variables;
+
+		private final Map<Variable, Integer> indices;
+
+		/**
+		 * @param variables {@code List} of {@code Variable}. Their indices are their positions in the list
+		 */
+		public Layout(List<Variable> variables) {
+			this.variables = variables.toArray(new Variable[0]);
+			this.indices = new HashMap<>(2 * this.variables.length);
+			for (int i = 0; i < this.variables.length; i++) {
+				indices.put(this.variables[i], i);
+			}
+		}
+
+		/**
+		 * @param probNet {@code ProbNet} whose variables are indexed
+		 */
+		public Layout(ProbNet probNet) {
+			this(probNet.getVariables());
+		}
+
+		/**
+		 * @return The number of variables
+		 */
+		public int getNumVariables() {
+			return variables.length;
+		}
+
+		/**
+		 * @param index index of a variable
+		 * @return The variable
+		 */
+		public Variable getVariable(int index) {
+			return variables[index];
+		}
+
+		/**
+		 * @param variable {@code Variable}
+		 * @return The index of {@code variable}, or -1 if it is not in the layout
+		 */
+		public int getIndex(Variable variable) {
+			Integer index = indices.get(variable);
+			return (index != null) ? index : -1;
+		}
+
+		private int getIndexOrThrow(Variable variable) {
+			int index = getIndex(variable);
+			if (index < 0) {
+				throw new IllegalArgumentException("Variable " + variable.getName() + " is not in the layout.");
+			}
+			return index;
+		}
+	}
+}
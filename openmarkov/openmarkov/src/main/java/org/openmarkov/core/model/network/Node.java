@@ -159,6 +159,7 @@ public class Node {
 	 */
 	public void addPotential(Potential potential) {
 		this.potentials.add(potential);
+		this.probNet.updatePotentials(this);
 	}
 
 	/**
@@ -175,7 +176,11 @@ public class Node {
 	 * specified element; otherwise {@code false}.
 	 */
 	public boolean removePotential(Potential potential) {
-		return potentials.remove(potential);
+		boolean removed = potentials.remove(potential);
+		if (removed) {
+			this.probNet.updatePotentials(this);
+		}
+		return removed;
 	}
 
 	/**
@@ -207,6 +212,7 @@ public class Node {
 	 */
 	public void setPotentials(List<Potential> potentials) {
 		this.potentials = potentials;
+		this.probNet.updatePotentials(this);
 	}
 
 	/**
@@ -428,7 +434,7 @@ public class Node {
 		newListPotentials.add(tablePotential);
 
 		potentials = newListPotentials;
-
+		probNet.updatePotentials(this);
 	}
 
 	/**
@@ -500,6 +506,7 @@ public class Node {
 			Potential originalPotential = potentials.get(i);
 			potentials.set(i, originalPotential.sample());
 		}
+		probNet.updatePotentials(this);
 	}
 
 	/**
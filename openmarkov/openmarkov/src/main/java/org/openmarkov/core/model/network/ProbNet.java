@@ -200,6 +200,36 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 		pNESupport.doEdit(edit);
 	}
 
+	/**
+	 * Starts a transaction: until {@code commitTransaction} is invoked, the edits applied to this network are
+	 * neither checked against the constraints nor announced to the listeners one by one.
+	 *
+	 * @see PNESupport#beginTransaction(ProbNet)
+	 */
+	public void beginTransaction() {
+		pNESupport.beginTransaction(this);
+	}
+
+	/**
+	 * Checks the constraints once over the network resulting from the edits of the transaction and notifies
+	 * them as a single edit.
+	 *
+	 * @throws ConstraintViolationException if a constraint is not fulfilled. The edits are undone
+	 * @see PNESupport#commitTransaction()
+	 */
+	public void commitTransaction() throws ConstraintViolationException {
+		pNESupport.commitTransaction();
+	}
+
+	/**
+	 * Undoes the edits of the transaction in progress
+	 *
+	 * @see PNESupport#rollbackTransaction()
+	 */
+	public void rollbackTransaction() {
+		pNESupport.rollbackTransaction();
+	}
+
 	/**
 	 * @param constraint {@code PNConstraint}
 	 * @param check      . when {@code false}, constraint is added to the
@@ -1416,6 +1446,16 @@ public class ProbNet extends Graph<Node> implements Cloneable {
 		nodeDepot.addNode(node);
 	}
 
+	/**
+	 * Node calls this method when its potentials have been changed. It does
+	 * nothing; it is overridden by the networks that keep information derived
+	 * from the potentials of their nodes.
+	 *
+	 * @param node node whose potentials have been changed
+	 */
+	protected void updatePotentials(Node node) {
+	}
+
 	public InferenceOptions getInferenceOptions() {
 		return inferenceOptions;
 	}
@@ -15,11 +15,9 @@ import java.util.List;
 import org.openmarkov.core.model.network.constraint.annotation.Constraint;
 import org.openmarkov.core.model.network.type.NetworkType;
 import org.openmarkov.plugin.PluginLoader;
-import org.openmarkov.plugin.service.FilterIF;
 import org.openmarkov.plugin.service.PluginLoaderIF;
 
 public class ConstraintManager {
-	private static ConstraintManager instance;
 	private PluginLoaderIF pluginLoader;
 	private HashMap<Class<? extends PNConstraint>, ConstraintBehavior> defaultConstraintBehaviors;
 
@@ -50,10 +48,11 @@ public class ConstraintManager {
 	 * @return The unique instance.
 	 */
 	public static ConstraintManager getUniqueInstance() {
-		if (instance == null) {
-			instance = new ConstraintManager();
-		}
-		return instance;
+		return InstanceHolder.instance;
+	}
+
+	private static class InstanceHolder {
+		private static final ConstraintManager instance = new ConstraintManager();
 	}
 
 	/**
@@ -112,8 +111,7 @@ public class ConstraintManager {
 
 	public final List<Class<?>> findAllConstraints() {
 		try {
-			FilterIF filter = org.openmarkov.plugin.Filter.filter().toBeAnnotatedBy(Constraint.class);
-			return pluginLoader.loadAllPlugins(filter);
+			return pluginLoader.loadAnnotatedPlugins(Constraint.class);
 		} catch (Exception e) {
 		}
 		return null;
@@ -7,7 +7,11 @@
 
 package org.openmarkov.core.model.network.constraint;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.openmarkov.core.action.AddLinkEdit;
 import org.openmarkov.core.action.InvertLinkEdit;
@@ -21,16 +25,32 @@ import org.openmarkov.core.model.network.constraint.annotation.Constraint;
 
 @Constraint(name = "NoCycle", defaultBehavior = ConstraintBehavior.YES) public class NoCycle extends PNConstraint {
 
+	/**
+	 * Uses the algorithm by Kahn (1962): the network has no cycle if all its nodes can be sorted topologically.
+	 * It takes linear time in the number of nodes and links.
+	 */
 	@Override public boolean checkProbNet(ProbNet probNet) {
-		for (Node parent : probNet.getNodes()) {
-			List<Node> children = probNet.getChildren(parent);
-			for (Node child : children) {
-				if (probNet.existsPath(child, parent, true)) {
-					return false;
+		List<Node> nodes = probNet.getNodes();
+		Map<Node, Integer> numParents = new IdentityHashMap<>();
+		Deque<Node> nodesWithoutParents = new ArrayDeque<>();
+		for (Node node : nodes) {
+			int size = probNet.getParents(node).size();
+			numParents.put(node, size);
+			if (size == 0) {
+				nodesWithoutParents.push(node);
+			}
+		}
+		int numSortedNodes = 0;
+		while (!nodesWithoutParents.isEmpty()) {
+			Node node = nodesWithoutParents.pop();
+			numSortedNodes++;
+			for (Node child : probNet.getChildren(node)) {
+				if (numParents.merge(child, -1, Integer::sum) == 0) {
+					nodesWithoutParents.push(child);
 				}
 			}
 		}
-		return true;
+		return numSortedNodes == nodes.size();
 	}
 
 
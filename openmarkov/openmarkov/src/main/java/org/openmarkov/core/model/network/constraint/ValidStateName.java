@@ -7,7 +7,9 @@
 
 package org.openmarkov.core.model.network.constraint;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.openmarkov.core.action.NodeStateEdit;
 import org.openmarkov.core.action.PNEdit;
@@ -83,12 +85,13 @@ import org.openmarkov.core.model.network.constraint.annotation.Constraint;
 		List<Variable> variables = probNet.getVariables();
 		for (Variable variable : variables) {
 			State[] states = variable.getStates();
+			Set<String> names = new HashSet<>();
 			for (State state : states) {
 				String name = state.getName();
 				if ((name == null) || (name.contentEquals(""))) {
 					type_error = IS_EMPTY_NAME;
 					return false;
-				} else if (!variable.chekNewStateName(name)) {
+				} else if (!names.add(name)) {
 					type_error = IS_NAME_ALREADY_EXIST;
 					return false;
 				}
@@ -13,12 +13,10 @@ import java.util.List;
 import java.util.Map;
 
 import org.openmarkov.plugin.PluginLoader;
-import org.openmarkov.plugin.service.FilterIF;
 import org.openmarkov.plugin.service.PluginLoaderIF;
 
 public class ProbDensFunctionManager {
 
-	private static ProbDensFunctionManager instance;
 	private PluginLoaderIF pluginLoader;
 	private Map<String, Class<?>> probDensFunctions;
 
@@ -80,10 +78,11 @@ public class ProbDensFunctionManager {
 	 * @return The unique instance.
 	 */
 	public static ProbDensFunctionManager getUniqueInstance() {
-		if (instance == null) {
-			instance = new ProbDensFunctionManager();
-		}
-		return instance;
+		return InstanceHolder.instance;
+	}
+
+	private static class InstanceHolder {
+		private static final ProbDensFunctionManager instance = new ProbDensFunctionManager();
 	}
 
 	//CMI
@@ -175,8 +174,7 @@ public class ProbDensFunctionManager {
 
 	private List<Class<?>> findAllProbDensFunctions() {
 		try {
-			FilterIF filter = org.openmarkov.plugin.Filter.filter().toBeAnnotatedBy(ProbDensFunctionType.class);
-			return pluginLoader.loadAllPlugins(filter);
+			return pluginLoader.loadAnnotatedPlugins(ProbDensFunctionType.class);
 		} catch (Exception e) {
 		}
 		return null;
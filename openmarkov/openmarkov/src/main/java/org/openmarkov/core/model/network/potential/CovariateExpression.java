@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+package org.openmarkov.core.model.network.potential;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.jeval.EvaluationException;
+import net.sourceforge.jeval.Evaluator;
+
+/**
+ * Covariate of a <code>GLMPotential</code> (or function of a <code>FunctionPotential</code>) compiled once into
+ * an expression tree, so that evaluating it for each configuration of the parents does not parse any string.
+ * <p>
+ * The expressions have the syntax of jeval, in which the covariates were evaluated before, and the same
+ * semantics: the variables are written <code>#{v0}</code>, <code>#{v1}</code>..., the value of
+ * <code>#{vi}</code> being the element <code>i</code> of the array received by <code>evaluate</code>; the
+ * operators are <code>+ - * / % == != &lt; &lt;= &gt; &gt;= &amp;&amp; || !</code>, with the precedence of
+ * jeval, and the relational and logical operators return 1 for true and 0 for false; and the functions are
+ * the mathematical functions of jeval. An expression that uses anything else, for example the string
+ * functions of jeval, is evaluated by jeval.
+ */
+public abstract class CovariateExpression {
+
+	// Methods
+
+	/**
+	 * @param values value of each variable: <code>values[i]</code> is the value of <code>#{vi}</code>
+	 * @return The value of the expression
+	 * @throws EvaluationException if the expression is evaluated by jeval and it fails
+	 */
+	public abstract double evaluate(double[] values) throws EvaluationException;
+
+	/**
+	 * @param expression expression with the syntax of jeval
+	 * @return The compiled expression
+	 */
+	public static CovariateExpression compile(String expression) {
+		CovariateExpression compiledExpression;
+		try {
+			Parser parser = new Parser(expression);
+			compiledExpression = parser.parseExpression(0);
+			if (!parser.isAtEnd()) {
+				compiledExpression = new InterpretedExpression(expression);
+			}
+		} catch (IllegalArgumentException e) {
+			// Not supported by the compiler
+			compiledExpression = new InterpretedExpression(expression);
+		}
+		return compiledExpression;
+	}
+
+	/**
+	 * @param expressions expressions with the syntax of jeval
+	 * @return The compiled expressions
+	 */
+	public static CovariateExpression[] compile(String[] expressions) {
+		CovariateExpression[] compiledExpressions = new CovariateExpression[expressions.length];
+		for (int i = 0; i < expressions.length; i++) {
+			compiledExpressions[i] = compile(expressions[i]);
+		}
+		return compiledExpressions;
+	}
+
+	private static double toDouble(boolean value) {
+		return value ? 1.0 : 0.0;
+	}
+
+	/**
+	 * Recursive descent parser. The binary operators are grouped by their precedence in jeval, from the lowest
+	 * to the highest, and are left associative; the unary operators apply to the following operand.
+	 */
+	private static class Parser {
+
+		private static final String[][] BINARY_OPERATORS = { { "||" }, { "&&" }, { "==", "!=" },
+				{ "<=", ">=", "<", ">" }, { "+", "-" }, { "*", "/", "%" } };
+
+		private final String expression;
+
+		private int position = 0;
+
+		private Parser(String expression) {
+			this.expression = expression;
+		}
+
+		private CovariateExpression parseExpression(int precedence) {
+			if (precedence == BINARY_OPERATORS.length) {
+				return parseOperand();
+			}
+			CovariateExpression left = parseExpression(precedence + 1);
+			String operator;
+			while ((operator = readOperator(BINARY_OPERATORS[precedence])) != null) {
+				left = new BinaryOperation(operator, left, parseExpression(precedence + 1));
+			}
+			return left;
+		}
+
+		private CovariateExpression parseOperand() {
+			skipSpaces();
+			if (position == expression.length()) {
+				throw new IllegalArgumentException("Missing operand in " + expression);
+			}
+			char character = expression.charAt(position);
+			if (isLookingAtUnaryOperator()) {
+				position++;
+				skipSpaces();
+				if (isLookingAtUnaryOperator()) {
+					// Rejected by jeval
+					throw new IllegalArgumentException("Consecutive unary operators in " + expression);
+				}
+				return new UnaryOperation(character, parseOperand());
+			}
+			if (character == '(') {
+				position++;
+				CovariateExpression operand = parseExpression(0);
+				expect(')');
+				return operand;
+			}
+			if (character == '#') {
+				return parseVariable();
+			}
+			if (Character.isDigit(character) || character == '.') {
+				return parseNumber();
+			}
+			if (Character.isLetter(character)) {
+				return parseFunction();
+			}
+			throw new IllegalArgumentException("Unexpected character " + character + " in " + expression);
+		}
+
+		private CovariateExpression parseVariable() {
+			int end = expression.indexOf('}', position);
+			if (!lookingAt("#{v") || end < 0) {
+				throw new IllegalArgumentException("Unknown variable in " + expression);
+			}
+			int index = Integer.parseInt(expression.substring(position + 3, end));
+			position = end + 1;
+			return new VariableValue(index);
+		}
+
+		private CovariateExpression parseNumber() {
+			int start = position;
+			while (position < expression.length() && (Character.isDigit(expression.charAt(position))
+					|| expression.charAt(position) == '.')) {
+				position++;
+			}
+			// Double.parseDouble throws a NumberFormatException, which is an IllegalArgumentException
+			return new Constant(Double.parseDouble(expression.substring(start, position)));
+		}
+
+		private CovariateExpression parseFunction() {
+			int start = position;
+			while (position < expression.length() && Character.isLetterOrDigit(expression.charAt(position))) {
+				position++;
+			}
+			String name = expression.substring(start, position);
+			int arity = FunctionCall.getArity(name);
+			expect('(');
+			CovariateExpression[] arguments = new CovariateExpression[arity];
+			for (int i = 0; i < arity; i++) {
+				if (i > 0) {
+					expect(',');
+				}
+				arguments[i] = parseExpression(0);
+			}
+			expect(')');
+			return new FunctionCall(name, arguments);
+		}
+
+		private String readOperator(String[] operators) {
+			skipSpaces();
+			for (String operator : operators) {
+				if (lookingAt(operator)) {
+					position += operator.length();
+					return operator;
+				}
+			}
+			return null;
+		}
+
+		private void expect(char character) {
+			skipSpaces();
+			if (position == expression.length() || expression.charAt(position) != character) {
+				throw new IllegalArgumentException("Expected " + character + " in " + expression);
+			}
+			position++;
+		}
+
+		private boolean isLookingAtUnaryOperator() {
+			if (position == expression.length()) {
+				return false;
+			}
+			char character = expression.charAt(position);
+			return character == '-' || character == '+' || (character == '!' && !lookingAt("!="));
+		}
+
+		private boolean lookingAt(String text) {
+			return expression.startsWith(text, position);
+		}
+
+		private void skipSpaces() {
+			while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+				position++;
+			}
+		}
+
+		private boolean isAtEnd() {
+			skipSpaces();
+			return position == expression.length();
+		}
+	}
+
+	private static class Constant extends CovariateExpression {
+		private final double value;
+
+		private Constant(double value) {
+			this.value = value;
+		}
+
+		@Override public double evaluate(double[] values) {
+			return value;
+		}
+	}
+
+	private static class VariableValue extends CovariateExpression {
+		private final int index;
+
+		private VariableValue(int index) {
+			this.index = index;
+		}
+
+		@Override public double evaluate(double[] values) throws EvaluationException {
+			if (index < 0 || index >= values.length) {
+				throw new EvaluationException("Can not resolve variable with name equal to \"v" + index + "\".");
+			}
+			return values[index];
+		}
+	}
+
+	private static class UnaryOperation extends CovariateExpression {
+		private final char operator;
+
+		private final CovariateExpression operand;
+
+		private UnaryOperation(char operator, CovariateExpression operand) {
+			this.operator = operator;
+			this.operand = operand;
+		}
+
+		@Override public double evaluate(double[] values) throws EvaluationException {
+			double value = operand.evaluate(values);
+			switch (operator) {
+			case '-':
+				return -value;
+			case '!':
+				return toDouble(value != 1.0);
+			default:
+				return value;
+			}
+		}
+	}
+
+	private static class BinaryOperation extends CovariateExpression {
+		private static final List<String> OPERATORS = Arrays
+				.asList("+", "-", "*", "/", "%", "==", "!=", "<", "<=", ">", ">=", "&&", "||");
+
+		private final int operator;
+
+		private final CovariateExpression left;
+
+		private final CovariateExpression right;
+
+		private BinaryOperation(String operator, CovariateExpression left, CovariateExpression right) {
+			this.operator = OPERATORS.indexOf(operator);
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override public double evaluate(double[] values) throws EvaluationException {
+			double leftValue = left.evaluate(values);
+			double rightValue = right.evaluate(values);
+			switch (operator) {
+			case 0:
+				return leftValue + rightValue;
+			case 1:
+				return leftValue - rightValue;
+			case 2:
+				return leftValue * rightValue;
+			case 3:
+				return leftValue / rightValue;
+			case 4:
+				return leftValue % rightValue;
+			case 5:
+				return toDouble(leftValue == rightValue);
+			case 6:
+				return toDouble(leftValue != rightValue);
+			case 7:
+				return toDouble(leftValue < rightValue);
+			case 8:
+				return toDouble(leftValue <= rightValue);
+			case 9:
+				return toDouble(leftValue > rightValue);
+			case 10:
+				return toDouble(leftValue >= rightValue);
+			case 11:
+				return toDouble(leftValue == 1.0 && rightValue == 1.0);
+			default: // ||
+				return toDouble(leftValue == 1.0 || rightValue == 1.0);
+			}
+		}
+	}
+
+	private static class FunctionCall extends CovariateExpression {
+		/**
+		 * Mathematical functions of jeval: the first ones receive one argument and the rest, two
+		 */
+		private static final List<String> FUNCTIONS = Arrays
+				.asList("abs", "acos", "asin", "atan", "ceil", "cos", "exp", "floor", "log", "rint", "round", "sin",
+						"sqrt", "tan", "toDegrees", "toRadians", "atan2", "IEEEremainder", "max", "min", "pow");
+
+		private static final int NUM_UNARY_FUNCTIONS = 16;
+
+		private final int function;
+
+		private final CovariateExpression[] arguments;
+
+		private FunctionCall(String name, CovariateExpression[] arguments) {
+			this.function = FUNCTIONS.indexOf(name);
+			this.arguments = arguments;
+		}
+
+		/**
+		 * @param name name of a mathematical function of jeval
+		 * @return The number of arguments of the function
+		 */
+		private static int getArity(String name) {
+			int function = FUNCTIONS.indexOf(name);
+			if (function < 0) {
+				throw new IllegalArgumentException("Function not supported by the compiler: " + name);
+			}
+			return (function < NUM_UNARY_FUNCTIONS) ? 1 : 2;
+		}
+
+		@Override public double evaluate(double[] values) throws EvaluationException {
+			double x = arguments[0].evaluate(values);
+			double y = (arguments.length > 1) ? arguments[1].evaluate(values) : 0.0;
+			switch (function) {
+			case 0:
+				return Math.abs(x);
+			case 1:
+				return Math.acos(x);
+			case 2:
+				return Math.asin(x);
+			case 3:
+				return Math.atan(x);
+			case 4:
+				return Math.ceil(x);
+			case 5:
+				return Math.cos(x);
+			case 6:
+				return Math.exp(x);
+			case 7:
+				return Math.floor(x);
+			case 8:
+				return Math.log(x);
+			case 9:
+				return Math.rint(x);
+			case 10:
+				return Math.round(x);
+			case 11:
+				return Math.sin(x);
+			case 12:
+				return Math.sqrt(x);
+			case 13:
+				return Math.tan(x);
+			case 14:
+				return Math.toDegrees(x);
+			case 15:
+				return Math.toRadians(x);
+			case 16:
+				return Math.atan2(x, y);
+			case 17:
+				return Math.IEEEremainder(x, y);
+			case 18:
+				return Math.max(x, y);
+			case 19:
+				return Math.min(x, y);
+			default: // pow
+				return Math.pow(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Expression that the compiler does not support, evaluated by jeval
+	 */
+	private static class InterpretedExpression extends CovariateExpression {
+		private final String expression;
+
+		private InterpretedExpression(String expression) {
+			this.expression = expression;
+		}
+
+		@Override public double evaluate(double[] values) throws EvaluationException {
+			Map<String, String> variableValues = new HashMap<>();
+			for (int i = 0; i < values.length; i++) {
+				variableValues.put("v" + i, String.valueOf(values[i]));
+			}
+			Evaluator evaluator = new Evaluator();
+			evaluator.setVariables(variableValues);
+			return Double.parseDouble(evaluator.evaluate(expression));
+		}
+	}
+}
@@ -9,7 +9,6 @@ package org.openmarkov.core.model.network.potential;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import org.openmarkov.core.exception.NonProjectablePotentialException;
 import org.openmarkov.core.exception.WrongCriterionException;
@@ -22,7 +21,6 @@ import org.openmarkov.core.model.network.VariableType;
 import org.openmarkov.core.model.network.potential.plugin.PotentialType;
 
 import net.sourceforge.jeval.EvaluationException;
-import net.sourceforge.jeval.Evaluator;
 
 @PotentialType(name = "Exponential", family = "GLM") public class ExponentialPotential extends GLMPotential {
 
@@ -61,8 +59,7 @@ import net.sourceforge.jeval.Evaluator;
 
 	@Override protected List<TablePotential> tableProject(EvidenceCase evidenceCase, InferenceOptions inferenceOptions,
 			double[] coefficients, String[] covariates, List<Variable> evidencelessVariables,
-			Map<String, String> variableValues) throws NonProjectablePotentialException, WrongCriterionException {
-		// Fill arrays numericValues and evidencelessVariables
+			double[] variableValues) throws NonProjectablePotentialException, WrongCriterionException {
 		int constantIndex = getConstantIndex(covariates);
 
 		List<Variable> projectedPotentialVariables = new ArrayList<>(evidencelessVariables);
@@ -74,27 +71,26 @@ import net.sourceforge.jeval.Evaluator;
 		int parentFirstIndex = (conditionedVariable == projectedPotentialVariables.get(0)) ? 1 : 0;
 		int[] offsets = projectedPotential.getOffsets();
 		int[] dimensions = projectedPotential.getDimensions();
-		Evaluator evaluator = new Evaluator();
+		CovariateExpression[] compiledCovariates = getCompiledCovariates(covariates);
+		int[] variableIndices = new int[projectedPotentialVariables.size()];
+		double[][] stateValues = new double[projectedPotentialVariables.size()][];
+		for (int j = parentFirstIndex; j < projectedPotentialVariables.size(); ++j) {
+			Variable variable = projectedPotentialVariables.get(j);
+			variableIndices[j] = variables.indexOf(variable);
+			stateValues[j] = getStateValues(variable);
+		}
 		for (int i = 0; i < projectedPotential.values.length; i += numStates) {
 			// Set the values of variables without evidence
 			for (int j = parentFirstIndex; j < projectedPotentialVariables.size(); ++j) {
-				Variable variable = projectedPotentialVariables.get(j);
 				int index = (i / offsets[j]) % dimensions[j];
-				double value = index;
-				try {
-					value = Double.parseDouble(variable.getStates()[index].getName());
-				} catch (NumberFormatException e) {
-					// ignore
-				}
-				variableValues.put("v" + j, String.valueOf(value));
+				variableValues[variableIndices[j]] = stateValues[j][index];
 			}
-			evaluator.setVariables(variableValues);
 			double regression = coefficients[constantIndex];
 			for (int j = 0; j < coefficients.length; ++j) {
 				double covariateValue = 0.0;
 				if (j != constantIndex) {
 					try {
-						covariateValue = Double.parseDouble(evaluator.evaluate(covariates[j]));
+						covariateValue = compiledCovariates[j].evaluate(variableValues);
 					} catch (NumberFormatException | EvaluationException e) {
 						throw new NonProjectablePotentialException(e.getMessage());
 					}
@@ -127,7 +127,7 @@ import net.sourceforge.jeval.Evaluator;
 	 */
 	@Override protected List<TablePotential> tableProject(EvidenceCase evidenceCase, InferenceOptions inferenceOptions,
 			double[] coefficients, String[] covariates, List<Variable> evidencelessVariables,
-			Map<String, String> variableValues) throws NonProjectablePotentialException, WrongCriterionException {
+			double[] variableValues) throws NonProjectablePotentialException, WrongCriterionException {
 		throw new NonProjectablePotentialException("Function potential cannot be projected to a table");
 
 	}
@@ -215,4 +215,13 @@ import net.sourceforge.jeval.Evaluator;
 		return evaluator.evaluate(this.processedCovariates[0]);
 	}
 
+	/**
+	 * @param values Value of each variable: <code>values[i]</code> is the value of <code>#{vi}</code>
+	 * @return The value obtained by evaluating the compiled function for the given values
+	 * @throws EvaluationException EvaluationException
+	 */
+	public double getValue(double[] values) throws EvaluationException {
+		return getCompiledCovariates(processedCovariates)[0].evaluate(values);
+	}
+
 }
@@ -7,9 +7,8 @@
 package org.openmarkov.core.model.network.potential;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 
 import org.openmarkov.core.exception.NodeNotFoundException;
@@ -19,6 +18,7 @@ import org.openmarkov.core.inference.InferenceOptions;
 import org.openmarkov.core.model.network.EvidenceCase;
 import org.openmarkov.core.model.network.Finding;
 import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.State;
 import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.VariableType;
 import org.openmarkov.core.model.network.modelUncertainty.NormalFunction;
@@ -49,6 +49,11 @@ public abstract class GLMPotential extends Potential {
 	 * Colesky decomposition
 	 */
 	protected double[] choleskyDecomposition = null;
+	/**
+	 * Covariates whose compiled expressions are in <code>compiledCovariates</code>
+	 */
+	private String[] compiledCovariateSources = null;
+	private CovariateExpression[] compiledCovariates = null;
 	public GLMPotential(List<Variable> variables, PotentialRole role) {
 		super(variables, role);
 		this.sampledCoefficients = null;
@@ -198,7 +203,9 @@ public abstract class GLMPotential extends Potential {
 			List<TablePotential> projectedPotentials) throws NonProjectablePotentialException, WrongCriterionException {
 		double[] coefficients = (sampledCoefficients == null) ? this.coefficients : this.sampledCoefficients;
 		List<Variable> evidencelessVariables = new ArrayList<>();
-		Map<String, String> variableValues = new HashMap<>();
+		// Value of each variable, in the order of variables; the values of the variables without evidence are
+		// set by the subclasses for each configuration
+		double[] variableValues = new double[variables.size()];
 		int firstParentVariableIndex = 1;
 		for (int i = firstParentVariableIndex; i < variables.size(); ++i) {
 			Variable variable = variables.get(i);
@@ -208,7 +215,6 @@ public abstract class GLMPotential extends Potential {
 							"Can not project potential with numeric variable " + variable.getName());
 				}
 				evidencelessVariables.add(variable);
-				variableValues.put("v" + i, "0.0");
 			} else {
 				double numericValue = 0;
 				Finding finding = evidenceCase.getFinding(variable);
@@ -217,23 +223,66 @@ public abstract class GLMPotential extends Potential {
 					numericValue = finding.getNumericalValue();
 				} else {
 					int index = evidenceCase.getFinding(variable).getStateIndex();
-					numericValue = index;
-					try {
-						numericValue = Double.parseDouble(variable.getStates()[index].getName());
-					} catch (NumberFormatException e) {
-						// ignore
-					}
+					numericValue = getStateValues(variable)[index];
 				}
-				variableValues.put("v" + i, String.valueOf(numericValue));
+				variableValues[i] = numericValue;
 			}
 		}
 		return tableProject(evidenceCase, inferenceOptions, coefficients, processedCovariates, evidencelessVariables,
 				variableValues);
 	}
 
+	/**
+	 * @param evidenceCase          evidence
+	 * @param inferenceOptions      inference options
+	 * @param coefficients          coefficients, maybe sampled
+	 * @param covariates            processed covariates
+	 * @param evidencelessVariables parents without evidence, which are the parents of the projected potential
+	 * @param variableValues        value of each variable of the potential (see <code>getStateValues</code>),
+	 *                              in the order of <code>variables</code>. The values of the parents with
+	 *                              evidence are set; the values of <code>evidencelessVariables</code> are set
+	 *                              for each configuration before evaluating the covariates.
+	 * @return The projected potential
+	 * @throws NonProjectablePotentialException NonProjectablePotentialException
+	 * @throws WrongCriterionException          WrongCriterionException
+	 */
 	protected abstract List<TablePotential> tableProject(EvidenceCase evidenceCase, InferenceOptions inferenceOptions,
 			double[] coefficients, String[] covariates, List<Variable> evidencelessVariables,
-			Map<String, String> variableValues) throws NonProjectablePotentialException, WrongCriterionException;
+			double[] variableValues) throws NonProjectablePotentialException, WrongCriterionException;
+
+	/**
+	 * Compiles the covariates, or returns the expressions compiled in a previous call if they have not changed,
+	 * so that they are not parsed for each configuration of the parents nor for each projection
+	 *
+	 * @param covariates processed covariates
+	 * @return The compiled expression of each covariate
+	 */
+	protected synchronized CovariateExpression[] getCompiledCovariates(String[] covariates) {
+		if (!Arrays.equals(covariates, compiledCovariateSources)) {
+			compiledCovariates = CovariateExpression.compile(covariates);
+			compiledCovariateSources = covariates.clone();
+		}
+		return compiledCovariates;
+	}
+
+	/**
+	 * @param variable finite-states variable
+	 * @return The value of each state in the covariates: the number in the name of the state or, if the name
+	 * is not a number, the index of the state
+	 */
+	protected static double[] getStateValues(Variable variable) {
+		State[] states = variable.getStates();
+		double[] stateValues = new double[states.length];
+		for (int i = 0; i < states.length; ++i) {
+			stateValues[i] = i;
+			try {
+				stateValues[i] = Double.parseDouble(states[i].getName());
+			} catch (NumberFormatException e) {
+				// ignore
+			}
+		}
+		return stateValues;
+	}
 
 	@Override public Potential sample() {
 		if (choleskyDecomposition != null) {
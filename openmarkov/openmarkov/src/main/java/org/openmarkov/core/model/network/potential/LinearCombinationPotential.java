@@ -9,7 +9,6 @@ package org.openmarkov.core.model.network.potential;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import org.openmarkov.core.exception.InvalidStateException;
 import org.openmarkov.core.exception.NonProjectablePotentialException;
@@ -23,7 +22,6 @@ import org.openmarkov.core.model.network.VariableType;
 import org.openmarkov.core.model.network.potential.plugin.PotentialType;
 
 import net.sourceforge.jeval.EvaluationException;
-import net.sourceforge.jeval.Evaluator;
 
 @PotentialType(name = "Linear combination", family = "GLM", altNames = {
 		"Linear regression" }) public class LinearCombinationPotential extends GLMPotential {
@@ -63,11 +61,10 @@ import net.sourceforge.jeval.Evaluator;
 
 	@Override protected List<TablePotential> tableProject(EvidenceCase evidenceCase, InferenceOptions inferenceOptions,
 			double[] coefficients, String[] covariates, List<Variable> evidencelessVariables,
-			Map<String, String> variableValues) throws NonProjectablePotentialException, WrongCriterionException {
+			double[] variableValues) throws NonProjectablePotentialException, WrongCriterionException {
 		Variable conditionedVariable = getConditionedVariable();
 		int numStates = conditionedVariable.getNumStates();
-		Evaluator evaluator = new Evaluator();
-		// Fill arrays numericValues and evidencelessVariables
+		CovariateExpression[] compiledCovariates = getCompiledCovariates(covariates);
 
 		int constantIndex = getConstantIndex(covariates);
 
@@ -79,26 +76,25 @@ import net.sourceforge.jeval.Evaluator;
 		int[] offsets = projectedPotential.getOffsets();
 		int[] dimensions = projectedPotential.getDimensions();
 		int firstParentIndex = 1;
+		int[] variableIndices = new int[projectedPotentialVariables.size()];
+		double[][] stateValues = new double[projectedPotentialVariables.size()][];
+		for (int j = firstParentIndex; j < projectedPotentialVariables.size(); ++j) {
+			Variable variable = projectedPotentialVariables.get(j);
+			variableIndices[j] = variables.indexOf(variable);
+			stateValues[j] = getStateValues(variable);
+		}
 		for (int i = 0; i < projectedPotential.values.length; i += numStates) {
 			// Set the values of variables without evidence
 			for (int j = firstParentIndex; j < projectedPotentialVariables.size(); ++j) {
-				Variable variable = projectedPotentialVariables.get(j);
 				int index = (i / offsets[j]) % dimensions[j];
-				double value = index;
-				try {
-					value = Double.parseDouble(variable.getStates()[index].getName());
-				} catch (NumberFormatException e) {
-					// ignore
-				}
-				variableValues.put("v" + variables.indexOf(variable), String.valueOf(value));
+				variableValues[variableIndices[j]] = stateValues[j][index];
 			}
-			evaluator.setVariables(variableValues);
 			double regression = coefficients[constantIndex];
 			for (int j = 0; j < coefficients.length; ++j) {
 				double covariateValue = 0.0;
 				if (j != constantIndex) {
 					try {
-						covariateValue = Double.parseDouble(evaluator.evaluate(covariates[j]));
+						covariateValue = compiledCovariates[j].evaluate(variableValues);
 					} catch (NumberFormatException | EvaluationException e) {
 						throw new NonProjectablePotentialException(e.getMessage());
 					}
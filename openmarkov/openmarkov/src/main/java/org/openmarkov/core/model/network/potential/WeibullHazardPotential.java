@@ -10,7 +10,6 @@ package org.openmarkov.core.model.network.potential;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import org.openmarkov.core.exception.NodeNotFoundException;
 import org.openmarkov.core.exception.NonProjectablePotentialException;
@@ -19,13 +18,11 @@ import org.openmarkov.core.inference.InferenceOptions;
 import org.openmarkov.core.model.network.EvidenceCase;
 import org.openmarkov.core.model.network.Node;
 import org.openmarkov.core.model.network.ProbNet;
-import org.openmarkov.core.model.network.State;
 import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.VariableType;
 import org.openmarkov.core.model.network.potential.plugin.PotentialType;
 
 import net.sourceforge.jeval.EvaluationException;
-import net.sourceforge.jeval.Evaluator;
 
 @PotentialType(name = "Hazard (Weibull)", family = "GLM") public class WeibullHazardPotential extends GLMPotential {
 
@@ -105,9 +102,8 @@ import net.sourceforge.jeval.Evaluator;
 
 	@Override public List<TablePotential> tableProject(EvidenceCase evidenceCase, InferenceOptions inferenceOptions,
 			double[] coefficients, String[] covariates, List<Variable> evidencelessVariables,
-			Map<String, String> variableValues) throws NonProjectablePotentialException, WrongCriterionException {
+			double[] variableValues) throws NonProjectablePotentialException, WrongCriterionException {
 		Variable conditionedVariable = getConditionedVariable();
-		// Fill arrays numericValues and evidencelessVariables
 
 		int gammaIndex = getGammaIndex(covariates);
 		int constantIndex = getConstantIndex(covariates);
@@ -150,7 +146,14 @@ import net.sourceforge.jeval.Evaluator;
 			ts[0] = t;
 		}
 		double shape = Math.exp(coefficients[gammaIndex]);
-		Evaluator evaluator = new Evaluator();
+		CovariateExpression[] compiledCovariates = getCompiledCovariates(covariates);
+		int[] variableIndices = new int[projectedPotentialVariables.size()];
+		double[][] stateValues = new double[projectedPotentialVariables.size()][];
+		for (int j = 1; j < projectedPotentialVariables.size(); ++j) {
+			Variable variable = projectedPotentialVariables.get(j);
+			variableIndices[j] = variables.indexOf(variable);
+			stateValues[j] = getStateValues(variable);
+		}
 		for (int timeVariableState = 0; timeVariableState < ts.length; ++timeVariableState) {
 			double t = ts[timeVariableState];
 			for (int i = 0; i < numConfigurations; i++) {
@@ -158,23 +161,14 @@ import net.sourceforge.jeval.Evaluator;
 				// Set the values of variables without evidence
 				for (int j = 1; j < projectedPotentialVariables.size(); ++j) {
 					int index = (configBaseIndex / offsets[j]) % dimensions[j];
-					Variable variable = projectedPotentialVariables.get(j);
-					State[] states = variable.getStates();
-					double value = index;
-					try {
-						value = Double.parseDouble(states[index].getName());
-					} catch (NumberFormatException e) {
-						// ignore
-					}
-					variableValues.put("v" + variables.indexOf(variable), String.valueOf(value));
+					variableValues[variableIndices[j]] = stateValues[j][index];
 				}
-				evaluator.setVariables(variableValues);
 				double lambda = coefficients[constantIndex];
 				for (int j = 0; j < coefficients.length; ++j) {
 					double covariateValue = 0.0;
 					if (j != gammaIndex && j != constantIndex) {
 						try {
-							covariateValue = Double.parseDouble(evaluator.evaluate(covariates[j]));
+							covariateValue = compiledCovariates[j].evaluate(variableValues);
 						} catch (NumberFormatException | EvaluationException e) {
 							throw new NonProjectablePotentialException(e.getMessage());
 						}
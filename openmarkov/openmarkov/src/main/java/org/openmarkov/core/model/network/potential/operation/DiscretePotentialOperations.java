@@ -13,7 +13,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -922,6 +921,182 @@ public final class DiscretePotentialOperations {
 		return resultPotential;
 	}
 
+	/**
+	 * Sums out a chance variable from a set of probability potentials and a set of utility potentials in a single
+	 * traversal of their configurations: for each configuration of the other variables it accumulates the joint
+	 * probability of the states of {@code variableToEliminate} and, for each utility potential, the utility
+	 * weighted by that probability. It is equivalent to multiplying the probability potentials, marginalizing the
+	 * product, dividing the product by the marginal and then multiplying and marginalizing the quotient with each
+	 * utility potential, without building the product nor the quotient.
+	 *
+	 * @param probPotentials      probability potentials
+	 * @param utilityPotentials   utility potentials, typically one for each criterion
+	 * @param variableToEliminate chance variable to sum out
+	 * @return The marginal probability, in the position 0, followed by the expected utility of each utility
+	 * potential, in the same order as {@code utilityPotentials}. The expected utility is 0 in the
+	 * configurations whose marginal probability is 0.
+	 * Condition: {@code variableToEliminate} belongs to some probability potential
+	 */
+	public static TablePotential[] sumOutChanceVariable(List<TablePotential> probPotentials,
+			List<TablePotential> utilityPotentials, Variable variableToEliminate) {
+		// The constant probability potentials are multiplied into a factor and the others are sorted by size,
+		// which gives the variables of the marginal probability the same order as in multiply
+		double constantFactor = 1.0;
+		List<TablePotential> nonConstantPotentials = new ArrayList<>();
+		for (TablePotential potential : probPotentials) {
+			if (potential.getNumVariables() != 0) {
+				nonConstantPotentials.add(potential);
+			} else {
+				constantFactor *= potential.values[potential.getInitialPosition()];
+			}
+		}
+		Collections.sort(nonConstantPotentials);
+		List<Variable> probVariables = AuxiliaryOperations.getUnionVariables(nonConstantPotentials);
+		List<Variable> marginalVariables = new ArrayList<>(probVariables);
+		marginalVariables.remove(variableToEliminate);
+
+		// Variables of the outer loop: those of the marginal and those of the utility potentials that are not in
+		// the probability potentials. The inner loop traverses the states of the variable to eliminate
+		List<Variable> outerVariables = new ArrayList<>(marginalVariables);
+		List<Variable> variableToEliminateList = Arrays.asList(variableToEliminate);
+		int numUtilityPotentials = utilityPotentials.size();
+		TablePotential[] resultPotentials = new TablePotential[numUtilityPotentials + 1];
+		resultPotentials[0] = new TablePotential(marginalVariables, getRole(probPotentials));
+		for (int j = 0; j < numUtilityPotentials; j++) {
+			TablePotential utilityPotential = utilityPotentials.get(j);
+			List<Variable> resultVariables = new ArrayList<>(marginalVariables);
+			for (Variable variable : utilityPotential.getVariables()) {
+				if (!probVariables.contains(variable)) {
+					resultVariables.add(variable);
+					if (!outerVariables.contains(variable)) {
+						outerVariables.add(variable);
+					}
+				}
+			}
+			TablePotential resultPotential = new TablePotential(resultVariables, PotentialRole.UNSPECIFIED);
+			resultPotential.setCriterion(utilityPotential.getCriterion());
+			if (utilityPotential.strategyTrees != null) {
+				resultPotential.strategyTrees = new StrategyTree[resultPotential.values.length];
+			}
+			resultPotentials[j + 1] = resultPotential;
+		}
+
+		// current coordinate in the outer variables
+		int[] coordinates = new int[outerVariables.size()];
+		int[] dimensions = TablePotential.calculateDimensions(outerVariables);
+
+		// positions, accumulated offsets and offset of variableToEliminate of the probability potentials...
+		int numProbPotentials = nonConstantPotentials.size();
+		double[][] probTables = new double[numProbPotentials][];
+		int[] probPositions = new int[numProbPotentials];
+		int[][] probOffsets = new int[numProbPotentials][];
+		int[] probStrides = new int[numProbPotentials];
+		for (int i = 0; i < numProbPotentials; i++) {
+			TablePotential potential = nonConstantPotentials.get(i);
+			probTables[i] = potential.values;
+			probPositions[i] = potential.getInitialPosition();
+			probOffsets[i] = getOuterAccumulatedOffsets(outerVariables, potential);
+			probStrides[i] = TablePotential.getAccumulatedOffsets(variableToEliminateList, potential.getVariables())[0];
+		}
+		// ... of the utility potentials...
+		double[][] utilTables = new double[numUtilityPotentials][];
+		int[] utilPositions = new int[numUtilityPotentials];
+		int[][] utilOffsets = new int[numUtilityPotentials][];
+		int[] utilStrides = new int[numUtilityPotentials];
+		for (int j = 0; j < numUtilityPotentials; j++) {
+			TablePotential potential = utilityPotentials.get(j);
+			utilTables[j] = potential.values;
+			utilPositions[j] = potential.getInitialPosition();
+			utilOffsets[j] = getOuterAccumulatedOffsets(outerVariables, potential);
+			utilStrides[j] = TablePotential.getAccumulatedOffsets(variableToEliminateList, potential.getVariables())[0];
+		}
+		// ... and of the resulting potentials
+		int[] resultPositions = new int[numUtilityPotentials + 1];
+		int[][] resultOffsets = new int[numUtilityPotentials + 1][];
+		for (int j = 0; j <= numUtilityPotentials; j++) {
+			resultOffsets[j] = getOuterAccumulatedOffsets(outerVariables, resultPotentials[j]);
+		}
+
+		// Auxiliary variables for the nested loops
+		int numStates = variableToEliminate.getNumStates();
+		int outerSize = TablePotential.computeTableSize(outerVariables);
+		double[] jointProbabilities = new double[numStates];
+		double marginalProbability;
+		int increasedVariable = 0;
+
+		// each outer iteration corresponds to one configuration of the variables other than variableToEliminate
+		for (int outerIteration = 0; outerIteration < outerSize; outerIteration++) {
+			// joint probability of each state of variableToEliminate
+			marginalProbability = 0.0;
+			for (int stateIndex = 0; stateIndex < numStates; stateIndex++) {
+				double jointProbability = constantFactor;
+				for (int i = 0; i < numProbPotentials; i++) {
+					jointProbability *= probTables[i][probPositions[i] + stateIndex * probStrides[i]];
+				}
+				jointProbabilities[stateIndex] = jointProbability;
+				marginalProbability += jointProbability;
+			}
+			// the configurations of the variables of the utility potentials that are not in the probability
+			// potentials repeat the same marginal probability, which is simply written again
+			resultPotentials[0].values[resultPositions[0]] = marginalProbability;
+
+			// expected utility of each utility potential
+			for (int j = 0; j < numUtilityPotentials; j++) {
+				TablePotential resultPotential = resultPotentials[j + 1];
+				double weightedUtility = 0.0;
+				for (int stateIndex = 0; stateIndex < numStates; stateIndex++) {
+					weightedUtility += jointProbabilities[stateIndex] * utilTables[j][utilPositions[j]
+							+ stateIndex * utilStrides[j]];
+				}
+				resultPotential.values[resultPositions[j + 1]] = (marginalProbability == 0.0) ?
+						0.0 :
+						weightedUtility / marginalProbability;
+				if (resultPotential.strategyTrees != null) {
+					StrategyTree[] utilityStrategyTrees = utilityPotentials.get(j).strategyTrees;
+					double[] conditionalProbabilities = new double[numStates];
+					StrategyTree[] strategyTrees = new StrategyTree[numStates];
+					for (int stateIndex = 0; stateIndex < numStates; stateIndex++) {
+						if (marginalProbability != 0.0) {
+							conditionalProbabilities[stateIndex] =
+									jointProbabilities[stateIndex] / marginalProbability;
+						}
+						strategyTrees[stateIndex] = utilityStrategyTrees[utilPositions[j]
+								+ stateIndex * utilStrides[j]];
+					}
+					resultPotential.strategyTrees[resultPositions[j + 1]] = StrategyTree
+							.averageOfInterventions(variableToEliminate, conditionalProbabilities, strategyTrees);
+				}
+			}
+
+			if (outerIteration < outerSize - 1) {
+				// find the next configuration and the index of the increased variable
+				increasedVariable = findNextConfigurationAndIndexIncreasedVariable(dimensions, coordinates,
+						increasedVariable);
+				for (int i = 0; i < numProbPotentials; i++) {
+					probPositions[i] += probOffsets[i][increasedVariable];
+				}
+				for (int j = 0; j < numUtilityPotentials; j++) {
+					utilPositions[j] += utilOffsets[j][increasedVariable];
+				}
+				for (int j = 0; j <= numUtilityPotentials; j++) {
+					resultPositions[j] += resultOffsets[j][increasedVariable];
+				}
+			}
+		}
+		return resultPotentials;
+	}
+
+	/**
+	 * @param outerVariables variables of the outer loop of {@code sumOutChanceVariable}
+	 * @param potential      potential traversed by the loop
+	 * @return The accumulated offsets of {@code potential} in the loop, empty when there are no variables
+	 */
+	private static int[] getOuterAccumulatedOffsets(List<Variable> outerVariables, TablePotential potential) {
+		return outerVariables.isEmpty() ?
+				new int[0] :
+				TablePotential.getAccumulatedOffsets(outerVariables, potential.getVariables());
+	}
+
 	/**
 	 * @param potentials          potentials array to multiply
 	 * @param variablesOfInterest Set of variables that must be kept (although this set may
@@ -2635,11 +2810,8 @@ public final class DiscretePotentialOperations {
 
 		int indexPotentialWithInterventions = potentials.indexOf(potentialWithInterventions);
 
-		List<String> utilityVariablesNames = new ArrayList<>();
-		utilityVariables.forEach(x -> utilityVariablesNames.add(x.getName()));
-		
-		//utilityPotential.
-		
+		// value of the variable v(i+1) of the function, taken from the potential i
+		double[] assignment = new double[numPotentials + 1];
 		for (int resultPosition = 0; resultPosition < tableSize; resultPosition++) {
 			// increment the result coordinate and find out which variable is to be
 			// incremented
@@ -2655,14 +2827,10 @@ public final class DiscretePotentialOperations {
 				resultCoordinate[iVariable] = 0;
 			}
 
-			Map<String, String> assignment = new Hashtable<>();
 			// multiply
 			for (int iPotential = 0; iPotential < numPotentials; iPotential++) {
 				int potentialsPositionIPotential = potentialsPositions[iPotential];
-				String varNameInExpressionToEvaluate = "v" + (iPotential+1);
-				//String varNameInExpressionToEvaluate = utilityVariablesNames.get(iPotential);
-				assignment.put(varNameInExpressionToEvaluate,
-						"" + tables[iPotential][potentialsPositionIPotential]);
+				assignment[iPotential + 1] = tables[iPotential][potentialsPositionIPotential];
 				// Obtain the intervention
 				if (thereAreInterventions && indexPotentialWithInterventions == iPotential) {
 					strategyTree = inputStrategyTrees[potentialsPositionIPotential];
@@ -2672,7 +2840,7 @@ public final class DiscretePotentialOperations {
 					potentialsPositions[iPotential] += offsetAccumulate[iPotential][incrementedVariable];
 				}
 			}
-			resultValues[resultPosition] = Double.parseDouble(utilityPotential.getValue(assignment));
+			resultValues[resultPosition] = utilityPotential.getValue(assignment);
 			if (thereAreInterventions) {
 				resultStrategyTrees[resultPosition] = strategyTree;
 			}
@@ -23,7 +23,6 @@ import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.potential.Potential;
 import org.openmarkov.core.model.network.potential.PotentialRole;
 import org.openmarkov.plugin.PluginLoader;
-import org.openmarkov.plugin.service.FilterIF;
 import org.openmarkov.plugin.service.PluginLoaderIF;
 
 public class PotentialManager {
@@ -35,7 +34,7 @@ public class PotentialManager {
 	/**
 	 * Constructor for PotentialClassManager.
 	 */
-	@SuppressWarnings("unchecked") public PotentialManager() {
+	@SuppressWarnings("unchecked") private PotentialManager() {
 		super();
 		this.pluginsLoader = new PluginLoader();
 		potentials = new HashMap<>();
@@ -52,6 +51,19 @@ public class PotentialManager {
 		}
 	}
 
+	/**
+	 * Singleton pattern.
+	 *
+	 * @return The unique instance.
+	 */
+	public static PotentialManager getUniqueInstance() {
+		return InstanceHolder.instance;
+	}
+
+	private static class InstanceHolder {
+		private static final PotentialManager instance = new PotentialManager();
+	}
+
 	public static String getPotentialName(Class<?> clazz) {
 		return clazz.getAnnotation(PotentialType.class).name();
 	}
@@ -175,8 +187,7 @@ public class PotentialManager {
 	 */
 	private List<Class<?>> findAllPotentials() {
 		try {
-			FilterIF filter = org.openmarkov.plugin.Filter.filter().toBeAnnotatedBy(PotentialType.class);
-			return pluginsLoader.loadAllPlugins(filter);
+			return pluginsLoader.loadAnnotatedPlugins(PotentialType.class);
 		} catch (Exception e) {
 		}
 		return null;
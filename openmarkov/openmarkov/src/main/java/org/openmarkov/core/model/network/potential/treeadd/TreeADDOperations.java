@@ -0,0 +1,467 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.core.model.network.potential.treeadd;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openmarkov.core.exception.NonProjectablePotentialException;
+import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.inference.InferenceOptions;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.Finding;
+import org.openmarkov.core.model.network.State;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.VariableType;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
+
+/**
+ * Operations that use {@code TreeADDPotential}s as factors during inference, exploiting
+ * context-specific independence instead of blending every branch into a full table.
+ * <p>
+ * The operations work on <i>factor trees</i>: trees whose top variables are finite-states,
+ * whose branches cover every state of the top variable, and whose leaves are
+ * {@code TablePotential}s. Several branches may point to the same potential; the operations
+ * keep that sharing by caching their results by identity, so the size of a result depends on
+ * the number of distinct sub-potentials and not on the number of paths in the tree.
+ * The results are either {@code TreeADDPotential}s with the same structure or, when a tree
+ * collapses, plain {@code TablePotential}s.
+ */
+public class TreeADDOperations {
+
+	/**
+	 * Projects a tree into a factor tree, projecting the potentials of the leaves and
+	 * restricting the branches of the top variables that belong to the evidence.
+	 *
+	 * @param tree                {@code TreeADDPotential}
+	 * @param evidenceCase        {@code EvidenceCase}
+	 * @param inferenceOptions    {@code InferenceOptions}
+	 * @param projectedPotentials Potentials already projected in the network
+	 * @return A factor tree, a {@code TablePotential} when the tree collapses, or {@code null}
+	 * when the tree cannot be used as a factor (numeric top variables or states without branch)
+	 * @throws NonProjectablePotentialException NonProjectablePotentialException
+	 * @throws WrongCriterionException WrongCriterionException
+	 */
+	public static Potential project(TreeADDPotential tree, EvidenceCase evidenceCase,
+			InferenceOptions inferenceOptions, List<TablePotential> projectedPotentials)
+			throws NonProjectablePotentialException, WrongCriterionException {
+		return project(tree, evidenceCase, inferenceOptions, projectedPotentials, new Cache());
+	}
+
+	/**
+	 * @param potential  A factor tree or a {@code TablePotential}
+	 * @param variable   {@code Variable}
+	 * @param stateIndex Index of the state of {@code variable}
+	 * @return The potential restricted to {@code variable = stateIndex}
+	 */
+	public static Potential restrict(Potential potential, Variable variable, int stateIndex) {
+		return restrict(potential, variable, stateIndex, new Cache());
+	}
+
+	/**
+	 * @param potential1 A factor tree or a {@code TablePotential}
+	 * @param potential2 A factor tree or a {@code TablePotential}
+	 * @return The product of both potentials
+	 */
+	public static Potential multiply(Potential potential1, Potential potential2) {
+		return apply(potential1, potential2, true, new Cache());
+	}
+
+	/**
+	 * @param potential A factor tree or a {@code TablePotential}
+	 * @param variable  {@code Variable} to sum out
+	 * @return The potential after summing out {@code variable}
+	 */
+	public static Potential sumOut(Potential potential, Variable variable) {
+		return sumOut(potential, variable, new Cache());
+	}
+
+	/**
+	 * Multiplies the potentials and sums out the variable. The tables are multiplied first
+	 * and the trees are multiplied afterwards by the product, so that the structure of the
+	 * trees is kept as long as possible.
+	 *
+	 * @param potentials          Factor trees and {@code TablePotential}s
+	 * @param variableToEliminate {@code Variable}
+	 * @return A factor tree or a {@code TablePotential}
+	 */
+	public static Potential multiplyAndSumOut(List<? extends Potential> potentials, Variable variableToEliminate) {
+		List<TablePotential> tablePotentials = new ArrayList<>();
+		List<Potential> treePotentials = new ArrayList<>();
+		for (Potential potential : potentials) {
+			if (potential instanceof TablePotential) {
+				tablePotentials.add((TablePotential) potential);
+			} else {
+				treePotentials.add(potential);
+			}
+		}
+		Cache cache = new Cache();
+		Potential product = tablePotentials.isEmpty() ? null : DiscretePotentialOperations.multiply(tablePotentials);
+		for (Potential treePotential : treePotentials) {
+			product = (product == null) ? treePotential : apply(treePotential, product, true, cache);
+		}
+		return sumOut(product, variableToEliminate, cache);
+	}
+
+	/**
+	 * @param potential A factor tree or a {@code TablePotential}
+	 * @return The number of cells of the distinct tables plus the number of distinct branches
+	 */
+	public static int getSize(Potential potential) {
+		return getSize(potential, Collections.newSetFromMap(new IdentityHashMap<>()));
+	}
+
+	/**
+	 * @param potential A factor tree or a {@code TablePotential}
+	 * @return {@code true} when the potential takes less space than the table of its variables
+	 */
+	public static boolean isSmallerThanTable(Potential potential) {
+		return potential instanceof TreeADDPotential
+				&& getSize(potential) < TablePotential.computeTableSize(potential.getVariables());
+	}
+
+	/**
+	 * @param potential A factor tree or a {@code TablePotential}
+	 * @return The {@code TablePotential} with the same values, whose variables are those of
+	 * {@code potential}, in the same order
+	 */
+	public static TablePotential toTablePotential(Potential potential) {
+		if (potential instanceof TablePotential) {
+			return (TablePotential) potential;
+		}
+		List<Variable> variables = potential.getVariables();
+		TablePotential result = new TablePotential(variables, potential.getPotentialRole());
+		result.setCriterion(potential.getCriterion());
+		Map<Variable, Integer> variablesIndices = new HashMap<>();
+		for (int i = 0; i < variables.size(); i++) {
+			variablesIndices.put(variables.get(i), i);
+		}
+		// Pre-compute the children of each subtree and the position of the leaves' variables
+		Map<Potential, Potential[]> treesChildren = new IdentityHashMap<>();
+		Map<Potential, int[]> treesTopIndices = new IdentityHashMap<>();
+		Map<Potential, int[][]> leavesOffsets = new IdentityHashMap<>();
+		indexFactor(potential, variablesIndices, treesChildren, treesTopIndices, leavesOffsets);
+
+		int[] dimensions = result.getDimensions();
+		int[] coordinates = new int[variables.size()];
+		double[] values = result.values;
+		for (int position = 0; position < values.length; position++) {
+			Potential node = potential;
+			while (node instanceof TreeADDPotential) {
+				node = treesChildren.get(node)[coordinates[treesTopIndices.get(node)[0]]];
+			}
+			int[][] leafOffsets = leavesOffsets.get(node);
+			int leafPosition = 0;
+			for (int i = 0; i < leafOffsets[0].length; i++) {
+				leafPosition += coordinates[leafOffsets[0][i]] * leafOffsets[1][i];
+			}
+			values[position] = ((TablePotential) node).values[leafPosition];
+			// Next configuration
+			for (int i = 0; i < coordinates.length; i++) {
+				if (++coordinates[i] < dimensions[i]) {
+					break;
+				}
+				coordinates[i] = 0;
+			}
+		}
+		return result;
+	}
+
+	private static Potential project(Potential potential, EvidenceCase evidenceCase,
+			InferenceOptions inferenceOptions, List<TablePotential> projectedPotentials, Cache cache)
+			throws NonProjectablePotentialException, WrongCriterionException {
+		if (cache.projections.containsKey(potential)) {
+			return cache.projections.get(potential);
+		}
+		Potential projection;
+		if (potential instanceof TreeADDPotential) {
+			TreeADDPotential tree = (TreeADDPotential) potential;
+			Variable topVariable = tree.getRootVariable();
+			Potential[] children = null;
+			if (topVariable.getVariableType() != VariableType.NUMERIC) {
+				children = new Potential[topVariable.getNumStates()];
+				for (TreeADDBranch branch : tree.getBranches()) {
+					Potential child = (branch.getPotential() == null) ?
+							null :
+							project(branch.getPotential(), evidenceCase, inferenceOptions, projectedPotentials, cache);
+					for (State state : branch.getBranchStates()) {
+						children[topVariable.getStateIndex(state)] = child;
+					}
+				}
+			}
+			if (children == null || Arrays.asList(children).contains(null)) {
+				projection = null;
+			} else {
+				Finding finding = (evidenceCase != null) ? evidenceCase.getFinding(topVariable) : null;
+				projection = (finding != null) ?
+						restrict(children[finding.getStateIndex()], topVariable, finding.getStateIndex(), cache) :
+						buildTree(topVariable, children, tree.getPotentialRole(), cache);
+			}
+		} else {
+			projection = potential.tableProject(evidenceCase, inferenceOptions, projectedPotentials).get(0);
+		}
+		cache.projections.put(potential, projection);
+		return projection;
+	}
+
+	private static Potential restrict(Potential potential, Variable variable, int stateIndex, Cache cache) {
+		if (!potential.contains(variable)) {
+			return potential;
+		}
+		Map<Variable, Potential[]> potentialRestrictions = cache.restrictions
+				.computeIfAbsent(potential, k -> new HashMap<>());
+		Potential[] restrictions = potentialRestrictions
+				.computeIfAbsent(variable, k -> new Potential[variable.getNumStates()]);
+		if (restrictions[stateIndex] == null) {
+			Potential restriction;
+			if (potential instanceof TablePotential) {
+				restriction = restrictTable((TablePotential) potential, variable, stateIndex);
+			} else {
+				TreeADDPotential tree = (TreeADDPotential) potential;
+				Variable topVariable = tree.getRootVariable();
+				Potential[] children = getChildren(tree);
+				if (topVariable == variable) {
+					restriction = restrict(children[stateIndex], variable, stateIndex, cache);
+				} else {
+					Potential[] restrictedChildren = new Potential[children.length];
+					for (int i = 0; i < children.length; i++) {
+						restrictedChildren[i] = restrict(children[i], variable, stateIndex, cache);
+					}
+					restriction = buildTree(topVariable, restrictedChildren, tree.getPotentialRole(), cache);
+				}
+			}
+			restrictions[stateIndex] = restriction;
+		}
+		return restrictions[stateIndex];
+	}
+
+	/**
+	 * Multiplies or adds two potentials, branching on the top variable of the first tree.
+	 */
+	private static Potential apply(Potential potential1, Potential potential2, boolean isProduct, Cache cache) {
+		Map<Potential, Map<Potential, Potential>> results = isProduct ? cache.products : cache.sums;
+		Map<Potential, Potential> potential1Results = results.computeIfAbsent(potential1, k -> new IdentityHashMap<>());
+		Potential result = potential1Results.get(potential2);
+		if (result == null) {
+			if (potential1 instanceof TablePotential && potential2 instanceof TablePotential) {
+				TablePotential table1 = (TablePotential) potential1;
+				TablePotential table2 = (TablePotential) potential2;
+				result = isProduct ?
+						DiscretePotentialOperations.multiply(table1, table2) :
+						DiscretePotentialOperations.sum(table1, table2);
+			} else {
+				boolean isFirstTree = potential1 instanceof TreeADDPotential;
+				TreeADDPotential tree = (TreeADDPotential) (isFirstTree ? potential1 : potential2);
+				Potential other = isFirstTree ? potential2 : potential1;
+				Variable topVariable = tree.getRootVariable();
+				Potential[] children = getChildren(tree);
+				Potential[] resultChildren = new Potential[children.length];
+				for (int i = 0; i < children.length; i++) {
+					resultChildren[i] = apply(children[i], restrict(other, topVariable, i, cache), isProduct, cache);
+				}
+				PotentialRole role = DiscretePotentialOperations.getRole(Arrays.asList(potential1, potential2));
+				result = buildTree(topVariable, resultChildren, role, cache);
+			}
+			potential1Results.put(potential2, result);
+		}
+		return result;
+	}
+
+	private static Potential sumOut(Potential potential, Variable variable, Cache cache) {
+		Potential result = cache.sumOuts.get(potential);
+		if (result == null) {
+			if (!potential.contains(variable)) {
+				result = scale(potential, variable.getNumStates(), cache);
+			} else if (potential instanceof TablePotential) {
+				result = DiscretePotentialOperations.marginalize((TablePotential) potential, variable);
+			} else {
+				TreeADDPotential tree = (TreeADDPotential) potential;
+				Variable topVariable = tree.getRootVariable();
+				Potential[] children = getChildren(tree);
+				if (topVariable == variable) {
+					// Sum the distinct children, weighted by the number of states that share them
+					Map<Potential, Integer> multiplicities = new IdentityHashMap<>();
+					List<Potential> distinctChildren = new ArrayList<>();
+					for (Potential child : children) {
+						if (multiplicities.merge(child, 1, Integer::sum) == 1) {
+							distinctChildren.add(child);
+						}
+					}
+					for (Potential child : distinctChildren) {
+						int multiplicity = multiplicities.get(child);
+						Potential term = (multiplicity == 1) ? child : scale(child, multiplicity, cache);
+						result = (result == null) ? term : apply(result, term, false, cache);
+					}
+				} else {
+					Potential[] resultChildren = new Potential[children.length];
+					for (int i = 0; i < children.length; i++) {
+						resultChildren[i] = sumOut(children[i], variable, cache);
+					}
+					result = buildTree(topVariable, resultChildren, tree.getPotentialRole(), cache);
+				}
+			}
+			cache.sumOuts.put(potential, result);
+		}
+		return result;
+	}
+
+	private static Potential scale(Potential potential, double factor, Cache cache) {
+		Potential result = cache.scales.computeIfAbsent(potential, k -> new HashMap<>()).get(factor);
+		if (result == null) {
+			if (potential instanceof TablePotential) {
+				TablePotential table = (TablePotential) potential;
+				double[] values = new double[table.values.length];
+				for (int i = 0; i < values.length; i++) {
+					values[i] = table.values[i] * factor;
+				}
+				result = new TablePotential(table.getVariables(), table.getPotentialRole(), values);
+				result.setCriterion(table.getCriterion());
+			} else {
+				TreeADDPotential tree = (TreeADDPotential) potential;
+				Potential[] children = getChildren(tree);
+				Potential[] resultChildren = new Potential[children.length];
+				for (int i = 0; i < children.length; i++) {
+					resultChildren[i] = scale(children[i], factor, cache);
+				}
+				result = buildTree(tree.getRootVariable(), resultChildren, tree.getPotentialRole(), cache);
+			}
+			cache.scales.get(potential).put(factor, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Builds a factor tree grouping in the same branch the states of {@code topVariable} whose
+	 * children are the same object. If all the states share the same child, returns that child.
+	 */
+	private static Potential buildTree(Variable topVariable, Potential[] children, PotentialRole role, Cache cache) {
+		for (int i = 0; i < children.length; i++) {
+			// A path of the tree never contains its top variable again
+			children[i] = restrict(children[i], topVariable, i, cache);
+		}
+		Map<Potential, List<State>> branchesStates = new IdentityHashMap<>();
+		List<Potential> distinctChildren = new ArrayList<>();
+		State[] states = topVariable.getStates();
+		for (int i = 0; i < children.length; i++) {
+			List<State> branchStates = branchesStates.get(children[i]);
+			if (branchStates == null) {
+				branchStates = new ArrayList<>();
+				branchesStates.put(children[i], branchStates);
+				distinctChildren.add(children[i]);
+			}
+			branchStates.add(states[i]);
+		}
+		if (distinctChildren.size() == 1) {
+			return distinctChildren.get(0);
+		}
+		Set<Variable> variablesSet = new LinkedHashSet<>();
+		for (Potential child : distinctChildren) {
+			variablesSet.addAll(child.getVariables());
+		}
+		variablesSet.add(topVariable);
+		List<Variable> variables = new ArrayList<>(variablesSet);
+		List<TreeADDBranch> branches = new ArrayList<>();
+		for (Potential child : distinctChildren) {
+			branches.add(new TreeADDBranch(branchesStates.get(child), topVariable, child, variables));
+		}
+		return new TreeADDPotential(variables, topVariable, role, branches, distinctChildren.get(0).getCriterion());
+	}
+
+	/**
+	 * @return The child of each state of the top variable of a factor tree
+	 */
+	private static Potential[] getChildren(TreeADDPotential tree) {
+		Variable topVariable = tree.getRootVariable();
+		Potential[] children = new Potential[topVariable.getNumStates()];
+		for (TreeADDBranch branch : tree.getBranches()) {
+			for (State state : branch.getBranchStates()) {
+				children[topVariable.getStateIndex(state)] = branch.getPotential();
+			}
+		}
+		return children;
+	}
+
+	private static TablePotential restrictTable(TablePotential table, Variable variable, int stateIndex) {
+		List<Variable> variables = table.getVariables();
+		int variableIndex = variables.indexOf(variable);
+		int offset = table.getOffsets()[variableIndex];
+		int blockSize = offset * variable.getNumStates();
+		variables.remove(variableIndex);
+		double[] values = new double[table.values.length / variable.getNumStates()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = table.values[(i / offset) * blockSize + stateIndex * offset + i % offset];
+		}
+		TablePotential restriction = new TablePotential(variables, table.getPotentialRole(), values);
+		restriction.setCriterion(table.getCriterion());
+		return restriction;
+	}
+
+	private static int getSize(Potential potential, Set<Potential> visited) {
+		int size = 0;
+		if (visited.add(potential)) {
+			if (potential instanceof TablePotential) {
+				size = ((TablePotential) potential).values.length;
+			} else {
+				List<TreeADDBranch> branches = ((TreeADDPotential) potential).getBranches();
+				size = branches.size();
+				for (TreeADDBranch branch : branches) {
+					size += getSize(branch.getPotential(), visited);
+				}
+			}
+		}
+		return size;
+	}
+
+	private static void indexFactor(Potential potential, Map<Variable, Integer> variablesIndices,
+			Map<Potential, Potential[]> treesChildren, Map<Potential, int[]> treesTopIndices,
+			Map<Potential, int[][]> leavesOffsets) {
+		if (potential instanceof TablePotential) {
+			if (!leavesOffsets.containsKey(potential)) {
+				TablePotential table = (TablePotential) potential;
+				List<Variable> leafVariables = table.getVariables();
+				int[][] offsets = new int[2][leafVariables.size()];
+				for (int i = 0; i < leafVariables.size(); i++) {
+					offsets[0][i] = variablesIndices.get(leafVariables.get(i));
+					offsets[1][i] = table.getOffsets()[i];
+				}
+				leavesOffsets.put(potential, offsets);
+			}
+		} else if (!treesChildren.containsKey(potential)) {
+			TreeADDPotential tree = (TreeADDPotential) potential;
+			Potential[] children = getChildren(tree);
+			treesChildren.put(tree, children);
+			treesTopIndices.put(tree, new int[] { variablesIndices.get(tree.getRootVariable()) });
+			for (Potential child : children) {
+				indexFactor(child, variablesIndices, treesChildren, treesTopIndices, leavesOffsets);
+			}
+		}
+	}
+
+	/**
+	 * Results of the operations, indexed by the identity of their operands.
+	 */
+	private static class Cache {
+		private final Map<Potential, Potential> projections = new IdentityHashMap<>();
+		private final Map<Potential, Map<Variable, Potential[]>> restrictions = new IdentityHashMap<>();
+		private final Map<Potential, Map<Potential, Potential>> products = new IdentityHashMap<>();
+		private final Map<Potential, Map<Potential, Potential>> sums = new IdentityHashMap<>();
+		private final Map<Potential, Potential> sumOuts = new IdentityHashMap<>();
+		private final Map<Potential, Map<Double, Potential>> scales = new IdentityHashMap<>();
+	}
+
+}
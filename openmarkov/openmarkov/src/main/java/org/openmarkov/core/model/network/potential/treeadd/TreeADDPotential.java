@@ -200,6 +200,24 @@ public class TreeADDPotential extends Potential {
 		updateReferences(getLabeledBranches());
 	}
 
+	/**
+	 * Constructor for trees built during inference by {@code TreeADDOperations}.
+	 * Their branches are never labeled, so references are not resolved.
+	 *
+	 * @param variables List of variables
+	 * @param topVariable Top variable
+	 * @param role Potential role
+	 * @param branches Branches, that may share their potentials
+	 * @param criterion Decision criterion
+	 */
+	TreeADDPotential(List<Variable> variables, Variable topVariable, PotentialRole role,
+			List<TreeADDBranch> branches, Criterion criterion) {
+		super(variables, role);
+		this.topVariable = topVariable;
+		this.branches = branches;
+		this.criterion = criterion;
+	}
+
 	/**
 	 * Copy constructor
 	 *
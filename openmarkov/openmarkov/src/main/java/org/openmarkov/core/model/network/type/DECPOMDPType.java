@@ -12,7 +12,7 @@ import org.openmarkov.core.model.network.constraint.OnlyOneAgent;
 import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 @ProbNetType(name = "DEC_POMDP") public class DECPOMDPType extends POMDPType {
-	private static DECPOMDPType instance = null;
+	private static final DECPOMDPType instance = new DECPOMDPType();
 
 	// Constructor
 	private DECPOMDPType() {
@@ -23,9 +23,6 @@ import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 	// Methods
 	public static DECPOMDPType getUniqueInstance() {
-		if (instance == null) {
-			instance = new DECPOMDPType();
-		}
 		return instance;
 	}
 
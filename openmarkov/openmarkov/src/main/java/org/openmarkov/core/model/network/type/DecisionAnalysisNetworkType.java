@@ -13,7 +13,7 @@ import org.openmarkov.core.model.network.constraint.NoRevelationArc;
 import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 @ProbNetType(name = "DAN") public class DecisionAnalysisNetworkType extends NetworkType {
-	private static DecisionAnalysisNetworkType instance = null;
+	private static final DecisionAnalysisNetworkType instance = new DecisionAnalysisNetworkType();
 
 	// Constructor
 	private DecisionAnalysisNetworkType() {
@@ -24,9 +24,6 @@ import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 	// Methods
 	public static DecisionAnalysisNetworkType getUniqueInstance() {
-		if (instance == null) {
-			instance = new DecisionAnalysisNetworkType();
-		}
 		return instance;
 	}
 
@@ -14,7 +14,7 @@ import org.openmarkov.core.model.network.constraint.OnlyTemporalVariables;
 import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 @ProbNetType(name = "DBN") public class DynamicBayesianNetwork extends NetworkType {
-	private static DynamicBayesianNetwork instance = null;
+	private static final DynamicBayesianNetwork instance = new DynamicBayesianNetwork();
 
 	// Constructor
 	private DynamicBayesianNetwork() {
@@ -26,9 +26,6 @@ import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 	// Methods
 	public static DynamicBayesianNetwork getUniqueInstance() {
-		if (instance == null) {
-			instance = new DynamicBayesianNetwork();
-		}
 		return instance;
 	}
 
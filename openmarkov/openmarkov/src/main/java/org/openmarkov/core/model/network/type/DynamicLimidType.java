@@ -13,7 +13,7 @@ import org.openmarkov.core.model.network.constraint.OnlyTemporalVariables;
 import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 @ProbNetType(name = "DynamicLIMID") public class DynamicLimidType extends NetworkType {
-	private static DynamicLimidType instance = null;
+	private static final DynamicLimidType instance = new DynamicLimidType();
 
 	// Constructor
 	private DynamicLimidType() {
@@ -25,9 +25,6 @@ import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 	// Methods
 	public static DynamicLimidType getUniqueInstance() {
-		if (instance == null) {
-			instance = new DynamicLimidType();
-		}
 		return instance;
 	}
 
@@ -10,7 +10,7 @@ package org.openmarkov.core.model.network.type;
 import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 @ProbNetType(name = "InfluenceDiagram") public class InfluenceDiagramType extends NetworkType {
-	private static InfluenceDiagramType instance = null;
+	private static final InfluenceDiagramType instance = new InfluenceDiagramType();
 
 	// Constructor
 	private InfluenceDiagramType() {
@@ -19,9 +19,6 @@ import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 	// Methods
 	public static InfluenceDiagramType getUniqueInstance() {
-		if (instance == null) {
-			instance = new InfluenceDiagramType();
-		}
 		return instance;
 	}
 
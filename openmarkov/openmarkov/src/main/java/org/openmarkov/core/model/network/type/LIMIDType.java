@@ -10,7 +10,7 @@ package org.openmarkov.core.model.network.type;
 import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 @ProbNetType(name = "LIMID") public class LIMIDType extends NetworkType {
-	private static LIMIDType instance = null;
+	private static final LIMIDType instance = new LIMIDType();
 
 	// Constructor
 	private LIMIDType() {
@@ -19,9 +19,6 @@ import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 	// Methods
 	public static LIMIDType getUniqueInstance() {
-		if (instance == null) {
-			instance = new LIMIDType();
-		}
 		return instance;
 	}
 
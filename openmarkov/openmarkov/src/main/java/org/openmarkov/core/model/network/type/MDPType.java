@@ -16,7 +16,7 @@ import org.openmarkov.core.model.network.constraint.UtilityNodes;
 import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 @ProbNetType(name = "MDP") public class MDPType extends NetworkType {
-	private static MDPType instance = null;
+	private static final MDPType instance = new MDPType();
 
 	// Constructor
 	private MDPType() {
@@ -30,9 +30,6 @@ import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 	// Methods
 	public static MDPType getUniqueInstance() {
-		if (instance == null) {
-			instance = new MDPType();
-		}
 		return instance;
 	}
 
@@ -15,7 +15,7 @@ import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 @ProbNetType(name = "MID", alternativeNames = { "MPAD"}) public class MIDType
 		extends NetworkType {
 	// Attributes
-	private static MIDType instance = null;
+	private static final MIDType instance = new MIDType();
 
 	// Constructor
 	private MIDType() {
@@ -26,9 +26,6 @@ import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 	// Methods
 	public static MIDType getUniqueInstance() {
-		if (instance == null) {
-			instance = new MIDType();
-		}
 		return instance;
 	}
 
@@ -14,7 +14,7 @@ import org.openmarkov.core.model.network.constraint.OnlyUndirectedLinks;
 import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 @ProbNetType(name = "MarkovNetwork") public class MarkovNetworkType extends NetworkType {
-	private static MarkovNetworkType instance = null;
+	private static final MarkovNetworkType instance = new MarkovNetworkType();
 
 	// Constructor
 	private MarkovNetworkType() {
@@ -26,9 +26,6 @@ import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 	// Methods
 	public static MarkovNetworkType getUniqueInstance() {
-		if (instance == null) {
-			instance = new MarkovNetworkType();
-		}
 		return instance;
 	}
 
@@ -13,7 +13,7 @@ import org.openmarkov.core.model.network.constraint.OnlyTemporalVariables;
 import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 @ProbNetType(name = "POMDP") public class POMDPType extends NetworkType {
-	private static POMDPType instance = null;
+	private static final POMDPType instance = new POMDPType();
 
 	// Constructor
 	protected POMDPType() {
@@ -24,9 +24,6 @@ import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 	// Methods
 	public static POMDPType getUniqueInstance() {
-		if (instance == null) {
-			instance = new POMDPType();
-		}
 		return instance;
 	}
 
@@ -12,7 +12,7 @@ import org.openmarkov.core.model.network.constraint.NoLinkRestriction;
 import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 @ProbNetType(name = "TuningNetwork") public class TuningNetworkType extends NetworkType {
-	private static TuningNetworkType instance = null;
+	private static final TuningNetworkType instance = new TuningNetworkType();
 
 	// Constructor
 	protected TuningNetworkType() {
@@ -22,9 +22,6 @@ import org.openmarkov.core.model.network.type.plugin.ProbNetType;
 
 	// Methods
 	public static TuningNetworkType getUniqueInstance() {
-		if (instance == null) {
-			instance = new TuningNetworkType();
-		}
 		return instance;
 	}
 
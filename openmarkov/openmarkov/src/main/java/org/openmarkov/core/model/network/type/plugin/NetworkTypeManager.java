@@ -15,7 +15,6 @@ import java.util.Set;
 
 import org.openmarkov.core.model.network.type.NetworkType;
 import org.openmarkov.plugin.PluginLoader;
-import org.openmarkov.plugin.service.FilterIF;
 import org.openmarkov.plugin.service.PluginLoaderIF;
 
 /**
@@ -24,6 +23,23 @@ import org.openmarkov.plugin.service.PluginLoaderIF;
 public class NetworkTypeManager {
 	private Map<String, Class<? extends NetworkType>> networkTypeClasses = null;
 
+	private NetworkTypeManager() {
+		super();
+	}
+
+	/**
+	 * Singleton pattern.
+	 *
+	 * @return The unique instance.
+	 */
+	public static NetworkTypeManager getUniqueInstance() {
+		return InstanceHolder.instance;
+	}
+
+	private static class InstanceHolder {
+		private static final NetworkTypeManager instance = new NetworkTypeManager();
+	}
+
 	public NetworkType getNetworkType(String name) {
 		if (networkTypeClasses == null) {
 			networkTypeClasses = getNetworkTypesMap();
@@ -94,8 +110,7 @@ public class NetworkTypeManager {
 	private List<Class<?>> findAllNetworkTypes() {
 		PluginLoaderIF pluginsLoader = new PluginLoader();
 		try {
-			FilterIF filter = org.openmarkov.plugin.Filter.filter().toBeAnnotatedBy(ProbNetType.class);
-			return pluginsLoader.loadAllPlugins(filter);
+			return pluginsLoader.loadAnnotatedPlugins(ProbNetType.class);
 		} catch (Exception e) {
 			//ignore
 		}
@@ -9,7 +9,9 @@ package org.openmarkov.core.oopn;
 
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +38,7 @@ import org.openmarkov.core.exception.DoEditException;
 import org.openmarkov.core.exception.NodeNotFoundException;
 import org.openmarkov.core.exception.NonProjectablePotentialException;
 import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.model.graph.Link;
 import org.openmarkov.core.model.network.Node;
 import org.openmarkov.core.model.network.ProbNet;
 import org.openmarkov.core.model.network.Variable;
@@ -52,6 +55,17 @@ public class OOPNet extends ProbNet implements PNUndoableEditListener {
 	private Map<String, Instance> instances = new HashMap<>();
 	private List<ReferenceLink> referenceLinks = new ArrayList<>();
 
+	// Plain network copied by getPlainProbNet, the modification count of this network when it was brought up to
+	// date and the nodes whose potentials have changed since then
+	private ProbNet plainProbNet;
+	private long plainProbNetModificationCount;
+	private Set<Node> changedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	// Variables replaced when the plain network was created, in order, with the variables that replaced them
+	private List<Variable> replacedVariables = new ArrayList<>();
+	private List<List<Variable>> replacingVariables = new ArrayList<>();
+	private Map<Variable, Integer> replacementIndices = new HashMap<>();
+
 	/**
 	 * Constructor for OOPNet.
 	 */
@@ -149,6 +163,7 @@ public class OOPNet extends ProbNet implements PNUndoableEditListener {
 		} else {
 			instance.getClassNet().getPNESupport().addUndoableEditListener(this);
 			instances.put(instance.getName(), instance);
+			invalidatePlainProbNet();
 		}
 	}
 
@@ -166,6 +181,7 @@ public class OOPNet extends ProbNet implements PNUndoableEditListener {
 	 */
 	public void addReferenceLink(ReferenceLink link) {
 		referenceLinks.add(link);
+		invalidatePlainProbNet();
 	}
 
 	/**
@@ -182,69 +198,214 @@ public class OOPNet extends ProbNet implements PNUndoableEditListener {
 	 */
 	public void removeReferenceLink(ReferenceLink link) {
 		referenceLinks.remove(link);
+		invalidatePlainProbNet();
 	}
 
 	/**
-	 * Returns the equivalent node in {@code sourceInstance} to the
-	 * {@code Node} in {@code destinationInstance}
+	 * Unrolls instances and returns a plain probabilistic network.
+	 * <p>
+	 * The plain network is kept between calls. When only the potentials of some nodes have changed, directly or
+	 * through a {@code PotentialChangeEdit}, just those potentials are unrolled again; any other change of the
+	 * nodes, links, instances or reference links of this network, or any other edit, including those propagated
+	 * from the classes of its instances, unrolls the whole network again. Each call returns a copy, which shares
+	 * the variables and potentials with this network but not the nodes and links.
 	 *
-	 * @param sourceInstance Source instance
-	 * @param destInstance destination instance
-	 * @param node Node
-	 * @return The equivalent node in source instance to the node in the destination instance
+	 * @return Plain probabilistic network
 	 */
-	private Node getEquivalentNode(Instance sourceInstance, Instance destInstance, Node node) {
-		Node equivalentNode = null;
-		int i = 0;
-		String nodeName = node.getName();
-		nodeName = nodeName.replace(destInstance.getName() + ".", "");
-		while (equivalentNode == null && i < sourceInstance.getNodes().size()) {
-			String equivalentNodeName = sourceInstance.getNodes().get(i).getName();
-			equivalentNodeName = equivalentNodeName.replace(sourceInstance.getName() + ".", "");
-			if (equivalentNodeName.equals(nodeName)) {
-				equivalentNode = sourceInstance.getNodes().get(i);
+	public ProbNet getPlainProbNet() {
+		long modificationCount = getPNESupport().getModificationCount();
+		if (plainProbNet == null || plainProbNetModificationCount != modificationCount
+				|| !updatePlainPotentials()) {
+			changedNodes.clear();
+			plainProbNet = createPlainProbNet();
+			plainProbNetModificationCount = modificationCount;
+		}
+		return plainProbNet.copy();
+	}
+
+	/**
+	 * Discards the plain network kept by {@code getPlainProbNet}
+	 */
+	private void invalidatePlainProbNet() {
+		plainProbNet = null;
+	}
+
+	/**
+	 * Unrolls again the potentials of the nodes changed since the plain network was brought up to date
+	 *
+	 * @return false if a potential can not be unrolled alone, so the whole network has to be unrolled
+	 */
+	private boolean updatePlainPotentials() {
+		for (Node node : changedNodes) {
+			Node plainNode = (getNode(node.getVariable()) == node) ? plainProbNet.getNode(node.getVariable()) : null;
+			// The nodes removed by the unrolling keep removed
+			if (plainNode != null) {
+				List<Potential> potentials = new ArrayList<>();
+				List<Potential> replacedPotentials = new ArrayList<>();
+				for (Potential potential : node.getPotentials()) {
+					Potential plainPotential = getPlainPotential(potential);
+					if (plainPotential == null) {
+						return false;
+					}
+					if (plainPotential == potential) {
+						potentials.add(potential);
+					} else {
+						replacedPotentials.add(plainPotential);
+					}
+				}
+				// As in createPlainProbNet, the potentials with replaced variables go at the end
+				potentials.addAll(replacedPotentials);
+				plainNode.setPotentials(potentials);
 			}
-			++i;
 		}
-		return equivalentNode;
+		changedNodes.clear();
+		return true;
+	}
+
+	/**
+	 * Applies to a potential the replacements of variables done by {@code createPlainProbNet}, in the same order
+	 *
+	 * @param potential Potential of this network
+	 * @return The potential itself, if none of its variables was replaced, a copy with the replaced variables,
+	 * or null if one of them was replaced by several variables
+	 */
+	private Potential getPlainPotential(Potential potential) {
+		Potential plainPotential = potential;
+		int lastReplacement = -1;
+		while (true) {
+			int replacement = replacedVariables.size();
+			for (Variable variable : plainPotential.getVariables()) {
+				Integer index = replacementIndices.get(variable);
+				if (index != null && index > lastReplacement && index < replacement) {
+					replacement = index;
+				}
+			}
+			if (replacement == replacedVariables.size()) {
+				return plainPotential;
+			}
+			List<Variable> newVariables = replacingVariables.get(replacement);
+			if (newVariables.size() != 1) {
+				return null;
+			}
+			if (plainPotential == potential) {
+				plainPotential = potential.copy();
+			}
+			plainPotential.replaceVariable(replacedVariables.get(replacement), newVariables.get(0));
+			lastReplacement = replacement;
+		}
 	}
 
 	/**
-	 * Unrolls instances and returns a plain probabilistic network
+	 * Records that {@code createPlainProbNet} has replaced a variable
+	 *
+	 * @param variable     Replaced variable
+	 * @param newVariables Variables that replace it
+	 */
+	private void addReplacement(Variable variable, List<Variable> newVariables) {
+		replacementIndices.put(variable, replacedVariables.size());
+		replacedVariables.add(variable);
+		replacingVariables.add(newVariables);
+	}
+
+	@Override public void doEdit(PNEdit edit)
+			throws ConstraintViolationException, NonProjectablePotentialException, WrongCriterionException,
+			DoEditException {
+		boolean upToDate = plainProbNet != null
+				&& plainProbNetModificationCount == getPNESupport().getModificationCount();
+		super.doEdit(edit);
+		if (upToDate && edit instanceof PotentialChangeEdit) {
+			// The edit only changes potentials, which are recorded in changedNodes
+			plainProbNetModificationCount = getPNESupport().getModificationCount();
+		}
+	}
+
+	@Override protected void updatePotentials(Node node) {
+		if (plainProbNet != null) {
+			changedNodes.add(node);
+		}
+	}
+
+	@Override public void updateVariable(Variable oldVariable) {
+		super.updateVariable(oldVariable);
+		invalidatePlainProbNet();
+	}
+
+	@Override public void addNode(Node node) {
+		super.addNode(node);
+		invalidatePlainProbNet();
+	}
+
+	@Override public void removeNode(Node node) {
+		super.removeNode(node);
+		invalidatePlainProbNet();
+	}
+
+	@Override public Link<Node> addLink(Node node1, Node node2, boolean directed) {
+		invalidatePlainProbNet();
+		return super.addLink(node1, node2, directed);
+	}
+
+	@Override public void removeLink(Node node1, Node node2, boolean directed) {
+		super.removeLink(node1, node2, directed);
+		invalidatePlainProbNet();
+	}
+
+	@Override public void removeLink(Link<Node> link) {
+		super.removeLink(link);
+		invalidatePlainProbNet();
+	}
+
+	@Override public void removeLinks(Node node) {
+		super.removeLinks(node);
+		invalidatePlainProbNet();
+	}
+
+	/**
+	 * Unrolls instances. The nodes, links and potentials are located through maps, so the time is linear in the
+	 * size of the network.
 	 *
 	 * @return Plain probabilistic network
 	 */
-	public ProbNet getPlainProbNet() {
+	private ProbNet createPlainProbNet() {
+		replacedVariables.clear();
+		replacingVariables.clear();
+		replacementIndices.clear();
 		ProbNet probNet = copy();
 		probNet.makeLinksExplicit(false);
+		PotentialIndex potentialIndex = new PotentialIndex(probNet);
+		Map<Instance, List<InstanceReferenceLink>> linksToParameters = getLinksToParameters();
+		Map<Instance, Map<String, Node>> nodesByLocalName = new HashMap<>();
 		for (Instance instance : getInstances().values()) {
 			for (Instance subInstance : instance.getSubInstances().values()) {
 				if (subInstance.isInput()) {
-					List<ReferenceLink> linksToParameter = getLinksToParameter(subInstance);
+					List<InstanceReferenceLink> linksToParameter = linksToParameters
+							.getOrDefault(subInstance, Collections.emptyList());
 					for (Node node : subInstance.getNodes()) {
 						Node formalNode = probNet.getNode(node.getVariable());
+						String localName = getLocalName(subInstance, node);
 						List<Node> paramNodes = new ArrayList<>();
-						for (ReferenceLink link : linksToParameter) {
-							InstanceReferenceLink instanceLink = (InstanceReferenceLink) link;
-							Node equivalentNode = getEquivalentNode(instanceLink.getSourceInstance(),
-									instanceLink.getDestSubInstance(), node);
-							Node paramNode = probNet.getNode(equivalentNode.getVariable());
+						for (InstanceReferenceLink link : linksToParameter) {
+							Node equivalentNode = nodesByLocalName
+									.computeIfAbsent(link.getSourceInstance(), OOPNet::getNodesByLocalName)
+									.get(localName);
+							Node paramNode = (equivalentNode != null) ?
+									probNet.getNode(equivalentNode.getVariable()) :
+									null;
 							if (paramNode != null) {
 								paramNodes.add(paramNode);
 							}
 						}
 						if (paramNodes.size() == 1) {
-							replaceNode(probNet, formalNode, paramNodes.get(0));
+							replaceNode(probNet, potentialIndex, formalNode, paramNodes.get(0));
 						} else {//if (paramNodes.size () > 1){
-							replaceNodes(probNet, formalNode, paramNodes);
+							replaceNodes(probNet, potentialIndex, formalNode, paramNodes);
 						}
 					}
 					// Remove formal parameter nodes
-					if (true)//linksToParameter.size () > 0)
-					{
-						for (Node node : subInstance.getNodes()) {
-							probNet.removeNode(probNet.getNode(node.getVariable()));
-						}
+					for (Node node : subInstance.getNodes()) {
+						Node formalNode = probNet.getNode(node.getVariable());
+						potentialIndex.removeNode(formalNode);
+						probNet.removeNode(formalNode);
 					}
 				}
 			}
@@ -255,7 +416,8 @@ public class OOPNet extends ProbNet implements PNUndoableEditListener {
 				NodeReferenceLink nodeLink = (NodeReferenceLink) link;
 				Node sourceNode = probNet.getNode(nodeLink.getSourceNode().getVariable());
 				Node destinationNode = probNet.getNode(nodeLink.getDestinationNode().getVariable());
-				replaceNode(probNet, destinationNode, sourceNode);
+				replaceNode(probNet, potentialIndex, destinationNode, sourceNode);
+				potentialIndex.removeNode(destinationNode);
 				probNet.removeNode(destinationNode);
 			}
 		}
@@ -263,10 +425,35 @@ public class OOPNet extends ProbNet implements PNUndoableEditListener {
 		return probNet;
 	}
 
-	private void replaceNodes(ProbNet probNet, Node formalNode, List<Node> paramNodes) {
+	/**
+	 * @param instance Instance
+	 * @param node     Node of the instance
+	 * @return The name of the node without the name of the instance
+	 */
+	private static String getLocalName(Instance instance, Node node) {
+		return node.getName().replace(instance.getName() + ".", "");
+	}
+
+	/**
+	 * @param instance Instance
+	 * @return The nodes of the instance indexed by their names without the name of the instance
+	 */
+	private static Map<String, Node> getNodesByLocalName(Instance instance) {
+		Map<String, Node> nodes = new HashMap<>();
+		for (Node node : instance.getNodes()) {
+			nodes.putIfAbsent(getLocalName(instance, node), node);
+		}
+		return nodes;
+	}
+
+	private void replaceNodes(ProbNet probNet, PotentialIndex potentialIndex, Node formalNode, List<Node> paramNodes) {
+		List<Variable> paramVariables = new ArrayList<>();
+		for (Node paramNode : paramNodes) {
+			paramVariables.add(paramNode.getVariable());
+		}
+		addReplacement(formalNode.getVariable(), paramVariables);
 		// Update potentials
-		HashMap<Potential, Potential> potentialsToReplace = new HashMap<>();
-		for (Potential potential : probNet.getPotentials(formalNode.getVariable())) {
+		for (Potential potential : potentialIndex.getPotentials(formalNode.getVariable())) {
 			if (potential instanceof ICIPotential) {
 				ICIPotential potentialCopy;
 
@@ -278,17 +465,7 @@ public class OOPNet extends ProbNet implements PNUndoableEditListener {
 						potentialCopy = (ICIPotential) potentialCopy.addVariable(paramNode.getVariable());
 						potentialCopy.setNoisyParameters(paramNode.getVariable(), noisyParameters);
 					}
-					potentialsToReplace.put(potential, potentialCopy);
-				}
-			}
-		}
-		for (Node node : probNet.getNodes()) {
-			for (Potential potentialToReplace : potentialsToReplace.keySet()) {
-				if (node.getPotentials().contains(potentialToReplace)) {
-					List<Potential> potentials = node.getPotentials();
-					potentials.remove(potentialToReplace);
-					potentials.add(potentialsToReplace.get(potentialToReplace));
-					node.setPotentials(potentials);
+					potentialIndex.replace(potential, potentialCopy);
 				}
 			}
 		}
@@ -304,12 +481,16 @@ public class OOPNet extends ProbNet implements PNUndoableEditListener {
 		}
 	}
 
-	private List<ReferenceLink> getLinksToParameter(Instance instance) {
-		List<ReferenceLink> links = new ArrayList<>();
+	/**
+	 * @return The instance reference links indexed by their destination sub-instances
+	 */
+	private Map<Instance, List<InstanceReferenceLink>> getLinksToParameters() {
+		Map<Instance, List<InstanceReferenceLink>> links = new HashMap<>();
 		for (ReferenceLink link : getReferenceLinks()) {
-			if (link instanceof InstanceReferenceLink && ((InstanceReferenceLink) link).getDestSubInstance()
-					.equals(instance)) {
-				links.add(link);
+			if (link instanceof InstanceReferenceLink) {
+				InstanceReferenceLink instanceLink = (InstanceReferenceLink) link;
+				links.computeIfAbsent(instanceLink.getDestSubInstance(), instance -> new ArrayList<>())
+						.add(instanceLink);
 			}
 		}
 		return links;
@@ -317,26 +498,17 @@ public class OOPNet extends ProbNet implements PNUndoableEditListener {
 
 	/**
 	 * @param probNet Network
+	 * @param potentialIndex Potentials of the network
 	 * @param formalNode Formal node
 	 * @param paramNode Param node
 	 */
-	private void replaceNode(ProbNet probNet, Node formalNode, Node paramNode) {
+	private void replaceNode(ProbNet probNet, PotentialIndex potentialIndex, Node formalNode, Node paramNode) {
+		addReplacement(formalNode.getVariable(), Collections.singletonList(paramNode.getVariable()));
 		// Update potentials
-		HashMap<Potential, Potential> potentialsToReplace = new HashMap<>();
-		for (Potential potential : probNet.getPotentials(formalNode.getVariable())) {
+		for (Potential potential : potentialIndex.getPotentials(formalNode.getVariable())) {
 			Potential potentialCopy = potential.copy();
 			potentialCopy.replaceVariable(formalNode.getVariable(), paramNode.getVariable());
-			potentialsToReplace.put(potential, potentialCopy);
-		}
-		for (Node node : probNet.getNodes()) {
-			for (Potential potentialToReplace : potentialsToReplace.keySet()) {
-				if (node.getPotentials().contains(potentialToReplace)) {
-					List<Potential> potentials = node.getPotentials();
-					potentials.remove(potentialToReplace);
-					potentials.add(potentialsToReplace.get(potentialToReplace));
-					node.setPotentials(potentials);
-				}
-			}
+			potentialIndex.replace(potential, potentialCopy);
 		}
 		// Update Links
 		// Replace links to children
@@ -362,6 +534,7 @@ public class OOPNet extends ProbNet implements PNUndoableEditListener {
 
 	@Override public void undoableEditHappened(UndoableEditEvent e) {
 		if (e.getEdit() instanceof PNEdit) {
+			invalidatePlainProbNet();
 			PNEdit edit = (PNEdit) e.getEdit();
 			List<PNEdit> simpleEdits = new ArrayList<>();
 			if (edit instanceof CompoundPNEdit) {
@@ -544,8 +717,7 @@ public class OOPNet extends ProbNet implements PNUndoableEditListener {
 	}
 
 	@Override public void undoEditHappened(UndoableEditEvent event) {
-		// TODO Auto-generated method stub
-
+		invalidatePlainProbNet();
 	}
 
 	private Potential findEquivalentPotentialInInstance(String instanceName, Potential potential) {
@@ -618,4 +790,81 @@ public class OOPNet extends ProbNet implements PNUndoableEditListener {
 		return classes;
 	}
 
+	/**
+	 * Index of the potentials of a network by the variables they contain and by the node they belong to. The
+	 * potentials are compared by identity, because {@code Potential.equals} only compares variables and role.
+	 */
+	private static class PotentialIndex {
+		private final Map<Variable, List<Potential>> potentialsByVariable = new HashMap<>();
+		private final Map<Potential, Node> nodesByPotential = new IdentityHashMap<>();
+
+		private PotentialIndex(ProbNet probNet) {
+			for (Node node : probNet.getNodes()) {
+				for (Potential potential : node.getPotentials()) {
+					add(potential, node);
+				}
+			}
+		}
+
+		/**
+		 * @param variable Variable
+		 * @return A copy of the list of the potentials that contain {@code variable}
+		 */
+		private List<Potential> getPotentials(Variable variable) {
+			return new ArrayList<>(potentialsByVariable.getOrDefault(variable, Collections.emptyList()));
+		}
+
+		/**
+		 * Replaces {@code potential} by {@code newPotential} in its node, at the end of its list of potentials
+		 *
+		 * @param potential    Potential
+		 * @param newPotential Potential
+		 */
+		private void replace(Potential potential, Potential newPotential) {
+			Node node = remove(potential);
+			if (node != null) {
+				List<Potential> potentials = node.getPotentials();
+				removeByIdentity(potentials, potential);
+				potentials.add(newPotential);
+				node.setPotentials(potentials);
+				add(newPotential, node);
+			}
+		}
+
+		private void removeNode(Node node) {
+			for (Potential potential : node.getPotentials()) {
+				remove(potential);
+			}
+		}
+
+		private void add(Potential potential, Node node) {
+			nodesByPotential.put(potential, node);
+			for (Variable variable : potential.getVariables()) {
+				potentialsByVariable.computeIfAbsent(variable, key -> new ArrayList<>()).add(potential);
+			}
+		}
+
+		private Node remove(Potential potential) {
+			Node node = nodesByPotential.remove(potential);
+			if (node != null) {
+				for (Variable variable : potential.getVariables()) {
+					List<Potential> potentials = potentialsByVariable.get(variable);
+					if (potentials != null) {
+						removeByIdentity(potentials, potential);
+					}
+				}
+			}
+			return node;
+		}
+
+		private static void removeByIdentity(List<Potential> potentials, Potential potential) {
+			for (int i = 0; i < potentials.size(); i++) {
+				if (potentials.get(i) == potential) {
+					potentials.remove(i);
+					return;
+				}
+			}
+		}
+	}
+
 }
@@ -5,6 +5,7 @@ import java.util.List;
 import org.openmarkov.core.dt.DecisionTreeNode;
 import org.openmarkov.core.exception.IncompatibleEvidenceException;
 import org.openmarkov.core.exception.NotEvaluableNetworkException;
+import org.openmarkov.core.inference.InferenceSession;
 import org.openmarkov.core.inference.MulticriteriaOptions;
 import org.openmarkov.core.inference.tasks.GenerateDecisionTree;
 import org.openmarkov.core.model.network.EvidenceCase;
@@ -48,7 +49,7 @@ public class DecompositionGenerateDecisionTree implements GenerateDecisionTree {
 	 * @param probNet a network (usually containing decisions and utility nodes)
 	 */
 	public DecompositionGenerateDecisionTree(ProbNet probNet, int depth)  {
-		 this.probNet = probNet.copy();
+		 this.probNet = new InferenceSession(probNet).getProbNet();
 		 this.depth = depth;
 		 
 		this.isUnicriterion = probNet.getInferenceOptions().getMultiCriteriaOptions().getMulticriteriaType()
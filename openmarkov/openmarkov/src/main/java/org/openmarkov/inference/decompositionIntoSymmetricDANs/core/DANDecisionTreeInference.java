@@ -8,6 +8,7 @@
 	package org.openmarkov.inference.decompositionIntoSymmetricDANs.core;
 
 	import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Stack;
 
@@ -71,17 +72,65 @@ import org.openmarkov.inference.decompositionIntoSymmetricDANs.DecisionTreeCompu
 			boolean computeDecisionTreeForGUI, boolean isCEA) throws NotEvaluableNetworkException {
 		this(dan, evidenceCase, treeDepth, 0, computeDecisionTreeForGUI, isCEA);
 	}
+
+	/**
+	 * @param parallelDepth number of levels of the tree whose branches are evaluated in parallel
+	 */
+	public DANDecisionTreeInference(ProbNet dan, EvidenceCase evidenceCase, int treeDepth,
+			boolean computeDecisionTreeForGUI, boolean isCEA, int parallelDepth) throws NotEvaluableNetworkException {
+		this(dan, evidenceCase, treeDepth, computeDecisionTreeForGUI, isCEA, parallelDepth, null);
+	}
+
+	/**
+	 * @param parallelDepth number of levels of the tree whose branches are evaluated in parallel
+	 * @param cache         transposition table where the results of the equivalent sub-DANs are shared. It can
+	 *                      be null. It is not used when the decision tree is computed for the GUI
+	 */
+	public DANDecisionTreeInference(ProbNet dan, EvidenceCase evidenceCase, int treeDepth,
+			boolean computeDecisionTreeForGUI, boolean isCEA, int parallelDepth, DANEvaluationCache cache)
+			throws NotEvaluableNetworkException {
+		this(dan, evidenceCase, treeDepth, 0, computeDecisionTreeForGUI, isCEA, parallelDepth, cache);
+	}
 		
 	
 		
 		
 		protected DANDecisionTreeInference(ProbNet dan, EvidenceCase evidenceCase, int maximumTreeDepth,
 				int currentTreeDepth, boolean computeDecisionTreeForGUI, boolean isCEA) throws NotEvaluableNetworkException {
-			super(dan, isCEA);
+			this(dan, evidenceCase, maximumTreeDepth, currentTreeDepth, computeDecisionTreeForGUI, isCEA, 0);
+		}
+
+		protected DANDecisionTreeInference(ProbNet dan, EvidenceCase evidenceCase, int maximumTreeDepth,
+				int currentTreeDepth, boolean computeDecisionTreeForGUI, boolean isCEA, int parallelDepth)
+				throws NotEvaluableNetworkException {
+			this(dan, evidenceCase, maximumTreeDepth, currentTreeDepth, computeDecisionTreeForGUI, isCEA, parallelDepth,
+					null);
+		}
+
+		protected DANDecisionTreeInference(ProbNet dan, EvidenceCase evidenceCase, int maximumTreeDepth,
+				int currentTreeDepth, boolean computeDecisionTreeForGUI, boolean isCEA, int parallelDepth,
+				DANEvaluationCache cache) throws NotEvaluableNetworkException {
+			this(new DANInstantiation(dan), evidenceCase, maximumTreeDepth, currentTreeDepth, computeDecisionTreeForGUI,
+					isCEA, parallelDepth, cache);
+		}
+
+		/**
+		 * @param dan instantiation evaluated. Its network is only built when the decision tree is computed for the
+		 *            GUI or when a symmetric DAN is evaluated at a leaf
+		 */
+		protected DANDecisionTreeInference(DANInstantiation dan, EvidenceCase evidenceCase, int maximumTreeDepth,
+				int currentTreeDepth, boolean computeDecisionTreeForGUI, boolean isCEA, int parallelDepth,
+				DANEvaluationCache cache) throws NotEvaluableNetworkException {
+			super(dan.getOriginalDAN(), isCEA, parallelDepth, computeDecisionTreeForGUI ? null : cache);
 			List<Variable> alwaysObservedVariables;
 			boolean thereAreDecisions = !dan.getNodes(NodeType.DECISION).isEmpty();
 
 			this.setComputeDecisionTreeForGUI(computeDecisionTreeForGUI);
+			DANEvaluationCache.Signature signature = getSignature(dan, null, evidenceCase, getClass(),
+					maximumTreeDepth - currentTreeDepth);
+			if (setProbabilityAndUtilityFromCache(signature)) {
+				return;
+			}
 			if (thereAreDecisions) {
 				alwaysObservedVariables = getAlwaysObservedVariables(dan, null, evidenceCase);
 			} else {
@@ -91,15 +140,16 @@ import org.openmarkov.inference.decompositionIntoSymmetricDANs.DecisionTreeCompu
 			if (maximumTreeDepthReached || (alwaysObservedVariables.isEmpty() && !thereAreDecisions)) {
 				DANInference evaluation;
 				if (maximumTreeDepthReached) {
-					evaluation = new DANDecompositionIntoSymmetricDANsInference(dan, null, evidenceCase, isCEAnalysis);
+					evaluation = new DANDecompositionIntoSymmetricDANsInference(dan, null, evidenceCase, isCEAnalysis,
+							parallelDepth, cache);
 				} else {// alwaysObservedVariables.isEmpty() && !thereAreDecisions
-					evaluation = new DANConditionalSymmetricInference(dan, null, evidenceCase, isCEAnalysis);
+					evaluation = new DANConditionalSymmetricInference(dan.getNetwork(), null, evidenceCase, isCEAnalysis);
 				}
 				setProbabilityAndUtilityFromEvaluation(evaluation);
-				// Create the structure of leaves in the DT with utility nodes
-				Node svNode = getSuperValueNode(dan,isCEA);
 				if (computeDecisionTreeForGUI) {
-					decisionTree = createDecisionTreeNode(dan, svNode,evidenceCase);
+					// Create the structure of leaves in the DT with utility nodes
+					Node svNode = getSuperValueNode(dan.getNetwork(),isCEA);
+					decisionTree = createDecisionTreeNode(dan.getNetwork(), svNode,evidenceCase);
 					//TODO Consider in some moment to have the tree structure of SV nodes in the DT in the GUI
 					//addNonSVUtilityNodesToDecisionTree();
 				}
@@ -108,58 +158,76 @@ import org.openmarkov.inference.decompositionIntoSymmetricDANs.DecisionTreeCompu
 				if (!alwaysObservedVariables.isEmpty()) { // If O is not empty
 					Variable x = DANOperations.selectVariableWithoutAncestorsInVariables(alwaysObservedVariables, dan);
 					if (computeDecisionTreeForGUI) {
-						decisionTree = createDecisionTreeNode(dan, x,evidenceCase);
+						decisionTree = createDecisionTreeNode(dan.getNetwork(), x,evidenceCase);
 					}
 					State[] states = x.getStates();
+					List<DANInstantiation> childDANs = new ArrayList<>();
+					List<State> childStates = new ArrayList<>();
+					List<ChildEvaluation<DANDecisionTreeInference>> childEvaluations = new ArrayList<>();
 					for (State state : states) {
-						ProbNet dan_x = DANOperations.instantiate(dan, x, state);
+						DANInstantiation dan_x = new DANInstantiation(dan, x, state);
 						try {
-							childEvaluationDecisionTree(dan_x, DANOperations.extendEvidenceCase(evidenceCase, x, state),
-									maximumTreeDepth, childTreeDepth, x, state);
+							EvidenceCase evidenceCase_x = DANOperations.extendEvidenceCase(evidenceCase, x, state);
+							childEvaluations.add(() -> constructDecisionTreeInference(dan_x, evidenceCase_x,
+									maximumTreeDepth, childTreeDepth));
+							childDANs.add(dan_x);
+							childStates.add(state);
 						} catch (InvalidStateException | IncompatibleEvidenceException e) {
 							e.printStackTrace();
 						}
 					}
-					conditionEliminateChanceAndSetProbabilityAndUtility(dan, x);
+					childEvaluationsDecisionTree(childEvaluations, childDANs, x, childStates);
+					conditionEliminateChanceAndSetProbabilityAndUtility(probNet, x);
 				} else {
 					Variable rootDecision;
 					// Get the decisions that can be made first
 					List<Node> nextDecisions = DANOperations.getNextDecisions(dan);
 					if (nextDecisions.size() == 1) { // If exactly one decision D can be made first
-						rootDecision = nextDecisions.get(0).getVariable();
+						rootDecision = dan.getVariable(nextDecisions.get(0));
 						if (computeDecisionTreeForGUI) {
-							decisionTree = createDecisionTreeNode(dan, rootDecision,evidenceCase);
+							decisionTree = createDecisionTreeNode(dan.getNetwork(), rootDecision,evidenceCase);
 						}
+						List<DANInstantiation> childDANs = new ArrayList<>();
+						List<ChildEvaluation<DANDecisionTreeInference>> childEvaluations = new ArrayList<>();
 						for (State state : rootDecision.getStates()) {
-							ProbNet dan_x = DANOperations.instantiate(dan, rootDecision, state);
-							childEvaluationDecisionTree(dan_x, evidenceCase, maximumTreeDepth, childTreeDepth, rootDecision,
-									state);
+							DANInstantiation dan_x = new DANInstantiation(dan, rootDecision, state);
+							childEvaluations.add(() -> constructDecisionTreeInference(dan_x, evidenceCase,
+									maximumTreeDepth, childTreeDepth));
+							childDANs.add(dan_x);
 						}
+						childEvaluationsDecisionTree(childEvaluations, childDANs, rootDecision,
+								Arrays.asList(rootDecision.getStates()));
 					} else {// Several decisions can be made first
 						rootDecision = DANOperations.createDummyVariableOfOrder(nextDecisions);
-						Node orderDecisionNode = new Node(probNet, rootDecision, NodeType.DECISION);
 						if (computeDecisionTreeForGUI) {
-							decisionTree = createDecisionTreeNode(dan, orderDecisionNode,evidenceCase);
+							Node orderDecisionNode = new Node(dan.getNetwork(), rootDecision, NodeType.DECISION);
+							decisionTree = createDecisionTreeNode(dan.getNetwork(), orderDecisionNode,evidenceCase);
 						}
 						// Prioritize each decision
+						List<DANInstantiation> childDANs = new ArrayList<>();
+						List<State> childStates = new ArrayList<>();
+						List<ChildEvaluation<DANDecisionTreeInference>> childEvaluations = new ArrayList<>();
 						for (Node decision : nextDecisions) {
-							ProbNet prioritizedDAN = DANOperations.prioritize(dan, decision);
+							DANInstantiation prioritizedDAN = dan.prioritize(decision);
 							try {
-								childEvaluationDecisionTree(prioritizedDAN, evidenceCase, maximumTreeDepth, childTreeDepth,
-										rootDecision, rootDecision.getState(decision.getName()));
+								childStates.add(rootDecision.getState(decision.getName()));
+								childEvaluations.add(() -> constructDecisionTreeInference(prioritizedDAN, evidenceCase,
+										maximumTreeDepth, childTreeDepth));
+								childDANs.add(prioritizedDAN);
 							} catch (InvalidStateException e) {
 								e.printStackTrace();
 							}
 						}
+						childEvaluationsDecisionTree(childEvaluations, childDANs, rootDecision, childStates);
 					}
-					conditionMaximizeAndSetProbabilityAndUtility(dan, rootDecision);
+					conditionMaximizeAndSetProbabilityAndUtility(probNet, rootDecision);
 				}
 			}
 			if (computeDecisionTreeForGUI) {
 				decisionTree.setScenarioProbability(DANOperations.getOnlyValuePotential(this.getProbability()));
 				decisionTree.setOnlyValueForUtility(this.getUtility());
 			}
-
+			putProbabilityAndUtilityInCache(signature);
 		}
 		
 		
@@ -292,29 +360,29 @@ import org.openmarkov.inference.decompositionIntoSymmetricDANs.DecisionTreeCompu
 		
 
 		/**
-		 * @param dan
-		 * @param evidenceCase
-		 * @param maximumTreeDepth
-		 * @param childTreeDepth
-		 * @param x
-		 * @param state
-		 * @throws NotEvaluableNetworkException This method (1) executes a recursive (child) evaluation with
-		 *                                      parameters 'dan', 'evidenceCase, 'maximumTreeDepth' and
-		 *                                      'childTreeDepth', (2) adds the results of the child
-		 *                                      evaluation to the attributes of this object
-		 *                                      'childrenProbability' and 'childrenUtility', and (3) adds a
-		 *                                      branch to the decision tree
+		 * @param childEvaluations evaluations of the children
+		 * @param dans             instantiation of each child, whose network is only built for the GUI
+		 * @param x                Variable
+		 * @param states           state of <code>x</code> in each child
+		 * @throws NotEvaluableNetworkException This method (1) executes the recursive (child) evaluations, in
+		 *                                      parallel if 'parallelDepth' is positive, (2) adds the results of
+		 *                                      the child evaluations to the attributes of this object
+		 *                                      'childrenProbability' and 'childrenUtility', in the order of
+		 *                                      the children, and (3) adds a branch to the decision tree for
+		 *                                      each child
 		 */
-		private void childEvaluationDecisionTree(ProbNet dan, EvidenceCase evidenceCase, int maximumTreeDepth,
-				int childTreeDepth, Variable x, State state) throws NotEvaluableNetworkException {
-			DANDecisionTreeInference auxEval = null;
-			auxEval = constructDecisionTreeInference(dan, evidenceCase, maximumTreeDepth, childTreeDepth);
-			addChildEvaluationResultsAndUpdateDecisionTree(auxEval, dan, x, state);
+		private void childEvaluationsDecisionTree(List<ChildEvaluation<DANDecisionTreeInference>> childEvaluations,
+				List<DANInstantiation> dans, Variable x, List<State> states) throws NotEvaluableNetworkException {
+			List<DANDecisionTreeInference> auxEvals = evaluateChildren(childEvaluations);
+			for (int i = 0; i < auxEvals.size(); i++) {
+				addChildEvaluationResultsAndUpdateDecisionTree(auxEvals.get(i), dans.get(i), x, states.get(i));
+			}
 		}
 
-		protected DANDecisionTreeInference constructDecisionTreeInference(ProbNet dan, EvidenceCase evidenceCase,
+		protected DANDecisionTreeInference constructDecisionTreeInference(DANInstantiation dan, EvidenceCase evidenceCase,
 				int maximumTreeDepth, int childTreeDepth) throws NotEvaluableNetworkException {
-			return new DANDecisionTreeInference(dan, evidenceCase, maximumTreeDepth, childTreeDepth, computeDecisionTreeForGUI(), isCEAnalysis);
+			return new DANDecisionTreeInference(dan, evidenceCase, maximumTreeDepth, childTreeDepth, computeDecisionTreeForGUI(), isCEAnalysis,
+					parallelDepth - 1, cache);
 		}
 
 		/**
@@ -323,15 +391,15 @@ import org.openmarkov.inference.decompositionIntoSymmetricDANs.DecisionTreeCompu
 		 *                        'childEvaluation'; and (2) updates the decision tree by adding a
 		 *                        branch labeled with ('Variable' = 'state') and by setting the
 		 *                        corresponding values of 'utility' and 'scenarioProbability".
-		 * @param dan             ProbNet representing a Decision Analysis Network
+		 * @param dan             instantiation of the Decision Analysis Network evaluated by the child
 		 * @param x               Variable
 		 * @param state           State
 		 */
-		private void addChildEvaluationResultsAndUpdateDecisionTree(DANDecisionTreeInference childEvaluation, ProbNet dan,
-				Variable x, State state) {
+		private void addChildEvaluationResultsAndUpdateDecisionTree(DANDecisionTreeInference childEvaluation,
+				DANInstantiation dan, Variable x, State state) {
 			super.addResultsOfChildEvaluation(childEvaluation);
 			if (computeDecisionTreeForGUI()) {
-				addBranchAndChildToDecisionTree(dan, x, state, childEvaluation);
+				addBranchAndChildToDecisionTree(dan.getNetwork(), x, state, childEvaluation);
 			}
 		}
 
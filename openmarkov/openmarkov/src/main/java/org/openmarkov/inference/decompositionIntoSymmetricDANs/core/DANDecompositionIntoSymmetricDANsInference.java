@@ -32,7 +32,40 @@ public class DANDecompositionIntoSymmetricDANsInference extends DANInference {
 
 	public DANDecompositionIntoSymmetricDANsInference(ProbNet dan, List<Variable> conditioningVariablesList,
 			EvidenceCase evidenceCase, boolean isCEA) throws NotEvaluableNetworkException {
-		super(dan,isCEA);
+		this(dan, conditioningVariablesList, evidenceCase, isCEA, 0);
+	}
+
+	/**
+	 * @param parallelDepth number of levels of the decomposition whose children are evaluated in parallel
+	 */
+	public DANDecompositionIntoSymmetricDANsInference(ProbNet dan, List<Variable> conditioningVariablesList,
+			EvidenceCase evidenceCase, boolean isCEA, int parallelDepth) throws NotEvaluableNetworkException {
+		this(dan, conditioningVariablesList, evidenceCase, isCEA, parallelDepth, null);
+	}
+
+	/**
+	 * @param parallelDepth number of levels of the decomposition whose children are evaluated in parallel
+	 * @param cache         transposition table where the results of the equivalent sub-DANs are shared. It can
+	 *                      be null
+	 */
+	public DANDecompositionIntoSymmetricDANsInference(ProbNet dan, List<Variable> conditioningVariablesList,
+			EvidenceCase evidenceCase, boolean isCEA, int parallelDepth, DANEvaluationCache cache)
+			throws NotEvaluableNetworkException {
+		this(new DANInstantiation(dan), conditioningVariablesList, evidenceCase, isCEA, parallelDepth, cache);
+	}
+
+	/**
+	 * @param dan instantiation evaluated. Its network is only built when it is evaluated as a symmetric DAN
+	 */
+	protected DANDecompositionIntoSymmetricDANsInference(DANInstantiation dan, List<Variable> conditioningVariablesList,
+			EvidenceCase evidenceCase, boolean isCEA, int parallelDepth, DANEvaluationCache cache)
+			throws NotEvaluableNetworkException {
+		super(dan.getOriginalDAN(), isCEA, parallelDepth, cache);
+		DANEvaluationCache.Signature signature = getSignature(dan, conditioningVariablesList, evidenceCase,
+				getClass());
+		if (setProbabilityAndUtilityFromCache(signature)) {
+			return;
+		}
 		List<Variable> alwaysObservedVariables = getAlwaysObservedVariables(dan, conditioningVariablesList, evidenceCase);
 
 		List<Variable> asymmetricObservedVariables = DANOperations.getAsymmetricObservableVariables(dan);
@@ -42,77 +75,100 @@ public class DANDecompositionIntoSymmetricDANsInference extends DANInference {
 		List<Variable> newConditioningVariablesList = DANOperations
 				.join(conditioningVariablesList, symmetricObservedVariables);
 		if (DANOperations.isSymmetric(dan, evidenceCase)) {//The DAN is symmetric		
-			DANConditionalSymmetricInference evaluation = new DANConditionalSymmetricInference(dan,
+			DANConditionalSymmetricInference evaluation = new DANConditionalSymmetricInference(dan.getNetwork(),
 					newConditioningVariablesList, evidenceCase, isCEA);
 			setProbabilityAndUtilityFromEvaluation(evaluation);
 		} else {// The DAN is asymmetric
 			if (!asymmetricObservedVariables
 					.isEmpty()) { // If O_A is not empty, then some always-observed variable introduces asymmetries
 				Variable x = DANOperations.selectVariableWithoutAncestorsInVariables(asymmetricObservedVariables, dan);
+				List<ChildEvaluation<DANDecompositionIntoSymmetricDANsInference>> childEvaluations = new ArrayList<>();
 				for (State state : x.getStates()) {
-					ProbNet dan_x = DANOperations.instantiate(dan, x, state);
+					DANInstantiation dan_x = new DANInstantiation(dan, x, state);
 					try {
-						childEvaluationDecompositionIntoSymmetricDANs(dan_x, newConditioningVariablesList,
-								DANOperations.extendEvidenceCase(evidenceCase, x, state));
+						EvidenceCase evidenceCase_x = DANOperations.extendEvidenceCase(evidenceCase, x, state);
+						childEvaluations.add(() -> childEvaluationDecompositionIntoSymmetricDANs(dan_x,
+								newConditioningVariablesList, evidenceCase_x));
 					} catch (InvalidStateException | IncompatibleEvidenceException e) {
 						e.printStackTrace();
 					}
 				}
-				conditionEliminateChanceAndSetProbabilityAndUtility(dan, x);
+				addResultsOfChildEvaluations(childEvaluations);
+				conditionEliminateChanceAndSetProbabilityAndUtility(probNet, x);
 			} else {// If O_A is empty, then some variable introduces asymmetries
 				Variable rootDecision;
+				List<ChildEvaluation<DANDecompositionIntoSymmetricDANsInference>> childEvaluations = new ArrayList<>();
 				List<Node> nextDecisions = DANOperations.getNextDecisions(dan);
 				if (nextDecisions.size() == 1) { // If exactly one decision D can be made first
-					rootDecision = nextDecisions.get(0).getVariable();
+					rootDecision = dan.getVariable(nextDecisions.get(0));
 					for (State state : rootDecision.getStates()) {
-						ProbNet dan_x = DANOperations.instantiate(dan, rootDecision, state);
-						childEvaluationDecompositionIntoSymmetricDANs(dan_x, newConditioningVariablesList,
-								evidenceCase);
+						DANInstantiation dan_x = new DANInstantiation(dan, rootDecision, state);
+						childEvaluations.add(() -> childEvaluationDecompositionIntoSymmetricDANs(dan_x,
+								newConditioningVariablesList, evidenceCase));
 					}
 				} else {// Several decisions can be made first
 					// Prioritize each decision
 					rootDecision = DANOperations.createDummyVariableOfOrder(nextDecisions);
-					nextDecisions.forEach(decision -> prioritizeDANAndChildEvaluationDecompositionIntoSymmetricDANs(dan, evidenceCase,
-								newConditioningVariablesList, decision));
+					nextDecisions.forEach(decision -> childEvaluations.add(
+							prioritizeDANAndChildEvaluationDecompositionIntoSymmetricDANs(dan, evidenceCase,
+									newConditioningVariablesList, decision)));
 				}
-				conditionMaximizeAndSetProbabilityAndUtility(dan, rootDecision);
+				addResultsOfChildEvaluations(childEvaluations);
+				conditionMaximizeAndSetProbabilityAndUtility(probNet, rootDecision);
 			}
 		}
 
 		for (Variable auxSymVariable : symmetricObservedVariables) {
-			eliminateChanceVariable(dan, auxSymVariable, this.getProbability(), this.getUtility());
+			eliminateChanceVariable(probNet, auxSymVariable, this.getProbability(), this.getUtility());
 		}
+		putProbabilityAndUtilityInCache(signature);
 	}
 
-	private void prioritizeDANAndChildEvaluationDecompositionIntoSymmetricDANs(ProbNet dan, EvidenceCase evidenceCase,
-			List<Variable> newConditioningVariablesList, Node decision) {
-		ProbNet prioritizedDAN = DANOperations.prioritize(dan, decision);
-		childEvaluationDecompositionIntoSymmetricDANs(prioritizedDAN, newConditioningVariablesList,
+	private ChildEvaluation<DANDecompositionIntoSymmetricDANsInference> prioritizeDANAndChildEvaluationDecompositionIntoSymmetricDANs(
+			DANInstantiation dan, EvidenceCase evidenceCase, List<Variable> newConditioningVariablesList, Node decision) {
+		DANInstantiation prioritizedDAN = dan.prioritize(decision);
+		return () -> childEvaluationDecompositionIntoSymmetricDANs(prioritizedDAN, newConditioningVariablesList,
 				evidenceCase);
 	}
 
+	/**
+	 * Evaluates the children (in parallel if <code>parallelDepth</code> is positive) and adds their results to
+	 * 'childrenProbability' and 'childrenUtility' in the order of <code>childEvaluations</code>
+	 *
+	 * @param childEvaluations evaluations of the children
+	 */
+	private void addResultsOfChildEvaluations(
+			List<ChildEvaluation<DANDecompositionIntoSymmetricDANsInference>> childEvaluations) {
+		try {
+			for (DANDecompositionIntoSymmetricDANsInference auxEval : evaluateChildren(childEvaluations)) {
+				addResultsOfChildEvaluation(auxEval);
+			}
+		} catch (NotEvaluableNetworkException e) {
+			e.printStackTrace();
+		}
+	}
+
 	public static boolean isEmpty(List<Variable> list) {
 		return ((list == null) || (list.size() == 0));
 	}
 
 	/**
-	 * @param dan                   ProbNet corresponding to a Decision Analysis Network (DAN)
+	 * @param dan                   instantiation of a Decision Analysis Network (DAN)
 	 * @param conditioningVariables
-	 * @param evidenceCase          This method (1) executes a recursive (child) evaluation with
-	 *                              parameters 'dan', 'conditioningVariables', and 'evidenceCase',
-	 *                              (2) adds the results of the child evaluation to the attributes
-	 *                              of this object 'childrenProbability' and 'childrenUtility'
+	 * @param evidenceCase          This method executes a recursive (child) evaluation with
+	 *                              parameters 'dan', 'conditioningVariables', and 'evidenceCase'
+	 * @return The child evaluation
 	 */
-	private void childEvaluationDecompositionIntoSymmetricDANs(ProbNet dan, List<Variable> conditioningVariables,
-			EvidenceCase evidenceCase) {
+	private DANDecompositionIntoSymmetricDANsInference childEvaluationDecompositionIntoSymmetricDANs(DANInstantiation dan,
+			List<Variable> conditioningVariables, EvidenceCase evidenceCase) {
 		DANDecompositionIntoSymmetricDANsInference auxEval = null;
 		try {
-			auxEval = new DANDecompositionIntoSymmetricDANsInference(dan, conditioningVariables, evidenceCase,isCEAnalysis);
+			auxEval = new DANDecompositionIntoSymmetricDANsInference(dan, conditioningVariables, evidenceCase,
+					isCEAnalysis, parallelDepth - 1, cache);
 		} catch (NotEvaluableNetworkException e) {
 			e.printStackTrace();
 		}
-		addResultsOfChildEvaluation(auxEval);
-
+		return auxEval;
 	}
 
 	/*
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.inference.decompositionIntoSymmetricDANs.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openmarkov.core.model.graph.Link;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.Finding;
+import org.openmarkov.core.model.network.Node;
+import org.openmarkov.core.model.network.State;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.ExactDistrPotential;
+import org.openmarkov.core.model.network.potential.GTablePotential;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.treeadd.Threshold;
+import org.openmarkov.core.model.network.potential.treeadd.TreeADDBranch;
+import org.openmarkov.core.model.network.potential.treeadd.TreeADDPotential;
+
+/**
+ * Transposition table of the recursive DAN evaluations. The sub-DANs that arise through different
+ * instantiation orders (for example, after prioritizing different first decisions) are identified by a
+ * canonical signature made of their nodes, potentials, links, conditioning variables and evidence, so that
+ * each of them is evaluated only once.
+ * <p>
+ * The signature is computed from the instantiation, before its network is built. Variables are identified by
+ * their names and the names of their states, because each branch creates its own restricted variables, and
+ * table and tree potentials by their content, because each branch projects them again. Any other potential
+ * is left unchanged by the instantiation and is compared by identity. The keys of the potentials of the
+ * original networks are computed once, so the table must be cleared when those networks are edited. The
+ * results found in the table are returned with the variables of the evaluation that asks for them. The table
+ * can be shared by the evaluations running in parallel.
+ */
+public class DANEvaluationCache {
+
+	// Attributes
+	private final Map<Signature, TablePotential[]> results = new ConcurrentHashMap<>();
+
+	/**
+	 * Keys of the potentials of the original networks, which are shared by all the instantiations
+	 */
+	private final Map<PotentialKey, Object> originalPotentialKeys = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	// Methods
+	/**
+	 * @param dan                   instantiation of the evaluation, whose network is not built
+	 * @param conditioningVariables conditioning variables of the evaluation. It can be null
+	 * @param evidenceCase          evidence of the evaluation. It can be null
+	 * @param parameters            other parameters on which the result depends
+	 * @return The canonical signature of the evaluation
+	 */
+	public Signature getSignature(DANInstantiation dan, List<Variable> conditioningVariables,
+			EvidenceCase evidenceCase, Object... parameters) {
+		List<Object> components = new ArrayList<>();
+		components.addAll(Arrays.asList(parameters));
+		Map<String, Variable> variables = new HashMap<>();
+		List<Node> nodes = new ArrayList<>(dan.getNodes());
+		nodes.sort(Comparator.comparing(Node::getName));
+		for (Node node : nodes) {
+			Variable variable = dan.getVariable(node);
+			variables.put(variable.getName(), variable);
+			components.add(getVariableKey(variable));
+			components.add(node.getNodeType());
+			components.add(dan.isAlwaysObserved(node));
+			boolean originalPotentials = dan.hasOriginalPotentials(node);
+			for (Potential potential : dan.getPotentials(node)) {
+				components.add(originalPotentials ? getOriginalPotentialKey(potential) : getPotentialKey(potential));
+			}
+		}
+		List<Link<Node>> links = new ArrayList<>(dan.getLinks());
+		links.sort(Comparator.comparing((Link<Node> link) -> link.getNode1().getName())
+				.thenComparing(link -> link.getNode2().getName()));
+		for (Link<Node> link : links) {
+			components.add(link.getNode1().getName());
+			components.add(link.getNode2().getName());
+			components.add(link.isDirected());
+			if (link.getRestrictionsPotential() != null) {
+				components.add(getPotentialKey(link.getRestrictionsPotential()));
+			}
+			if (link.getRevealingStates() != null) {
+				for (State state : link.getRevealingStates()) {
+					components.add(state.getName());
+				}
+			}
+			if (link.getRevealingIntervals() != null) {
+				components.add(link.getRevealingIntervals().toString());
+			}
+		}
+		List<Object> conditioningKey = new ArrayList<>();
+		if (conditioningVariables != null) {
+			for (Variable variable : conditioningVariables) {
+				variables.put(variable.getName(), variable);
+				conditioningKey.add(getVariableKey(variable));
+			}
+		}
+		components.add(conditioningKey);
+		if (evidenceCase != null) {
+			List<Finding> findings = new ArrayList<>(evidenceCase.getFindings());
+			findings.sort(Comparator.comparing(finding -> finding.getVariable().getName()));
+			for (Finding finding : findings) {
+				variables.putIfAbsent(finding.getVariable().getName(), finding.getVariable());
+				components.add(getVariableKey(finding.getVariable()));
+				components.add(finding.getStateIndex());
+				components.add(finding.getNumericalValue());
+			}
+		}
+		return new Signature(components, variables);
+	}
+
+	/**
+	 * @param signature signature of the evaluation
+	 * @return A copy of the probability and utility stored for <code>signature</code>, whose variables are
+	 * those of the evaluation of <code>signature</code>, or <code>null</code> when there is none
+	 */
+	public TablePotential[] get(Signature signature) {
+		TablePotential[] result = results.get(signature);
+		if (result == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return copy(result, signature.variables);
+	}
+
+	/**
+	 * Stores a copy of the probability and utility of an evaluation
+	 *
+	 * @param signature   signature of the evaluation
+	 * @param probability probability potential
+	 * @param utility     utility potential
+	 */
+	public void put(Signature signature, TablePotential probability, TablePotential utility) {
+		results.putIfAbsent(signature, copy(new TablePotential[] { probability, utility }, null));
+	}
+
+	/**
+	 * @return Number of evaluations whose result was found in the table
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * @return Number of evaluations whose result was not found in the table
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * @return Number of evaluations stored
+	 */
+	public int size() {
+		return results.size();
+	}
+
+	public void clear() {
+		results.clear();
+		originalPotentialKeys.clear();
+		hits.set(0);
+		misses.set(0);
+	}
+
+	public String toString() {
+		return "DANEvaluationCache: " + size() + " evaluations, " + getHits() + " hits, " + getMisses() + " misses";
+	}
+
+	/**
+	 * @param potentials potentials to copy
+	 * @param variables  variables that replace those with the same name in the copies. It can be null
+	 * @return The copies
+	 */
+	private static TablePotential[] copy(TablePotential[] potentials, Map<String, Variable> variables) {
+		TablePotential[] copies = new TablePotential[potentials.length];
+		for (int i = 0; i < potentials.length; i++) {
+			if (potentials[i] != null) {
+				copies[i] = new TablePotential(potentials[i]);
+				if (variables != null) {
+					for (Variable variable : potentials[i].getVariables()) {
+						Variable newVariable = variables.get(variable.getName());
+						if (newVariable != null && newVariable != variable) {
+							copies[i].replaceVariable(variable, newVariable);
+						}
+					}
+				}
+			}
+		}
+		return copies;
+	}
+
+	/**
+	 * @param variable <code>Variable</code>
+	 * @return The name of <code>variable</code> followed by the names of its states
+	 */
+	private static List<String> getVariableKey(Variable variable) {
+		State[] states = variable.getStates();
+		List<String> key = new ArrayList<>(states.length + 1);
+		key.add(variable.getName());
+		for (State state : states) {
+			key.add(state.getName());
+		}
+		return key;
+	}
+
+	/**
+	 * @param variables list of <code>Variable</code>
+	 * @return The keys of <code>variables</code>
+	 */
+	private static List<List<String>> getVariableKeys(List<Variable> variables) {
+		List<List<String>> keys = new ArrayList<>(variables.size());
+		for (Variable variable : variables) {
+			keys.add(getVariableKey(variable));
+		}
+		return keys;
+	}
+
+	/**
+	 * @param potential potential of an original network
+	 * @return The key of <code>potential</code>, which is computed only the first time
+	 */
+	private Object getOriginalPotentialKey(Potential potential) {
+		return originalPotentialKeys.computeIfAbsent(new PotentialKey(potential), key -> getPotentialKey(potential));
+	}
+
+	/**
+	 * @param potential <code>Potential</code>. It can be null
+	 * @return The content of <code>potential</code> if it is a table or a tree, and <code>potential</code>
+	 * otherwise
+	 */
+	private static Object getPotentialKey(Potential potential) {
+		if (potential == null) {
+			return null;
+		}
+		if (potential instanceof ExactDistrPotential) {
+			return new TableKey(potential, ((ExactDistrPotential) potential).getTablePotential());
+		}
+		if (potential instanceof TablePotential && !(potential instanceof GTablePotential)) {
+			return new TableKey(potential, (TablePotential) potential);
+		}
+		if (potential instanceof TreeADDPotential) {
+			return getTreeKey((TreeADDPotential) potential);
+		}
+		return new PotentialKey(potential);
+	}
+
+	/**
+	 * @param tree <code>TreeADDPotential</code>
+	 * @return The content of <code>tree</code>: its variables and, for each branch, its states or interval
+	 * and the content of its potential
+	 */
+	private static List<Object> getTreeKey(TreeADDPotential tree) {
+		List<Object> key = new ArrayList<>();
+		key.add(tree.getClass());
+		key.add(getVariableKeys(tree.getVariables()));
+		key.add(tree.getPotentialRole());
+		key.add(tree.getCriterion());
+		key.add(tree.getRootVariable() != null ? getVariableKey(tree.getRootVariable()) : null);
+		for (TreeADDBranch branch : tree.getBranches()) {
+			List<String> states = new ArrayList<>();
+			if (branch.getStates() != null) {
+				for (State state : branch.getStates()) {
+					states.add(state.getName());
+				}
+			}
+			key.add(states);
+			key.add(getThresholdKey(branch.getLowerBound()));
+			key.add(getThresholdKey(branch.getUpperBound()));
+			key.add(getPotentialKey(branch.getPotential()));
+		}
+		return key;
+	}
+
+	private static List<Object> getThresholdKey(Threshold threshold) {
+		return (threshold != null) ? Arrays.asList(threshold.getLimit(), threshold.belongsToLeft()) : null;
+	}
+
+	/**
+	 * Canonical signature of an evaluation
+	 */
+	public static class Signature {
+		private final List<Object> components;
+
+		/**
+		 * Variables of the evaluation by name. They are not part of the signature
+		 */
+		private final Map<String, Variable> variables;
+
+		private final int hashCode;
+
+		private Signature(List<Object> components, Map<String, Variable> variables) {
+			this.components = components;
+			this.variables = variables;
+			this.hashCode = components.hashCode();
+		}
+
+		@Override public boolean equals(Object object) {
+			return object instanceof Signature && hashCode == ((Signature) object).hashCode && components
+					.equals(((Signature) object).components);
+		}
+
+		@Override public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	/**
+	 * Content of a table potential
+	 */
+	private static class TableKey {
+		private final Class<?> type;
+
+		private final List<List<String>> variables;
+
+		private final Object role;
+
+		private final Object criterion;
+
+		private final double[] values;
+
+		private final int hashCode;
+
+		private TableKey(Potential potential, TablePotential table) {
+			this.type = potential.getClass();
+			this.variables = getVariableKeys(potential.getVariables());
+			this.role = potential.getPotentialRole();
+			this.criterion = potential.getCriterion();
+			int first = table.getInitialPosition();
+			this.values = Arrays.copyOfRange(table.values, first,
+					Math.min(table.values.length, first + table.getTableSize()));
+			this.hashCode = ((type.hashCode() * 31 + variables.hashCode()) * 31 + Arrays.hashCode(values));
+		}
+
+		@Override public boolean equals(Object object) {
+			if (!(object instanceof TableKey)) {
+				return false;
+			}
+			TableKey key = (TableKey) object;
+			return hashCode == key.hashCode && type == key.type && role == key.role && criterion == key.criterion
+					&& variables.equals(key.variables) && Arrays.equals(values, key.values);
+		}
+
+		@Override public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	/**
+	 * Any other potential, compared by identity because <code>Potential.equals</code> only compares the
+	 * variables and the role
+	 */
+	private static class PotentialKey {
+		private final Potential potential;
+
+		private PotentialKey(Potential potential) {
+			this.potential = potential;
+		}
+
+		@Override public boolean equals(Object object) {
+			return object instanceof PotentialKey && potential == ((PotentialKey) object).potential;
+		}
+
+		@Override public int hashCode() {
+			return System.identityHashCode(potential);
+		}
+	}
+}
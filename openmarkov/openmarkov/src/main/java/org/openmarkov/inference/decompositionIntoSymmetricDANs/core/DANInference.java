@@ -12,7 +12,9 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.openmarkov.core.exception.CostEffectivenessException;
+import org.openmarkov.core.exception.NotEvaluableNetworkException;
 import org.openmarkov.core.exception.PotentialOperationException;
+import org.openmarkov.core.inference.ParallelTasks;
 import org.openmarkov.core.model.network.EvidenceCase;
 import org.openmarkov.core.model.network.ProbNet;
 import org.openmarkov.core.model.network.Variable;
@@ -32,6 +34,10 @@ public abstract class DANInference {
 	 */
 	protected TablePotential probability;
 
+	/**
+	 * Network evaluated or, when an instantiation is evaluated, its original network, whose decision criteria
+	 * it shares. It is not copied, because the inference does not modify it
+	 */
 	protected ProbNet probNet;
 
 	protected TablePotential utility;
@@ -46,11 +52,104 @@ public abstract class DANInference {
 	protected List<TablePotential> childrenProbability;
 	protected List<TablePotential> childrenUtility;
 
+	/**
+	 * Number of levels of the recursion, starting at this one, whose children are evaluated in parallel.
+	 * Below them, and when it is 0, the children are evaluated sequentially
+	 */
+	protected int parallelDepth;
+
+	/**
+	 * Transposition table shared by all the levels of the recursion. When it is null, the results are not cached
+	 */
+	protected DANEvaluationCache cache;
+
 	public DANInference(ProbNet network, boolean isCEAnalysis2) {
-		this.probNet = network.copy();
+		this(network, isCEAnalysis2, 0);
+	}
+
+	public DANInference(ProbNet network, boolean isCEAnalysis2, int parallelDepth) {
+		this(network, isCEAnalysis2, parallelDepth, null);
+	}
+
+	public DANInference(ProbNet network, boolean isCEAnalysis2, int parallelDepth, DANEvaluationCache cache) {
+		this.probNet = network;
 		childrenProbability = new ArrayList<>();
 		childrenUtility = new ArrayList<>();
 		isCEAnalysis = isCEAnalysis2;
+		this.parallelDepth = parallelDepth;
+		this.cache = cache;
+	}
+
+	/**
+	 * @param dan                   instantiation of this evaluation. Its network is not built for the signature
+	 * @param conditioningVariables conditioning variables of this evaluation
+	 * @param evidenceCase          evidence of this evaluation
+	 * @param parameters            other parameters on which the result of this evaluation depends
+	 * @return The signature of this evaluation in 'cache' or null when the result is not cached. The results of
+	 * the cost-effectiveness analysis are not cached, because they are not plain tables
+	 */
+	protected DANEvaluationCache.Signature getSignature(DANInstantiation dan, List<Variable> conditioningVariables,
+			EvidenceCase evidenceCase, Object... parameters) {
+		if (cache == null || isCEAnalysis) {
+			return null;
+		}
+		return cache.getSignature(dan, conditioningVariables, evidenceCase, parameters);
+	}
+
+	/**
+	 * @param signature signature of this evaluation. It can be null
+	 * @return True if the probability and the utility have been taken from 'cache'
+	 */
+	protected boolean setProbabilityAndUtilityFromCache(DANEvaluationCache.Signature signature) {
+		if (signature == null) {
+			return false;
+		}
+		TablePotential[] result = cache.get(signature);
+		if (result == null) {
+			return false;
+		}
+		setProbability(result[0]);
+		setUtility(result[1]);
+		return true;
+	}
+
+	/**
+	 * @param signature signature of this evaluation. It can be null
+	 */
+	protected void putProbabilityAndUtilityInCache(DANEvaluationCache.Signature signature) {
+		if (signature != null) {
+			cache.put(signature, probability, utility);
+		}
+	}
+
+	/**
+	 * Evaluation of a child of the decomposition
+	 */
+	protected interface ChildEvaluation<T extends DANInference> {
+		T evaluate() throws NotEvaluableNetworkException;
+	}
+
+	/**
+	 * @param childEvaluations evaluations of the children, which must be independent
+	 * @return The children evaluated, in the same order as <code>childEvaluations</code>. If
+	 * <code>parallelDepth</code> is positive they are evaluated as fork-join tasks (in the common pool when
+	 * this is not called from a fork-join task)
+	 * @throws NotEvaluableNetworkException NotEvaluableNetworkException
+	 */
+	protected <T extends DANInference> List<T> evaluateChildren(List<ChildEvaluation<T>> childEvaluations)
+			throws NotEvaluableNetworkException {
+		List<T> children = new ArrayList<>(childEvaluations.size());
+		if (parallelDepth <= 0 || childEvaluations.size() < 2) {
+			for (ChildEvaluation<T> childEvaluation : childEvaluations) {
+				children.add(childEvaluation.evaluate());
+			}
+			return children;
+		}
+		List<ParallelTasks.Task<T, NotEvaluableNetworkException>> tasks = new ArrayList<>(childEvaluations.size());
+		for (ChildEvaluation<T> childEvaluation : childEvaluations) {
+			tasks.add(childEvaluation::evaluate);
+		}
+		return ParallelTasks.invokeAll(tasks, NotEvaluableNetworkException.class);
 	}
 
 	public void setProbability(TablePotential probability) {
@@ -173,7 +272,7 @@ public abstract class DANInference {
 	 * private TablePotential getDANInferenceProcessUtility() { return utility; }
 	 */
 	
-	protected List<Variable> getAlwaysObservedVariables(ProbNet dan, List<Variable> conditioningVariablesList,
+	protected List<Variable> getAlwaysObservedVariables(DANInstantiation dan, List<Variable> conditioningVariablesList,
 			EvidenceCase evidenceCase){
 		return DANOperations.getVariablesObservedFromTheBegginning(dan,conditioningVariablesList,evidenceCase, true);
 	}
@@ -0,0 +1,813 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.inference.decompositionIntoSymmetricDANs.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+import org.openmarkov.core.exception.IncompatibleEvidenceException;
+import org.openmarkov.core.exception.InvalidStateException;
+import org.openmarkov.core.exception.NodeNotFoundException;
+import org.openmarkov.core.exception.NonProjectablePotentialException;
+import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.model.graph.Link;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.Finding;
+import org.openmarkov.core.model.network.Node;
+import org.openmarkov.core.model.network.NodeType;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.ProbNetOperations;
+import org.openmarkov.core.model.network.State;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.ExactDistrPotential;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.treeadd.TreeADDBranch;
+import org.openmarkov.core.model.network.potential.treeadd.TreeADDPotential;
+
+/**
+ * Copy-on-write instantiation of a DAN: the network in which some variables have taken a state, represented by
+ * the original network and the changes of the instantiations (links removed and added, nodes removed, variables
+ * whose states are restricted, potentials projected and variables revealed).
+ * <p>
+ * The changes are computed on a view of the original network, which is not modified, and the instantiation of
+ * an instantiation only copies the changes of its parent, so creating it costs in time and memory the size of
+ * the changes. The evaluations of the DAN read the instantiated network through this view, which returns the
+ * nodes of the original network with the variables, potentials, links and observability of the instantiated
+ * network. The instantiated network is only built, copying the original network and applying the changes, the
+ * first time <code>getNetwork</code> is called.
+ */
+public class DANInstantiation {
+
+	// Attributes
+	private final ProbNet originalDAN;
+
+	private Variable variable;
+
+	private State state;
+
+	/**
+	 * Changes, in the order in which they are applied to the copy of the original network
+	 */
+	private final List<Change> changes;
+
+	/**
+	 * Nodes of the original network referenced by the changes
+	 */
+	private final Set<Node> changedNodes;
+
+	private final Set<Node> removedNodes;
+
+	private int numRemovedUtilityNodes;
+
+	/**
+	 * Links of the original network removed, as the children of each node whose link has been removed
+	 */
+	private final Map<Node, Set<Node>> removedChildren;
+
+	private final Map<Node, List<Node>> addedChildren;
+
+	private final Map<Node, List<Node>> addedParents;
+
+	/**
+	 * Links of the original network removed. <code>Link</code> is compared by identity
+	 */
+	private final Set<Link<Node>> removedLinks;
+
+	/**
+	 * Links added by the instantiations, in the order in which they have been added
+	 */
+	private final List<Link<Node>> addedLinks;
+
+	private final Set<Node> observedNodes;
+
+	private final Map<Node, Variable> newVariables;
+
+	/**
+	 * Nodes whose variable has been replaced, in the order of the last replacement, which is the order in which
+	 * the network keeps them by type
+	 */
+	private final Set<Node> nodesWithNewVariables;
+
+	/**
+	 * Nodes of the variables created by the instantiation
+	 */
+	private final Map<Variable, Node> nodesOfNewVariables;
+
+	/**
+	 * Variables of the original network replaced by the instantiation
+	 */
+	private final Set<Variable> replacedVariables;
+
+	private final Map<Node, List<Potential>> newPotentials;
+
+	private ProbNet network;
+
+	// Constructors
+	/**
+	 * View of <code>dan</code> without changes, whose network is <code>dan</code> itself
+	 *
+	 * @param dan network
+	 */
+	public DANInstantiation(ProbNet dan) {
+		originalDAN = dan;
+		changes = new ArrayList<>();
+		changedNodes = new LinkedHashSet<>();
+		removedNodes = new HashSet<>();
+		removedChildren = new HashMap<>();
+		addedChildren = new HashMap<>();
+		addedParents = new HashMap<>();
+		removedLinks = new HashSet<>();
+		addedLinks = new ArrayList<>();
+		observedNodes = new HashSet<>();
+		newVariables = new HashMap<>();
+		nodesWithNewVariables = new LinkedHashSet<>();
+		nodesOfNewVariables = new HashMap<>();
+		replacedVariables = new HashSet<>();
+		newPotentials = new HashMap<>();
+		network = dan;
+	}
+
+	/**
+	 * Computes the changes made in <code>originalDAN</code> when <code>variable</code> takes the value
+	 * <code>state</code>, as described in <code>DANOperations.instantiate</code>. The original network is
+	 * not modified.
+	 *
+	 * @param originalDAN original network
+	 * @param variable    variable
+	 * @param state       state of the variable
+	 */
+	public DANInstantiation(ProbNet originalDAN, Variable variable, State state) {
+		this(new DANInstantiation(originalDAN), variable, state);
+	}
+
+	/**
+	 * Computes the changes made in the network of <code>dan</code> when <code>variable</code> takes the value
+	 * <code>state</code>, as described in <code>DANOperations.instantiate</code>. Neither <code>dan</code>
+	 * nor its network are modified.
+	 *
+	 * @param dan      instantiated network
+	 * @param variable variable of the instantiated network
+	 * @param state    state of the variable
+	 */
+	public DANInstantiation(DANInstantiation dan, Variable variable, State state) {
+		this(dan);
+		this.variable = variable;
+		this.state = state;
+
+		Node originalNode = getNode(variable);
+		if (originalNode == null) {
+			try {
+				originalNode = originalDAN.getNode(variable.getName());
+			} catch (NodeNotFoundException e) {
+				e.printStackTrace();
+				return;
+			}
+		}
+
+		try {
+			projectPotentials(originalNode);
+		} catch (InvalidStateException | IncompatibleEvidenceException | NonProjectablePotentialException | WrongCriterionException e) {
+			e.printStackTrace();
+		}
+
+		// Get the links of the node in the instantiated network
+		for (Link<Node> link : getLinks(originalNode)) {
+			if (link.getNode1() != originalNode) {
+				continue;
+			}
+			Node destinationNode = link.getNode2();
+			if (removedNodes.contains(destinationNode)) { // Removed by the restrictions of a previous link
+				continue;
+			}
+			// Remove link between restricting node and restricted node
+			removeLink(link);
+
+			if (destinationNode.getNodeType() == NodeType.CHANCE && link.hasRevealingConditions() && link
+					.getRevealingStates().contains(state)) {
+				List<Node> predecessorDecisions = getPredecessorDecisions(destinationNode);
+				// If it has predecessor decisions, do not reveal it yet, but add revealing links
+				// from every predecessor decision to the node
+				if (predecessorDecisions.isEmpty()) {
+					setAlwaysObserved(destinationNode);
+				} else {
+					for (Node predecessorDecision : predecessorDecisions) {
+						addRevealingLink(predecessorDecision, destinationNode);
+					}
+				}
+			}
+			if (link.hasRestrictions()) {
+				Variable destinationVariable = getVariable(destinationNode);
+				State[] restrictedVariableStates = destinationVariable.getStates();
+				List<State> nonRestrictedStates = ProbNetOperations
+						.getUnrestrictedStates(link, restrictedVariableStates, state);
+
+				if (nonRestrictedStates.isEmpty()) {
+					removeNodeAndDescendants(destinationNode);
+				} else if (nonRestrictedStates.size() < restrictedVariableStates.length) {
+					// At least one of the states of the destination node is restricted.
+					// Make a copy of the variable and remove the restricted states
+					State[] unrestrictedStates = nonRestrictedStates.toArray(new State[0]);
+					Variable restrictedVariable = new Variable(destinationVariable.getName(), unrestrictedStates);
+					restrictedVariable.setVariableType(destinationVariable.getVariableType());
+					updatePotentialsWithNewVariable(destinationVariable, restrictedVariable);
+					setVariable(destinationNode, restrictedVariable);
+				}
+			}
+		}
+		if (originalNode.getNodeType() == NodeType.DECISION) {
+			removeNode(getNode(getVariable(originalNode)));
+		}
+	}
+
+	/**
+	 * Copies the changes of <code>dan</code>
+	 */
+	private DANInstantiation(DANInstantiation dan) {
+		originalDAN = dan.originalDAN;
+		changes = new ArrayList<>(dan.changes);
+		changedNodes = new LinkedHashSet<>(dan.changedNodes);
+		removedNodes = new HashSet<>(dan.removedNodes);
+		numRemovedUtilityNodes = dan.numRemovedUtilityNodes;
+		removedChildren = new HashMap<>();
+		dan.removedChildren.forEach((node, children) -> removedChildren.put(node, new HashSet<>(children)));
+		addedChildren = new HashMap<>();
+		dan.addedChildren.forEach((node, children) -> addedChildren.put(node, new ArrayList<>(children)));
+		addedParents = new HashMap<>();
+		dan.addedParents.forEach((node, parents) -> addedParents.put(node, new ArrayList<>(parents)));
+		removedLinks = new HashSet<>(dan.removedLinks);
+		addedLinks = new ArrayList<>(dan.addedLinks);
+		observedNodes = new HashSet<>(dan.observedNodes);
+		newVariables = new HashMap<>(dan.newVariables);
+		nodesWithNewVariables = new LinkedHashSet<>(dan.nodesWithNewVariables);
+		nodesOfNewVariables = new HashMap<>(dan.nodesOfNewVariables);
+		replacedVariables = new HashSet<>(dan.replacedVariables);
+		newPotentials = new HashMap<>(dan.newPotentials);
+	}
+
+	// Methods
+	/**
+	 * @return The instantiated network. It is built the first time this method is called
+	 */
+	public ProbNet getNetwork() {
+		if (network == null) {
+			ProbNet instantiatedNet = originalDAN.copy();
+			// The copy shares the variables of the original network
+			Map<Node, Node> copies = new HashMap<>();
+			for (Node node : changedNodes) {
+				copies.put(node, instantiatedNet.getNode(node.getVariable()));
+			}
+			for (Change change : changes) {
+				change.apply(instantiatedNet, copies);
+			}
+			network = instantiatedNet;
+		}
+		return network;
+	}
+
+	/**
+	 * Same as <code>DANOperations.prioritize</code>: draws links from <code>decision</code> to the other
+	 * decisions that could be made first
+	 *
+	 * @param decision node of the instantiated network
+	 * @return The instantiated network with the decision prioritized. This instantiation is not modified
+	 */
+	public DANInstantiation prioritize(Node decision) {
+		DANInstantiation prioritizedDAN = new DANInstantiation(this);
+		for (Node nextDecision : DANOperations.getNextDecisions(prioritizedDAN)) {
+			if (nextDecision != decision) {
+				prioritizedDAN.addLink(decision, nextDecision);
+			}
+		}
+		return prioritizedDAN;
+	}
+
+	public ProbNet getOriginalDAN() {
+		return originalDAN;
+	}
+
+	/**
+	 * @return The variable instantiated last, or null if this is not an instantiation
+	 */
+	public Variable getVariable() {
+		return variable;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * @return Number of changes of the instantiation
+	 */
+	public int getNumChanges() {
+		return changes.size();
+	}
+
+	private void projectPotentials(Node originalNode)
+			throws InvalidStateException, IncompatibleEvidenceException, NonProjectablePotentialException,
+			WrongCriterionException {
+		EvidenceCase decisionEvidence = new EvidenceCase();
+		decisionEvidence.addFinding(new Finding(variable, state));
+		List<Potential> nodePotentials = getPotentials(originalNode);
+		Potential nodePotential = (nodePotentials.size() > 0) ? nodePotentials.get(0) : null;
+
+		for (Potential potential : getPotentials(variable)) {
+			// Project all potentials except the potential of the node
+			if (nodePotential == null || (!nodePotential.equals(potential))) {
+				Variable conditionedVariable = potential.getConditionedVariable();
+				Node node = getNode(conditionedVariable);
+				if (potential instanceof TablePotential || potential instanceof ExactDistrPotential) {
+					// Maintain the type of potential.
+					setPotential(node, potential.project(decisionEvidence));
+				} else {
+					//We ensure here that the first variable of a utility potential is the variable of the utility node.
+					//This condition is necessary to correctly evaluate the network with VariableEliminationCore
+					TablePotential potentialProjectedFromTreeADD = potential.tableProject(decisionEvidence, null).get(0);
+					Potential newPotential;
+					Node newConditionedVariable = getNode(potentialProjectedFromTreeADD.getConditionedVariable());
+					if ((newConditionedVariable == null || newConditionedVariable.getNodeType() != NodeType.UTILITY)
+							&& node.getNodeType() == NodeType.UTILITY) {
+						List<Variable> newVarsPotential = new ArrayList<>();
+						newVarsPotential.add(conditionedVariable);
+						newVarsPotential.addAll(potentialProjectedFromTreeADD.getVariables());
+						newPotential = new ExactDistrPotential(newVarsPotential, PotentialRole.UNSPECIFIED,
+								potentialProjectedFromTreeADD.values);
+					} else {
+						newPotential = potentialProjectedFromTreeADD;
+					}
+					setPotential(node, newPotential);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces the potentials that depend on <code>oldVariable</code> with tree potentials that depend on
+	 * <code>newVariable</code>, whose states are a subset of the states of <code>oldVariable</code>
+	 */
+	private void updatePotentialsWithNewVariable(Variable oldVariable, Variable newVariable) {
+		Map<State, EvidenceCase> evidence = new HashMap<>();
+		for (State auxState : newVariable.getStates()) {
+			EvidenceCase auxEvi = new EvidenceCase();
+			try {
+				auxEvi.addFinding(new Finding(oldVariable, auxState));
+			} catch (InvalidStateException | IncompatibleEvidenceException e) {
+				e.printStackTrace();
+			}
+			evidence.put(auxState, auxEvi);
+		}
+		for (Potential auxPotential : getPotentials(oldVariable)) {
+			List<Variable> newVars = new ArrayList<>();
+			for (Variable auxVar : auxPotential.getVariables()) {
+				newVars.add(auxVar != oldVariable ? auxVar : newVariable);
+			}
+			Node node = getNode(auxPotential.getConditionedVariable());
+			TreeADDPotential newPot = new TreeADDPotential(newVars, newVariable, auxPotential.getPotentialRole());
+			newPot.setRootVariable(newVariable);
+			List<TreeADDBranch> branches = new ArrayList<>();
+			for (State auxState : newVariable.getStates()) {
+				Potential auxPotBranch = null;
+				EvidenceCase auxEvidence = evidence.get(auxState);
+				try {
+					auxPotBranch = (auxPotential instanceof TablePotential || auxPotential instanceof ExactDistrPotential) ?
+							auxPotential.project(auxEvidence) :
+							auxPotential.tableProject(auxEvidence, null).get(0);
+				} catch (WrongCriterionException | NonProjectablePotentialException e) {
+					e.printStackTrace();
+				}
+				branches.add(new TreeADDBranch(Arrays.asList(auxState), newVariable, auxPotBranch, newVars));
+			}
+			newPot.setBranches(branches);
+			setPotential(node, newPot);
+		}
+	}
+
+	/**
+	 * Removes the node and its descendants, except the decisions that have another predecessor decision. The
+	 * last utility node is not removed, but its potential is replaced with zero
+	 */
+	private void removeNodeAndDescendants(Node destinationNode) {
+		Stack<Node> disposableNodes = new Stack<>();
+		disposableNodes.push(destinationNode);
+		while (!disposableNodes.isEmpty()) {
+			Node disposableNode = disposableNodes.pop();
+			if (disposableNode.getNodeType() != NodeType.DECISION || !hasPredecessorDecision(disposableNode)) {
+				for (Node descendant : getChildren(disposableNode)) {
+					disposableNodes.push(descendant);
+				}
+				// Guarantee that the DAN has at least a utility node
+				if (disposableNode.getNodeType() != NodeType.UTILITY
+						|| originalDAN.getNodes(NodeType.UTILITY).size() - numRemovedUtilityNodes > 1) {
+					removeNode(disposableNode);
+				} else {
+					replaceUtilityPotentialWithZero(disposableNode);
+				}
+			}
+		}
+	}
+
+	// View of the instantiated network
+	/**
+	 * @return The nodes of the original network that remain in the instantiated network, in the order of
+	 * <code>ProbNet.getNodes</code>
+	 */
+	List<Node> getNodes() {
+		List<Node> nodes = originalDAN.getNodes();
+		if (!removedNodes.isEmpty()) {
+			nodes.removeAll(removedNodes);
+		}
+		return nodes;
+	}
+
+	/**
+	 * @param nodeType type of the nodes
+	 * @return The nodes of the original network of type <code>nodeType</code> that remain in the instantiated
+	 * network, in the order of <code>ProbNet.getNodes(NodeType)</code>
+	 */
+	List<Node> getNodes(NodeType nodeType) {
+		if (network == originalDAN) {
+			return originalDAN.getNodes(nodeType);
+		}
+		// The copy of the original network adds the nodes in the order of getNodes, and each node whose
+		// variable is replaced is moved to the end
+		List<Node> nodes = new ArrayList<>();
+		for (Node node : originalDAN.getNodes()) {
+			if (node.getNodeType() == nodeType && !nodesWithNewVariables.contains(node)) {
+				nodes.add(node);
+			}
+		}
+		for (Node node : nodesWithNewVariables) {
+			if (node.getNodeType() == nodeType) {
+				nodes.add(node);
+			}
+		}
+		nodes.removeAll(removedNodes);
+		return nodes;
+	}
+
+	/**
+	 * Same as <code>ProbNet.getNode(Variable)</code>
+	 *
+	 * @param variable <code>Variable</code>
+	 * @return The node of the original network that contains <code>variable</code> in the instantiated
+	 * network, or null if there is none
+	 */
+	Node getNode(Variable variable) {
+		if (replacedVariables.contains(variable)) {
+			return null;
+		}
+		Node node = nodesOfNewVariables.get(variable);
+		if (node == null) {
+			node = originalDAN.getNode(variable);
+		}
+		return (node == null || removedNodes.contains(node)) ? null : node;
+	}
+
+	/**
+	 * @param node node of the original network
+	 * @return The variable of <code>node</code> in the instantiated network
+	 */
+	Variable getVariable(Node node) {
+		Variable newVariable = newVariables.get(node);
+		return (newVariable != null) ? newVariable : node.getVariable();
+	}
+
+	/**
+	 * @param name name of a variable
+	 * @return The variable of the instantiated network called <code>name</code>, or null if there is none
+	 */
+	Variable getVariable(String name) {
+		try {
+			Node node = originalDAN.getNode(name);
+			return removedNodes.contains(node) ? null : getVariable(node);
+		} catch (NodeNotFoundException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param node node of the original network
+	 * @return True if <code>node</code> is always observed in the instantiated network
+	 */
+	boolean isAlwaysObserved(Node node) {
+		return node.isAlwaysObserved() || observedNodes.contains(node);
+	}
+
+	/**
+	 * @param node node of the original network
+	 * @return The potentials of <code>node</code> in the instantiated network. The list can be modified
+	 */
+	List<Potential> getPotentials(Node node) {
+		List<Potential> potentials = newPotentials.get(node);
+		return (potentials != null) ? new ArrayList<>(potentials) : node.getPotentials();
+	}
+
+	/**
+	 * @param node node of the original network
+	 * @return True if the potentials of <code>node</code> are still those of the original network
+	 */
+	boolean hasOriginalPotentials(Node node) {
+		return !newPotentials.containsKey(node);
+	}
+
+	/**
+	 * Same as <code>ProbNet.getPotentials(Variable)</code>
+	 *
+	 * @param variable <code>Variable</code>
+	 * @return The potentials of the instantiated network that contain <code>variable</code>
+	 */
+	private List<Potential> getPotentials(Variable variable) {
+		List<Potential> potentials = new ArrayList<>();
+		Node node = getNode(variable);
+		if (node != null) {
+			Set<Node> semiNeighbors = new LinkedHashSet<>(getChildren(node));
+			semiNeighbors.addAll(getParents(node));
+			semiNeighbors.addAll(getSiblings(node));
+			semiNeighbors.add(node);
+			for (Node child : getChildren(node)) {
+				semiNeighbors.addAll(getParents(child));
+			}
+			for (Node neighbor : semiNeighbors) {
+				for (Potential potential : getPotentials(neighbor)) {
+					if (potential.contains(variable)) {
+						potentials.add(potential);
+					}
+				}
+			}
+		}
+		return potentials;
+	}
+
+	/**
+	 * @return The links of the instantiated network, in the order of <code>ProbNet.getLinks</code>. The links
+	 * join nodes of the original network
+	 */
+	List<Link<Node>> getLinks() {
+		List<Link<Node>> links = new ArrayList<>();
+		for (Node node : getNodes()) {
+			for (Link<Node> link : getLinks(node)) {
+				if (link.getNode1() == node) {
+					links.add(link);
+				}
+			}
+		}
+		return links;
+	}
+
+	/**
+	 * @param node node of the original network
+	 * @return The links of <code>node</code> in the instantiated network
+	 */
+	List<Link<Node>> getLinks(Node node) {
+		List<Link<Node>> links = new ArrayList<>();
+		if (!removedNodes.contains(node)) {
+			for (Link<Node> link : originalDAN.getLinks(node)) {
+				if (!removedLinks.contains(link) && isInNetwork(link)) {
+					links.add(link);
+				}
+			}
+			for (Link<Node> link : addedLinks) {
+				if ((link.getNode1() == node || link.getNode2() == node) && isInNetwork(link)) {
+					links.add(link);
+				}
+			}
+		}
+		return links;
+	}
+
+	private boolean isInNetwork(Link<Node> link) {
+		return !removedNodes.contains(link.getNode1()) && !removedNodes.contains(link.getNode2());
+	}
+
+	/**
+	 * @param node node of the original network
+	 * @return The children of <code>node</code> in the instantiated network
+	 */
+	List<Node> getChildren(Node node) {
+		List<Node> children = new ArrayList<>();
+		if (!removedNodes.contains(node)) {
+			Set<Node> removedLinks = removedChildren.get(node);
+			for (Node child : originalDAN.getChildren(node)) {
+				if (!removedNodes.contains(child) && (removedLinks == null || !removedLinks.contains(child))) {
+					children.add(child);
+				}
+			}
+			addNotRemoved(addedChildren.get(node), children);
+		}
+		return children;
+	}
+
+	/**
+	 * @param node node of the original network
+	 * @return The parents of <code>node</code> in the instantiated network
+	 */
+	List<Node> getParents(Node node) {
+		List<Node> parents = new ArrayList<>();
+		if (!removedNodes.contains(node)) {
+			for (Node parent : originalDAN.getParents(node)) {
+				Set<Node> removedLinks = removedChildren.get(parent);
+				if (!removedNodes.contains(parent) && (removedLinks == null || !removedLinks.contains(node))) {
+					parents.add(parent);
+				}
+			}
+			addNotRemoved(addedParents.get(node), parents);
+		}
+		return parents;
+	}
+
+	private List<Node> getSiblings(Node node) {
+		List<Node> siblings = new ArrayList<>();
+		if (!removedNodes.contains(node)) {
+			addNotRemoved(originalDAN.getSiblings(node), siblings);
+		}
+		return siblings;
+	}
+
+	private void addNotRemoved(List<Node> nodes, List<Node> list) {
+		if (nodes != null) {
+			for (Node node : nodes) {
+				if (!removedNodes.contains(node)) {
+					list.add(node);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Same as <code>ProbNetOperations.getPredecessorDecisions</code>
+	 */
+	private List<Node> getPredecessorDecisions(Node node) {
+		List<Node> predecessorDecisions = new ArrayList<>();
+		Stack<Node> predecessors = new Stack<>();
+		predecessors.addAll(getParents(node));
+		while (!predecessors.isEmpty()) {
+			Node predecessor = predecessors.pop();
+			if (predecessor.getNodeType() == NodeType.DECISION) {
+				predecessorDecisions.add(predecessor);
+			} else {
+				predecessors.addAll(getParents(predecessor));
+			}
+		}
+		return predecessorDecisions;
+	}
+
+	/**
+	 * Same as <code>ProbNetOperations.hasPredecessorDecision</code>
+	 */
+	private boolean hasPredecessorDecision(Node node) {
+		Stack<Node> predecessors = new Stack<>();
+		predecessors.add(node);
+		boolean found = false;
+		while (!found && !predecessors.isEmpty()) {
+			Node predecessor = predecessors.pop();
+			found = !predecessor.equals(node) && predecessor.getNodeType() == NodeType.DECISION;
+			predecessors.addAll(getParents(predecessor));
+		}
+		return found;
+	}
+
+	// Changes
+	/**
+	 * Removes <code>link</code> and, as <code>ProbNet.removeLink</code>, the child of its first node
+	 */
+	private void removeLink(Link<Node> link) {
+		Node node1 = link.getNode1();
+		Node node2 = link.getNode2();
+		changedNodes.add(node1);
+		changedNodes.add(node2);
+		if (!addedLinks.remove(link)) {
+			removedLinks.add(link);
+		}
+		List<Node> children = addedChildren.get(node1);
+		if (children != null && children.remove(node2)) {
+			addedParents.get(node2).remove(node1);
+		}
+		removedChildren.computeIfAbsent(node1, node -> new HashSet<>()).add(node2);
+		changes.add((net, copies) -> net.removeLink(copies.get(node1), copies.get(node2), true));
+	}
+
+	/**
+	 * Adds a directed link from <code>node1</code> to <code>node2</code> to the view, as
+	 * <code>ProbNet.addLink</code>
+	 *
+	 * @return The link added
+	 */
+	private Link<Node> addLinkToView(Node node1, Node node2) {
+		changedNodes.add(node1);
+		changedNodes.add(node2);
+		if (!getChildren(node1).contains(node2)) {
+			addedChildren.computeIfAbsent(node1, node -> new ArrayList<>()).add(node2);
+			addedParents.computeIfAbsent(node2, node -> new ArrayList<>()).add(node1);
+		}
+		Link<Node> link = new Link<>(node1, node2, true);
+		addedLinks.add(link);
+		return link;
+	}
+
+	private void addLink(Node node1, Node node2) {
+		addLinkToView(node1, node2);
+		changes.add((net, copies) -> net.addLink(copies.get(node1), copies.get(node2), true));
+	}
+
+	/**
+	 * Adds a link that reveals <code>node2</code> for every state of <code>node1</code>
+	 */
+	private void addRevealingLink(Node node1, Node node2) {
+		Link<Node> revealingLink = addLinkToView(node1, node2);
+		State[] revealingStates = getVariable(node1).getStates();
+		for (State revealingState : revealingStates) {
+			revealingLink.addRevealingState(revealingState);
+		}
+		changes.add((net, copies) -> {
+			Link<Node> revealingArc = net.addLink(copies.get(node1), copies.get(node2), true);
+			for (State revealingState : revealingStates) {
+				revealingArc.addRevealingState(revealingState);
+			}
+		});
+	}
+
+	private void removeNode(Node node) {
+		if (node == null) {
+			return;
+		}
+		changedNodes.add(node);
+		if (removedNodes.add(node) && node.getNodeType() == NodeType.UTILITY) {
+			numRemovedUtilityNodes++;
+		}
+		changes.add((net, copies) -> net.removeNode(copies.get(node)));
+	}
+
+	private void setAlwaysObserved(Node node) {
+		changedNodes.add(node);
+		observedNodes.add(node);
+		changes.add((net, copies) -> copies.get(node).setAlwaysObserved(true));
+	}
+
+	private void setPotential(Node node, Potential potential) {
+		changedNodes.add(node);
+		newPotentials.put(node, new ArrayList<>(Arrays.asList(potential)));
+		changes.add((net, copies) -> copies.get(node).setPotential(potential));
+	}
+
+	private void setVariable(Node node, Variable newVariable) {
+		changedNodes.add(node);
+		replacedVariables.add(getVariable(node));
+		newVariables.put(node, newVariable);
+		nodesWithNewVariables.remove(node);
+		nodesWithNewVariables.add(node);
+		nodesOfNewVariables.put(newVariable, node);
+		changes.add((net, copies) -> copies.get(node).setVariable(newVariable));
+	}
+
+	/**
+	 * Same as <code>DANOperations.replaceUtilityPotentialWithZero</code>
+	 */
+	private void replaceUtilityPotentialWithZero(Node node) {
+		changedNodes.add(node);
+		Variable nodeVariable = getVariable(node);
+		List<Node> nodes = new ArrayList<>();
+		nodes.add(node);
+		nodes.addAll(getSiblings(node));
+		for (Node otherNode : nodes) {
+			List<Potential> potentials = getPotentials(otherNode);
+			if (potentials.removeIf(potential -> potential.getVariables().contains(nodeVariable))) {
+				changedNodes.add(otherNode);
+				newPotentials.put(otherNode, potentials);
+			}
+		}
+		TablePotential newUtilityPotential = new TablePotential(Arrays.asList(nodeVariable), PotentialRole.UNSPECIFIED);
+		newUtilityPotential.setValues(new double[] { 0.0 });
+		List<Potential> potentials = getPotentials(node);
+		potentials.add(newUtilityPotential);
+		newPotentials.put(node, potentials);
+		changes.add((net, copies) -> {
+			net.removePotentials(copies.get(node));
+			net.addPotential(newUtilityPotential);
+		});
+	}
+
+	/**
+	 * Change applied to the copy of the original network
+	 */
+	private interface Change {
+		/**
+		 * @param network copy of the original network
+		 * @param copies  copy of each changed node of the original network
+		 */
+		void apply(ProbNet network, Map<Node, Node> copies);
+	}
+}
@@ -11,7 +11,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.Set;
 import java.util.Stack;
@@ -19,8 +18,6 @@ import java.util.Stack;
 import org.openmarkov.core.exception.IncompatibleEvidenceException;
 import org.openmarkov.core.exception.InvalidStateException;
 import org.openmarkov.core.exception.NodeNotFoundException;
-import org.openmarkov.core.exception.NonProjectablePotentialException;
-import org.openmarkov.core.exception.WrongCriterionException;
 import org.openmarkov.core.inference.BasicOperations;
 import org.openmarkov.core.model.graph.Link;
 import org.openmarkov.core.model.network.CEP;
@@ -33,14 +30,11 @@ import org.openmarkov.core.model.network.ProbNetOperations;
 import org.openmarkov.core.model.network.State;
 import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.VariableType;
-import org.openmarkov.core.model.network.potential.ExactDistrPotential;
 import org.openmarkov.core.model.network.potential.GTablePotential;
 import org.openmarkov.core.model.network.potential.Potential;
 import org.openmarkov.core.model.network.potential.PotentialRole;
 import org.openmarkov.core.model.network.potential.TablePotential;
 import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
-import org.openmarkov.core.model.network.potential.treeadd.TreeADDBranch;
-import org.openmarkov.core.model.network.potential.treeadd.TreeADDPotential;
 
 public class DANOperations {
 
@@ -56,106 +50,7 @@ public class DANOperations {
 	 * @return instantiated network
 	 */
 	public static ProbNet instantiate(ProbNet originalDAN, Variable variable, State state) {
-		ProbNet instantiatedNet = originalDAN.copy();
-
-		Node originalNode = null;
-		try {
-			originalNode = originalDAN.getNode(variable.getName());
-		} catch (NodeNotFoundException e) {
-			e.printStackTrace();
-		}
-
-		// If we are instantiating a decision variable we must project potentials for the selected state of the decision
-		if (originalNode != null /*&& originalNode.getNodeType().equals(NodeType.DECISION)*/) {
-			try {
-				projectPotentials(instantiatedNet, variable, state);
-			} catch (InvalidStateException | IncompatibleEvidenceException | NonProjectablePotentialException | WrongCriterionException e) {
-				e.printStackTrace();
-			}
-		}
-
-		// Get the links of the node in the original network
-		for (Link<Node> link : originalDAN.getLinks(originalNode)) {
-			if (link.getNode1().equals(originalNode)) // Our originalNode is the source originalNode (act as parent)
-			{
-				Node destinationNode = instantiatedNet.getNode(link.getNode2().getVariable());
-				// Remove link between restricting originalNode and restricted originalNode
-				instantiatedNet.removeLink(link.getNode1().getVariable(), link.getNode2().getVariable(), true);
-
-				if (destinationNode.getNodeType() == NodeType.CHANCE) {
-					if (link.hasRevealingConditions()) {
-						if (link.getRevealingStates().contains(state)) {
-							List<Node> predecessorDecisions = ProbNetOperations
-									.getPredecessorDecisions(destinationNode, instantiatedNet);
-							// If it has predecessor decisions, do not reveal it yet, but add revealing links
-							// from every predecessor decision to the originalNode
-							if (predecessorDecisions.isEmpty()) {
-								destinationNode.setAlwaysObserved(true);
-							} else {
-								for (Node predecessorDecision : predecessorDecisions) {
-									Link<Node> revealingArc = instantiatedNet
-											.addLink(predecessorDecision, destinationNode, true);
-									State[] predecessorDecisionStates = predecessorDecision.getVariable().getStates();
-									for (State predecessorDecisionState : predecessorDecisionStates)
-										revealingArc.addRevealingState(predecessorDecisionState);
-								}
-							}
-						}
-					}
-				}
-				if (link.hasRestrictions()) {
-					Variable destinationVariable = destinationNode.getVariable();
-					State[] restrictedVariableStates = destinationVariable.getStates();
-					List<State> nonRestrictedStates = ProbNetOperations
-							.getUnrestrictedStates(link, restrictedVariableStates, state);
-
-					if (nonRestrictedStates.isEmpty()) {
-						// Remove destination originalNode and its descendants!
-						Stack<Node> disposableNodes = new Stack<>();
-						disposableNodes.push(destinationNode);
-						while (!disposableNodes.isEmpty()) {
-							Node disposableNode = disposableNodes.pop();
-							// If it's a decision originalNode, check if there is another
-							// path to it from another decision
-							if (disposableNode.getNodeType() != NodeType.DECISION || !ProbNetOperations
-									.hasPredecessorDecision(disposableNode, instantiatedNet)) {
-								for (Node descendant : instantiatedNet.getChildren(disposableNode)) {
-									disposableNodes.push(descendant);
-								}
-								// Guarantee that the DAN has at least a utility node
-								if (disposableNode.getNodeType() != NodeType.UTILITY
-										|| instantiatedNet.getNodes(NodeType.UTILITY).size() > 1) {
-									instantiatedNet.removeNode(disposableNode);
-								}
-								else {//If the node of utility should be removed, then we leave it in the network with a zero value
-									replaceUtilityPotentialWithZero(instantiatedNet, disposableNode);
-								}
-							}
-						}
-
-						//                    }else if(nonRestrictedStates.size () == 1) // Remove variables with a single variable
-						//                    {
-						//                        ProbNet probNetWithoutSingleStateVariable = probNetCopy.copy ();
-						//                        probNetWithoutSingleStateVariable.removeNode (probNetWithoutSingleStateVariable.getNode (destinationNode.getVariable ()));
-						//                        probNetCopy = applyRestrictionsAndReveal(probNetWithoutSingleStateVariable, destinationNode, nonRestrictedStates.get (0), originalProbNet);
-					} else if (nonRestrictedStates.size() < restrictedVariableStates.length) {
-						// At least one of the states of the destination originalNode is restricted.
-						// Make a copy of the variable and remove the restricted states
-						//if (destinationNode.getNodeType()!=NodeType.CHANCE){
-						State[] unrestrictedStates = nonRestrictedStates.toArray(new State[0]);
-						Variable restrictedVariable = new Variable(destinationVariable.getName(), unrestrictedStates);
-						restrictedVariable.setVariableType(destinationVariable.getVariableType());
-						updatePotentialsWithNewVariable(instantiatedNet, destinationVariable, restrictedVariable);
-						destinationNode.setVariable(restrictedVariable);
-						//}
-					}
-				}
-			}
-		}
-		if (originalNode.getNodeType() == NodeType.DECISION) {
-			instantiatedNet.removeNode(instantiatedNet.getNode(originalNode.getVariable()));
-		}
-		return instantiatedNet;
+		return new DANInstantiation(originalDAN, variable, state).getNetwork();
 	}
 	
 	
@@ -170,48 +65,6 @@ public class DANOperations {
 	}
 
 	
-	private static void updatePotentialsWithNewVariable(ProbNet instantiatedNet, Variable oldVariable,
-			Variable newVariable) {
-		Hashtable<State, EvidenceCase> evidence = new Hashtable<>();
-		for (State auxState : newVariable.getStates()) {
-			EvidenceCase auxEvi = new EvidenceCase();
-			try {
-				auxEvi.addFinding(new Finding(oldVariable, auxState));
-			} catch (InvalidStateException | IncompatibleEvidenceException e) {
-				e.printStackTrace();
-			}
-			evidence.put(auxState, auxEvi);
-		}
-		List<Potential> oldPotentials = instantiatedNet.getPotentials(oldVariable);
-		if (oldPotentials != null && oldPotentials.size() > 0) {
-			for (Potential auxPotential : instantiatedNet.getPotentials(oldVariable)) {
-				List<Variable> newVars = new ArrayList<>();
-				for (Variable auxVar : auxPotential.getVariables()) {
-					newVars.add(auxVar != oldVariable ? auxVar : newVariable);
-				}
-				Node node = instantiatedNet.getNode(auxPotential.getConditionedVariable());
-				TreeADDPotential newPot = new TreeADDPotential(newVars, newVariable, auxPotential.getPotentialRole());
-				newPot.setRootVariable(newVariable);
-				List<TreeADDBranch> branches = new ArrayList<>();
-				for (State auxState : newVariable.getStates()) {
-					Potential auxPotBranch = null;
-					EvidenceCase auxEvidence = evidence.get(auxState);
-					try {
-						auxPotBranch = (
-								auxPotential instanceof TablePotential || auxPotential instanceof ExactDistrPotential
-						) ? auxPotential.project(auxEvidence) : auxPotential.tableProject(auxEvidence, null).get(0);
-					} catch (WrongCriterionException | NonProjectablePotentialException e) {
-						e.printStackTrace();
-					}
-					branches.add(new TreeADDBranch(Arrays.asList(auxState), newVariable, auxPotBranch, newVars));
-				}
-				newPot.setBranches(branches);
-				node.removePotential(auxPotential);
-				node.setPotential(newPot);
-			}
-		}
-	}
-
 	/**
 	 * Returns one instance of the network for each state of the variable.
 	 * In each instance the variable has taken one of its possible states.
@@ -264,13 +117,23 @@ public class DANOperations {
 	 * @return list of possible next decisions
 	 */
 	public static List<Node> getNextDecisions(ProbNet probNet) {
-		List<Node> decisionNodes = ProbNetOperations.getParentlessDecisions(probNet);
+		return getNextDecisions(new DANInstantiation(probNet));
+	}
+
+	/**
+	 * Get the decisions that could be made first
+	 *
+	 * @param dan instantiated network
+	 * @return list of possible next decisions, as nodes of the original network
+	 */
+	static List<Node> getNextDecisions(DANInstantiation dan) {
+		List<Node> decisionNodes = getParentlessDecisions(dan);
 		// Check if the nodes revealed by a decision node are the subset of another
 		// In that case we don't need to consider them as valid orders
 		List<List<Node>> revealedNodes = new ArrayList<>();
 		for (Node node : decisionNodes) {
 			List<Node> revealedByDecision = new ArrayList<>();
-			for (Link<Node> link : node.getLinks()) {
+			for (Link<Node> link : dan.getLinks(node)) {
 				if (link.getNode1().equals(node) && link.hasRevealingConditions()) {
 					revealedByDecision.add(link.getNode2());
 				}
@@ -343,75 +206,107 @@ public class DANOperations {
 	}
 
 	/**
-	 * Project potentials where this variable appears.
+	 * Returns true if the probNet is symmetric.
 	 *
-	 * @param probNet  network
-	 * @param variable decision variable
-	 * @param state    state of the decision
-	 * @throws InvalidStateException
-	 * @throws IncompatibleEvidenceException
-	 * @throws NonProjectablePotentialException
-	 * @throws WrongCriterionException
+	 * @param probNet network
 	 */
-	private static void projectPotentials(ProbNet probNet, Variable variable, State state)
-			throws InvalidStateException, IncompatibleEvidenceException, NonProjectablePotentialException,
-			WrongCriterionException {
+	public static boolean isSymmetric(ProbNet probNet, EvidenceCase evidence) {
+		return isSymmetric(new DANInstantiation(probNet), evidence);
+	}
 
-		EvidenceCase decisionEvidence = new EvidenceCase();
-		decisionEvidence.addFinding(new Finding(variable, state));
-		List<Potential> nodePotentials = probNet.getNode(variable).getPotentials();
-		Potential nodePotential;
+	/**
+	 * Returns true if the instantiated network is symmetric.
+	 *
+	 * @param dan instantiated network
+	 */
+	static boolean isSymmetric(DANInstantiation dan, EvidenceCase evidence) {
+		boolean hasStrucAsymm = hasStructuralAsymmetry(dan);
+		boolean hasOrderAsymm = hasOrderAsymmetry(dan, (evidence != null) ? evidence.getVariables() : null);
+		return !(hasStrucAsymm || hasOrderAsymm);
+	}
 
-		if (nodePotentials != null && nodePotentials.size() > 0) {
-			nodePotential = nodePotentials.get(0);
-		} else {
-			nodePotential = null;
+	/**
+	 * Same as <code>ProbNetOperations.hasStructuralAsymmetry</code>
+	 */
+	private static boolean hasStructuralAsymmetry(DANInstantiation dan) {
+		boolean asymmetryFound = false;
+		for (Link<Node> link : dan.getLinks()) {
+			// There is asymmetry if there are total restrictions or if only some states reveal a certain variable
+			asymmetryFound |= link.hasTotalRestriction() || (
+					link.hasRestrictions() && link.getNode2().getNodeType() == NodeType.DECISION
+			) || (
+					link.hasRevealingConditions() && link.getRevealingStates().size() < dan
+							.getVariable(link.getNode1()).getNumStates()
+			);
 		}
+		return asymmetryFound;
+	}
 
-		for (Potential potential : probNet.getPotentials(variable)) {
-			// Project all potentials except the potential of the node
-			if (nodePotential == null || (!nodePotential.equals(potential))) {
-				Variable conditionedVariable = potential.getConditionedVariable();
-				Node node = probNet.getNode(conditionedVariable);
-				if (potential instanceof TablePotential || potential instanceof ExactDistrPotential) {
-					// Maintain the type of potential.
-					node.setPotential(potential.project(decisionEvidence));
-				} else {
-					//We ensure here that the first variable of a utility potential is the variable of the utility node.
-					//This condition is necessary to correctly evaluate the network with VariableEliminationCore
-					List<TablePotential> projectedPotentials = potential.tableProject(decisionEvidence, null);
-					TablePotential potentialProjectedFromTreeADD = projectedPotentials.get(0);
-					Potential newPotential;
-					Node newConditionedVariable = probNet
-							.getNode(potentialProjectedFromTreeADD.getConditionedVariable());
-					NodeType utilityType = NodeType.UTILITY;
-					if (((newConditionedVariable == null) || (newConditionedVariable.getNodeType() != utilityType)) && (
-							node.getNodeType() == utilityType
-					)) {
-						List<Variable> newVarsPotential = new ArrayList<>();
-						newVarsPotential.add(conditionedVariable);
-						newVarsPotential.addAll(potentialProjectedFromTreeADD.getVariables());
-						newPotential = new ExactDistrPotential(newVarsPotential, PotentialRole.UNSPECIFIED,
-								potentialProjectedFromTreeADD.values);
-					} else {
-						newPotential = potentialProjectedFromTreeADD;
+	/**
+	 * Same as <code>ProbNetOperations.hasOrderAsymmetry</code>
+	 */
+	private static boolean hasOrderAsymmetry(DANInstantiation dan, List<Variable> evidentialNodes) {
+		List<Node> parentlessDecisions = getParentlessDecisions(dan);
+		if (parentlessDecisions.size() == 1) {
+			List<Node> decisionNodes = dan.getNodes(NodeType.DECISION);
+			while (parentlessDecisions.size() == 1) {
+				decisionNodes.remove(parentlessDecisions.get(0));
+				parentlessDecisions.clear();
+				for (Node decisionNode : decisionNodes) {
+					boolean hasParentDecisions = false;
+					Stack<Node> parentNodes = new Stack<>();
+					parentNodes.push(decisionNode);
+					while (!hasParentDecisions && !parentNodes.isEmpty()) {
+						Node node = parentNodes.pop();
+						List<Node> parents = dan.getParents(node);
+						int i = 0;
+						while (i < parents.size() && !hasParentDecisions) {
+							Node parentNode = parents.get(i++);
+							boolean isDecision = parentNode.getNodeType() == NodeType.DECISION;
+							if (!isDecision || decisionNodes.contains(parentNode)) {
+								hasParentDecisions |= isDecision;
+								parentNodes.push(parentNode);
+							}
+						}
+					}
+					if (!hasParentDecisions) {
+						parentlessDecisions.add(decisionNode);
 					}
-					node.setPotential(newPotential);
 				}
 			}
 		}
+		if (evidentialNodes != null) {
+			for (Variable variable : evidentialNodes) {
+				parentlessDecisions.remove(dan.getNode(variable));
+			}
+		}
+		return parentlessDecisions.size() > 1;
 	}
 
 	/**
-	 * Returns true if the probNet is symmetric.
-	 *
-	 * @param probNet network
+	 * Same as <code>ProbNetOperations.getParentlessDecisions</code>
 	 */
-	public static boolean isSymmetric(ProbNet probNet, EvidenceCase evidence) {
-		boolean hasStrucAsymm = ProbNetOperations.hasStructuralAsymmetry(probNet);
-		boolean hasOrderAsymm = ProbNetOperations
-				.hasOrderAsymmetry(probNet, (evidence != null) ? evidence.getVariables() : null);
-		return !(hasStrucAsymm || hasOrderAsymm);
+	private static List<Node> getParentlessDecisions(DANInstantiation dan) {
+		List<Node> parentlessDecisions = new ArrayList<>();
+		for (Node parent : dan.getNodes(NodeType.DECISION)) {
+			boolean hasParentDecisions = false;
+			Stack<Node> parentNodes = new Stack<>();
+			parentNodes.push(parent);
+			while (!hasParentDecisions && !parentNodes.isEmpty()) {
+				Node node = parentNodes.pop();
+				List<Node> parents = dan.getParents(node);
+				int i = 0;
+				while (i < parents.size() && !hasParentDecisions) {
+					Node parentNode = parents.get(i++);
+					hasParentDecisions |= parentNode.getNodeType() == NodeType.DECISION;
+					parentNodes.push(parentNode);
+				}
+			}
+			if (!hasParentDecisions) {
+				parentlessDecisions.add(parent);
+			}
+		}
+		return parentlessDecisions;
 	}
 
 	/**
@@ -419,10 +314,18 @@ public class DANOperations {
 	 * @return List of always observed variables
 	 */
 	public static List<Variable> getAlwaysObservedVariables(ProbNet probNet) {
+		return getAlwaysObservedVariables(new DANInstantiation(probNet));
+	}
+
+	/**
+	 * @param dan instantiated network
+	 * @return List of always observed variables
+	 */
+	static List<Variable> getAlwaysObservedVariables(DANInstantiation dan) {
 		List<Variable> alwaysObservedVariables = new ArrayList<>();
-		for (Node node : probNet.getNodes()) {
-			if (node.isAlwaysObserved()) {
-				alwaysObservedVariables.add(node.getVariable());
+		for (Node node : dan.getNodes()) {
+			if (dan.isAlwaysObserved(node)) {
+				alwaysObservedVariables.add(dan.getVariable(node));
 			}
 		}
 		return alwaysObservedVariables;
@@ -434,11 +337,20 @@ public class DANOperations {
 	 * that the link A-&gt;B has restrictions)
 	 */
 	public static List<Variable> getAsymmetricObservableVariables(ProbNet probNet) {
+		return getAsymmetricObservableVariables(new DANInstantiation(probNet));
+	}
+
+	/**
+	 * @param dan instantiated network
+	 * @return List of asymmetric observed variables (The A's variables given
+	 * that the link A-&gt;B has restrictions)
+	 */
+	static List<Variable> getAsymmetricObservableVariables(DANInstantiation dan) {
 		List<Variable> asymetricObservableVariables = new ArrayList<>();
-		for (Link<Node> link : probNet.getLinks()) {
+		for (Link<Node> link : dan.getLinks()) {
 			Node parentNode = link.getNode1();
-			if (parentNode.isAlwaysObserved() && link.hasRestrictions()) {
-				asymetricObservableVariables.add(parentNode.getVariable());
+			if (dan.isAlwaysObserved(parentNode) && link.hasRestrictions()) {
+				asymetricObservableVariables.add(dan.getVariable(parentNode));
 			}
 		}
 		return asymetricObservableVariables;
@@ -475,14 +387,23 @@ public class DANOperations {
 	 * @return A variable of 'variables' of 'dan' that has no ancestors belonging to 'variables'
 	 */
 	static Variable selectVariableWithoutAncestorsInVariables(List<Variable> variables, ProbNet dan) {
+		return selectVariableWithoutAncestorsInVariables(variables, new DANInstantiation(dan));
+	}
+
+	/**
+	 * @param variables
+	 * @param dan       instantiated network
+	 * @return A variable of 'variables' of 'dan' that has no ancestors belonging to 'variables'
+	 */
+	static Variable selectVariableWithoutAncestorsInVariables(List<Variable> variables, DANInstantiation dan) {
 		boolean withoutAncestors = true;
 		boolean selected = false;
 		Variable variableSelected = null;
 		for (int i = 0; i < variables.size() && !selected; i++) {
 			Variable candidate = variables.get(i);
-			Set<Node> ancestors = ProbNetOperations.getNodeAncestors(dan.getNode(candidate));
+			Set<Node> ancestors = getNodeAncestors(dan, dan.getNode(candidate));
 			Set<Variable> ancestorsVariables = new HashSet<>();
-			ancestors.forEach(node -> ancestorsVariables.add(node.getVariable()));
+			ancestors.forEach(node -> ancestorsVariables.add(dan.getVariable(node)));
 			for (int j = 0; i < variables.size(); i++) {
 				Variable auxVar = variables.get(j);
 				if (auxVar != candidate) {
@@ -497,6 +418,24 @@ public class DANOperations {
 		return variableSelected;
 	}
 
+	/**
+	 * Same as <code>ProbNetOperations.getNodeAncestors</code>
+	 */
+	private static Set<Node> getNodeAncestors(DANInstantiation dan, Node node) {
+		Set<Node> ancestors = new HashSet<>();
+		Stack<Node> noExploredNodes = new Stack<>();
+		noExploredNodes.add(node);
+		while (!noExploredNodes.empty()) {
+			Node noExploredNode = noExploredNodes.pop();
+			for (Node parent : dan.getParents(noExploredNode)) {
+				if (ancestors.add(parent)) {
+					noExploredNodes.push(parent);
+				}
+			}
+		}
+		return ancestors;
+	}
+
 	static EvidenceCase extendEvidenceCase(EvidenceCase evidenceCase, Variable x, State state)
 			throws InvalidStateException, IncompatibleEvidenceException {
 		EvidenceCase newEvi;
@@ -560,14 +499,27 @@ public class DANOperations {
 	 */
 	public static List<Variable> getVariablesObservedFromTheBegginning(ProbNet dan, List<Variable> conditioningVariablesList,
 			EvidenceCase evidenceCase,boolean isDAN){
+		return getVariablesObservedFromTheBegginning(new DANInstantiation(dan), conditioningVariablesList, evidenceCase,
+				isDAN);
+	}
+
+	/**
+	 * @param dan instantiated network. Its network is built when it is an influence diagram
+	 * @param conditioningVariablesList
+	 * @param evidenceCase
+	 * @param isDAN if true is DAN, otherwise is ID
+	 * @return the list variables observed from the beginning
+	 */
+	static List<Variable> getVariablesObservedFromTheBegginning(DANInstantiation dan,
+			List<Variable> conditioningVariablesList, EvidenceCase evidenceCase, boolean isDAN) {
 		List<Variable> variablesObservedFromBeginning = isDAN? DANOperations.getAlwaysObservedVariables(dan):
-			DANOperations.getVariablesObservedByFirstDecision(dan);
+			DANOperations.getVariablesObservedByFirstDecision(dan.getNetwork());
 		if (conditioningVariablesList != null) {
 			variablesObservedFromBeginning.removeAll(conditioningVariablesList);
 		}
 		if (evidenceCase != null) {
 			for (Variable variable : evidenceCase.getVariables()) {
-				Variable variableInDAN = getVariableIfAppearsWithSameNameInNetwork(dan, variable);
+				Variable variableInDAN = dan.getVariable(variable.getName());
 				if (variableInDAN != null) {
 					variablesObservedFromBeginning.remove(variableInDAN);
 				}
@@ -610,10 +562,14 @@ public class DANOperations {
 	
 
 	public static List<Variable> getChanceVariablesNotInEvidence(ProbNet dan, EvidenceCase evidenceCase) {
+		return getChanceVariablesNotInEvidence(new DANInstantiation(dan), evidenceCase);
+	}
+
+	static List<Variable> getChanceVariablesNotInEvidence(DANInstantiation dan, EvidenceCase evidenceCase) {
 		List<Variable> variables = DANOperations.getChanceVariables(dan);
 		if (evidenceCase != null) {
 			for (Variable variable : evidenceCase.getVariables()) {
-				Variable variableInDAN = getVariableIfAppearsWithSameNameInNetwork(dan, variable);
+				Variable variableInDAN = dan.getVariable(variable.getName());
 				if (variableInDAN != null) {
 					variables.remove(variableInDAN);
 				}
@@ -623,11 +579,15 @@ public class DANOperations {
 	}
 
 	public static List<Variable> getChanceVariables(ProbNet dan) {
+		return getChanceVariables(new DANInstantiation(dan));
+	}
+
+	static List<Variable> getChanceVariables(DANInstantiation dan) {
 		List<Variable> variables = new ArrayList<>();
 		List<Node> nodes = dan.getNodes();
 		for (Node node : nodes) {
 			if (node.getNodeType() == NodeType.CHANCE) {
-				variables.add(node.getVariable());
+				variables.add(dan.getVariable(node));
 			}
 		}
 		return variables;
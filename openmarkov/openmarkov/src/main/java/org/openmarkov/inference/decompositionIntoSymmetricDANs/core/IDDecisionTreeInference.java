@@ -57,15 +57,37 @@ public class IDDecisionTreeInference extends DANDecisionTreeInference {
 		super(dan, evidenceCase, maximumTreeDepth, currentTreeDepth, computeDecisionTreeForGUI, isCEAnalysis);
 	}
 
+	public IDDecisionTreeInference(ProbNet dan, EvidenceCase evidenceCase, int maximumTreeDepth, int currentTreeDepth,
+			boolean computeDecisionTreeForGUI, boolean isCEAnalysis, int parallelDepth)
+			throws NotEvaluableNetworkException {
+		this(dan, evidenceCase, maximumTreeDepth, currentTreeDepth, computeDecisionTreeForGUI, isCEAnalysis,
+				parallelDepth, null);
+	}
+
+	public IDDecisionTreeInference(ProbNet dan, EvidenceCase evidenceCase, int maximumTreeDepth, int currentTreeDepth,
+			boolean computeDecisionTreeForGUI, boolean isCEAnalysis, int parallelDepth, DANEvaluationCache cache)
+			throws NotEvaluableNetworkException {
+		super(dan, evidenceCase, maximumTreeDepth, currentTreeDepth, computeDecisionTreeForGUI, isCEAnalysis,
+				parallelDepth, cache);
+	}
+
+	protected IDDecisionTreeInference(DANInstantiation dan, EvidenceCase evidenceCase, int maximumTreeDepth,
+			int currentTreeDepth, boolean computeDecisionTreeForGUI, boolean isCEAnalysis, int parallelDepth,
+			DANEvaluationCache cache) throws NotEvaluableNetworkException {
+		super(dan, evidenceCase, maximumTreeDepth, currentTreeDepth, computeDecisionTreeForGUI, isCEAnalysis,
+				parallelDepth, cache);
+	}
+
 	@Override
-	protected List<Variable> getAlwaysObservedVariables(ProbNet network, List<Variable> conditioningVariablesList,
+	protected List<Variable> getAlwaysObservedVariables(DANInstantiation network, List<Variable> conditioningVariablesList,
 			EvidenceCase evidenceCase) {
 		return DANOperations.getVariablesObservedFromTheBegginning(network,conditioningVariablesList,evidenceCase, false);
 	}
 	
-	protected DANDecisionTreeInference constructDecisionTreeInference(ProbNet dan, EvidenceCase evidenceCase,
+	protected DANDecisionTreeInference constructDecisionTreeInference(DANInstantiation dan, EvidenceCase evidenceCase,
 			int maximumTreeDepth, int childTreeDepth) throws NotEvaluableNetworkException {
-		return new IDDecisionTreeInference(dan, evidenceCase, maximumTreeDepth, childTreeDepth, computeDecisionTreeForGUI(), isCEAnalysis);
+		return new IDDecisionTreeInference(dan, evidenceCase, maximumTreeDepth, childTreeDepth, computeDecisionTreeForGUI(), isCEAnalysis,
+				parallelDepth - 1, cache);
 	}
 
 }
@@ -6,6 +6,7 @@ import org.openmarkov.core.model.network.EvidenceCase;
 import org.openmarkov.core.model.network.ProbNet;
 import org.openmarkov.inference.decompositionIntoSymmetricDANs.DecisionTreeComputation;
 import org.openmarkov.inference.decompositionIntoSymmetricDANs.core.DANDecisionTreeInference;
+import org.openmarkov.inference.decompositionIntoSymmetricDANs.core.DANEvaluationCache;
 
 public class DANDecisionTreeEvaluation extends DANEvaluation implements DecisionTreeComputation {
 
@@ -30,6 +31,26 @@ public class DANDecisionTreeEvaluation extends DANEvaluation implements Decision
 			inferenceProcess = new DANDecisionTreeInference(probNet, branchEvidence, depth, computeDecisionTreeForGUI, false);	
 	}
 
+	/**
+	 * @param parallelDepth number of levels of the tree whose branches are evaluated in parallel
+	 */
+	public DANDecisionTreeEvaluation(ProbNet probNet, int depth, boolean computeDecisionTreeForGUI, EvidenceCase branchEvidence,
+			int parallelDepth) throws NotEvaluableNetworkException {
+			inferenceProcess = new DANDecisionTreeInference(probNet, branchEvidence, depth, computeDecisionTreeForGUI, false,
+					parallelDepth);
+	}
+
+	/**
+	 * @param parallelDepth number of levels of the tree whose branches are evaluated in parallel
+	 * @param cache         transposition table where the results of the equivalent sub-DANs are shared. It is not
+	 *                      used when the decision tree is computed for the GUI
+	 */
+	public DANDecisionTreeEvaluation(ProbNet probNet, int depth, boolean computeDecisionTreeForGUI, EvidenceCase branchEvidence,
+			int parallelDepth, DANEvaluationCache cache) throws NotEvaluableNetworkException {
+			inferenceProcess = new DANDecisionTreeInference(probNet, branchEvidence, depth, computeDecisionTreeForGUI, false,
+					parallelDepth, cache);
+	}
+
 	@Override
 	public DecisionTreeNode getDecisionTree() {
 		return ((DecisionTreeComputation) inferenceProcess).getDecisionTree();
@@ -11,6 +11,7 @@ import org.openmarkov.core.exception.NotEvaluableNetworkException;
 import org.openmarkov.core.model.network.EvidenceCase;
 import org.openmarkov.core.model.network.ProbNet;
 import org.openmarkov.inference.decompositionIntoSymmetricDANs.core.DANDecompositionIntoSymmetricDANsInference;
+import org.openmarkov.inference.decompositionIntoSymmetricDANs.core.DANEvaluationCache;
 
 public class DANDecompositionIntoSymmetricDANsEvaluation extends DANEvaluation {
 
@@ -25,5 +26,24 @@ public class DANDecompositionIntoSymmetricDANsEvaluation extends DANEvaluation {
 
 	}
 
+	/**
+	 * @param parallelDepth number of levels of the decomposition whose children are evaluated in parallel
+	 */
+	public DANDecompositionIntoSymmetricDANsEvaluation(ProbNet probNet, EvidenceCase evidenceCase, int parallelDepth)
+			throws NotEvaluableNetworkException {
+		inferenceProcess = new DANDecompositionIntoSymmetricDANsInference(probNet, null, evidenceCase, false,
+				parallelDepth);
+	}
+
+	/**
+	 * @param parallelDepth number of levels of the decomposition whose children are evaluated in parallel
+	 * @param cache         transposition table where the results of the equivalent sub-DANs are shared
+	 */
+	public DANDecompositionIntoSymmetricDANsEvaluation(ProbNet probNet, EvidenceCase evidenceCase, int parallelDepth,
+			DANEvaluationCache cache) throws NotEvaluableNetworkException {
+		inferenceProcess = new DANDecompositionIntoSymmetricDANsInference(probNet, null, evidenceCase, false,
+				parallelDepth, cache);
+	}
+
 
 }
@@ -30,7 +30,6 @@ import org.openmarkov.inference.huginPropagation.ClusterPropagation.StorageLevel
 public abstract class ClusterOfVariables {
 	// Attributes for performance test
 	public static int collectEvidenceInvocations = 0;
-	public static int distributeEvidenceInvocations = 0;
 
 	/**
 	 * Used to form the cluster's name.
@@ -58,6 +57,11 @@ public abstract class ClusterOfVariables {
 	 * messages received from all its neighbors.
 	 */
 	protected TablePotential posteriorPotential = null;
+	/**
+	 * <code>true</code> when <code>posteriorPotential</code> includes the messages of all the neighbors, and not
+	 * only those of the children, as the one stored by <code>collectEvidence</code> with full storage.
+	 */
+	protected boolean isPosteriorComplete = false;
 	/**
 	 * Variables in this cluster
 	 */
@@ -72,6 +76,15 @@ public abstract class ClusterOfVariables {
 	 * children.
 	 */
 	protected TablePotential downgoingMessage = null;
+	/**
+	 * Upgoing message computed when there was no evidence in the subtree of this cluster. It is restored when
+	 * all the findings of the subtree are retracted.
+	 */
+	protected TablePotential priorUpgoingMessage = null;
+	/**
+	 * Number of evidence potentials in this cluster and its descendants
+	 */
+	protected int numFindingsInSubtree = 0;
 	protected int clusterSize = 0;
 	private ClusterForest clusterForest = null;
 
@@ -159,10 +172,14 @@ public abstract class ClusterOfVariables {
 		boolean isRootClique = separatorVariables.size() == 0;
 		TablePotential collectedEvidence = null;
 		posteriorPotential = DiscretePotentialOperations.multiply(potentials);
+		isPosteriorComplete = isRootClique;
 		upgoingMessage = (isRootClique) ?
 				posteriorPotential :
 				DiscretePotentialOperations.marginalize(posteriorPotential, separatorVariables);
 		collectedEvidence = upgoingMessage;
+		if (numFindingsInSubtree == 0 && storageLevel != StorageLevel.NO_STORAGE) {
+			priorUpgoingMessage = upgoingMessage;
+		}
 		switch (storageLevel) {
 		case NO_STORAGE: {
 			// Delete upgoing message
@@ -172,6 +189,7 @@ public abstract class ClusterOfVariables {
 		case MEDIUM: {
 			// Delete posterior potential
 			posteriorPotential = null;
+			isPosteriorComplete = false;
 			break;
 		}
 		case FULL: {
@@ -182,37 +200,6 @@ public abstract class ClusterOfVariables {
 		return collectedEvidence;
 	}
 
-	/**
-	 * Sends a message to each child. The message is the multiplication of:
-	 * <code>priorPotentials, evidencePotentials</code> and the upgoing messages
-	 * from its other children
-	 *
-	 * @param storageLevel the amount of intermediate operation that are stored.
-	 */
-	public void distributeEvidence(StorageLevel storageLevel) {
-		// stores the product of priorPotentials, evidencePotentials, and
-		// the downgoingMessage
-		TablePotential intermediateProduct = getIntermediateProduct();
-		// sends a downgoingMessage to each child;
-		// this message is the product of the intermediateProduct multiplied
-		// by the upgoing messages from its other children
-		List<ClusterOfVariables> children = getChildren();
-		List<ClusterOfVariables> otherChildren = null;
-		for (ClusterOfVariables child : children) {
-			List<TablePotential> potentials = new ArrayList<TablePotential>();
-			potentials.add(intermediateProduct);
-			otherChildren = new ArrayList<ClusterOfVariables>();
-			otherChildren.addAll(children);
-			otherChildren.remove(child);
-			for (ClusterOfVariables otherChild : otherChildren) {
-				potentials.add(otherChild.getUpgoingMessage(storageLevel));
-			}
-			child.setDowngoingPotential(
-					DiscretePotentialOperations.multiplyAndMarginalize(potentials, child.getSeparatorVariables()));
-			child.setPosteriorPotential(child.getPosteriorPotential(storageLevel));
-		}
-	}
-
 	/**
 	 * @return The product of prior potentials, evidence potentials and the
 	 * downgoing message if it exists (does not exist in root clusters).
@@ -260,23 +247,77 @@ public abstract class ClusterOfVariables {
 	}
 
 	/**
-	 * @param storageLevel <code>int</code>.
-	 * @return posteriorPotential <code>Potential</code>.
+	 * Computes the posterior potential sending only the messages it depends on: the upgoing messages of the
+	 * tree, which are kept after the first query, and the downgoing messages along the path from the root to
+	 * this cluster. Unless <code>storageLevel</code> is <code>NO_STORAGE</code>, the posterior potential and
+	 * the downgoing messages are kept, so the next queries about the same clusters or their descendants do not
+	 * compute them again.
+	 *
+	 * @param storageLevel <code>StorageLevel</code>.
+	 * @return The product of the prior and evidence potentials of this cluster and the messages of all its
+	 * neighbors.
 	 */
-	public TablePotential getPosteriorPotential(StorageLevel storageLevel) {
-		if (posteriorPotential != null) {
+	public TablePotential computePosteriorPotential(StorageLevel storageLevel) {
+		if (posteriorPotential != null && isPosteriorComplete) {
 			return posteriorPotential;
 		}
-		// adds the prior potentials and evidence potentials
-		List<TablePotential> potentials = new ArrayList<TablePotential>(priorPotentials);
-		potentials.addAll(evidencePotentials);
-		// recursively invokes collectEvidence on its children
-		// and add the collected potentials
-		List<ClusterOfVariables> children = getChildren();
-		for (ClusterOfVariables child : children) {
-			potentials.add(child.collectEvidence(storageLevel));
+		TablePotential posterior;
+		if (separatorVariables.size() == 0) { // root cluster: its upgoing message is the posterior potential
+			posterior = getUpgoingMessage(storageLevel);
+		} else {
+			List<TablePotential> potentials = new ArrayList<>(priorPotentials);
+			potentials.addAll(evidencePotentials);
+			for (ClusterOfVariables child : getChildren()) {
+				potentials.add(child.getUpgoingMessage(storageLevel));
+			}
+			potentials.add(computeDowngoingMessage(storageLevel));
+			posterior = DiscretePotentialOperations.multiply(potentials);
 		}
-		return DiscretePotentialOperations.multiply(potentials);
+		if (storageLevel != StorageLevel.NO_STORAGE) {
+			posteriorPotential = posterior;
+			isPosteriorComplete = true;
+		}
+		return posterior;
+	}
+
+	/**
+	 * Computes the message from the parent: the product of the prior and evidence potentials of the parent,
+	 * its own downgoing message and the upgoing messages of its other children, marginalized onto the
+	 * separator. Unlike the Hugin message, which divides the posterior potential of the parent by the upgoing
+	 * message of this cluster, it does not depend on the evidence in the subtree of this cluster, so it
+	 * remains valid when only that evidence changes.
+	 *
+	 * @param storageLevel <code>StorageLevel</code>.
+	 * @return The downgoing message, or <code>null</code> for a root cluster
+	 */
+	public TablePotential computeDowngoingMessage(StorageLevel storageLevel) {
+		if (downgoingMessage != null || separatorVariables.size() == 0) {
+			return downgoingMessage;
+		}
+		ClusterOfVariables parent = getParents().get(0);
+		List<TablePotential> potentials = new ArrayList<>(parent.priorPotentials);
+		potentials.addAll(parent.evidencePotentials);
+		TablePotential parentDowngoingMessage = parent.computeDowngoingMessage(storageLevel);
+		if (parentDowngoingMessage != null) {
+			potentials.add(parentDowngoingMessage);
+		}
+		for (ClusterOfVariables sibling : parent.getChildren()) {
+			if (sibling != this) {
+				potentials.add(sibling.getUpgoingMessage(storageLevel));
+			}
+		}
+		TablePotential message = DiscretePotentialOperations.multiplyAndMarginalize(potentials, separatorVariables);
+		if (storageLevel != StorageLevel.NO_STORAGE) {
+			downgoingMessage = message;
+		}
+		return message;
+	}
+
+	/**
+	 * @return <code>true</code> if the posterior potential of this cluster has been computed and kept
+	 */
+	public boolean hasPosteriorPotential() {
+		return posteriorPotential != null && isPosteriorComplete;
 	}
 
 	/**
@@ -284,6 +325,30 @@ public abstract class ClusterOfVariables {
 	 */
 	public void setPosteriorPotential(TablePotential posteriorPotential) {
 		this.posteriorPotential = posteriorPotential;
+		isPosteriorComplete = true;
+	}
+
+	/**
+	 * Discards the posterior potential, which depends on the evidence of the whole tree
+	 */
+	public void clearPosteriorPotential() {
+		posteriorPotential = null;
+		isPosteriorComplete = false;
+	}
+
+	/**
+	 * Discards the downgoing message after a change of the evidence outside the subtree of this cluster
+	 */
+	public void clearDowngoingMessage() {
+		downgoingMessage = null;
+	}
+
+	/**
+	 * Discards the upgoing message after a change of the evidence in the subtree of this cluster. If no finding
+	 * is left in the subtree, the message computed without evidence is restored instead.
+	 */
+	public void invalidateUpgoingMessage() {
+		upgoingMessage = (numFindingsInSubtree == 0) ? priorUpgoingMessage : null;
 	}
 
 	/**
@@ -291,6 +356,33 @@ public abstract class ClusterOfVariables {
 	 */
 	public void addEvidencePotential(TablePotential potential) {
 		evidencePotentials.add(potential);
+		updateNumFindingsInSubtree(1);
+	}
+
+	/**
+	 * Removes the evidence potential of a variable
+	 *
+	 * @param variable <code>Variable</code>.
+	 * @return <code>true</code> if this cluster had an evidence potential of <code>variable</code>
+	 */
+	public boolean removeEvidencePotential(Variable variable) {
+		for (int i = 0; i < evidencePotentials.size(); i++) {
+			if (evidencePotentials.get(i).getVariable(0) == variable) {
+				evidencePotentials.remove(i);
+				updateNumFindingsInSubtree(-1);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void updateNumFindingsInSubtree(int increment) {
+		ClusterOfVariables cluster = this;
+		while (cluster != null) {
+			cluster.numFindingsInSubtree += increment;
+			List<ClusterOfVariables> parents = cluster.getParents();
+			cluster = parents.isEmpty() ? null : parents.get(0);
+		}
 	}
 
 	/**
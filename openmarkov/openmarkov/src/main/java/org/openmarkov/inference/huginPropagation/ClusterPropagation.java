@@ -9,7 +9,10 @@ package org.openmarkov.inference.huginPropagation;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.openmarkov.core.action.PNESupport;
 import org.openmarkov.core.exception.ConstraintViolationException;
@@ -55,7 +58,6 @@ public abstract class ClusterPropagation extends InferenceAlgorithm implements P
 	 */
 	protected EliminationHeuristic heuristic;
 	protected boolean netCompiled;
-	protected boolean isEvidencePropagated;
 	protected EvidenceCase evidence = new EvidenceCase();
 	/**
 	 * Indicates the amount of intermediate results stored by the propagation
@@ -63,20 +65,30 @@ public abstract class ClusterPropagation extends InferenceAlgorithm implements P
 	 */
 	protected StorageLevel storageLevel = StorageLevel.MEDIUM;
 	private EvidenceCase postResolutionEvidence = new EvidenceCase();
+	/**
+	 * Variables returned by <code>getPosteriorValues()</code>, or <code>null</code> for all the variables
+	 */
+	private List<Variable> variablesOfInterest;
+	/**
+	 * Clusters containing each variable
+	 */
+	private Map<Variable, List<ClusterOfVariables>> variablesToClusters;
+	/**
+	 * Distance of each cluster to its root
+	 */
+	private Map<ClusterOfVariables, Integer> clusterDepths;
 	/**
 	 * @param probNet <code>ProbNet</code>.
 	 * @throws NotEvaluableNetworkException notEvaluableNetworkException
 	 */
 	public ClusterPropagation(ProbNet probNet) throws NotEvaluableNetworkException {
 		super(probNet);
-		this.probNet = probNet.copy();
-		PNESupport pNESupport = probNet.getPNESupport();
+		PNESupport pNESupport = this.probNet.getPNESupport();
 		if (pNESupport == null) {
 			pNESupport = new PNESupport(false);
 		}
 		this.pNESupport = pNESupport;
 		netCompiled = false;
-		isEvidencePropagated = false;
 	}
 
 	/**
@@ -177,12 +189,14 @@ public abstract class ClusterPropagation extends InferenceAlgorithm implements P
 	}
 
 	public HashMap<Variable, TablePotential> getPosteriorValues() throws IncompatibleEvidenceException {
-		return getPosteriorValues(probNet.getVariables());
+		return getPosteriorValues((variablesOfInterest != null) ? variablesOfInterest : probNet.getVariables());
 	}
 
 	/**
-	 * Creates a <code>ClusterForest</code>, introduce the evidence and for each
-	 * root cluster collects the evidence and distribute the evidence.
+	 * Computes the posterior probabilities of the <code>variablesOfInterest</code> on demand: the posterior
+	 * potential of a cluster is computed only when a variable of interest is marginalized from it, sending the
+	 * downgoing messages along the path from the root to that cluster. The upgoing messages and the posterior
+	 * potentials are kept while the evidence does not change.
 	 *
 	 * @param variablesOfInterest variablesOfInterest
 	 * @return A <code>HashMap</code> with a potential for each variable
@@ -196,25 +210,17 @@ public abstract class ClusterPropagation extends InferenceAlgorithm implements P
 		if (!netCompiled) {
 			compilePriorPotentials();
 		}
-		if (!isEvidencePropagated) {
-			// propagates evidence
-			propagateProbabilities();
-		}
-		// gets the posterior probability of each variable
+		// gets the posterior probability of each variable; the evidence variables are added at the end
 		List<Variable> variablesNoEvidence = new ArrayList<Variable>(variablesOfInterest);
 		variablesNoEvidence.removeAll(evidence.getVariables());
-		for (Variable variable : variablesOfInterest) {
-			ClusterOfVariables cluster = clusterForest.getCluster(variable);
+		for (Variable variable : variablesNoEvidence) {
+			ClusterOfVariables cluster = getQueryCluster(variable);
 			List<Variable> variablesToKeep = new ArrayList<Variable>(1);
 			variablesToKeep.add(variable);
-			individualProbabilities.put(variable, (TablePotential) DiscretePotentialOperations
-					.marginalize(cluster.getPosteriorPotential(storageLevel), variablesToKeep));
-		}
-		// Normalize potentials in individualProbabilities
-		for (Variable variable : variablesNoEvidence) {
+			TablePotential posteriorProbability = (TablePotential) DiscretePotentialOperations
+					.marginalize(cluster.computePosteriorPotential(storageLevel), variablesToKeep);
 			try {
-				individualProbabilities
-						.put(variable, DiscretePotentialOperations.normalize(individualProbabilities.get(variable)));
+				individualProbabilities.put(variable, DiscretePotentialOperations.normalize(posteriorProbability));
 			} catch (NormalizeNullVectorException e) {
 				throw new IncompatibleEvidenceException("Incompatible evidence");
 			}
@@ -222,6 +228,15 @@ public abstract class ClusterPropagation extends InferenceAlgorithm implements P
 		return EvidencePotentials.addEvidencePotentials(individualProbabilities, variablesOfInterest, evidence);
 	}
 
+	/**
+	 * @param variablesOfInterest variables whose posterior probabilities are returned by
+	 *                            <code>getPosteriorValues()</code>. If it is <code>null</code>, all the
+	 *                            variables of the network
+	 */
+	public void setVariablesOfInterest(List<Variable> variablesOfInterest) {
+		this.variablesOfInterest = (variablesOfInterest != null) ? new ArrayList<>(variablesOfInterest) : null;
+	}
+
 	@Override public void setPreResolutionEvidence(EvidenceCase preResolutionEvidence) throws IncompatibleEvidenceException {
 		super.setPreResolutionEvidence(preResolutionEvidence);
 		updateEvidence();
@@ -241,12 +256,9 @@ public abstract class ClusterPropagation extends InferenceAlgorithm implements P
 		if (!netCompiled) {
 			compilePriorPotentials();
 		}
-		if (!isEvidencePropagated) {
-			propagateProbabilities();
-		}
 		ClusterOfVariables queryCluster = getQueryCluster(clusterForest, variables);
 		TablePotential jointProbability = (TablePotential) DiscretePotentialOperations
-				.marginalize(queryCluster.getPosteriorPotential(storageLevel), variables);
+				.marginalize(queryCluster.computePosteriorPotential(storageLevel), variables);
 		// TODO Investigate why at this point the potential's role is CONDITIONAL PROBABILITY
 		jointProbability.setPotentialRole(PotentialRole.JOINT_PROBABILITY);
 		try {
@@ -276,25 +288,144 @@ public abstract class ClusterPropagation extends InferenceAlgorithm implements P
 		return null;
 	}
 
-	private void updateEvidence() throws IncompatibleEvidenceException {
-		evidence = joinPreAndPostResolutionEvidence();
+	/**
+	 * Looks for the cluster from which the posterior probability of <code>variable</code> is obtained with the
+	 * least work: one whose posterior potential has already been computed or, if there is none, the one closest
+	 * to its root, and the smallest among them
+	 *
+	 * @param variable <code>Variable</code>
+	 * @return A <code>ClusterOfVariables</code> containing <code>variable</code>
+	 */
+	protected ClusterOfVariables getQueryCluster(Variable variable) {
+		List<ClusterOfVariables> clusters = variablesToClusters.get(variable);
+		if (clusters == null) {
+			return clusterForest.getCluster(variable);
+		}
+		ClusterOfVariables queryCluster = null;
+		for (ClusterOfVariables cluster : clusters) {
+			if (cluster.hasPosteriorPotential()) {
+				if (queryCluster == null || !queryCluster.hasPosteriorPotential() || cluster.size() < queryCluster
+						.size()) {
+					queryCluster = cluster;
+				}
+			} else if (queryCluster == null || (!queryCluster.hasPosteriorPotential() && (
+					clusterDepths.get(cluster) < clusterDepths.get(queryCluster) || (
+							clusterDepths.get(cluster).equals(clusterDepths.get(queryCluster))
+									&& cluster.size() < queryCluster.size()
+					)
+			))) {
+				queryCluster = cluster;
+			}
+		}
+		return queryCluster;
+	}
 
+	/**
+	 * Indexes the clusters of the forest by their variables and by their depth
+	 */
+	private void indexClusters() {
+		variablesToClusters = new HashMap<>();
+		clusterDepths = new HashMap<>();
+		List<ClusterOfVariables> clustersToVisit = new ArrayList<>(clusterForest.getRootClusters());
+		for (ClusterOfVariables root : clustersToVisit) {
+			clusterDepths.put(root, 0);
+		}
+		for (int i = 0; i < clustersToVisit.size(); i++) {
+			ClusterOfVariables cluster = clustersToVisit.get(i);
+			for (Variable variable : cluster.variables) {
+				List<ClusterOfVariables> clusters = variablesToClusters.get(variable);
+				if (clusters == null) {
+					clusters = new ArrayList<>();
+					variablesToClusters.put(variable, clusters);
+				}
+				clusters.add(cluster);
+			}
+			for (ClusterOfVariables child : cluster.getChildren()) {
+				clusterDepths.put(child, clusterDepths.get(cluster) + 1);
+				clustersToVisit.add(child);
+			}
+		}
+	}
+
+	/**
+	 * Introduces in the clusters only the findings that have changed since the last update: the evidence
+	 * potentials of the retracted and modified findings are removed and those of the new and modified findings
+	 * are added. Only the messages that depend on the changed clusters are discarded; the other ones are still
+	 * valid and are not computed again.
+	 */
+	private void updateEvidence() throws IncompatibleEvidenceException {
+		EvidenceCase newEvidence = joinPreAndPostResolutionEvidence();
 		if (!netCompiled) {
+			// the compilation introduces the evidence
+			evidence = newEvidence;
 			compilePriorPotentials();
+			return;
+		}
+		Set<ClusterOfVariables> changedClusters = new HashSet<>();
+		for (Finding finding : evidence.getFindings()) {
+			if (!isSameFinding(finding, newEvidence.getFinding(finding.getVariable()))) {
+				ClusterOfVariables cluster = clusterForest.getCluster(finding.getVariable());
+				cluster.removeEvidencePotential(finding.getVariable());
+				changedClusters.add(cluster);
+			}
+		}
+		for (Finding finding : newEvidence.getFindings()) {
+			if (!isSameFinding(finding, evidence.getFinding(finding.getVariable()))) {
+				changedClusters.add(introduceFinding(finding));
+			}
 		}
-		introduceEvidence(evidence);
-		isEvidencePropagated = false;
+		evidence = newEvidence;
+		invalidateMessages(changedClusters);
 	}
 
-	private void propagateProbabilities() {
-		for (ClusterOfVariables cluster : clusterForest.getRootClusters()) {
-			// collects the evidence and assigns the resulting potential
-			// as the posterior potential of this root cluster
-			TablePotential collectedEvidence = cluster.collectEvidence(storageLevel);
-			cluster.setPosteriorPotential(collectedEvidence);
-			cluster.distributeEvidence(storageLevel);
+	/**
+	 * Discards the messages that depend on the evidence of <code>changedClusters</code>: the upgoing messages
+	 * of those clusters and their ancestors, the downgoing messages of the clusters that are not ancestors of
+	 * all of them, and the posterior potentials of the trees that contain them
+	 *
+	 * @param changedClusters clusters whose evidence potentials have changed
+	 */
+	private void invalidateMessages(Set<ClusterOfVariables> changedClusters) {
+		// for each affected tree, the clusters whose subtree contains all the changed clusters of the tree
+		Map<ClusterOfVariables, Set<ClusterOfVariables>> commonAncestors = new HashMap<>();
+		Set<ClusterOfVariables> invalidatedClusters = new HashSet<>();
+		for (ClusterOfVariables changedCluster : changedClusters) {
+			Set<ClusterOfVariables> ancestors = new HashSet<>();
+			ClusterOfVariables root = changedCluster;
+			ClusterOfVariables cluster = changedCluster;
+			while (cluster != null) {
+				ancestors.add(cluster);
+				if (invalidatedClusters.add(cluster)) {
+					cluster.invalidateUpgoingMessage();
+				}
+				root = cluster;
+				List<ClusterOfVariables> parents = cluster.getParents();
+				cluster = parents.isEmpty() ? null : parents.get(0);
+			}
+			Set<ClusterOfVariables> treeCommonAncestors = commonAncestors.get(root);
+			if (treeCommonAncestors == null) {
+				commonAncestors.put(root, ancestors);
+			} else {
+				treeCommonAncestors.retainAll(ancestors);
+			}
 		}
-		isEvidencePropagated = true;
+		for (Map.Entry<ClusterOfVariables, Set<ClusterOfVariables>> entry : commonAncestors.entrySet()) {
+			List<ClusterOfVariables> clustersToVisit = new ArrayList<>();
+			clustersToVisit.add(entry.getKey());
+			for (int i = 0; i < clustersToVisit.size(); i++) {
+				ClusterOfVariables cluster = clustersToVisit.get(i);
+				cluster.clearPosteriorPotential();
+				if (!entry.getValue().contains(cluster)) {
+					cluster.clearDowngoingMessage();
+				}
+				clustersToVisit.addAll(cluster.getChildren());
+			}
+		}
+	}
+
+	private static boolean isSameFinding(Finding finding, Finding otherFinding) {
+		return otherFinding != null && finding.getStateIndex() == otherFinding.getStateIndex()
+				&& Double.compare(finding.getNumericalValue(), otherFinding.getNumericalValue()) == 0;
 	}
 
 	private EvidenceCase joinPreAndPostResolutionEvidence() throws IncompatibleEvidenceException {
@@ -316,32 +447,31 @@ public abstract class ClusterPropagation extends InferenceAlgorithm implements P
 	 * @param evidenceCase <code>EvidenceCase</code>.
  	 */
 	private void introduceEvidence(EvidenceCase evidenceCase) {
-		// gets the evidence in an ArrayList<Potential>
-		List<Finding> findings = null;
 		if (evidenceCase != null) {
-			findings = evidenceCase.getFindings();
-		}
-		if ((findings != null) && (findings.size() > 0)) {
-			ArrayList<TablePotential> evidencePotentials = new ArrayList<TablePotential>();
-			for (Finding finding : findings) {
-				// Role = JOIN_PROBABILITY only for Bayesian Networks
-				try {
-					evidencePotentials.add(finding.getVariable().deltaTablePotential(finding.getState()));
-				} catch (InvalidStateException e) {
-					// Can not happen
-				}
-			}
-			// inserts the evidence
-			for (TablePotential potential : evidencePotentials) {
-				// each potential has only one variable in the 0 position
-				Variable variable = potential.getVariables().get(0);
-				// selects a cluster containing the variable
-				ClusterOfVariables cluster = clusterForest.getCluster(variable);
-				cluster.addEvidencePotential(potential);
+			for (Finding finding : evidenceCase.getFindings()) {
+				introduceFinding(finding);
 			}
 		}
 	}
 
+	/**
+	 * Inserts the potential of a finding in the <code>ClusterOfVariables</code> associated to its variable
+	 *
+	 * @param finding <code>Finding</code>.
+	 * @return The cluster that receives the potential
+	 */
+	private ClusterOfVariables introduceFinding(Finding finding) {
+		// selects a cluster containing the variable
+		ClusterOfVariables cluster = clusterForest.getCluster(finding.getVariable());
+		try {
+			// Role = JOIN_PROBABILITY only for Bayesian Networks
+			cluster.addEvidencePotential(finding.getVariable().deltaTablePotential(finding.getState()));
+		} catch (InvalidStateException e) {
+			// Can not happen
+		}
+		return cluster;
+	}
+
 	/**
 	 * @return storageLevel <code>StorageLevel</code>.
 	 */
@@ -371,6 +501,8 @@ public abstract class ClusterPropagation extends InferenceAlgorithm implements P
 			for (ClusterOfVariables rootCluster : clusterForest.getRootClusters()) {
 				rootCluster.compilePriorPotentials();
 			}
+			indexClusters();
+			introduceEvidence(evidence);
 			netCompiled = true;
 		} catch (DoEditException | NonProjectablePotentialException | WrongCriterionException e) {
 			e.printStackTrace();
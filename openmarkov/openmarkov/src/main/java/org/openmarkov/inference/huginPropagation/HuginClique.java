@@ -7,19 +7,13 @@
 
 package org.openmarkov.inference.huginPropagation;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import org.openmarkov.core.model.network.Variable;
-import org.openmarkov.core.model.network.potential.Potential;
-import org.openmarkov.core.model.network.potential.TablePotential;
-import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
-import org.openmarkov.inference.huginPropagation.ClusterPropagation.StorageLevel;
 
 /**
- * Contains a set of variables. The main difference with
- * openmarkov.inference.ClusterOfVariables is in method
- * openmarkov.inference.ClusterOfVariables#distributeEvidence
+ * Clique of a <code>HuginForest</code>: a <code>ClusterOfVariables</code> with a name and the variables that it
+ * shares with its parent clique.
  *
  * @author marias
  * @author fjdiez
@@ -42,23 +36,6 @@ public class HuginClique extends ClusterOfVariables {
 
 	// Methods
 
-	/**
-	 * @param storageLevel <code>int</code>
-	 */
-	public void distributeEvidence(StorageLevel storageLevel) {
-		for (ClusterOfVariables childClique : getChildren()) {
-			Potential upgoingChildMessage = childClique.getUpgoingMessage(storageLevel);
-			Potential posteriorMarginalized = DiscretePotentialOperations
-					.marginalize(posteriorPotential, childClique.getSeparatorVariables());
-			TablePotential division = DiscretePotentialOperations.divide(posteriorMarginalized, upgoingChildMessage);
-			List<TablePotential> potentials = new ArrayList<TablePotential>();
-			potentials.add(division);
-			potentials.add(childClique.getPosteriorPotential(storageLevel));
-			childClique.setPosteriorPotential(DiscretePotentialOperations.multiply(potentials));
-			childClique.distributeEvidence(storageLevel);
-		}
-	}
-
 	/**
 	 * @param variablesList <code>ArrayList</code> of <code>Variable</code>
 	 * @return <code>true</code> if all the variables in
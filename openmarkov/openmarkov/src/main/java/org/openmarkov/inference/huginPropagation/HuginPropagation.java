@@ -125,9 +125,4 @@ import org.openmarkov.core.model.network.type.NetworkType;
 	public HashMap<Variable, TablePotential> getPosteriorValues() throws IncompatibleEvidenceException {
 		return super.getPosteriorValues();
 	}
-
-	@Override
-	public void setVariablesOfInterest(List<Variable> variablesOfInterest) {
-
-	}
 }
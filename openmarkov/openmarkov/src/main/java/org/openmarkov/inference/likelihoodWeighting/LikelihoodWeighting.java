@@ -34,6 +34,27 @@ public class LikelihoodWeighting extends StochasticPropagation implements Propag
         super(probNet);
     }
 
+    // Potentials of the variables with findings, computed by initializeSampling
+    private List<Potential> potentialsOfEvidence;
+
+    /**
+     * Extracts the potentials of the evidence variables, used to compute the weight of every sample
+     */
+    @Override
+    protected void initializeSampling() {
+        potentialsOfEvidence = new ArrayList<>();
+        for (Variable variable : fusedEvidence.getVariables()) {
+            int index = sortedVariables.indexOf(variable);
+            Potential potential = (index >= 0) ? sortedPotentials[index] : null;
+            if (potential == null) {
+                logger.error("Variable " + variable.getName() + " has no Potential");
+                // Send the name of the variable without potential to GUI
+                throw new NullPointerException(variable.getName());
+            }
+            potentialsOfEvidence.add(potential);
+        }
+    }
+
 	@Override
 	protected double[] getValuesSampledAndWeight() {
 
@@ -43,40 +64,24 @@ public class LikelihoodWeighting extends StochasticPropagation implements Propag
         double[] valuesSampledAndWeight = new double[variablesToSample.size() + 1];
 
         int indexOfVariableToSample = 0;
-        for (Variable variable : sortedVariables) {
+        for (int indexOfVariable = 0; indexOfVariable < sortedVariables.size(); indexOfVariable++) {
+            Variable variable = sortedVariables.get(indexOfVariable);
 
             // Set in the configuration the findings
-            if (fusedEvidence.contains(variable)) {
-                int finding = fusedEvidence.getFinding(variable).getStateIndex();
-                configuration.put(variable, finding);
+            if (compactEvidence.contains(indexOfVariable)) {
+                configuration.put(variable, compactEvidence.getState(indexOfVariable));
 
             // Set in the configuration the sampled states
             } else {
-                // Extract potential
-                Potential potential = probNet.getNode(variable).getPotentials().get(0);
-
                 // Sample
-                int stateSampled = potential.sampleConditionedVariable(randomGenerator, configuration);
+                int stateSampled = sortedPotentials[indexOfVariable]
+                        .sampleConditionedVariable(randomGenerator, configuration);
                 configuration.put(variable, stateSampled);
                 valuesSampledAndWeight[indexOfVariableToSample] = stateSampled;
                 indexOfVariableToSample++;
             }
         }
 
-		/// Extract potentials to compute weight
-		List<Potential> potentialsOfEvidence = new ArrayList<>();
-        List<Variable> variablesOfEvidence = fusedEvidence.getVariables();
-
-		for (Variable variable : variablesOfEvidence) {
-			try {
-				potentialsOfEvidence.add(probNet.getNode(variable).getPotentials().get(0));
-			} catch (NullPointerException e) {
-			    logger.error("Variable " + variable.getName() + " has no Potential");
-			    // Send the name of the variable without potential to GUI
-				throw new NullPointerException(variable.getName());
-			}
-		}
-
 		// Weight by conditional probabilities of evidence findings
 		double weight = 1.0;
 		for (Potential potential : potentialsOfEvidence) {
@@ -49,10 +49,11 @@ public class LogicSampling extends StochasticPropagation implements Propagation
 
         double[] valuesAndWeight = new double[variablesToSample.size() + 1];
 
+        // The variables to sample are the sorted variables
         for (int indexOfVariable = 0; indexOfVariable < variablesToSample.size(); indexOfVariable++) {
 
             // Extract potential
-            Potential potential = probNet.getNode(variablesToSample.get(indexOfVariable)).getPotentials().get(0);
+            Potential potential = sortedPotentials[indexOfVariable];
 
             // Sample
             int stateSampled = potential.sampleConditionedVariable(randomGenerator, netState);
@@ -60,19 +61,14 @@ public class LogicSampling extends StochasticPropagation implements Propagation
             valuesAndWeight[indexOfVariable] = stateSampled;
         }
 
-        // List of findings
-
         // Weight matching sampled evidence variable with the findings
-        List<Variable> variablesOfEvidence = fusedEvidence.getVariables();
         double weight = 1.0;
-        for (Variable variable : variablesOfEvidence) {
-
-            Integer finding = fusedEvidence.getFinding(variable).getStateIndex();
-            if (!netState.get(variable).equals(finding)) {
+        for (int i = 0; i < compactEvidence.getNumFindings(); i++) {
+            int indexOfVariable = compactEvidence.getVariableIndex(i);
+            if (valuesAndWeight[indexOfVariable] != compactEvidence.getState(indexOfVariable)) {
                 weight = 0;
                 break;
             }
-
         }
         valuesAndWeight[variablesToSample.size()] = weight;
 
@@ -17,12 +17,16 @@ import org.openmarkov.core.exception.IncompatibleEvidenceException;
 import org.openmarkov.core.exception.NotEvaluableNetworkException;
 import org.openmarkov.core.inference.InferenceAlgorithm;
 import org.openmarkov.core.inference.tasks.Propagation;
+import org.openmarkov.core.model.network.CompactEvidenceCase;
 import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.Finding;
+import org.openmarkov.core.model.network.Node;
 import org.openmarkov.core.model.network.ProbNet;
 import org.openmarkov.core.model.network.ProbNetOperations;
 import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.constraint.PNConstraint;
 import org.openmarkov.core.model.network.modelUncertainty.XORShiftRandom;
+import org.openmarkov.core.model.network.potential.Potential;
 import org.openmarkov.core.model.network.potential.PotentialRole;
 import org.openmarkov.core.model.network.potential.TablePotential;
 import org.openmarkov.core.model.network.type.BayesianNetworkType;
@@ -51,6 +55,12 @@ public abstract class StochasticPropagation extends InferenceAlgorithm implement
     // Post- and pre-resolution evidence combined
     EvidenceCase fusedEvidence;
     List<Variable> sortedVariables;
+    // Indices of the sorted variables, used by the compact evidence
+    private final CompactEvidenceCase.Layout sortedVariablesLayout;
+    // Fused evidence indexed by the position of the variables in sortedVariables
+    CompactEvidenceCase compactEvidence;
+    // First potential of the node of each sorted variable, or null if it has none
+    Potential[] sortedPotentials;
     private List<Variable> variablesOfInterest;
     List<Variable> variablesToSample;
 
@@ -75,6 +85,7 @@ public abstract class StochasticPropagation extends InferenceAlgorithm implement
         this.logger = LogManager.getLogger(StochasticPropagation.class.getName());
         // Order the variables ancestrally
         this.sortedVariables = ProbNetOperations.sortTopologically(probNet, probNet.getVariables());
+        this.sortedVariablesLayout = new CompactEvidenceCase.Layout(sortedVariables);
         this.variablesOfInterest = new ArrayList<>(sortedVariables);
         this.sampleSize = DEFAULT_SAMPLE_SIZE;
         this.postResolutionEvidence = new EvidenceCase();
@@ -107,6 +118,13 @@ public abstract class StochasticPropagation extends InferenceAlgorithm implement
      */
     protected abstract double[] getValuesSampledAndWeight();
 
+    /**
+     * Invoked before taking the samples, once the evidence, the compact evidence, the sorted potentials and the
+     * variables to sample are set. It does nothing by default.
+     */
+    protected void initializeSampling() {
+    }
+
     /**
      * Propagates the evidence through the net using a stochastic propagation algorithm.
      * It returns the posterior values and, if <code>storingSamples</code> is true,
@@ -127,6 +145,20 @@ public abstract class StochasticPropagation extends InferenceAlgorithm implement
 
         variablesOfInterest.removeAll(fusedEvidence.getVariables());
 
+        // The samplers read the evidence and the potentials from arrays, so as not to look them up in each sample
+        compactEvidence = new CompactEvidenceCase(sortedVariablesLayout);
+        for (Finding finding : fusedEvidence.getFindings()) {
+            if (sortedVariablesLayout.getIndex(finding.getVariable()) >= 0) {
+                compactEvidence.setFinding(finding);
+            }
+        }
+        sortedPotentials = new Potential[sortedVariables.size()];
+        for (int i = 0; i < sortedPotentials.length; i++) {
+            Node node = probNet.getNode(sortedVariables.get(i));
+            List<Potential> potentials = (node != null) ? node.getPotentials() : null;
+            sortedPotentials[i] = (potentials != null && !potentials.isEmpty()) ? potentials.get(0) : null;
+        }
+
         int numOfVariablesOfInterest = variablesOfInterest.size();
 
         /// Create a table of accumulated probabilities. Initialize it.
@@ -139,6 +171,14 @@ public abstract class StochasticPropagation extends InferenceAlgorithm implement
 
         variablesToSample = getVariablesToSample();
         int numOfVariablesToSample = variablesToSample.size();
+        initializeSampling();
+
+        // Position of each variable to sample in variablesOfInterest, or -1
+        int[] indicesOfVariablesOfInterest = new int[numOfVariablesToSample];
+        for (int indexOfVariable = 0; indexOfVariable < numOfVariablesToSample; indexOfVariable++) {
+            indicesOfVariablesOfInterest[indexOfVariable] = variablesOfInterest
+                    .indexOf(variablesToSample.get(indexOfVariable));
+        }
 
         // each sample contains one integer for the state of each variable plus one double for the weight
         samples = new double[getSampleSize()][numOfVariablesToSample + 1];
@@ -177,12 +217,9 @@ public abstract class StochasticPropagation extends InferenceAlgorithm implement
             for (int indexOfVariable = 0; indexOfVariable < numOfVariablesToSample; indexOfVariable++) {
                 // for each variable...
                 stateSampled = (int) valuesSampledAndWeight[indexOfVariable];
-                indexOfVariableOfInterest = variablesOfInterest.indexOf(variablesToSample.get(indexOfVariable));
-//                if (variablesOfInterest.contains(variablesToSample.get(indexOfVariable))) {
-                	//wrong index
+                indexOfVariableOfInterest = indicesOfVariablesOfInterest[indexOfVariable];
                 if(indexOfVariableOfInterest!=-1) {
                     accumulatedProbabilities[indexOfVariableOfInterest][stateSampled] += weight;
-                    indexOfVariableOfInterest++;
                 }
                 if (storingSamples) {
                     samples[sampleIndex][indexOfVariable] = stateSampled;
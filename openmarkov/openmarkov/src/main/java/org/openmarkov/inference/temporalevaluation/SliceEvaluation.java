@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.inference.temporalevaluation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openmarkov.core.exception.CostEffectivenessException;
+import org.openmarkov.core.exception.UnexpectedInferenceException;
+import org.openmarkov.core.model.network.Criterion;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.potential.GTablePotential;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
+import org.openmarkov.inference.variableElimination.ChanceVariableElimination;
+import org.openmarkov.inference.variableElimination.action.CreatePotentialUtility;
+
+/**
+ * Evaluates a temporal network slice by slice working directly on lists of table potentials, without
+ * building or copying networks.
+ * <p>
+ * The belief state is a list of probability potentials over the variables of the last slice added and the
+ * atemporal variables. When a slice is added, its probability potentials join the belief state and the
+ * variables of the previous slice are summed out. The expected utility of a slice is obtained by summing out
+ * from the belief state, the probability potentials and the utility potentials of the slice every variable
+ * that is not conditioning nor observed.
+ * <p>
+ * The elimination orders are computed once for each structure of the potentials, in which the temporal
+ * variables are identified by their base name and their offset from the slice being evaluated, so that the
+ * slices that are structurally identical (usually all of them after the first ones) reuse the same order.
+ * <p>
+ * The slices must be added sequentially, but once added, their expected utilities can be computed
+ * concurrently.
+ */
+public class SliceEvaluation {
+
+	// Attributes
+	/**
+	 * Variables that are never eliminated: the conditioning and the observed variables
+	 */
+	private final Set<Variable> variablesToKeep;
+
+	private final boolean isUnicriterion;
+
+	/**
+	 * Elimination orders already computed, indexed by the structure of the potentials and the variables to
+	 * eliminate
+	 */
+	private final Map<List<Object>, List<Object>> eliminationPlans = new ConcurrentHashMap<>();
+
+	/**
+	 * Probability potentials over the variables of the last slice added and the atemporal variables
+	 */
+	private List<TablePotential> beliefState;
+
+	/**
+	 * Variables of the last slice added, which are summed out when the next slice is added
+	 */
+	private List<Variable> lastSliceVariables = new ArrayList<>();
+
+	/**
+	 * Index of the last slice added, or -1 before adding the first one
+	 */
+	private int lastSlice = -1;
+
+	private final AtomicInteger numPlansReused = new AtomicInteger();
+
+	// Constructor
+
+	/**
+	 * @param atemporalPotentials atemporal probability potentials, which are kept in the belief state
+	 * @param variablesToKeep     conditioning and observed variables
+	 * @param isUnicriterion      <code>boolean</code>
+	 */
+	public SliceEvaluation(List<TablePotential> atemporalPotentials, Collection<Variable> variablesToKeep,
+			boolean isUnicriterion) {
+		this.beliefState = new ArrayList<>(atemporalPotentials);
+		this.variablesToKeep = new HashSet<>(variablesToKeep);
+		this.isUnicriterion = isUnicriterion;
+	}
+
+	// Methods
+
+	/**
+	 * Adds the probability potentials of the next slice to the belief state and sums out the variables of the
+	 * previous slice.
+	 *
+	 * @param probabilityPotentials probability potentials of the next slice
+	 * @return The probability potentials needed to evaluate the slice: the belief state before adding it and
+	 * its probability potentials
+	 * @throws UnexpectedInferenceException UnexpectedInferenceException
+	 */
+	public List<TablePotential> addSlice(List<TablePotential> probabilityPotentials)
+			throws UnexpectedInferenceException {
+		List<TablePotential> slicePotentials = new ArrayList<>(beliefState);
+		slicePotentials.addAll(probabilityPotentials);
+
+		List<Variable> variablesToEliminate = new ArrayList<>();
+		for (Variable variable : lastSliceVariables) {
+			if (!variablesToKeep.contains(variable)) {
+				variablesToEliminate.add(variable);
+			}
+		}
+		lastSlice++;
+		List<TablePotential> newBeliefState = new ArrayList<>(slicePotentials);
+		eliminate(newBeliefState, new ArrayList<>(), variablesToEliminate, lastSlice);
+		beliefState = newBeliefState;
+
+		lastSliceVariables = new ArrayList<>();
+		for (TablePotential potential : probabilityPotentials) {
+			lastSliceVariables.add(potential.getVariable(0));
+		}
+		return slicePotentials;
+	}
+
+	/**
+	 * @param probabilityPotentials probability potentials. They are not modified
+	 * @param utilityPotentials     utility potentials. They are not modified
+	 * @param slice                 slice evaluated, used to identify the structure of the potentials
+	 * @return The expected utility conditioned on the variables to keep
+	 * @throws UnexpectedInferenceException UnexpectedInferenceException
+	 */
+	public TablePotential getExpectedUtility(List<TablePotential> probabilityPotentials,
+			List<TablePotential> utilityPotentials, int slice) throws UnexpectedInferenceException {
+		List<TablePotential> probabilities = new ArrayList<>(probabilityPotentials);
+		List<TablePotential> utilities = new ArrayList<>(utilityPotentials);
+		Set<Variable> variablesToEliminate = new LinkedHashSet<>();
+		for (TablePotential potential : probabilities) {
+			variablesToEliminate.addAll(potential.getVariables());
+		}
+		for (TablePotential potential : utilities) {
+			variablesToEliminate.addAll(potential.getVariables());
+		}
+		variablesToEliminate.removeAll(variablesToKeep);
+		eliminate(probabilities, utilities, variablesToEliminate, slice);
+		return getUtility(utilities);
+	}
+
+	/**
+	 * @return Number of elimination orders computed
+	 */
+	public int getNumPlans() {
+		return eliminationPlans.size();
+	}
+
+	/**
+	 * @return Number of times an elimination order has been reused
+	 */
+	public int getNumPlansReused() {
+		return numPlansReused.get();
+	}
+
+	/**
+	 * Sums out the variables, replacing the potentials in the lists by the resulting ones
+	 *
+	 * @param probabilityPotentials probability potentials
+	 * @param utilityPotentials     utility potentials
+	 * @param variablesToEliminate  variables to sum out
+	 * @param slice                 slice evaluated
+	 * @throws UnexpectedInferenceException UnexpectedInferenceException
+	 */
+	private void eliminate(List<TablePotential> probabilityPotentials, List<TablePotential> utilityPotentials,
+			Collection<Variable> variablesToEliminate, int slice) throws UnexpectedInferenceException {
+		for (Variable variable : getEliminationOrder(probabilityPotentials, utilityPotentials, variablesToEliminate,
+				slice)) {
+			List<TablePotential> probabilities = extractPotentials(probabilityPotentials, variable);
+			List<TablePotential> utilities = extractPotentials(utilityPotentials, variable);
+			ChanceVariableElimination elimination;
+			try {
+				elimination = new ChanceVariableElimination(variable, probabilities, utilities);
+			} catch (CostEffectivenessException e) {
+				throw new UnexpectedInferenceException(e.getMessage());
+			}
+			probabilityPotentials.add(elimination.getMarginalProbability());
+			utilityPotentials.addAll(elimination.getUtilityPotentials());
+		}
+	}
+
+	/**
+	 * @param potentials list of potentials
+	 * @param variable   <code>Variable</code>
+	 * @return The potentials that depend on <code>variable</code>, which are removed from the list
+	 */
+	private static List<TablePotential> extractPotentials(List<TablePotential> potentials, Variable variable) {
+		List<TablePotential> extracted = new ArrayList<>();
+		Iterator<TablePotential> iterator = potentials.iterator();
+		while (iterator.hasNext()) {
+			TablePotential potential = iterator.next();
+			if (potential.contains(variable)) {
+				extracted.add(potential);
+				iterator.remove();
+			}
+		}
+		return extracted;
+	}
+
+	/**
+	 * Looks for the elimination order of a structure equal to the one of the potentials, and computes it when
+	 * it is not found
+	 *
+	 * @return The variables to eliminate that appear in the potentials, in elimination order
+	 */
+	private List<Variable> getEliminationOrder(List<TablePotential> probabilityPotentials,
+			List<TablePotential> utilityPotentials, Collection<Variable> variablesToEliminate, int slice) {
+		Map<Object, Variable> variables = new LinkedHashMap<>();
+		Map<List<Object>, Integer> structure = new HashMap<>();
+		List<Set<Variable>> domains = new ArrayList<>();
+		for (List<TablePotential> potentials : Arrays.asList(probabilityPotentials, utilityPotentials)) {
+			for (TablePotential potential : potentials) {
+				List<Object> domain = new ArrayList<>();
+				for (Variable variable : potential.getVariables()) {
+					Object key = getKey(variable, slice);
+					variables.put(key, variable);
+					domain.add(key);
+				}
+				structure.merge(domain, 1, Integer::sum);
+				domains.add(new HashSet<>(potential.getVariables()));
+			}
+		}
+		Set<Object> keysToEliminate = new HashSet<>();
+		for (Variable variable : variablesToEliminate) {
+			Object key = getKey(variable, slice);
+			if (variables.get(key) == variable) {
+				keysToEliminate.add(key);
+			}
+		}
+		List<Object> signature = Arrays.asList(structure, keysToEliminate);
+
+		List<Object> plan = eliminationPlans.get(signature);
+		if (plan != null) {
+			numPlansReused.incrementAndGet();
+		} else {
+			List<Variable> candidates = new ArrayList<>();
+			for (Map.Entry<Object, Variable> entry : variables.entrySet()) {
+				if (keysToEliminate.contains(entry.getKey())) {
+					candidates.add(entry.getValue());
+				}
+			}
+			plan = new ArrayList<>();
+			for (Variable variable : computeEliminationOrder(domains, candidates)) {
+				plan.add(getKey(variable, slice));
+			}
+			eliminationPlans.put(signature, plan);
+		}
+		List<Variable> order = new ArrayList<>(plan.size());
+		for (Object key : plan) {
+			order.add(variables.get(key));
+		}
+		return order;
+	}
+
+	/**
+	 * Greedy elimination order that eliminates first the variable whose elimination creates the smallest
+	 * potential
+	 *
+	 * @param domains    variables of each potential. This list is modified
+	 * @param candidates variables to eliminate
+	 * @return The candidates in elimination order
+	 */
+	private static List<Variable> computeEliminationOrder(List<Set<Variable>> domains, List<Variable> candidates) {
+		List<Variable> order = new ArrayList<>(candidates.size());
+		List<Variable> remaining = new ArrayList<>(candidates);
+		while (!remaining.isEmpty()) {
+			Variable best = null;
+			double bestSize = Double.POSITIVE_INFINITY;
+			for (Variable variable : remaining) {
+				Set<Variable> union = new HashSet<>();
+				for (Set<Variable> domain : domains) {
+					if (domain.contains(variable)) {
+						union.addAll(domain);
+					}
+				}
+				double size = 1.0;
+				for (Variable other : union) {
+					size *= other.getNumStates();
+				}
+				if (size < bestSize) {
+					best = variable;
+					bestSize = size;
+				}
+			}
+			Set<Variable> newDomain = new HashSet<>();
+			Iterator<Set<Variable>> iterator = domains.iterator();
+			while (iterator.hasNext()) {
+				Set<Variable> domain = iterator.next();
+				if (domain.contains(best)) {
+					newDomain.addAll(domain);
+					iterator.remove();
+				}
+			}
+			newDomain.remove(best);
+			domains.add(newDomain);
+			remaining.remove(best);
+			order.add(best);
+		}
+		return order;
+	}
+
+	/**
+	 * @param variable <code>Variable</code>
+	 * @param slice    slice evaluated
+	 * @return The base name and the offset from <code>slice</code> of a temporal variable, and the variable
+	 * itself when it is atemporal
+	 */
+	private static Object getKey(Variable variable, int slice) {
+		return variable.isTemporal() ?
+				Arrays.asList(variable.getBaseName(), variable.getTimeSlice() - slice) :
+				variable;
+	}
+
+	/**
+	 * Joins the utility potentials as <code>VariableEliminationCore.getUtility</code> does
+	 *
+	 * @param utilityPotentials utility potentials that remain after the elimination
+	 * @return The utility potential
+	 * @throws UnexpectedInferenceException UnexpectedInferenceException
+	 */
+	private TablePotential getUtility(List<TablePotential> utilityPotentials) throws UnexpectedInferenceException {
+		TablePotential utility;
+		if (isUnicriterion) {
+			if (utilityPotentials.isEmpty()) {
+				utility = new TablePotential(null, PotentialRole.UNSPECIFIED);
+				utility.setCriterion(new Criterion());
+			} else {
+				utility = DiscretePotentialOperations.sum(utilityPotentials);
+			}
+		} else if (utilityPotentials.size() == 1 && utilityPotentials.get(0) instanceof GTablePotential) {
+			utility = utilityPotentials.get(0);
+		} else {
+			List<TablePotential> costPotentials = new ArrayList<>();
+			List<TablePotential> effectivenessPotentials = new ArrayList<>();
+			for (TablePotential potential : utilityPotentials) {
+				if (potential.getCriterion().getCECriterion().equals(Criterion.CECriterion.Cost)) {
+					costPotentials.add(potential);
+				} else {
+					effectivenessPotentials.add(potential);
+				}
+			}
+			try {
+				utility = CreatePotentialUtility.createCEPotential(DiscretePotentialOperations.sum(costPotentials),
+						DiscretePotentialOperations.sum(effectivenessPotentials), 0.0, Double.POSITIVE_INFINITY);
+			} catch (CostEffectivenessException e) {
+				throw new UnexpectedInferenceException(e.getMessage());
+			}
+			utility.setCriterion(new Criterion("#{COST-EFFECTIVENESS}#"));
+		}
+		return utility;
+	}
+}
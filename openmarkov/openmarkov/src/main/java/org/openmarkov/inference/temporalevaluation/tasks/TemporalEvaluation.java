@@ -8,7 +8,9 @@
 package org.openmarkov.inference.temporalevaluation.tasks;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.logging.log4j.LogManager;
 import org.openmarkov.core.exception.NonProjectablePotentialException;
@@ -17,7 +19,7 @@ import org.openmarkov.core.exception.UnexpectedInferenceException;
 import org.openmarkov.core.exception.WrongCriterionException;
 import org.openmarkov.core.inference.InferenceOptions;
 import org.openmarkov.core.inference.MulticriteriaOptions;
-import org.openmarkov.core.inference.heuristic.EliminationHeuristic;
+import org.openmarkov.core.inference.ParallelTasks;
 import org.openmarkov.core.inference.tasks.TaskUtilities;
 import org.openmarkov.core.model.network.EvidenceCase;
 import org.openmarkov.core.model.network.NodeType;
@@ -26,13 +28,11 @@ import org.openmarkov.core.model.network.Variable;
 import org.openmarkov.core.model.network.constraint.OnlyAtemporalVariables;
 import org.openmarkov.core.model.network.potential.Potential;
 import org.openmarkov.core.model.network.potential.TablePotential;
-import org.openmarkov.inference.variableElimination.VariableEliminationCore;
+import org.openmarkov.inference.temporalevaluation.SliceEvaluation;
 import org.openmarkov.inference.variableElimination.tasks.VariableElimination;
 
 public class TemporalEvaluation extends VariableElimination {
 
-	private VariableEliminationCore variableEliminationCore = null;
-
 	// Classified potentials
 	private List<List<TablePotential>> utilityPotentialBySlice;
 	private List<List<TablePotential>> probabilityPotentialBySlice;
@@ -47,6 +47,8 @@ public class TemporalEvaluation extends VariableElimination {
 
 	private boolean isTemporal;
 
+	private boolean useMultithreading;
+
 	/**
 	 * @param network Probabilistic network to be resolved
 	 * @throws NotEvaluableNetworkException  Constructor
@@ -165,94 +167,70 @@ public class TemporalEvaluation extends VariableElimination {
 	}
 
 	/**
-	 * This method evaluates the network
+	 * This method evaluates the network in a single pass over the slices. A belief state over the variables of
+	 * the current slice and the atemporal variables is rolled across the slices, and the expected utility of each
+	 * slice is computed from it without copying the network. Only the potentials of the slices whose utility is
+	 * pending are kept, so the memory does not grow with the horizon: the slices are evaluated one by one or,
+	 * when multithreading is enabled, in batches of as many slices as threads, which are independent and run in
+	 * parallel.
 	 *
 	 * @param probNet Network
 	 * @throws UnexpectedInferenceException UnexpectedInferenceException
 	 */
 	public void evaluateNetwork(ProbNet probNet) throws UnexpectedInferenceException {
-		utilityPotentialsPerSlice = new ArrayList<>();
 		int numberOfSlices = probNet.getInferenceOptions().getTemporalOptions().getHorizon();
 
-		// First we evaluate the atemporal part of the network, for that we build a Markov network with atemporal
-		// probability potentials.
-		ProbNet markovNetworkInference = probNet.buildMarkovDecisionNetwork(probabilityPotentialAtemporal);
-		// Add utility potentials to the network
-		ProbNet markovWithUtility = markovNetworkInference.copy();
-		for (TablePotential utilityPotential : utilityPotentialAtemporal) {
-			markovWithUtility.addPotential(utilityPotential);
-		}
-		// Create heuristic instance
-		EliminationHeuristic heuristic = heuristicFactory(markovWithUtility, new ArrayList<Variable>(),
-				getPreResolutionEvidence().getVariables(), getConditioningVariables(),
-				markovWithUtility.getChanceAndDecisionVariables());
-		variableEliminationCore = new VariableEliminationCore(markovWithUtility, heuristic, isUnicriterion);
-
-		atemporalUtility = variableEliminationCore.getUtility();
-
-		// With atemporal part analysed, we build then a markov network to analyse the first slice (slice zero)
-		List<TablePotential> atemporalAndFirstSlicePotentials = new ArrayList<>();
-		atemporalAndFirstSlicePotentials.addAll(probabilityPotentialBySlice.get(0));
-		// We add and keep all atemporal probability potentials because they could affect all the network
-		atemporalAndFirstSlicePotentials.addAll(probabilityPotentialAtemporal);
-		markovNetworkInference = probNet.buildMarkovDecisionNetwork(atemporalAndFirstSlicePotentials);
-		// Add utility potentials of this slice
-		markovWithUtility = markovNetworkInference.copy();
-		for (TablePotential utilityPotential : utilityPotentialBySlice.get(0)) {
-			markovWithUtility.addPotential(utilityPotential);
-		}
-
-		// Create heuristic instance
-		heuristic = heuristicFactory(markovWithUtility, new ArrayList<Variable>(),
-				getPreResolutionEvidence().getVariables(), getConditioningVariables(),
-				markovWithUtility.getChanceAndDecisionVariables());
-		variableEliminationCore = new VariableEliminationCore(markovWithUtility, heuristic, isUnicriterion);
-
-		utilityPotentialsPerSlice.add(variableEliminationCore.getUtility());
-		variableEliminationCore = null;
-		markovWithUtility = null;
-
-		for (int i = 1; i <= numberOfSlices; i++) {
-			Runtime r = Runtime.getRuntime();
-			r.gc();
-			System.out.println("Cycle" + i);
-			// Add probabilities of the new slice
-			for (TablePotential probabilityPontial : probabilityPotentialBySlice.get(i)) {
-				markovNetworkInference.addPotential(probabilityPontial);
-			}
-
-			// Make a copy of the network
-			markovWithUtility = markovNetworkInference.copy();
-
-			// Add utilities to the copied network
-			for (TablePotential utilityPotential : utilityPotentialBySlice.get(i)) {
-				markovWithUtility.addPotential(utilityPotential);
-			}
+		List<Variable> variablesToKeep = new ArrayList<>(getConditioningVariables());
+		variablesToKeep.addAll(getPreResolutionEvidence().getVariables());
+		// Atemporal probability potentials are always kept because they could affect all the network
+		SliceEvaluation sliceEvaluation = new SliceEvaluation(probabilityPotentialAtemporal, variablesToKeep,
+				isUnicriterion);
 
-			// Create heuristic instance
-			heuristic = heuristicFactory(markovWithUtility, new ArrayList<Variable>(),
-					getPreResolutionEvidence().getVariables(), getConditioningVariables(),
-					markovWithUtility.getChanceAndDecisionVariables());
-			variableEliminationCore = new VariableEliminationCore(markovWithUtility, heuristic, isUnicriterion);
-			utilityPotentialsPerSlice.add(variableEliminationCore.getUtility());
-			// Delete the network
-			variableEliminationCore = null;
-			markovWithUtility = null;
+		// First we evaluate the atemporal part of the network
+		atemporalUtility = sliceEvaluation
+				.getExpectedUtility(probabilityPotentialAtemporal, utilityPotentialAtemporal, 0);
 
-			// Remove the probability variables of the previous slice (keeping always atemporal probabilities)
-			List<Variable> variablesToEliminate = new ArrayList<>();
-			for (TablePotential potentialToDelete : probabilityPotentialBySlice.get(i - 1)) {
-				variablesToEliminate.add(potentialToDelete.getVariable(0));
+		int batchSize = useMultithreading ? Math.max(1, ForkJoinPool.getCommonPoolParallelism()) : 1;
+		utilityPotentialsPerSlice = new ArrayList<>(numberOfSlices + 1);
+		List<ParallelTasks.Task<TablePotential, UnexpectedInferenceException>> batch = new ArrayList<>(batchSize);
+		for (int i = 0; i <= numberOfSlices; i++) {
+			// Add the probabilities of the slice, removing the variables of the previous one from the belief state
+			List<TablePotential> slicePotentials = sliceEvaluation.addSlice(probabilityPotentialBySlice.get(i));
+			List<TablePotential> sliceUtilities = utilityPotentialBySlice.get(i);
+			// From now on, the potentials of the slice are only referenced by its pending evaluation
+			probabilityPotentialBySlice.set(i, new ArrayList<>());
+			utilityPotentialBySlice.set(i, new ArrayList<>());
+			final int slice = i;
+			batch.add(() -> sliceEvaluation.getExpectedUtility(slicePotentials, sliceUtilities, slice));
+			if (batch.size() == batchSize || i == numberOfSlices) {
+				utilityPotentialsPerSlice.addAll(evaluateSlices(batch));
+				batch.clear();
 			}
+		}
+		LogManager.getLogger().debug(sliceEvaluation.getNumPlans() + " elimination orders computed, "
+				+ sliceEvaluation.getNumPlansReused() + " reused");
+	}
 
-			heuristic = heuristicFactory(markovNetworkInference, new ArrayList<Variable>(),
-					getPreResolutionEvidence().getVariables(), conditioningVariables, variablesToEliminate);
-			variableEliminationCore = new VariableEliminationCore(markovNetworkInference, heuristic, isUnicriterion);
-
-			markovNetworkInference = variableEliminationCore.getMarkovDecisionNetwork();
-
+	/**
+	 * @param tasks computations of the expected utilities of consecutive slices
+	 * @return The expected utility of each slice, computed as fork-join tasks when there are several
+	 * @throws UnexpectedInferenceException UnexpectedInferenceException
+	 */
+	private static List<TablePotential> evaluateSlices(
+			List<ParallelTasks.Task<TablePotential, UnexpectedInferenceException>> tasks)
+			throws UnexpectedInferenceException {
+		if (tasks.size() == 1) {
+			return Collections.singletonList(tasks.get(0).call());
 		}
+		return ParallelTasks.invokeAll(tasks, UnexpectedInferenceException.class);
+	}
 
+	/**
+	 * @param useMultithreading when <code>true</code>, the expected utilities of the slices are computed in
+	 *                          parallel
+	 */
+	public void setUseMultithreading(boolean useMultithreading) {
+		this.useMultithreading = useMultithreading;
 	}
 
 	// ------- GETTERS (TO OBTAIN THE RESULTS OF THE ANALYSIS) -----
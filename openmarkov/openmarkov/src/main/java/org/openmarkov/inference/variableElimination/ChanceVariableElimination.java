@@ -36,6 +36,13 @@ public class ChanceVariableElimination {
 		if (inputUtilityPotentials.isEmpty()) {
 			// add the marginal probability to the network
 			marginalProbability = DiscretePotentialOperations.multiplyAndMarginalize(probPotentials, variableToDelete);
+		} else if (canSumOutInOneTraversal(variableToDelete, probPotentials, utilityPotentialsByCriterion)) {
+			TablePotential[] resultPotentials = DiscretePotentialOperations
+					.sumOutChanceVariable(probPotentials, utilityPotentialsByCriterion, variableToDelete);
+			marginalProbability = resultPotentials[0];
+			for (int i = 1; i < resultPotentials.length; i++) {
+				utilityPotentials.add(resultPotentials[i]);
+			}
 		} else {
 			TablePotential jointProbability = DiscretePotentialOperations.multiply(probPotentials);
 			marginalProbability = DiscretePotentialOperations.marginalize(jointProbability, variableToDelete);
@@ -74,6 +81,31 @@ public class ChanceVariableElimination {
 		}
 	}
 
+	/**
+	 * The marginal probability and the expected utilities are computed without building the joint and the
+	 * conditional probability when the variable belongs to some probability potential and no utility potential
+	 * is a cost-effectiveness partition (<code>GTablePotential</code>).
+	 *
+	 * @param variableToDelete  chance variable to sum out
+	 * @param probPotentials    probability potentials
+	 * @param utilityPotentials utility potentials, one for each criterion
+	 * @return true if <code>DiscretePotentialOperations.sumOutChanceVariable</code> can sum out the variable
+	 */
+	private static boolean canSumOutInOneTraversal(Variable variableToDelete, List<TablePotential> probPotentials,
+			List<TablePotential> utilityPotentials) {
+		for (TablePotential utilityPotential : utilityPotentials) {
+			if (utilityPotential instanceof GTablePotential) {
+				return false;
+			}
+		}
+		for (TablePotential probPotential : probPotentials) {
+			if (probPotential.getVariables().contains(variableToDelete)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public static boolean hasIncorrectProbability(TablePotential pot) {
 		boolean isCorrect = true;
 		if (pot != null) {
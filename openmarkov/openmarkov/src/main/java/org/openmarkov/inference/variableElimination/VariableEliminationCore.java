@@ -30,10 +30,15 @@ import org.openmarkov.core.model.network.potential.Potential;
 import org.openmarkov.core.model.network.potential.PotentialRole;
 import org.openmarkov.core.model.network.potential.TablePotential;
 import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
+import org.openmarkov.core.model.network.potential.treeadd.TreeADDOperations;
+import org.openmarkov.core.model.network.potential.treeadd.TreeADDPotential;
 import org.openmarkov.inference.variableElimination.action.CreatePotentialUtility;
 
 /**
  * Essential variable elimination algorithm for Bayesian networks and influence diagrams.
+ * The network may contain tree/ADD probability potentials built by
+ * {@link org.openmarkov.core.inference.tasks.TaskUtilities#projectTreesAndBuildMarkovDecisionNetwork};
+ * they are kept as trees when eliminating chance variables without utilities, and converted into tables otherwise.
  *
  * @author Manuel Arias
  */
@@ -153,8 +158,13 @@ public class VariableEliminationCore {
 
 		// Extract the potentials that depend on the variable
 		List<TablePotential> probPotentials = new ArrayList<>();
+		List<TreeADDPotential> treePotentials = new ArrayList<>();
 		for (Potential potential : markovDecisionNetwork.getProbPotentials(variableToDelete)) {
-			probPotentials.add((TablePotential) potential);
+			if (potential instanceof TreeADDPotential) {
+				treePotentials.add((TreeADDPotential) potential);
+			} else {
+				probPotentials.add((TablePotential) potential);
+			}
 			markovDecisionNetwork.removePotential(potential);
 		}
 		List<TablePotential> utilityPotentials = new ArrayList<>();
@@ -164,6 +174,21 @@ public class VariableEliminationCore {
 		}
 		RemoveNodeEdit removeNodeEdit = new RemoveNodeEdit(markovDecisionNetwork, variableToDelete);
 		pneSupport.doEdit(removeNodeEdit);
+		if (!treePotentials.isEmpty()) {
+			if (nodeType == NodeType.CHANCE && utilityPotentials.isEmpty()) {
+				// Context-specific elimination: keep the result as a tree while it is smaller than its table
+				List<Potential> potentials = new ArrayList<>(probPotentials);
+				potentials.addAll(treePotentials);
+				Potential marginalProbability = TreeADDOperations.multiplyAndSumOut(potentials, variableToDelete);
+				markovDecisionNetwork.addPotential(TreeADDOperations.isSmallerThanTable(marginalProbability) ?
+						marginalProbability :
+						TreeADDOperations.toTablePotential(marginalProbability));
+				return;
+			}
+			for (TreeADDPotential treePotential : treePotentials) {
+				probPotentials.add(TreeADDOperations.toTablePotential(treePotential));
+			}
+		}
 		if (nodeType == NodeType.CHANCE) {
 			ChanceVariableElimination elimination = new ChanceVariableElimination(variableToDelete, probPotentials,
 					utilityPotentials);
@@ -313,7 +338,7 @@ public class VariableEliminationCore {
 		List<Potential> allPotentials = markovDecisionNetwork.getPotentials();
 		for (Potential potential : allPotentials) {
 			if (!potential.isAdditive()) {
-				probPotentials.add((TablePotential) potential);
+				probPotentials.add(TreeADDOperations.toTablePotential(potential));
 			}
 		}
 		return DiscretePotentialOperations.multiply(probPotentials);
@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.inference.variableElimination.tasks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openmarkov.core.exception.IncompatibleEvidenceException;
+import org.openmarkov.core.exception.NodeNotFoundException;
+import org.openmarkov.core.exception.NonProjectablePotentialException;
+import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.inference.tasks.TaskUtilities;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.Finding;
+import org.openmarkov.core.model.network.Node;
+import org.openmarkov.core.model.network.NodeType;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.TemporalNetOperations;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.VariableType;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.PotentialRole;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.WeibullHazardPotential;
+import org.openmarkov.core.model.network.potential.operation.DiscretePotentialOperations;
+
+/**
+ * Computes the temporal evolution of a chance variable without expanding the network to the horizon.
+ * <p>
+ * The compact net (the first slices of the network, as built by <code>TemporalNetOperations.compactNetwork</code>)
+ * is evaluated as a whole. Then a belief state, the joint probability of the variables of the last slice that
+ * have children in the next one and of the atemporal variables on which the transition depends, is advanced
+ * slice by slice with the potentials of the last slice: the belief is moved to the previous slice, multiplied by
+ * those potentials and the previous slice is eliminated. Time and memory are linear in the horizon, instead of
+ * quadratic, and each step only needs the tables of two slices.
+ * <p>
+ * This is only exact when the slices after the compact net are all alike and the evidence is in the past of
+ * every slice evaluated, so <code>getTemporalEvolution</code> returns <code>null</code> when:
+ * <ul>
+ * <li>the network has utility nodes depending on the variable, decisions without imposed policy or numeric
+ * variables,</li>
+ * <li>an atemporal chance variable has temporal parents,</li>
+ * <li>the potentials of the last slice depend on the time slice (Weibull hazards) or on slices other than the
+ * previous one,</li>
+ * <li>there are findings after the last slice of the compact net.</li>
+ * </ul>
+ */
+class SliceInterfacePropagation {
+
+	// Attributes
+	private ProbNet compactNet;
+
+	private Variable temporalVariable;
+
+	private EvidenceCase evidence;
+
+	/**
+	 * Last slice of the compact net
+	 */
+	private int lastSlice;
+
+	/**
+	 * Potentials of the atemporal variables and of the slices of the compact net
+	 */
+	private List<TablePotential> compactPotentials;
+
+	/**
+	 * Potentials of the last slice of the compact net, used to generate the rest of slices
+	 */
+	private List<TablePotential> transitionPotentials;
+
+	/**
+	 * Variables of the last slice that appear in <code>transitionPotentials</code> shifted to the previous slice
+	 */
+	private Map<Variable, Variable> interfaceVariables;
+
+	/**
+	 * Atemporal variables that appear in <code>transitionPotentials</code>
+	 */
+	private List<Variable> atemporalInterface;
+
+	// Constructor
+	/**
+	 * @param probNet          Network with temporal variables. It is not modified
+	 * @param temporalVariable Chance variable whose evolution is computed
+	 * @param evidence         Pre-resolution evidence
+	 */
+	SliceInterfacePropagation(ProbNet probNet, Variable temporalVariable, EvidenceCase evidence) {
+		this.compactNet = probNet;
+		this.temporalVariable = temporalVariable;
+		this.evidence = evidence;
+	}
+
+	// Methods
+	/**
+	 * @return The posterior probability of <code>temporalVariable</code> in each slice up to the horizon, or
+	 * <code>null</code> when this algorithm is not applicable to the network
+	 * @throws IncompatibleEvidenceException IncompatibleEvidenceException
+	 */
+	HashMap<Variable, TablePotential> getTemporalEvolution() throws IncompatibleEvidenceException {
+		if (!temporalVariable.isTemporal() || TaskUtilities.hasDecisionsWithoutImposedPolicy(compactNet)) {
+			return null;
+		}
+		compactNet = compactNet.copy();
+		lastSlice = TemporalNetOperations.compactNetwork(compactNet).size() - 1;
+		compactNet = TaskUtilities.imposePolicies(compactNet);
+		if (!classifyPotentials()) {
+			return null;
+		}
+
+		HashMap<Variable, TablePotential> temporalEvolution = new HashMap<>();
+		int horizon = compactNet.getInferenceOptions().getTemporalOptions().getHorizon();
+		for (int slice = 0; slice <= Math.min(lastSlice, horizon); slice++) {
+			Variable variable = getVariable(temporalVariable.getBaseName(), slice);
+			if (variable != null) {
+				temporalEvolution.put(variable, getPosterior(compactPotentials, variable));
+			}
+		}
+		if (horizon <= lastSlice) {
+			return temporalEvolution;
+		}
+
+		Variable lastVariable = getVariable(temporalVariable.getBaseName(), lastSlice);
+		List<Variable> beliefVariables = new ArrayList<>(interfaceVariables.keySet());
+		beliefVariables.addAll(atemporalInterface);
+		List<Variable> variablesToKeep = new ArrayList<>(beliefVariables);
+		if (lastVariable != null && !variablesToKeep.contains(lastVariable)) {
+			variablesToKeep.add(lastVariable);
+		}
+		TablePotential belief = normalize(eliminate(compactPotentials, beliefVariables));
+		List<TablePotential> potentials = new ArrayList<>(transitionPotentials);
+		potentials.add(null);
+		for (int slice = lastSlice + 1; slice <= horizon; slice++) {
+			potentials.set(potentials.size() - 1, shiftToPreviousSlice(belief));
+			TablePotential joint = eliminate(potentials, variablesToKeep);
+			if (lastVariable != null) {
+				TablePotential posterior = normalize(
+						DiscretePotentialOperations.marginalize(joint, Collections.singletonList(lastVariable)));
+				Variable variable = new Variable(lastVariable);
+				variable.setTimeSlice(slice);
+				temporalEvolution.put(variable,
+						new TablePotential(Collections.singletonList(variable), posterior.getPotentialRole(),
+								posterior.values));
+			}
+			belief = normalize(DiscretePotentialOperations.marginalize(joint, beliefVariables));
+		}
+		return temporalEvolution;
+	}
+
+	/**
+	 * Projects the potentials of the chance nodes and checks that the network fulfills the conditions of
+	 * this algorithm
+	 *
+	 * @return True if the algorithm is applicable
+	 * @throws IncompatibleEvidenceException IncompatibleEvidenceException
+	 */
+	private boolean classifyPotentials() throws IncompatibleEvidenceException {
+		// The findings of temporal variables are added as indicator potentials to the compact net, so that they
+		// are neither projected out of the belief nor repeated in the transition potentials
+		List<Finding> atemporalFindings = new ArrayList<>();
+		compactPotentials = new ArrayList<>();
+		for (Finding finding : evidence.getFindings()) {
+			Variable variable = finding.getVariable();
+			if (!variable.isTemporal()) {
+				atemporalFindings.add(finding);
+			} else if (variable.getTimeSlice() > lastSlice) {
+				return false;
+			} else {
+				TablePotential indicator = new TablePotential(Collections.singletonList(variable),
+						PotentialRole.CONDITIONAL_PROBABILITY);
+				Arrays.fill(indicator.values, 0.0);
+				indicator.values[finding.getStateIndex()] = 1.0;
+				compactPotentials.add(indicator);
+			}
+		}
+		EvidenceCase atemporalEvidence = new EvidenceCase(atemporalFindings);
+		transitionPotentials = new ArrayList<>();
+		interfaceVariables = new HashMap<>();
+		Set<Variable> atemporalVariables = new LinkedHashSet<>();
+		for (Node node : compactNet.getNodes()) {
+			Variable variable = node.getVariable();
+			if (node.getNodeType() == NodeType.UTILITY) {
+				if (variable == temporalVariable) {
+					return false;
+				}
+				continue;
+			}
+			if (node.getNodeType() != NodeType.CHANCE || variable.getVariableType() == VariableType.NUMERIC) {
+				return false;
+			}
+			if (!variable.isTemporal()) {
+				for (Node parent : node.getParents()) {
+					if (parent.getVariable().isTemporal()) {
+						return false;
+					}
+				}
+			}
+			boolean isTransition = variable.getTimeSlice() == lastSlice;
+			for (Potential potential : node.getPotentials()) {
+				if (isTransition && !addToInterface(potential, atemporalVariables)) {
+					return false;
+				}
+				List<TablePotential> projectedPotentials;
+				try {
+					projectedPotentials = potential.tableProject(atemporalEvidence, null);
+				} catch (NonProjectablePotentialException | WrongCriterionException e) {
+					return false;
+				}
+				compactPotentials.addAll(projectedPotentials);
+				if (isTransition) {
+					transitionPotentials.addAll(projectedPotentials);
+				}
+			}
+		}
+		atemporalInterface = new ArrayList<>(atemporalVariables);
+		return true;
+	}
+
+	/**
+	 * Adds to the interface the variables of the previous slice on which a potential of the last slice depends
+	 *
+	 * @param potential          potential of the last slice of the compact net
+	 * @param atemporalVariables atemporal variables in the interface
+	 * @return False if the potential can not be shifted to the next slices by this algorithm
+	 */
+	private boolean addToInterface(Potential potential, Set<Variable> atemporalVariables) {
+		if (potential instanceof WeibullHazardPotential) {
+			return false;
+		}
+		for (Variable variable : potential.getVariables()) {
+			if (!variable.isTemporal()) {
+				atemporalVariables.add(variable);
+			} else if (variable.getTimeSlice() == lastSlice - 1) {
+				Variable shiftedVariable = getVariable(variable.getBaseName(), lastSlice);
+				if (shiftedVariable == null) {
+					return false;
+				}
+				interfaceVariables.put(shiftedVariable, variable);
+			} else if (variable.getTimeSlice() != lastSlice) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param potentials       probability potentials
+	 * @param variablesToKeep variables that are not eliminated
+	 * @return The product of the potentials with the rest of variables eliminated one by one, choosing each
+	 * time the variable that generates the smallest potential
+	 */
+	private static TablePotential eliminate(List<TablePotential> potentials, List<Variable> variablesToKeep) {
+		List<TablePotential> pendingPotentials = new ArrayList<>(potentials);
+		Set<Variable> variablesToEliminate = new LinkedHashSet<>();
+		for (TablePotential potential : potentials) {
+			variablesToEliminate.addAll(potential.getVariables());
+		}
+		variablesToEliminate.removeAll(variablesToKeep);
+		while (!variablesToEliminate.isEmpty()) {
+			Variable bestVariable = null;
+			double bestSize = Double.POSITIVE_INFINITY;
+			for (Variable variable : variablesToEliminate) {
+				Set<Variable> neighbors = new LinkedHashSet<>();
+				for (TablePotential potential : pendingPotentials) {
+					if (potential.getVariables().contains(variable)) {
+						neighbors.addAll(potential.getVariables());
+					}
+				}
+				double size = 1;
+				for (Variable neighbor : neighbors) {
+					size *= neighbor.getNumStates();
+				}
+				if (size < bestSize) {
+					bestSize = size;
+					bestVariable = variable;
+				}
+			}
+			List<TablePotential> potentialsOfVariable = new ArrayList<>();
+			List<TablePotential> otherPotentials = new ArrayList<>();
+			for (TablePotential potential : pendingPotentials) {
+				(potential.getVariables().contains(bestVariable) ? potentialsOfVariable : otherPotentials)
+						.add(potential);
+			}
+			otherPotentials.add(DiscretePotentialOperations.multiplyAndMarginalize(potentialsOfVariable, bestVariable));
+			pendingPotentials = otherPotentials;
+			variablesToEliminate.remove(bestVariable);
+		}
+		return DiscretePotentialOperations.multiplyAndMarginalize(pendingPotentials, variablesToKeep);
+	}
+
+	/**
+	 * @param potentials compact net potentials
+	 * @param variable   variable of the compact net
+	 * @return The posterior probability of <code>variable</code>
+	 * @throws IncompatibleEvidenceException IncompatibleEvidenceException
+	 */
+	private TablePotential getPosterior(List<TablePotential> potentials, Variable variable)
+			throws IncompatibleEvidenceException {
+		TablePotential posterior;
+		if (evidence.contains(variable)) {
+			posterior = new TablePotential(Collections.singletonList(variable),
+					PotentialRole.CONDITIONAL_PROBABILITY);
+			Arrays.fill(posterior.values, 0.0);
+			posterior.values[evidence.getState(variable)] = 1.0;
+		} else {
+			posterior = normalize(eliminate(potentials, Collections.singletonList(variable)));
+		}
+		return posterior;
+	}
+
+	/**
+	 * @param belief potential over the interface variables of the last slice
+	 * @return The same table over the corresponding variables of the previous slice
+	 */
+	private TablePotential shiftToPreviousSlice(TablePotential belief) {
+		List<Variable> variables = new ArrayList<>();
+		for (Variable variable : belief.getVariables()) {
+			variables.add(interfaceVariables.getOrDefault(variable, variable));
+		}
+		return new TablePotential(variables, belief.getPotentialRole(), belief.values);
+	}
+
+	/**
+	 * @param potential potential to normalize, which is modified
+	 * @return <code>potential</code> with its values summing 1
+	 * @throws IncompatibleEvidenceException when all the values are 0
+	 */
+	private static TablePotential normalize(TablePotential potential) throws IncompatibleEvidenceException {
+		double sum = DiscretePotentialOperations.sum(potential.values);
+		if (sum == 0.0) {
+			throw new IncompatibleEvidenceException("Incompatible Evidence");
+		}
+		for (int i = 0; i < potential.values.length; i++) {
+			potential.values[i] /= sum;
+		}
+		return potential;
+	}
+
+	/**
+	 * @param baseName base name of a temporal variable
+	 * @param slice    time slice
+	 * @return The variable of the compact net or <code>null</code> if it does not exist
+	 */
+	private Variable getVariable(String baseName, int slice) {
+		try {
+			return compactNet.getVariable(baseName, slice);
+		} catch (NodeNotFoundException e) {
+			return null;
+		}
+	}
+}
@@ -13,6 +13,7 @@ import java.util.List;
 import org.openmarkov.core.exception.IncompatibleEvidenceException;
 import org.openmarkov.core.exception.NotEvaluableNetworkException;
 import org.openmarkov.core.exception.UnexpectedInferenceException;
+import org.openmarkov.core.inference.InferenceSession;
 import org.openmarkov.core.inference.tasks.OptimalIntervention;
 import org.openmarkov.core.model.network.EvidenceCase;
 import org.openmarkov.core.model.network.ProbNet;
@@ -50,7 +51,7 @@ public class VEOptimalIntervention implements OptimalIntervention {
 	 */
 	public VEOptimalIntervention(ProbNet network, EvidenceCase preResolutionEvidence)
 			throws NotEvaluableNetworkException, IncompatibleEvidenceException {
-		probNet = network.copy();
+		probNet = new InferenceSession(network).getProbNet();
 
 		veEvaluation = new VEEvaluation(network);
 		veEvaluation.setPreResolutionEvidence(preResolutionEvidence);
@@ -151,7 +151,7 @@ public class VEPropagation extends VariableElimination implements Propagation {
 					} else {
 						ProbNet preprocessedNetwork = pruneNetwork(probNet.copy(), variableOfInterest);
 						ProbNet markovNetwork = TaskUtilities
-								.projectTablesAndBuildMarkovDecisionNetwork(preprocessedNetwork, evidence);
+								.projectTreesAndBuildMarkovDecisionNetwork(preprocessedNetwork, evidence);
 						InvokeVariableEliminationCore(markovNetwork, evidence, variableOfInterest);
 					}
 				} catch (NodeNotFoundException e) {
@@ -15,6 +15,7 @@ import org.openmarkov.core.exception.IncompatibleEvidenceException;
 import org.openmarkov.core.exception.NodeNotFoundException;
 import org.openmarkov.core.exception.NotEvaluableNetworkException;
 import org.openmarkov.core.exception.UnexpectedInferenceException;
+import org.openmarkov.core.inference.InferenceSession;
 import org.openmarkov.core.inference.tasks.SensAnMap;
 import org.openmarkov.core.model.network.EvidenceCase;
 import org.openmarkov.core.model.network.ProbNet;
@@ -44,7 +45,7 @@ public class VESensAnMap implements SensAnMap {
 			int numberOfIntervals, Variable decisionVariable)
 			throws NotEvaluableNetworkException, IncompatibleEvidenceException {
 
-		this.probNet = probNet.copy();
+		this.probNet = new InferenceSession(probNet).getProbNet();
 		uncertainParametersPotentials = new HashMap<>();
 
 		String iterationFirstVariableName = "***Iteration***";
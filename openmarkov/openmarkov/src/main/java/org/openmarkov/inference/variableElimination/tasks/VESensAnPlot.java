@@ -15,6 +15,7 @@ import org.openmarkov.core.exception.IncompatibleEvidenceException;
 import org.openmarkov.core.exception.NodeNotFoundException;
 import org.openmarkov.core.exception.NotEvaluableNetworkException;
 import org.openmarkov.core.exception.UnexpectedInferenceException;
+import org.openmarkov.core.inference.InferenceSession;
 import org.openmarkov.core.inference.tasks.SensAnPlot;
 import org.openmarkov.core.model.network.EvidenceCase;
 import org.openmarkov.core.model.network.ProbNet;
@@ -46,7 +47,7 @@ public class VESensAnPlot implements SensAnPlot {
 	public VESensAnPlot(ProbNet probNet, EvidenceCase preResolutionEvidence, UncertainParameter uncertainParameter,
 			AxisVariation axisVariation, int numberOfIntervals, Variable decisionVariable)
 			throws NotEvaluableNetworkException, IncompatibleEvidenceException {
-		this.probNet = probNet.copy();
+		this.probNet = new InferenceSession(probNet).getProbNet();
 		uncertainParametersPotentials = new HashMap<>();
 
 		String iterationVariableName = "***Iteration***";
@@ -15,6 +15,7 @@ import org.openmarkov.core.exception.IncompatibleEvidenceException;
 import org.openmarkov.core.exception.NodeNotFoundException;
 import org.openmarkov.core.exception.NotEvaluableNetworkException;
 import org.openmarkov.core.exception.UnexpectedInferenceException;
+import org.openmarkov.core.inference.InferenceSession;
 import org.openmarkov.core.inference.tasks.SensAnTornadoSpider;
 import org.openmarkov.core.model.network.EvidenceCase;
 import org.openmarkov.core.model.network.ProbNet;
@@ -45,7 +46,7 @@ public class VESensAnTornadoSpider implements SensAnTornadoSpider {
 	public VESensAnTornadoSpider(ProbNet network, EvidenceCase preResolutionEvidence,
 			List<UncertainParameter> uncertainParameters, AxisVariation axisVariation, int numberOfIntervals,
 			Variable decisionVariable) throws NotEvaluableNetworkException, IncompatibleEvidenceException {
-		this.probNet = network.copy();
+		this.probNet = new InferenceSession(network).getProbNet();
 		uncertainParametersPotentials = new HashMap<>();
 
 		String iterationVariableName = "***Iteration***";
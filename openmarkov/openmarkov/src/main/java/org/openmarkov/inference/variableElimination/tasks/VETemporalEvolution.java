@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.openmarkov.core.exception.IncompatibleEvidenceException;
 import org.openmarkov.core.exception.NodeNotFoundException;
@@ -32,6 +33,11 @@ public class VETemporalEvolution extends VariableElimination implements Temporal
 
 	private Variable decisionVariable;
 
+	/**
+	 * True when <code>probNet</code> has been expanded to the horizon
+	 */
+	private boolean isExpanded;
+
 	/**
 	 * @param network The network used in the inference
 	 */
@@ -41,8 +47,16 @@ public class VETemporalEvolution extends VariableElimination implements Temporal
 	}
 
 	private void resolve() throws NotEvaluableNetworkException, IncompatibleEvidenceException {
+		// Without conditioning, propagates slice by slice when possible instead of expanding the network
+		if (decisionVariable == null && !isExpanded) {
+			temporalEvolution = new SliceInterfacePropagation(probNet, temporalVariable, getPreResolutionEvidence())
+					.getTemporalEvolution();
+			if (temporalEvolution != null) {
+				return;
+			}
+		}
 
-		this.probNet = TaskUtilities.expandNetwork(this.probNet, true);
+		expandNetwork();
 
 		List<Variable> variablesOfInterest = new ArrayList<>();
 		for (int i = 0; i <= probNet.getInferenceOptions().getTemporalOptions().getHorizon(); i++) {
@@ -84,7 +98,35 @@ public class VETemporalEvolution extends VariableElimination implements Temporal
 		this.decisionVariable = decisionVariable;
 	}
 
+	/**
+	 * Expands the network and, if the temporal evolution was computed without expanding it, replaces its
+	 * variables by those of the expanded network
+	 */
+	private void expandNetwork() {
+		if (isExpanded) {
+			return;
+		}
+		this.probNet = TaskUtilities.expandNetwork(this.probNet, true);
+		isExpanded = true;
+		if (temporalEvolution != null) {
+			HashMap<Variable, TablePotential> expandedEvolution = new HashMap<>();
+			for (Map.Entry<Variable, TablePotential> entry : temporalEvolution.entrySet()) {
+				try {
+					Variable variable = probNet.getVariable(entry.getKey().getName());
+					TablePotential posterior = entry.getValue();
+					expandedEvolution.put(variable,
+							new TablePotential(Collections.singletonList(variable), posterior.getPotentialRole(),
+									posterior.values));
+				} catch (NodeNotFoundException e) {
+					expandedEvolution.put(entry.getKey(), entry.getValue());
+				}
+			}
+			temporalEvolution = expandedEvolution;
+		}
+	}
+
 	@Override public ProbNet getExpandedNetwork() {
+		expandNetwork();
 		return probNet;
 	}
 }
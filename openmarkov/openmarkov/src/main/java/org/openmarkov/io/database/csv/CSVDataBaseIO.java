@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.io.database.csv;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openmarkov.core.io.database.CaseColumn;
+import org.openmarkov.core.io.database.CaseDatabase;
+import org.openmarkov.core.io.database.CaseDatabaseReader;
+import org.openmarkov.core.io.database.CaseDatabaseWriter;
+import org.openmarkov.core.io.database.plugin.CaseDatabaseFormat;
+import org.openmarkov.core.model.network.State;
+import org.openmarkov.core.model.network.Variable;
+
+/**
+ * Reads and writes case databases in comma separated values. The first line contains the names of the
+ * variables and each of the next ones a case, with the names of the states of the variables. A missing value
+ * is written as <code>?</code>; an empty field is also read as missing. The fields that contain commas or
+ * quotes, or that begin or end with spaces, are enclosed in double quotes, with the inner quotes doubled. As
+ * the file is read by lines, the names can not contain line breaks.
+ * <p>
+ * The reader streams the file into the columns of the database, so it never holds the text of the cases. The
+ * states of each variable are those that appear in its column, in the order of their first appearance, or in
+ * increasing order when all of them are numbers. The writer appends the cases of each batch as soon as it
+ * receives it.
+ */
+@CaseDatabaseFormat(name = "Comma separated values", extension = "csv")
+public class CSVDataBaseIO implements CaseDatabaseReader, CaseDatabaseWriter {
+
+	// Attributes
+	private static final char SEPARATOR = ',';
+
+	private static final char QUOTE = '"';
+
+	private static final String MISSING_VALUE = "?";
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	// Methods
+
+	@Override public CaseDatabase load(String filename) throws IOException {
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(filename), StandardCharsets.UTF_8), 1 << 16)) {
+			String line = reader.readLine();
+			if (line == null) {
+				throw new IOException("The file " + filename + " is empty");
+			}
+			List<String> variableNames = new ArrayList<>();
+			parseLine(line, variableNames);
+			if (variableNames.contains(null)) {
+				throw new IOException("The first line of " + filename + " lacks the name of some variable");
+			}
+			int numVariables = variableNames.size();
+
+			// Index of each state of each variable and columns of the cases
+			List<Map<String, Integer>> stateIndices = new ArrayList<>(numVariables);
+			List<List<String>> stateNames = new ArrayList<>(numVariables);
+			CaseColumn[] columns = new CaseColumn[numVariables];
+			for (int j = 0; j < numVariables; j++) {
+				stateIndices.add(new HashMap<String, Integer>());
+				stateNames.add(new ArrayList<String>());
+				columns[j] = CaseColumn.create(0, INITIAL_CAPACITY);
+			}
+
+			List<String> fields = new ArrayList<>(numVariables);
+			int numCases = 0;
+			int lineNumber = 1;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.isEmpty()) {
+					continue;
+				}
+				parseLine(line, fields);
+				if (fields.size() != numVariables) {
+					throw new IOException("Line " + lineNumber + " of " + filename + " has " + fields.size()
+							+ " values instead of " + numVariables);
+				}
+				if (numCases == columns[0].getCapacity()) {
+					int capacity = numCases + (numCases >> 1);
+					for (int j = 0; j < numVariables; j++) {
+						columns[j] = columns[j].resize(capacity, stateNames.get(j).size());
+					}
+				}
+				for (int j = 0; j < numVariables; j++) {
+					String field = fields.get(j);
+					int state;
+					if (field == null) {
+						state = CaseDatabase.MISSING_VALUE;
+					} else {
+						Integer index = stateIndices.get(j).get(field);
+						if (index == null) {
+							List<String> names = stateNames.get(j);
+							index = names.size();
+							names.add(field);
+							stateIndices.get(j).put(field, index);
+							columns[j] = columns[j].resize(columns[j].getCapacity(), names.size());
+						}
+						state = index;
+					}
+					columns[j].setState(numCases, state);
+				}
+				numCases++;
+			}
+
+			List<Variable> variables = new ArrayList<>(numVariables);
+			for (int j = 0; j < numVariables; j++) {
+				variables.add(createVariable(variableNames.get(j), stateNames.get(j), columns[j], numCases));
+			}
+			return new CaseDatabase(variables, columns, numCases);
+		}
+	}
+
+	@Override public void save(String filename, CaseDatabase database) throws IOException {
+		save(filename, database.getVariables(), Collections.singletonList(database));
+	}
+
+	/**
+	 * Writes the cases of each batch as soon as it is received
+	 */
+	@Override public void save(String filename, List<Variable> variables, Iterable<CaseDatabase> batches)
+			throws IOException {
+		int numVariables = variables.size();
+		// The names are escaped once, and before creating the file, as some of them may not be writable
+		String[] names = new String[numVariables];
+		String[][] fields = new String[numVariables][];
+		for (int j = 0; j < numVariables; j++) {
+			names[j] = escape(variables.get(j).getName());
+			State[] states = variables.get(j).getStates();
+			fields[j] = new String[states.length];
+			for (int k = 0; k < states.length; k++) {
+				fields[j][k] = escape(states[k].getName());
+			}
+		}
+		try (Writer writer = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(filename), StandardCharsets.UTF_8), 1 << 16)) {
+			for (int j = 0; j < numVariables; j++) {
+				if (j > 0) {
+					writer.write(SEPARATOR);
+				}
+				writer.write(names[j]);
+			}
+			writer.write('\n');
+
+			for (CaseDatabase batch : batches) {
+				int numCases = batch.getNumCases();
+				for (int i = 0; i < numCases; i++) {
+					for (int j = 0; j < numVariables; j++) {
+						if (j > 0) {
+							writer.write(SEPARATOR);
+						}
+						int state = batch.getColumn(j).getState(i);
+						writer.write((state == CaseDatabase.MISSING_VALUE) ? MISSING_VALUE : fields[j][state]);
+					}
+					writer.write('\n');
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the variable of a column. When the names of its states are numbers they are sorted and the
+	 * indices of the column are changed accordingly.
+	 *
+	 * @param name       name of the variable
+	 * @param stateNames names of the states, in the order of the indices of the column
+	 * @param column     column of the variable
+	 * @param numCases   number of cases of the column
+	 * @return The variable
+	 */
+	private Variable createVariable(String name, List<String> stateNames, CaseColumn column, int numCases) {
+		int numStates = stateNames.size();
+		final double[] numbers = new double[numStates];
+		boolean areNumbers = numStates > 0;
+		for (int k = 0; k < numStates && areNumbers; k++) {
+			try {
+				numbers[k] = Double.parseDouble(stateNames.get(k));
+			} catch (NumberFormatException e) {
+				areNumbers = false;
+			}
+		}
+		if (areNumbers) {
+			List<Integer> order = new ArrayList<>(numStates);
+			for (int k = 0; k < numStates; k++) {
+				order.add(k);
+			}
+			Collections.sort(order, new Comparator<Integer>() {
+				@Override public int compare(Integer k1, Integer k2) {
+					return Double.compare(numbers[k1], numbers[k2]);
+				}
+			});
+			int[] newIndices = new int[numStates];
+			List<String> sortedStateNames = new ArrayList<>(numStates);
+			for (int k = 0; k < numStates; k++) {
+				newIndices[order.get(k)] = k;
+				sortedStateNames.add(stateNames.get(order.get(k)));
+			}
+			for (int i = 0; i < numCases; i++) {
+				int state = column.getState(i);
+				if (state != CaseDatabase.MISSING_VALUE) {
+					column.setState(i, newIndices[state]);
+				}
+			}
+			stateNames = sortedStateNames;
+		}
+		return new Variable(name, stateNames.toArray(new String[numStates]));
+	}
+
+	/**
+	 * Splits a line into its fields
+	 *
+	 * @param line   line of the file
+	 * @param fields list that receives the fields, without the quotes; a missing value is received as
+	 *               <code>null</code>
+	 * @throws IOException if a quoted field is not closed
+	 */
+	private static void parseLine(String line, List<String> fields) throws IOException {
+		fields.clear();
+		int length = line.length();
+		int position = 0;
+		boolean isLastField = false;
+		while (!isLastField) {
+			while (position < length && Character.isWhitespace(line.charAt(position))) {
+				position++;
+			}
+			if (position < length && line.charAt(position) == QUOTE) {
+				StringBuilder field = new StringBuilder();
+				boolean isClosed = false;
+				position++;
+				while (!isClosed) {
+					int quote = line.indexOf(QUOTE, position);
+					if (quote < 0) {
+						throw new IOException("Unclosed quotes in the line " + line);
+					}
+					field.append(line, position, quote);
+					position = quote + 1;
+					if (position < length && line.charAt(position) == QUOTE) {
+						field.append(QUOTE);
+						position++;
+					} else {
+						isClosed = true;
+					}
+				}
+				fields.add(field.toString());
+				// the characters between the closing quote and the separator are ignored
+				position = line.indexOf(SEPARATOR, position);
+			} else {
+				int separator = line.indexOf(SEPARATOR, position);
+				String field = line.substring(position, (separator < 0) ? length : separator).trim();
+				fields.add((field.isEmpty() || field.equals(MISSING_VALUE)) ? null : field);
+				position = separator;
+			}
+			isLastField = position < 0;
+			position++;
+		}
+	}
+
+	/**
+	 * @param field name of a variable or a state
+	 * @return The field, enclosed in quotes if it contains a separator or a quote, begins or ends with spaces,
+	 * which the reader trims, or is the missing value
+	 * @throws IOException if the field contains a line break, which the reader can not parse
+	 */
+	private static String escape(String field) throws IOException {
+		if (field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+			throw new IOException("The name " + field + " contains a line break");
+		}
+		if (field.indexOf(SEPARATOR) < 0 && field.indexOf(QUOTE) < 0 && !field.equals(MISSING_VALUE) && !field
+				.isEmpty() && !isSpace(field.charAt(0)) && !isSpace(field.charAt(field.length() - 1))) {
+			return field;
+		}
+		return QUOTE + field.replace("\"", "\"\"") + QUOTE;
+	}
+
+	/**
+	 * @param character a character
+	 * @return true if the reader skips it at the beginning of a field or trims it at the end
+	 */
+	private static boolean isSpace(char character) {
+		return character <= ' ' || Character.isWhitespace(character);
+	}
+}
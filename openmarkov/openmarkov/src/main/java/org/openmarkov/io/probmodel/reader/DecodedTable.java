@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.io.probmodel.reader;
+
+import org.jdom2.located.LocatedElement;
+
+/**
+ * <code>Values</code> element of a table read by {@code PGMXStreamReader}, which holds the values already decoded
+ * instead of their text. It belongs to the document of a single load, so it is discarded with the potential.
+ */
+class DecodedTable extends LocatedElement {
+
+    private static final long serialVersionUID = 1L;
+
+    // Attributes
+    private double[] values;
+
+    // Constructor
+    /**
+     * @param name Name of the element
+     */
+    DecodedTable( String name ) {
+        super( name );
+    }
+
+    // Methods
+    /**
+     * @return The decoded values, or <code>null</code> while the table is being read
+     */
+    double[] getValues() {
+        return values;
+    }
+
+    /**
+     * @param values Decoded values
+     */
+    void setValues( double[] values ) {
+        this.values = values;
+    }
+
+}
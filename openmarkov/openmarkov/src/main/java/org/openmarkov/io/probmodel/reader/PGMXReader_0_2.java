@@ -637,7 +637,7 @@ public class PGMXReader_0_2 implements ProbNetReader {
         {
             throw new PGMXParserException( "No network type found", xMLProbNet );
         }
-        NetworkTypeManager networkTypeManager = new NetworkTypeManager();
+        NetworkTypeManager networkTypeManager = NetworkTypeManager.getUniqueInstance();
         NetworkType networkType = networkTypeManager.getNetworkType( sType );
         if ( networkType == null )
         {
@@ -1600,7 +1600,7 @@ public class PGMXReader_0_2 implements ProbNetReader {
     protected TablePotential getTablePotential(Element xmlPotential, ProbNet probNet, PotentialRole xmlRole,
                                                List<Variable> variables ) {
         Element xmlRootTable = getXMLRootTable( xmlPotential );
-        double[] table = parseDoubles( xmlRootTable.getTextNormalize() );
+        double[] table = getTableValues( xmlRootTable );
         TablePotential tablePotential = new TablePotential( variables, xmlRole, table );
 
         Element xmlRootUncertainValues = xmlPotential.getChild( XMLTags.UNCERTAIN_VALUES.toString() );
@@ -1620,7 +1620,7 @@ public class PGMXReader_0_2 implements ProbNetReader {
     protected ExactDistrPotential getExactDistrPotential( Element xmlPotential, ProbNet probNet, PotentialRole xmlRole,
                                                           List<Variable> variables ) {
         Element xmlRootTable = getXMLRootTable( xmlPotential );
-        double[] table = parseDoubles( xmlRootTable.getTextNormalize() );
+        double[] table = getTableValues( xmlRootTable );
         ExactDistrPotential exactDistrPotential = new ExactDistrPotential( variables, xmlRole, table );
 
         Element xmlRootUncertainValues = xmlPotential.getChild( XMLTags.UNCERTAIN_VALUES.toString() );
@@ -1874,7 +1874,7 @@ public class PGMXReader_0_2 implements ProbNetReader {
         for ( Element subpotential : xmlPotential.getChild( XMLTags.SUBPOTENTIALS.toString() ).getChildren() )
         {
             List<Element> subpotentialVariables = subpotential.getChild( XMLTags.VARIABLES.toString() ).getChildren();
-            double[] values = parseDoubles( subpotential.getChild( XMLTags.VALUES.toString() ).getTextNormalize() );
+            double[] values = getTableValues( subpotential.getChild( XMLTags.VALUES.toString() ) );
             if ( subpotentialVariables.size() > 1 )
             {
                 Variable variable = getVariable( subpotentialVariables.get( 1 ), probNet );
@@ -2157,6 +2157,19 @@ public class PGMXReader_0_2 implements ProbNetReader {
         return cycleLengthShift;
     }
 
+    /**
+     * @param xmlRootTable <code>Values</code> element
+     * @return The values of the table, taken from the element when the streaming reader has already decoded them
+     */
+    protected double[] getTableValues( Element xmlRootTable )
+    {
+        if ( xmlRootTable instanceof DecodedTable )
+        {
+            return ( (DecodedTable) xmlRootTable ).getValues();
+        }
+        return parseDoubles( xmlRootTable.getTextNormalize() );
+    }
+
     protected double[] parseDoubles( String string )
     {
         String[] sValues = string.split( " " );
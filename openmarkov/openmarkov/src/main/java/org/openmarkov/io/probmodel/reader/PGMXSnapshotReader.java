@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.io.probmodel.reader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.jdom2.Element;
+import org.openmarkov.core.exception.ParserException;
+import org.openmarkov.core.io.ProbNetInfo;
+import org.openmarkov.core.io.format.annotation.FormatType;
+import org.openmarkov.io.probmodel.exception.PGMXParserException;
+import org.openmarkov.io.probmodel.strings.XMLAttributes;
+import org.openmarkov.io.probmodel.writer.PGMXSnapshotWriter;
+
+/**
+ * Reads the snapshots written by <code>PGMXSnapshotWriter</code>. The file is memory mapped; the document is
+ * read with <code>PGMXStreamReader</code> and the values of each table are copied in bulk from the mapped
+ * region, without parsing.
+ */
+@FormatType(name = "PGMXSnapshotReader", version = "0.2", extension = "pgmxs", description = "OpenMarkov snapshot.0.2", role = "Reader")
+public class PGMXSnapshotReader extends PGMXStreamReader {
+
+    // Attributes
+    /**
+     * Snapshot being read
+     */
+    private ByteBuffer snapshot;
+
+    /**
+     * Values of the tables of the snapshot being read
+     */
+    private DoubleBuffer tables;
+
+    // Methods
+    /**
+     * @param netName = path + network name + extension. <code>String</code>
+     * @param inputStream InputStream[]
+     * @return The <code>ProbNetInfo</code> read
+     * @throws ParserException
+     */
+    @Override
+    public ProbNetInfo loadProbNetInfo( String netName, InputStream... inputStream ) throws ParserException {
+        if ( inputStream.length > 1 ) {
+            throw new ParserException( "Only is allowed to open ONE InputStream, not " + inputStream.length + "." );
+        }
+        try {
+            snapshot = ( inputStream.length == 0 ) ? mapFile( netName ) : readStream( inputStream[0] );
+        }
+        catch ( NoSuchFileException e ) {
+            throw new ParserException( "File " + netName + " not found." );
+        }
+        catch ( IOException e ) {
+            throw new ParserException( "Error trying to open " + netName + ".\n" + e.getMessage() );
+        }
+        try {
+            return readSnapshot( netName );
+        }
+        finally {
+            snapshot = null;
+            tables = null;
+        }
+    }
+
+    /**
+     * @param netName = path + network name + extension. <code>String</code>
+     * @return The <code>ProbNetInfo</code> read
+     * @throws ParserException
+     */
+    private ProbNetInfo readSnapshot( String netName ) throws ParserException {
+        snapshot.order( ByteOrder.LITTLE_ENDIAN );
+        byte[] magic = new byte[PGMXSnapshotWriter.MAGIC.length];
+        int version = -1;
+        if ( snapshot.remaining() >= PGMXSnapshotWriter.HEADER_SIZE ) {
+            snapshot.get( magic );
+            version = snapshot.getInt();
+        }
+        if ( !Arrays.equals( magic, PGMXSnapshotWriter.MAGIC ) ) {
+            throw new ParserException( netName + " is not a network snapshot." );
+        }
+        if ( version != PGMXSnapshotWriter.SNAPSHOT_VERSION ) {
+            throw new ParserException( "The snapshot version " + version + " is not readable in this OpenMarkov version." );
+        }
+        snapshot.getInt(); // Number of tables, checked when they are read
+        long documentOffset = snapshot.getLong();
+        long documentLength = snapshot.getLong();
+        // Compared without adding them, which could overflow
+        if ( documentOffset < PGMXSnapshotWriter.HEADER_SIZE || documentOffset > snapshot.limit()
+                || documentLength < 0 || documentLength > snapshot.limit() - documentOffset ) {
+            throw new ParserException( "The snapshot " + netName + " is truncated." );
+        }
+        tables = ( (ByteBuffer) snapshot.duplicate().order( ByteOrder.LITTLE_ENDIAN ).position( 0 ) ).asDoubleBuffer();
+        byte[] document = new byte[(int) documentLength];
+        snapshot.position( (int) documentOffset );
+        snapshot.get( document );
+        ProbNetInfo probNetInfo = readNetwork( netName, new ByteArrayInputStream( document ) );
+        if ( probNetInfo == null ) { // Object oriented network, written with its tables in the document
+            probNetInfo = new PGMXReader_0_2().loadProbNetInfo( netName, new ByteArrayInputStream( document ) );
+        }
+        return probNetInfo;
+    }
+
+    /**
+     * @param xmlRootTable <code>Values</code> element whose content has not been read yet
+     * @return The values of the table referenced by <code>xmlRootTable</code> or <code>null</code> when they
+     * are written in the document
+     * @throws PGMXParserException
+     */
+    @Override
+    protected double[] getStoredTable( Element xmlRootTable ) throws PGMXParserException {
+        String index = xmlRootTable.getAttributeValue( XMLAttributes.TABLE.toString() );
+        if ( index == null ) {
+            return null;
+        }
+        try {
+            int table = Integer.parseInt( index );
+            int numTables = snapshot.getInt( PGMXSnapshotWriter.MAGIC.length + Integer.BYTES );
+            long entryEnd = PGMXSnapshotWriter.HEADER_SIZE
+                    + (long) PGMXSnapshotWriter.TABLE_ENTRY_SIZE * ( table + 1L );
+            if ( table < 0 || table >= numTables || entryEnd > snapshot.limit() ) {
+                throw new PGMXParserException( "Table " + table + " not found in the snapshot.", xmlRootTable );
+            }
+            int entry = (int) ( entryEnd - PGMXSnapshotWriter.TABLE_ENTRY_SIZE );
+            long offset = snapshot.getLong( entry );
+            long length = snapshot.getLong( entry + Long.BYTES );
+            if ( offset < 0 || offset % Double.BYTES != 0 || offset > snapshot.limit() || length < 0
+                    || length > ( snapshot.limit() - offset ) / Double.BYTES ) {
+                throw new PGMXParserException( "Table " + table + " out of the snapshot.", xmlRootTable );
+            }
+            double[] values = new double[(int) length];
+            DoubleBuffer tableValues = tables.duplicate();
+            tableValues.position( (int) ( offset / Double.BYTES ) );
+            tableValues.get( values );
+            return values;
+        }
+        catch ( NumberFormatException e ) {
+            throw new PGMXParserException( "Wrong table index " + index + ".", xmlRootTable );
+        }
+    }
+
+    /**
+     * @param netName = path + network name + extension. <code>String</code>
+     * @return The file mapped in memory
+     * @throws IOException
+     */
+    private ByteBuffer mapFile( String netName ) throws IOException {
+        try ( FileChannel channel = FileChannel.open( Paths.get( netName ), StandardOpenOption.READ ) ) {
+            return channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+        }
+    }
+
+    /**
+     * @param stream <code>InputStream</code>
+     * @return The content of <code>stream</code>, memory mapped when it is a file
+     * @throws IOException
+     */
+    private ByteBuffer readStream( InputStream stream ) throws IOException {
+        if ( stream instanceof FileInputStream ) {
+            FileChannel channel = ( (FileInputStream) stream ).getChannel();
+            return channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1 << 16];
+        int numBytes;
+        while ( ( numBytes = stream.read( buffer ) ) >= 0 ) {
+            content.write( buffer, 0, numBytes );
+        }
+        return ByteBuffer.wrap( content.toByteArray() );
+    }
+
+}
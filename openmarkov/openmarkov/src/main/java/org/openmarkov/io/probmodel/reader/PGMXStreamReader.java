@@ -0,0 +1,617 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.io.probmodel.reader;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.jdom2.Element;
+import org.jdom2.located.LocatedJDOMFactory;
+import org.openmarkov.core.exception.ParserException;
+import org.openmarkov.core.io.ProbNetInfo;
+import org.openmarkov.core.io.ProbNetReader;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.VariableType;
+import org.openmarkov.core.model.network.potential.ExactDistrPotential;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.model.network.potential.plugin.PotentialManager;
+import org.openmarkov.io.probmodel.exception.PGMXParserException;
+import org.openmarkov.io.probmodel.strings.XMLAttributes;
+import org.openmarkov.io.probmodel.strings.XMLTags;
+
+/**
+ * Reads PGMX files in one pass with a StAX parser instead of building the whole JDOM document first.
+ * Each variable, link and potential is converted as soon as its closing tag is read and then discarded,
+ * and the <code>Values</code> of table potentials are decoded directly into a <code>double[]</code> sized
+ * from the domain of the potential. The conversion of every element is delegated to the
+ * <code>PGMXReader</code> of the version of the file, so the resulting <code>ProbNet</code> is the same.
+ * <p>
+ * Elements are expected in the order written by <code>PGMXWriter</code>: the properties of the network
+ * before <code>Variables</code>, and <code>Variables</code> before <code>Links</code> and
+ * <code>Potentials</code>. Object oriented networks are read with <code>PGMXReader_0_2</code>.
+ */
+public class PGMXStreamReader implements ProbNetReader {
+
+    /**
+     * Initial size of a table whose domain can not be computed
+     */
+    private static final int DEFAULT_TABLE_SIZE = 16;
+
+    /**
+     * Powers of ten exactly representable as doubles
+     */
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    /**
+     * Mantissas below this bound are exactly representable as doubles
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    // Methods
+    @Override
+    /**
+     * @param netName = path + network name + extension. <code>String</code>
+     * @param inputStream InputStream[]
+     * @throws ParserException
+     */
+    public ProbNet loadProbNet( String netName, InputStream... inputStream ) throws ParserException {
+        ProbNetInfo probNetInfo = loadProbNetInfo( netName, inputStream );
+        if ( probNetInfo == null ) {
+            throw new ParserException( "No ProbNet in ProbNetInfo." );
+        }
+        return probNetInfo.getProbNet();
+    }
+
+    /**
+     * @param netName = path + network name + extension. <code>String</code>
+     * @param inputStream InputStream[]
+     * @return The <code>ProbNetInfo</code> read
+     * @throws ParserException
+     */
+    @Override
+    public ProbNetInfo loadProbNetInfo( String netName, InputStream... inputStream ) throws ParserException {
+        ProbNetInfo probNetInfo;
+        if ( inputStream.length == 0 ) {
+            InputStream stream;
+            try {
+                stream = new FileInputStream( netName );
+            }
+            catch ( FileNotFoundException e ) {
+                throw new ParserException( "File " + netName + " not found." );
+            }
+            try {
+                probNetInfo = readNetwork( netName, stream );
+            }
+            finally {
+                try {
+                    stream.close();
+                }
+                catch ( IOException e ) {
+                    // Nothing left to read
+                }
+            }
+            if ( probNetInfo == null ) { // Object oriented network: read it again with JDOM
+                probNetInfo = new PGMXReader_0_2().loadProbNetInfo( netName );
+            }
+        }
+        else {
+            if ( inputStream.length > 1 ) {
+                throw new ParserException( "Only is allowed to open ONE InputStream, not " + inputStream.length + "." );
+            }
+            probNetInfo = readNetwork( netName, inputStream[0] );
+            if ( probNetInfo == null ) {
+                throw new ParserException( "The object oriented network " + netName
+                        + " can not be read from a stream. Use PGMXReader_0_2 instead." );
+            }
+        }
+        return probNetInfo;
+    }
+
+    /**
+     * @param netName = path + network name + extension. <code>String</code>
+     * @param stream PGMX document
+     * @return The <code>ProbNetInfo</code> read or <code>null</code> when the network is object oriented
+     * @throws ParserException
+     */
+    ProbNetInfo readNetwork( String netName, InputStream stream ) throws ParserException {
+        return new NetworkStream( netName, stream ).read();
+    }
+
+    /**
+     * Extension point for formats that keep the values of the tables outside the XML
+     * @param xmlRootTable <code>Values</code> element whose content has not been read yet
+     * @return The values of the table or <code>null</code> to decode the text of <code>xmlRootTable</code>
+     * @throws PGMXParserException
+     */
+    protected double[] getStoredTable( Element xmlRootTable ) throws PGMXParserException {
+        return null;
+    }
+
+    /**
+     * @param chars token
+     * @param length number of characters of the token
+     * @return The value of the token, computed without creating a <code>String</code> when the mantissa and
+     * the exponent are small enough for the result to be exact
+     * @throws NumberFormatException when the token is not a number
+     */
+    static double parseDouble( char[] chars, int length ) {
+        int i = 0;
+        boolean negative = false;
+        if ( length > 0 && ( chars[0] == '-' || chars[0] == '+' ) ) {
+            negative = chars[0] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean digits = false;
+        boolean point = false;
+        boolean exact = true;
+        for ( ; i < length && exact; i++ ) {
+            char c = chars[i];
+            if ( c >= '0' && c <= '9' ) {
+                digits = true;
+                if ( mantissa != 0 || c != '0' ) {
+                    exact = ++significantDigits <= 18;
+                }
+                mantissa = mantissa * 10 + ( c - '0' );
+                if ( point ) {
+                    exponent--;
+                }
+            }
+            else if ( c == '.' && !point ) {
+                point = true;
+            }
+            else {
+                break;
+            }
+        }
+        if ( exact && digits && i < length && ( chars[i] == 'e' || chars[i] == 'E' ) ) {
+            i++;
+            boolean negativeExponent = false;
+            if ( i < length && ( chars[i] == '-' || chars[i] == '+' ) ) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            int exponentStart = i;
+            int explicitExponent = 0;
+            for ( ; i < length && chars[i] >= '0' && chars[i] <= '9' && explicitExponent < 1000; i++ ) {
+                explicitExponent = explicitExponent * 10 + ( chars[i] - '0' );
+            }
+            exact = i > exponentStart;
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if ( exact && digits && i == length ) {
+            if ( mantissa == 0 ) {
+                return negative ? -0.0 : 0.0;
+            }
+            if ( mantissa < MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22 ) {
+                double value = ( exponent < 0 ) ? mantissa / POWERS_OF_TEN[-exponent]
+                        : mantissa * POWERS_OF_TEN[exponent];
+                return negative ? -value : value;
+            }
+        }
+        return Double.parseDouble( new String( chars, 0, length ) );
+    }
+
+    /**
+     * Decodes the content of a <code>Values</code> element, that may arrive split in several chunks, into a
+     * <code>double[]</code>
+     */
+    private static class TableDecoder {
+
+        private double[] values;
+
+        private int size = 0;
+
+        private char[] token = new char[32];
+
+        private int tokenLength = 0;
+
+        /**
+         * @param expectedSize number of values expected
+         */
+        TableDecoder( int expectedSize ) {
+            values = new double[Math.max( expectedSize, 1 )];
+        }
+
+        /**
+         * @param chars characters of the chunk
+         * @param start first character of the chunk
+         * @param length length of the chunk
+         */
+        void decode( char[] chars, int start, int length ) {
+            int end = start + length;
+            for ( int i = start; i < end; i++ ) {
+                char c = chars[i];
+                if ( c == ' ' || c == '\n' || c == '\t' || c == '\r' ) {
+                    endToken();
+                }
+                else {
+                    if ( tokenLength == token.length ) {
+                        token = Arrays.copyOf( token, 2 * tokenLength );
+                    }
+                    token[tokenLength++] = c;
+                }
+            }
+        }
+
+        /**
+         * @return The values decoded
+         */
+        double[] getValues() {
+            endToken();
+            return ( size == values.length ) ? values : Arrays.copyOf( values, size );
+        }
+
+        private void endToken() {
+            if ( tokenLength > 0 ) {
+                if ( size == values.length ) {
+                    values = Arrays.copyOf( values, 2 * size );
+                }
+                values[size++] = parseDouble( token, tokenLength );
+                tokenLength = 0;
+            }
+        }
+    }
+
+    /**
+     * State of the reading of one network
+     */
+    private class NetworkStream {
+
+        private final String netName;
+
+        private final InputStream stream;
+
+        private final LocatedJDOMFactory factory = new LocatedJDOMFactory();
+
+        private XMLStreamReader xml;
+
+        /**
+         * Reader of the version of the file, that converts the elements
+         */
+        private PGMXReader_0_2 reader;
+
+        /**
+         * Root element without the network
+         */
+        private Element root;
+
+        /**
+         * Network element with only the small children used to initialize the network
+         */
+        private Element xMLProbNet;
+
+        private ProbNet probNet;
+
+        /**
+         * True when a variable could not be read. As in <code>PGMXReader_0_2</code>, links and potentials
+         * are then ignored
+         */
+        private boolean structureFailed = false;
+
+        /**
+         * Text of the current element not yet added to it
+         */
+        private final StringBuilder text = new StringBuilder();
+
+        private boolean cdata = false;
+
+        private int textLine;
+
+        private int textColumn;
+
+        NetworkStream( String netName, InputStream stream ) {
+            this.netName = netName;
+            this.stream = stream;
+        }
+
+        /**
+         * @return The <code>ProbNetInfo</code> read or <code>null</code> when the network is object oriented
+         * @throws ParserException
+         */
+        ProbNetInfo read() throws ParserException {
+            XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+            inputFactory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false );
+            try {
+                xml = inputFactory.createXMLStreamReader( stream );
+                try {
+                    xml.nextTag();
+                    root = startElement();
+                    String strVersion = root.getAttributeValue( XMLAttributes.FORMAT_VERSION.toString() );
+                    reader = ReaderFactory.getReader( strVersion );
+                    while ( nextChild( root ) ) {
+                        if ( xMLProbNet == null && xml.getLocalName().equals( reader.getStringTagNetwork() ) ) {
+                            if ( !readProbNet() ) {
+                                return null;
+                            }
+                        }
+                        else {
+                            readElement( root );
+                        }
+                    }
+                }
+                finally {
+                    xml.close();
+                }
+            }
+            catch ( XMLStreamException e ) {
+                throw new ParserException( "Can not parse XML document " + netName + ":" + e.getMessage() );
+            }
+            reader.getInferenceOptions( root, probNet );
+            List<EvidenceCase> evidence = reader.getEvidence( root, probNet );
+            reader.getPolicies( root, probNet );
+            return new ProbNetInfo( probNet, evidence );
+        }
+
+        /**
+         * Reads the network, converting variables, links and potentials one by one
+         * @return <code>false</code> when the network is object oriented
+         * @throws XMLStreamException
+         * @throws PGMXParserException
+         */
+        private boolean readProbNet() throws XMLStreamException, PGMXParserException {
+            xMLProbNet = startElement();
+            root.addContent( xMLProbNet );
+            while ( nextChild( xMLProbNet ) ) {
+                String name = xml.getLocalName();
+                if ( name.equals( XMLTags.OOPN.toString() ) ) {
+                    return false;
+                }
+                else if ( name.equals( XMLTags.VARIABLES.toString() ) ) {
+                    readVariables();
+                }
+                else if ( name.equals( XMLTags.LINKS.toString() ) ) {
+                    readLinks();
+                }
+                else if ( name.equals( XMLTags.POTENTIALS.toString() ) ) {
+                    readPotentials();
+                }
+                else {
+                    readElement( xMLProbNet );
+                }
+            }
+            initializeProbNet();
+            reader.getNetworkAdvancedInformation( xMLProbNet, probNet, netName, new HashMap<String, ProbNet>() );
+            return true;
+        }
+
+        private void initializeProbNet() throws PGMXParserException {
+            if ( probNet == null ) {
+                probNet = reader.initializeProbNet( xMLProbNet, netName );
+            }
+        }
+
+        private void readVariables() throws XMLStreamException, PGMXParserException {
+            initializeProbNet();
+            Element xmlVariablesRoot = startElement();
+            while ( nextChild( null ) ) {
+                Element variableElement = readElement( xmlVariablesRoot );
+                if ( !structureFailed ) {
+                    try {
+                        reader.loadVariable( variableElement, probNet );
+                    }
+                    catch ( PGMXParserException e ) {
+                        System.err.println( e.getMessage() );
+                        structureFailed = true;
+                    }
+                }
+                variableElement.detach();
+            }
+        }
+
+        private void readLinks() throws XMLStreamException, PGMXParserException {
+            initializeProbNet();
+            Element xmlLinksRoot = startElement();
+            Element linksHolder = new Element( reader.getStringTagNetwork() );
+            linksHolder.addContent( xmlLinksRoot );
+            while ( nextChild( null ) ) {
+                Element xmlLink = readElement( xmlLinksRoot );
+                if ( !structureFailed ) {
+                    reader.getLinks( linksHolder, probNet );
+                }
+                xmlLink.detach();
+            }
+        }
+
+        private void readPotentials() throws XMLStreamException, PGMXParserException {
+            initializeProbNet();
+            Element xmlPotentialsRoot = startElement();
+            while ( nextChild( null ) ) {
+                Element xmlPotential = readElement( xmlPotentialsRoot );
+                if ( !structureFailed ) {
+                    probNet.addPotential( reader.getPotential( xmlPotential, probNet ) );
+                }
+                xmlPotential.detach();
+            }
+        }
+
+        /**
+         * Reads the current element with all its content and adds it to <code>parent</code>
+         * @param parent <code>Element</code>
+         * @return The element read
+         * @throws XMLStreamException
+         * @throws PGMXParserException
+         */
+        private Element readElement( Element parent ) throws XMLStreamException, PGMXParserException {
+            if ( isTable( xml.getLocalName(), parent ) ) {
+                Location location = xml.getLocation();
+                DecodedTable table = new DecodedTable( xml.getLocalName() );
+                table.setLine( location.getLineNumber() );
+                table.setColumn( location.getColumnNumber() );
+                addAttributes( table );
+                parent.addContent( table );
+                readTable( table );
+                return table;
+            }
+            Element element = startElement();
+            parent.addContent( element );
+            while ( nextChild( element ) ) {
+                readElement( element );
+            }
+            return element;
+        }
+
+        /**
+         * @param name Name of the element just started
+         * @param xmlPotential Parent of the element
+         * @return <code>true</code> when the element holds the values of a table potential
+         */
+        private boolean isTable( String name, Element xmlPotential ) {
+            if ( !name.equals( XMLTags.VALUES.toString() )
+                    || !xmlPotential.getName().equals( XMLTags.POTENTIAL.toString() ) ) {
+                return false;
+            }
+            String type = xmlPotential.getAttributeValue( XMLAttributes.TYPE.toString() );
+            return type != null && ( type.equalsIgnoreCase( PotentialManager.getPotentialName( TablePotential.class ) )
+                    || type.equalsIgnoreCase( PotentialManager.getPotentialName( ExactDistrPotential.class ) ) );
+        }
+
+        /**
+         * Decodes the values of a table into <code>xmlRootTable</code>, without keeping its text
+         * @param xmlRootTable <code>Values</code> element
+         * @throws XMLStreamException
+         * @throws PGMXParserException
+         */
+        private void readTable( DecodedTable xmlRootTable ) throws XMLStreamException, PGMXParserException {
+            double[] table = getStoredTable( xmlRootTable );
+            TableDecoder decoder = ( table == null ) ? new TableDecoder( getTableSize( xmlRootTable.getParentElement() ) )
+                    : null;
+            try {
+                for ( int event = xml.next(); event != XMLStreamConstants.END_ELEMENT; event = xml.next() ) {
+                    if ( decoder != null && ( event == XMLStreamConstants.CHARACTERS
+                            || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE ) ) {
+                        decoder.decode( xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength() );
+                    }
+                    else if ( event == XMLStreamConstants.START_ELEMENT ) {
+                        readElement( xmlRootTable );
+                    }
+                }
+                xmlRootTable.setValues( ( decoder == null ) ? table : decoder.getValues() );
+            }
+            catch ( NumberFormatException e ) {
+                throw new PGMXParserException( "Wrong number in table: " + e.getMessage(), xmlRootTable );
+            }
+        }
+
+        /**
+         * @param xmlPotential <code>Potential</code> element
+         * @return The number of configurations of the variables of the potential, or a default size when
+         * they can not be found
+         */
+        private int getTableSize( Element xmlPotential ) {
+            Element xmlRootVariables = reader.getXMLPotentialVariables( xmlPotential );
+            if ( probNet == null || xmlRootVariables == null ) {
+                return DEFAULT_TABLE_SIZE;
+            }
+            long tableSize = 1;
+            try {
+                for ( Element xmlVariable : reader.getXMLChildren( xmlRootVariables ) ) {
+                    Variable variable = reader.getVariable( xmlVariable, probNet );
+                    if ( variable.getVariableType() == VariableType.NUMERIC ) {
+                        return DEFAULT_TABLE_SIZE;
+                    }
+                    tableSize *= variable.getNumStates();
+                    if ( tableSize > Integer.MAX_VALUE - 8 ) {
+                        return DEFAULT_TABLE_SIZE;
+                    }
+                }
+            }
+            catch ( PGMXParserException e ) {
+                return DEFAULT_TABLE_SIZE;
+            }
+            return (int) tableSize;
+        }
+
+        /**
+         * Creates an element, with its location and attributes, for the current start tag
+         * @return <code>Element</code>
+         */
+        private Element startElement() {
+            Location location = xml.getLocation();
+            Element element = factory.element( location.getLineNumber(), location.getColumnNumber(),
+                    xml.getLocalName() );
+            addAttributes( element );
+            return element;
+        }
+
+        /**
+         * Adds to <code>element</code> the attributes of the element just started
+         * @param element <code>Element</code>
+         */
+        private void addAttributes( Element element ) {
+            for ( int i = 0; i < xml.getAttributeCount(); i++ ) {
+                element.setAttribute( factory.attribute( xml.getAttributeLocalName( i ), xml.getAttributeValue( i ) ) );
+            }
+        }
+
+        /**
+         * Moves to the next child of the current element, adding the text found to <code>element</code>
+         * @param element Current element or <code>null</code> to discard its text
+         * @return <code>true</code> when a child starts, <code>false</code> when the current element ends
+         * @throws XMLStreamException
+         */
+        private boolean nextChild( Element element ) throws XMLStreamException {
+            while ( true ) {
+                int event = xml.next();
+                switch ( event ) {
+                case XMLStreamConstants.START_ELEMENT:
+                    addText( element );
+                    return true;
+                case XMLStreamConstants.END_ELEMENT:
+                case XMLStreamConstants.END_DOCUMENT:
+                    addText( element );
+                    return false;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.CDATA:
+                    if ( element != null ) {
+                        boolean isCData = event == XMLStreamConstants.CDATA;
+                        if ( isCData != cdata ) {
+                            addText( element );
+                            cdata = isCData;
+                        }
+                        if ( text.length() == 0 ) {
+                            textLine = xml.getLocation().getLineNumber();
+                            textColumn = xml.getLocation().getColumnNumber();
+                        }
+                        text.append( xml.getTextCharacters(), xml.getTextStart(), xml.getTextLength() );
+                    }
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+
+        private void addText( Element element ) {
+            if ( element != null && text.length() > 0 ) {
+                String content = text.toString();
+                element.addContent( cdata ? factory.cdata( textLine, textColumn, content )
+                        : factory.text( textLine, textColumn, content ) );
+            }
+            text.setLength( 0 );
+        }
+    }
+
+}
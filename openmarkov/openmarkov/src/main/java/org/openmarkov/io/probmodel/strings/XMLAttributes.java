@@ -25,6 +25,7 @@ public enum XMLAttributes {
 	REF("ref"),
 	ROLE("role"),
 	SHOW_COMMENT("showWhenOpeningNetwork"),
+	TABLE("table"),
 	TIMESLICE("timeSlice"),
 	TYPE("type"),
 	VALUE("value"),
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.io.probmodel.writer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import org.openmarkov.core.exception.WriterException;
+import org.openmarkov.core.io.format.annotation.FormatType;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.core.oopn.OOPNet;
+import org.openmarkov.io.probmodel.strings.XMLAttributes;
+import org.openmarkov.io.probmodel.strings.XMLTags;
+
+/**
+ * Writes a binary snapshot of a network, meant to be loaded much faster than a PGMX file.
+ * <p>
+ * A snapshot has a header, the values of the tables as little endian doubles aligned to 8 bytes, so that they
+ * can be copied in bulk from a memory mapped file, and the rest of the network as a PGMX 0.2 document in which
+ * each <code>Values</code> element of a table potential has a <code>table</code> attribute with the index of
+ * its values instead of text. Layout:
+ * <pre>
+ * 0   MAGIC (8 bytes)
+ * 8   SNAPSHOT_VERSION (int)
+ * 12  number of tables (int)
+ * 16  offset of the document (long)
+ * 24  length of the document (long)
+ * 32  offset and number of values of each table (long, long)
+ *     values of the tables
+ *     document in UTF-8
+ * </pre>
+ * The tables of object oriented networks are kept in the document.
+ */
+@FormatType(name = "PGMXSnapshotWriter", version = "0.2", extension = "pgmxs", description = "OpenMarkov snapshot.0.2", role = "Writer")
+public class PGMXSnapshotWriter extends PGMXWriter_0_2 {
+
+	/** First bytes of every snapshot */
+	public static final byte[] MAGIC = "PGMXSNAP".getBytes(StandardCharsets.US_ASCII);
+
+	/** Version of the layout */
+	public static final int SNAPSHOT_VERSION = 1;
+
+	/** Size in bytes of the header, before the table directory */
+	public static final int HEADER_SIZE = 32;
+
+	/** Size in bytes of each entry of the table directory */
+	public static final int TABLE_ENTRY_SIZE = 16;
+
+	// Attributes
+	/** Values of the tables written, in the order of their indices */
+	private List<double[]> tables;
+
+	/** True when the tables are written as text in the document */
+	private boolean inlineTables;
+
+	// Methods
+	/**
+	 * @param netName = path + network name + extension.
+	 * @param probNet <code>ProbNet</code> <code>String</code>
+	 * @param evidences list of evidence cases. <code>ArrayList</code> of <code>EvidenceCase</code>
+	 */
+	public void writeProbNet(String netName, ProbNet probNet, List<EvidenceCase> evidences) throws WriterException {
+		UtilParameters.manageParametersWriter(netName, probNet);
+		tables = new ArrayList<>();
+		inlineTables = probNet instanceof OOPNet;
+		try {
+			ByteArrayOutputStream document = new ByteArrayOutputStream();
+			new XMLOutputter(Format.getRawFormat()).output(new Document(getXMLRoot(probNet, evidences)), document);
+			writeSnapshot(netName, document.toByteArray());
+		} catch (IOException e) {
+			throw new WriterException("General Input/Output error writing: " + netName + ".");
+		} finally {
+			tables = null;
+		}
+	}
+
+	/**
+	 * @param netName = path + network name + extension.
+	 * @param document PGMX document without the values of the tables
+	 * @throws WriterException WriterException
+	 */
+	private void writeSnapshot(String netName, byte[] document) throws WriterException {
+		long tablesOffset = HEADER_SIZE + (long) TABLE_ENTRY_SIZE * tables.size();
+		long documentOffset = tablesOffset;
+		for (double[] table : tables) {
+			documentOffset += (long) Double.BYTES * table.length;
+		}
+		long size = documentOffset + document.length;
+		if (size > Integer.MAX_VALUE) {
+			throw new WriterException("The network is too big for a snapshot: " + size + " bytes.");
+		}
+		try (FileChannel channel = FileChannel.open(Paths.get(netName), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.put(MAGIC);
+			buffer.putInt(SNAPSHOT_VERSION);
+			buffer.putInt(tables.size());
+			buffer.putLong(documentOffset);
+			buffer.putLong(document.length);
+			long tableOffset = tablesOffset;
+			for (double[] table : tables) {
+				buffer.putLong(tableOffset);
+				buffer.putLong(table.length);
+				tableOffset += (long) Double.BYTES * table.length;
+			}
+			DoubleBuffer values = buffer.asDoubleBuffer();
+			for (double[] table : tables) {
+				values.put(table);
+			}
+			buffer.position((int) documentOffset);
+			buffer.put(document);
+			buffer.force();
+		} catch (IOException e) {
+			throw new WriterException("General Input/Output error writing: " + netName + ".");
+		}
+	}
+
+	/**
+	 * Writes a reference to the values of the table instead of the values
+	 *
+	 * @param potential
+	 * @param potentialElement
+	 */
+	protected void getValuesTablePotential(TablePotential potential, Element potentialElement) {
+		if (inlineTables) {
+			super.getValuesTablePotential(potential, potentialElement);
+			return;
+		}
+		Element valuesElement = new Element(XMLTags.VALUES.toString());
+		valuesElement.setAttribute(XMLAttributes.TABLE.toString(), String.valueOf(tables.size()));
+		tables.add(potential.values);
+		potentialElement.addContent(valuesElement);
+		if (potential.getUncertainValues() != null) {
+			Element uncertainValuesElement = getUncertainValuesElement(potential);
+			potentialElement.addContent(uncertainValuesElement);
+		}
+	}
+}
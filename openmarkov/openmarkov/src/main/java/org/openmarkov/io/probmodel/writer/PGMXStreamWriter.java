@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.io.probmodel.writer;
+
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.jdom2.Attribute;
+import org.jdom2.CDATA;
+import org.jdom2.Comment;
+import org.jdom2.Content;
+import org.jdom2.Element;
+import org.jdom2.Text;
+import org.jdom2.output.Format;
+import org.openmarkov.core.exception.WriterException;
+import org.openmarkov.core.model.network.EvidenceCase;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.TablePotential;
+import org.openmarkov.io.probmodel.strings.XMLTags;
+
+/**
+ * Writes PGMX 0.5 files with a StAX writer, with the same content as <code>PGMXWriter_0_5</code>.
+ * <p>
+ * The elements of the network are still created by <code>PGMXWriter_0_5</code>, but the potentials are
+ * created and written one by one, and the values of the tables are formatted directly from their
+ * <code>double[]</code> instead of being converted into a <code>String</code> inside the JDOM tree. As numbers
+ * need no escaping, they are written to the underlying <code>Writer</code>, bypassing the escaping of the
+ * <code>XMLStreamWriter</code>.
+ */
+public class PGMXStreamWriter extends PGMXWriter_0_5 {
+
+	/** Size of the buffer used to write the values of the tables */
+	private static final int BUFFER_SIZE = 8192;
+
+	/** Longest representation of a double written by <code>formatDouble</code> */
+	private static final int MAX_DOUBLE_LENGTH = 32;
+
+	/** Powers of ten exactly representable as doubles */
+	private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17};
+
+	/** Mantissas below this bound are exactly representable as doubles */
+	private static final double MAX_EXACT_MANTISSA = 1L << 53;
+
+	// Attributes
+	private XMLStreamWriter xml;
+
+	/** Destination of <code>xml</code> */
+	private Writer out;
+
+	private ProbNet probNet;
+
+	/** Element whose potentials are created while it is written */
+	private Element potentialsElement;
+
+	/** Values of the tables, indexed by their <code>Values</code> element */
+	private final Map<Element, double[]> tables = new IdentityHashMap<>();
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	private final Format format = Format.getPrettyFormat();
+
+	// Methods
+	/**
+	 * @param netName = path + network name + extension.
+	 * @param probNet <code>ProbNet</code>
+	 * @param evidences list of evidence cases. <code>ArrayList</code> of <code>EvidenceCase</code>
+	 */
+	public void writeProbNet(String netName, ProbNet probNet, List<EvidenceCase> evidences) throws WriterException {
+		UtilParameters.manageParametersWriter(netName, probNet);
+		formatVersionNumber = "0.5.0";
+		this.probNet = probNet;
+		try (Writer out = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(netName), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+			Element root = getXMLRoot(probNet, evidences);
+			this.out = out;
+			xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+			xml.writeStartDocument("UTF-8", "1.0");
+			xml.writeCharacters(format.getLineSeparator());
+			writeElement(root, 0);
+			xml.writeCharacters(format.getLineSeparator());
+			xml.writeEndDocument();
+			xml.close();
+		} catch (FileNotFoundException e) {
+			throw new WriterException("Can not create: " + netName + " file.");
+		} catch (IOException | XMLStreamException e) {
+			throw new WriterException("General Input/Output error writing: " + netName + ".");
+		} finally {
+			xml = null;
+			this.out = null;
+			this.probNet = null;
+			potentialsElement = null;
+			tables.clear();
+		}
+	}
+
+	/**
+	 * Defers the creation of the potentials until the element is written
+	 *
+	 * @param probNet
+	 * @param probNetElement
+	 * @param potentialsElement
+	 */
+	protected void getPotentials(ProbNet probNet, Element probNetElement, Element potentialsElement) {
+		this.potentialsElement = potentialsElement;
+		probNetElement.addContent(potentialsElement);
+	}
+
+	/**
+	 * Keeps the values of the table to write them when the element is written
+	 *
+	 * @param potential
+	 * @param potentialElement
+	 */
+	protected void getValuesTablePotential(TablePotential potential, Element potentialElement) {
+		Element valuesElement = new Element(XMLTags.VALUES.toString());
+		tables.put(valuesElement, potential.values);
+		potentialElement.addContent(valuesElement);
+		if (potential.getUncertainValues() != null) {
+			Element uncertainValuesElement = getUncertainValuesElement(potential);
+			potentialElement.addContent(uncertainValuesElement);
+		}
+	}
+
+	/**
+	 * Writes an element with the indentation of <code>Format.getPrettyFormat()</code>
+	 *
+	 * @param element <code>Element</code>
+	 * @param depth depth of the element in the document
+	 * @throws XMLStreamException XMLStreamException
+	 */
+	private void writeElement(Element element, int depth) throws XMLStreamException {
+		double[] table = tables.remove(element);
+		boolean potentials = element == potentialsElement;
+		boolean hasChildren = potentials || !element.getChildren().isEmpty();
+		if (table == null && !hasChildren && element.getTextTrim().isEmpty()) {
+			xml.writeEmptyElement(element.getName());
+			writeAttributes(element);
+			return;
+		}
+		xml.writeStartElement(element.getName());
+		writeAttributes(element);
+		if (table != null) {
+			try {
+				writeValues(table);
+			} catch (IOException e) {
+				throw new XMLStreamException(e);
+			}
+		} else if (!hasChildren) {
+			for (Content content : element.getContent()) {
+				writeText(content);
+			}
+		} else {
+			for (Content content : element.getContent()) {
+				if (content instanceof Element) {
+					newLine(depth + 1);
+					writeElement((Element) content, depth + 1);
+				} else if (content instanceof Text && !((Text) content).getTextTrim().isEmpty()) {
+					newLine(depth + 1);
+					writeText(content);
+				} else if (content instanceof Comment) {
+					newLine(depth + 1);
+					xml.writeComment(((Comment) content).getText());
+				}
+			}
+			if (potentials) {
+				writePotentials(depth + 1);
+			}
+			newLine(depth);
+		}
+		xml.writeEndElement();
+	}
+
+	/**
+	 * Creates and writes the potentials one by one
+	 *
+	 * @param depth depth of the potentials in the document
+	 * @throws XMLStreamException XMLStreamException
+	 */
+	private void writePotentials(int depth) throws XMLStreamException {
+		for (Potential potential : probNet.getPotentials()) {
+			if (!isPolicy(probNet, potential)) {
+				Element potentialElement = new Element(XMLTags.POTENTIAL.toString());
+				getPotential(probNet, potential, potentialElement);
+				newLine(depth);
+				writeElement(potentialElement, depth);
+			}
+		}
+	}
+
+	private void writeAttributes(Element element) throws XMLStreamException {
+		for (Attribute attribute : element.getAttributes()) {
+			xml.writeAttribute(attribute.getName(), attribute.getValue());
+		}
+	}
+
+	private void writeText(Content content) throws XMLStreamException {
+		if (content instanceof CDATA) {
+			xml.writeCData(((CDATA) content).getTextTrim());
+		} else if (content instanceof Text) {
+			xml.writeCharacters(((Text) content).getTextTrim());
+		}
+	}
+
+	private void newLine(int depth) throws XMLStreamException {
+		xml.writeCharacters(format.getLineSeparator());
+		for (int i = 0; i < depth; i++) {
+			xml.writeCharacters(format.getIndent());
+		}
+	}
+
+	/**
+	 * Writes the values separated by spaces, formatting them in a buffer
+	 *
+	 * @param table array of double
+	 * @throws XMLStreamException XMLStreamException
+	 * @throws IOException IOException
+	 */
+	private void writeValues(double[] table) throws XMLStreamException, IOException {
+		// Closes the start tag and sends it to out
+		xml.writeCharacters("");
+		xml.flush();
+		int length = 0;
+		for (int i = 0; i < table.length; i++) {
+			if (length + MAX_DOUBLE_LENGTH + 1 > buffer.length) {
+				out.write(buffer, 0, length);
+				length = 0;
+			}
+			if (i > 0) {
+				buffer[length++] = ' ';
+			}
+			length = formatDouble(table[i], buffer, length);
+		}
+		out.write(buffer, 0, length);
+	}
+
+	/**
+	 * Writes a double that is read back as the same value. Values that are the quotient of an integer
+	 * mantissa of up to 53 bits and a power of ten up to 10^17 are written as a plain decimal with the fewest
+	 * decimals, without creating a <code>String</code>. The rest are written with
+	 * <code>Double.toString</code>.
+	 *
+	 * @param value double to write
+	 * @param chars buffer with room for at least <code>MAX_DOUBLE_LENGTH</code> characters after
+	 *              <code>position</code>
+	 * @param position first position to write
+	 * @return The position after the last character written
+	 */
+	static int formatDouble(double value, char[] chars, int position) {
+		double absolute = Math.abs(value);
+		if (absolute >= 1e-3 && absolute < 1e15) {
+			for (int decimals = 0; decimals < POWERS_OF_TEN.length; decimals++) {
+				double mantissa = Math.rint(absolute * POWERS_OF_TEN[decimals]);
+				if (mantissa >= MAX_EXACT_MANTISSA) {
+					break;
+				}
+				// Both operands are exact, so the quotient is what a parser returns for the decimal
+				if (mantissa / POWERS_OF_TEN[decimals] == absolute) {
+					if (value < 0) {
+						chars[position++] = '-';
+					}
+					return writeDecimal((long) mantissa, decimals, chars, position);
+				}
+			}
+		}
+		String string = Double.toString(value);
+		string.getChars(0, string.length(), chars, position);
+		return position + string.length();
+	}
+
+	/**
+	 * @param mantissa non negative mantissa
+	 * @param decimals number of decimals of the mantissa
+	 * @param chars buffer
+	 * @param position first position to write
+	 * @return The position after the last character written
+	 */
+	private static int writeDecimal(long mantissa, int decimals, char[] chars, int position) {
+		long divisor = (long) POWERS_OF_TEN[decimals];
+		long integerPart = mantissa / divisor;
+		int digits = 1;
+		for (long rest = integerPart / 10; rest > 0; rest /= 10) {
+			digits++;
+		}
+		position = writeDigits(integerPart, digits, chars, position);
+		chars[position++] = '.';
+		if (decimals == 0) {
+			chars[position++] = '0';
+			return position;
+		}
+		return writeDigits(mantissa % divisor, decimals, chars, position);
+	}
+
+	/**
+	 * Writes the last <code>digits</code> digits of <code>number</code>, right aligned in
+	 * <code>digits</code> characters
+	 *
+	 * @return The position after the last character written
+	 */
+	private static int writeDigits(long number, int digits, char[] chars, int position) {
+		int end = position + digits;
+		for (int i = end - 1; i >= position; i--) {
+			chars[i] = (char) ('0' + number % 10);
+			number /= 10;
+		}
+		return end;
+	}
+}
@@ -100,14 +100,8 @@ public class PGMXWriter_0_2 implements ProbNetWriter {
 	public void writeProbNet(String netName, ProbNet probNet, List<EvidenceCase> evidences) throws WriterException {
 		UtilParameters.manageParametersWriter(netName, probNet);
 		// PrintWriter out = new PrintWriter(new FileOutputStream(netName));
-		Element root = new Element("ProbModelXML");
-		root.setAttribute(XMLAttributes.FORMAT_VERSION.toString(), formatVersionNumber.toString());
 		try {
-			writeXMLProbNet(probNet, root);
-			writeInferenceOptions(probNet, root);
-			writePolicies(probNet, root);
-			writeEvidence(probNet, evidences, root);
-			Document document = new Document(root);
+			Document document = new Document(getXMLRoot(probNet, evidences));
 			XMLOutputter xmlOutputter = new XMLOutputter(Format.getPrettyFormat());
 			FileOutputStream out;
 			try {
@@ -128,6 +122,21 @@ public class PGMXWriter_0_2 implements ProbNetWriter {
 		}
 	}
 
+	/**
+	 * @param probNet <code>ProbNet</code>
+	 * @param evidences list of evidence cases. <code>ArrayList</code> of <code>EvidenceCase</code>
+	 * @return The root element of the document, with the network, inference options, policies and evidence
+	 */
+	protected Element getXMLRoot(ProbNet probNet, List<EvidenceCase> evidences) {
+		Element root = new Element("ProbModelXML");
+		root.setAttribute(XMLAttributes.FORMAT_VERSION.toString(), formatVersionNumber.toString());
+		writeXMLProbNet(probNet, root);
+		writeInferenceOptions(probNet, root);
+		writePolicies(probNet, root);
+		writeEvidence(probNet, evidences, root);
+		return root;
+	}
+
 	/**
 	 * Removes from <code>evidence</code> the variables that are no longer
 	 * present in <code>probNet</code>
@@ -1386,11 +1395,11 @@ public class PGMXWriter_0_2 implements ProbNetWriter {
 	 * @return String
 	 */
 	protected String getValuesInAString(double[] table) {
-		StringBuffer stringBuffer = new StringBuffer();
+		StringBuilder stringBuilder = new StringBuilder(8 * table.length);
 		for (double value : table) {
-			stringBuffer.append(String.valueOf(value) + " ");
+			stringBuilder.append(value).append(' ');
 		}
-		return stringBuffer.toString();
+		return stringBuilder.toString();
 	}
 
 	/**
@@ -1398,7 +1407,7 @@ public class PGMXWriter_0_2 implements ProbNetWriter {
 	 * @return String
 	 */
 	protected String getXMLNetworkType(ProbNet probNet) {
-		NetworkTypeManager networkTypeManager = new NetworkTypeManager();
+		NetworkTypeManager networkTypeManager = NetworkTypeManager.getUniqueInstance();
 		return networkTypeManager.getName(probNet.getNetworkType());
 	}
 
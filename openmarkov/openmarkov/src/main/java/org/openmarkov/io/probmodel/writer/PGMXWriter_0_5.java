@@ -126,10 +126,8 @@ public class PGMXWriter_0_5 extends PGMXWriter_0_2 implements ProbNetWriter {
 		// HashMap of declared TablePotentials
 		List<Potential> potentials = probNet.getPotentials();
 		for (Potential potential : potentials) {
-			Variable potentialVariable = potential.getVariable(0);
 			// Do not write here policies
-			if ((probNet.getNode(potentialVariable).getNodeType() != NodeType.DECISION)
-					&& (potential.getPotentialRole() != PotentialRole.POLICY)) {
+			if (!isPolicy(probNet, potential)) {
 				Element potentialElement = new Element(XMLTags.POTENTIAL.toString());
 				getPotential(probNet, potential, potentialElement);
 				potentialsElement.addContent(potentialElement);
@@ -138,6 +136,17 @@ public class PGMXWriter_0_5 extends PGMXWriter_0_2 implements ProbNetWriter {
 		probNetElement.addContent(potentialsElement);
 	}
 
+	/**
+	 * @param probNet
+	 * @param potential
+	 * @return true when the potential is written in the policies instead of in the potentials
+	 */
+	protected boolean isPolicy(ProbNet probNet, Potential potential) {
+		Variable potentialVariable = potential.getVariable(0);
+		return (probNet.getNode(potentialVariable).getNodeType() == NodeType.DECISION)
+				|| (potential.getPotentialRole() == PotentialRole.POLICY);
+	}
+
 	/**
 	 * @param potential
 	 * @param potentialElement
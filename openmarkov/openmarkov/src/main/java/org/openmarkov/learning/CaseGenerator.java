@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.learning;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.openmarkov.core.exception.NonProjectablePotentialException;
+import org.openmarkov.core.exception.NotEvaluableNetworkException;
+import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.io.database.CaseColumn;
+import org.openmarkov.core.io.database.CaseDatabase;
+import org.openmarkov.core.io.database.CaseDatabaseWriter;
+import org.openmarkov.core.model.network.Node;
+import org.openmarkov.core.model.network.NodeType;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.ProbNetOperations;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.VariableType;
+import org.openmarkov.core.model.network.modelUncertainty.XORShiftRandom;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.TablePotential;
+
+/**
+ * Generates databases of cases from a Bayesian network by forward sampling.
+ * <p>
+ * The network is compiled once: the variables are sorted ancestrally and the conditional probability table
+ * of each one is turned into cumulative distributions, one for each configuration of its parents, so sampling a
+ * case only reads arrays. The cases are sampled in chunks of consecutive cases, each one with its own
+ * <code>XORShiftRandom</code> seeded from the seed of the generator and the position of the chunk; the chunks
+ * are sampled in parallel and the result only depends on the seed, not on the number of threads. The cases are
+ * written directly into the columns of a <code>CaseDatabase</code> or, for more cases than fit in memory,
+ * streamed in batches to a <code>CaseDatabaseWriter</code>.
+ * <p>
+ * Each variable can be observed in a case with a given probability, independently of the other variables and
+ * the other cases; otherwise its value is missing.
+ */
+public class CaseGenerator {
+
+	/**
+	 * Number of consecutive cases sampled with the same random stream
+	 */
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	/**
+	 * Number of cases streamed to a writer at a time, a multiple of <code>CHUNK_SIZE</code>
+	 */
+	private static final int BATCH_SIZE = 16 * CHUNK_SIZE;
+
+	// Attributes
+	/**
+	 * Chance variables of the network, in ancestral order
+	 */
+	private List<Variable> variables;
+
+	private int[] numStates;
+
+	/**
+	 * For each variable, position in <code>variables</code> of its parents
+	 */
+	private int[][] parents;
+
+	/**
+	 * For each variable, offset of each parent in the configurations of the parents
+	 */
+	private int[][] parentOffsets;
+
+	/**
+	 * For each variable, probability of each state or a lower one given each configuration of its parents: the
+	 * element <code>configuration * numStates + state</code>
+	 */
+	private double[][] cumulativeProbabilities;
+
+	private double[] observationProbabilities;
+
+	private Long seed;
+
+	private boolean useMultithreading = true;
+
+	// Constructor
+
+	/**
+	 * @param probNet Bayesian network whose nodes are all chance nodes of finite-state or discretized variables
+	 * @throws NotEvaluableNetworkException if the network has other nodes or variables, or a potential can not
+	 *                                      be converted into a conditional probability table
+	 */
+	public CaseGenerator(ProbNet probNet) throws NotEvaluableNetworkException {
+		for (Node node : probNet.getNodes()) {
+			if (node.getNodeType() != NodeType.CHANCE
+					|| node.getVariable().getVariableType() == VariableType.NUMERIC) {
+				throw new NotEvaluableNetworkException(
+						"Cases can only be generated for chance nodes of discrete variables: " + node.getName());
+			}
+		}
+		variables = ProbNetOperations.sortTopologically(probNet, probNet.getVariables());
+		int numVariables = variables.size();
+		numStates = new int[numVariables];
+		parents = new int[numVariables][];
+		parentOffsets = new int[numVariables][];
+		cumulativeProbabilities = new double[numVariables][];
+		observationProbabilities = new double[numVariables];
+		Arrays.fill(observationProbabilities, 1.0);
+		for (int v = 0; v < numVariables; v++) {
+			Variable variable = variables.get(v);
+			numStates[v] = variable.getNumStates();
+			compile(v, getConditionalProbabilityTable(probNet.getNode(variable)));
+		}
+	}
+
+	// Methods
+
+	/**
+	 * @param seed seed of the random streams, which makes the cases reproducible; when it is <code>null</code>,
+	 *             the default, a different seed is taken in each generation
+	 */
+	public void setSeed(Long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @param useMultithreading when <code>true</code>, the default, the chunks of cases are sampled in parallel
+	 */
+	public void setUseMultithreading(boolean useMultithreading) {
+		this.useMultithreading = useMultithreading;
+	}
+
+	/**
+	 * @param variable    variable of the network
+	 * @param probability probability that the value of the variable is observed in each case: 1, the default,
+	 *                    for a variable always observed and 0 for a hidden one
+	 */
+	public void setObservationProbability(Variable variable, double probability) {
+		int index = variables.indexOf(variable);
+		if (index < 0) {
+			throw new IllegalArgumentException("The variable " + variable.getName() + " is not in the network");
+		}
+		observationProbabilities[index] = probability;
+	}
+
+	/**
+	 * @return The variables of the cases, in ancestral order
+	 */
+	public List<Variable> getVariables() {
+		return new ArrayList<>(variables);
+	}
+
+	/**
+	 * @param numCases number of cases
+	 * @return A database with the cases
+	 */
+	public CaseDatabase generate(int numCases) {
+		return generate(getSeed(), 0, numCases);
+	}
+
+	/**
+	 * Generates the cases in batches and streams them to a writer, so that they are not in memory at the same
+	 * time. The cases are the same as those that <code>generate(int)</code> returns with the same seed.
+	 *
+	 * @param numCases number of cases
+	 * @param filename name of the file
+	 * @param writer   writer of the file
+	 * @throws IOException if the file can not be written
+	 */
+	public void generate(final long numCases, String filename, CaseDatabaseWriter writer) throws IOException {
+		final long baseSeed = getSeed();
+		writer.save(filename, getVariables(), new Iterable<CaseDatabase>() {
+			@Override public Iterator<CaseDatabase> iterator() {
+				return new Iterator<CaseDatabase>() {
+					private long firstCase = 0;
+
+					@Override public boolean hasNext() {
+						return firstCase < numCases;
+					}
+
+					@Override public CaseDatabase next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						int batchSize = (int) Math.min(BATCH_SIZE, numCases - firstCase);
+						CaseDatabase batch = generate(baseSeed, firstCase, batchSize);
+						firstCase += batchSize;
+						return batch;
+					}
+				};
+			}
+		});
+	}
+
+	/**
+	 * @param baseSeed  seed of the generation
+	 * @param firstCase position of the first case in the generation, a multiple of <code>CHUNK_SIZE</code>
+	 * @param numCases  number of cases
+	 * @return A database with the cases
+	 */
+	private CaseDatabase generate(final long baseSeed, long firstCase, int numCases) {
+		final CaseColumn[] columns = new CaseColumn[variables.size()];
+		for (int v = 0; v < columns.length; v++) {
+			columns[v] = CaseColumn.create(numStates[v], numCases);
+		}
+		final long firstChunk = firstCase / CHUNK_SIZE;
+		int numChunks = (numCases + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		if (useMultithreading && numChunks > 1) {
+			List<ForkJoinTask<?>> tasks = new ArrayList<>(numChunks);
+			for (int c = 0; c < numChunks; c++) {
+				final int chunkStart = c * CHUNK_SIZE;
+				final int chunkSize = Math.min(CHUNK_SIZE, numCases - chunkStart);
+				final long chunk = firstChunk + c;
+				tasks.add(ForkJoinTask.adapt(() -> sample(baseSeed, chunk, columns, chunkStart, chunkSize)));
+			}
+			ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+		} else {
+			for (int c = 0; c < numChunks; c++) {
+				int chunkStart = c * CHUNK_SIZE;
+				sample(baseSeed, firstChunk + c, columns, chunkStart, Math.min(CHUNK_SIZE, numCases - chunkStart));
+			}
+		}
+		return new CaseDatabase(variables, columns, numCases);
+	}
+
+	/**
+	 * Samples the cases of a chunk
+	 *
+	 * @param baseSeed   seed of the generation
+	 * @param chunk      position of the chunk in the generation
+	 * @param columns    columns that receive the cases
+	 * @param firstCase  position of the first case of the chunk in the columns
+	 * @param numCases   number of cases of the chunk
+	 */
+	private void sample(long baseSeed, long chunk, CaseColumn[] columns, int firstCase, int numCases) {
+		Random random = new XORShiftRandom();
+		random.setSeed(getChunkSeed(baseSeed, chunk));
+		int numVariables = variables.size();
+		int[] states = new int[numVariables];
+		for (int i = firstCase; i < firstCase + numCases; i++) {
+			for (int v = 0; v < numVariables; v++) {
+				int[] variableParents = parents[v];
+				int[] offsets = parentOffsets[v];
+				int configuration = 0;
+				for (int p = 0; p < variableParents.length; p++) {
+					configuration += states[variableParents[p]] * offsets[p];
+				}
+				double[] cumulative = cumulativeProbabilities[v];
+				int lastState = numStates[v] - 1;
+				int position = configuration * numStates[v];
+				double u = random.nextDouble();
+				int state = 0;
+				while (state < lastState && u >= cumulative[position + state]) {
+					state++;
+				}
+				states[v] = state;
+			}
+			for (int v = 0; v < numVariables; v++) {
+				double observationProbability = observationProbabilities[v];
+				boolean isObserved = observationProbability >= 1.0 || random.nextDouble() < observationProbability;
+				columns[v].setState(i, isObserved ? states[v] : CaseDatabase.MISSING_VALUE);
+			}
+		}
+	}
+
+	/**
+	 * Builds the cumulative distributions of a variable
+	 *
+	 * @param v   position of the variable in <code>variables</code>
+	 * @param cpt conditional probability table of the variable, whose first variable is the conditioned one
+	 */
+	private void compile(int v, TablePotential cpt) {
+		List<Variable> cptVariables = cpt.getVariables();
+		int numParents = cptVariables.size() - 1;
+		int[] cptOffsets = cpt.getOffsets();
+		parents[v] = new int[numParents];
+		parentOffsets[v] = new int[numParents];
+		int numConfigurations = 1;
+		for (int p = 0; p < numParents; p++) {
+			Variable parent = cptVariables.get(p + 1);
+			parents[v][p] = variables.indexOf(parent);
+			parentOffsets[v][p] = numConfigurations;
+			numConfigurations *= parent.getNumStates();
+		}
+		int variableNumStates = numStates[v];
+		double[] cumulative = new double[numConfigurations * variableNumStates];
+		int[] coordinates = new int[numParents];
+		double[] values = cpt.values;
+		for (int configuration = 0; configuration < numConfigurations; configuration++) {
+			int cptPosition = cpt.getInitialPosition();
+			for (int p = 0; p < numParents; p++) {
+				cptPosition += coordinates[p] * cptOffsets[p + 1];
+			}
+			double accumulated = 0.0;
+			for (int state = 0; state < variableNumStates; state++) {
+				accumulated += values[cptPosition + state * cptOffsets[0]];
+				cumulative[configuration * variableNumStates + state] = accumulated;
+			}
+			// next configuration of the parents
+			for (int p = 0; p < numParents; p++) {
+				coordinates[p]++;
+				if (coordinates[p] < cptVariables.get(p + 1).getNumStates()) {
+					break;
+				}
+				coordinates[p] = 0;
+			}
+		}
+		cumulativeProbabilities[v] = cumulative;
+	}
+
+	/**
+	 * @param node chance node
+	 * @return The conditional probability table of the node, with the variable of the node in the first place
+	 * @throws NotEvaluableNetworkException if the potential can not be converted into a table
+	 */
+	private TablePotential getConditionalProbabilityTable(Node node) throws NotEvaluableNetworkException {
+		List<Potential> potentials = node.getPotentials();
+		if (potentials.isEmpty()) {
+			throw new NotEvaluableNetworkException("The node " + node.getName() + " has no potential");
+		}
+		TablePotential cpt;
+		try {
+			cpt = potentials.get(0).getCPT();
+		} catch (NonProjectablePotentialException | WrongCriterionException e) {
+			throw new NotEvaluableNetworkException(e);
+		}
+		if (cpt.getNumVariables() == 0 || cpt.getVariables().get(0) != node.getVariable()) {
+			throw new NotEvaluableNetworkException(
+					"The potential of " + node.getName() + " is not a conditional probability of its variable");
+		}
+		return cpt;
+	}
+
+	private long getSeed() {
+		return (seed != null) ? seed : System.nanoTime();
+	}
+
+	/**
+	 * @param baseSeed seed of the generation
+	 * @param chunk    position of the chunk
+	 * @return A seed for the chunk, mixed with the finalizer of SplitMix64 so that the streams of consecutive
+	 * chunks are not correlated; it is never 0, which would make the stream of XORShiftRandom constant
+	 */
+	private static long getChunkSeed(long baseSeed, long chunk) {
+		long z = baseSeed + (chunk + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z = z ^ (z >>> 31);
+		return (z != 0) ? z : 1;
+	}
+}
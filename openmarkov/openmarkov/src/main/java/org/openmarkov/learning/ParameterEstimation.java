@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.learning;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.openmarkov.core.action.PotentialChangeEdit;
+import org.openmarkov.core.exception.ConstraintViolationException;
+import org.openmarkov.core.exception.DoEditException;
+import org.openmarkov.core.exception.InvalidStateException;
+import org.openmarkov.core.exception.NonProjectablePotentialException;
+import org.openmarkov.core.exception.WrongCriterionException;
+import org.openmarkov.core.io.database.CaseDatabase;
+import org.openmarkov.core.model.network.Node;
+import org.openmarkov.core.model.network.NodeType;
+import org.openmarkov.core.model.network.ProbNet;
+import org.openmarkov.core.model.network.State;
+import org.openmarkov.core.model.network.Variable;
+import org.openmarkov.core.model.network.VariableType;
+import org.openmarkov.core.model.network.potential.Potential;
+import org.openmarkov.core.model.network.potential.TablePotential;
+
+/**
+ * Estimates the conditional probability tables of a network from a database of cases.
+ * <p>
+ * Each chance node whose potential is a <code>TablePotential</code> and whose variables are all in the database
+ * (matched by name, and their states too) is a family. The sufficient statistics of all the families, i.e. the
+ * number of cases of each configuration of each family, are counted in a single scan over the cases, which are
+ * split in partitions counted in parallel, each one with its own counters, and merged at the end. A case in
+ * which some variable of a family is missing is not counted for that family.
+ * <p>
+ * The probabilities are estimated as the mean of the posterior Dirichlet distribution: the probability of a
+ * state of the child given a configuration of its parents is
+ * <code>(n + a) / (N + A)</code>, where <code>n</code> is the count of the configuration, <code>N</code> the
+ * count of the configuration of the parents, <code>a</code> the parameter of the prior and <code>A</code> the sum
+ * of the parameters for that configuration of the parents. When <code>N + A</code> is 0 the column of the
+ * current table is kept.
+ */
+public class ParameterEstimation {
+
+	/**
+	 * Number of cases decoded at a time from the columns of the database
+	 */
+	private static final int BLOCK_SIZE = 4096;
+
+	/**
+	 * Minimum number of cases of a partition, below which parallelism does not pay
+	 */
+	private static final int MIN_CASES_PER_PARTITION = 16 * BLOCK_SIZE;
+
+	// Attributes
+	private ProbNet probNet;
+
+	private CaseDatabase database;
+
+	/**
+	 * Families in the order of the nodes of the network
+	 */
+	private List<Family> families;
+
+	/**
+	 * Columns of the database used by the families
+	 */
+	private int[] databaseColumns;
+
+	/**
+	 * For each column in <code>databaseColumns</code>, index in the network of each state of the database
+	 */
+	private int[][] stateIndices;
+
+	private double pseudoCount = 0.0;
+
+	private double equivalentSampleSize = 0.0;
+
+	private boolean useMultithreading = true;
+
+	private boolean areCasesCounted = false;
+
+	// Constructor
+
+	/**
+	 * @param probNet  network whose conditional probability tables are estimated
+	 * @param database cases
+	 * @throws InvalidStateException if a variable of a family has in the database a state that it does not have
+	 *                               in the network
+	 */
+	public ParameterEstimation(ProbNet probNet, CaseDatabase database) throws InvalidStateException {
+		this.probNet = probNet;
+		this.database = database;
+		this.families = new ArrayList<>();
+		List<Integer> columns = new ArrayList<>();
+		List<int[]> indices = new ArrayList<>();
+		for (Node node : probNet.getNodes(NodeType.CHANCE)) {
+			List<Potential> potentials = node.getPotentials();
+			if (potentials.size() != 1 || !(potentials.get(0) instanceof TablePotential)) {
+				continue;
+			}
+			TablePotential potential = (TablePotential) potentials.get(0);
+			List<Variable> variables = potential.getVariables();
+			if (variables.isEmpty() || variables.get(0) != node.getVariable()) {
+				continue;
+			}
+			int[] slots = new int[variables.size()];
+			boolean isInDatabase = true;
+			for (int i = 0; i < slots.length && isInDatabase; i++) {
+				Variable variable = variables.get(i);
+				Variable databaseVariable = database.getVariable(variable.getName());
+				isInDatabase = databaseVariable != null && variable.getVariableType() != VariableType.NUMERIC;
+				if (isInDatabase) {
+					int column = database.getVariableIndex(databaseVariable);
+					slots[i] = columns.indexOf(column);
+					if (slots[i] < 0) {
+						slots[i] = columns.size();
+						columns.add(column);
+						indices.add(getStateIndices(variable, databaseVariable));
+					}
+				}
+			}
+			if (isInDatabase) {
+				families.add(new Family(node, variables, slots));
+			}
+		}
+		databaseColumns = new int[columns.size()];
+		for (int i = 0; i < databaseColumns.length; i++) {
+			databaseColumns[i] = columns.get(i);
+		}
+		stateIndices = indices.toArray(new int[indices.size()][]);
+	}
+
+	// Methods
+
+	/**
+	 * @param pseudoCount parameter of a Dirichlet prior added to the count of every configuration of each
+	 *                    family: 1 gives the Laplace correction and 0, the default, the maximum likelihood
+	 *                    estimate
+	 */
+	public void setPseudoCount(double pseudoCount) {
+		this.pseudoCount = pseudoCount;
+	}
+
+	/**
+	 * @param equivalentSampleSize number of cases that the current tables of the network are worth: the
+	 *                             Dirichlet prior of each configuration of the parents has as parameters this
+	 *                             number times the current probabilities. It is 0 by default, which ignores
+	 *                             them.
+	 */
+	public void setEquivalentSampleSize(double equivalentSampleSize) {
+		this.equivalentSampleSize = equivalentSampleSize;
+	}
+
+	/**
+	 * @param useMultithreading when <code>true</code>, the default, the partitions of the cases are counted in
+	 *                          parallel
+	 */
+	public void setUseMultithreading(boolean useMultithreading) {
+		this.useMultithreading = useMultithreading;
+	}
+
+	/**
+	 * @return The variables whose tables are estimated
+	 */
+	public List<Variable> getVariables() {
+		List<Variable> variables = new ArrayList<>(families.size());
+		for (Family family : families) {
+			variables.add(family.node.getVariable());
+		}
+		return variables;
+	}
+
+	/**
+	 * @param variable variable whose table is estimated
+	 * @return The number of cases of each configuration of the family of the variable, in the positions of its
+	 * table, or <code>null</code> if the table of the variable is not estimated
+	 */
+	public double[] getCounts(Variable variable) {
+		countCases();
+		for (Family family : families) {
+			if (family.node.getVariable() == variable) {
+				return family.counts;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return The estimated table of each variable, without modifying the network
+	 */
+	public Map<Variable, TablePotential> estimate() {
+		countCases();
+		Map<Variable, TablePotential> tables = new LinkedHashMap<>();
+		for (Family family : families) {
+			tables.put(family.node.getVariable(), family.estimate());
+		}
+		return tables;
+	}
+
+	/**
+	 * Replaces the tables of the network by the estimated ones. The changes are done in a transaction of the
+	 * network, so they are undone as a single edit.
+	 *
+	 * @return The estimated table of each variable
+	 * @throws DoEditException              if a table can not be replaced. The network is not modified
+	 * @throws ConstraintViolationException if the new tables violate a constraint of the network. The network
+	 *                                      is not modified
+	 */
+	public Map<Variable, TablePotential> updateNetwork() throws DoEditException, ConstraintViolationException {
+		Map<Variable, TablePotential> tables = estimate();
+		probNet.beginTransaction();
+		try {
+			for (Family family : families) {
+				probNet.doEdit(new PotentialChangeEdit(probNet, family.getCurrentTable(),
+						tables.get(family.node.getVariable())));
+			}
+		} catch (DoEditException | ConstraintViolationException e) {
+			probNet.rollbackTransaction();
+			throw e;
+		} catch (NonProjectablePotentialException | WrongCriterionException e) {
+			probNet.rollbackTransaction();
+			throw new DoEditException(e);
+		}
+		probNet.commitTransaction();
+		return tables;
+	}
+
+	/**
+	 * Counts the cases of all the families in a single scan over the database, unless they are already counted
+	 */
+	private void countCases() {
+		if (areCasesCounted) {
+			return;
+		}
+		int numCases = database.getNumCases();
+		int numPartitions = 1;
+		if (useMultithreading) {
+			numPartitions = Math.max(1, Math.min(ForkJoinPool.commonPool().getParallelism(),
+					numCases / MIN_CASES_PER_PARTITION));
+		}
+		List<int[][]> partitionCounts = new ArrayList<>(numPartitions);
+		if (numPartitions == 1) {
+			partitionCounts.add(countCases(0, numCases));
+		} else {
+			List<ForkJoinTask<int[][]>> tasks = new ArrayList<>(numPartitions);
+			for (int i = 0; i < numPartitions; i++) {
+				final int firstCase = (int) ((long) numCases * i / numPartitions);
+				final int lastCase = (int) ((long) numCases * (i + 1) / numPartitions);
+				tasks.add(ForkJoinTask.adapt(() -> countCases(firstCase, lastCase)));
+			}
+			ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+			for (ForkJoinTask<int[][]> task : tasks) {
+				partitionCounts.add(task.join());
+			}
+		}
+		// Merge the counters of the partitions
+		for (int f = 0; f < families.size(); f++) {
+			double[] counts = new double[families.get(f).tableSize];
+			for (int[][] partition : partitionCounts) {
+				int[] familyCounts = partition[f];
+				for (int i = 0; i < counts.length; i++) {
+					counts[i] += familyCounts[i];
+				}
+			}
+			families.get(f).counts = counts;
+		}
+		areCasesCounted = true;
+	}
+
+	/**
+	 * @param firstCase first case of the partition (inclusive)
+	 * @param lastCase  last case of the partition (exclusive)
+	 * @return The counts of each family in the partition
+	 */
+	private int[][] countCases(int firstCase, int lastCase) {
+		int numFamilies = families.size();
+		int[][] counts = new int[numFamilies][];
+		for (int f = 0; f < numFamilies; f++) {
+			counts[f] = new int[families.get(f).tableSize];
+		}
+		int[][] states = new int[databaseColumns.length][BLOCK_SIZE];
+		for (int blockStart = firstCase; blockStart < lastCase; blockStart += BLOCK_SIZE) {
+			int blockSize = Math.min(BLOCK_SIZE, lastCase - blockStart);
+			// Decode the block of each column into the indices of the states in the network
+			for (int c = 0; c < databaseColumns.length; c++) {
+				int[] columnStates = states[c];
+				int[] columnStateIndices = stateIndices[c];
+				database.getColumn(databaseColumns[c]).getStates(blockStart, blockSize, columnStates);
+				for (int i = 0; i < blockSize; i++) {
+					int state = columnStates[i];
+					columnStates[i] = (state == CaseDatabase.MISSING_VALUE) ?
+							CaseDatabase.MISSING_VALUE :
+							columnStateIndices[state];
+				}
+			}
+			// Count the configuration of each family in each case of the block
+			for (int f = 0; f < numFamilies; f++) {
+				Family family = families.get(f);
+				int[] familyCounts = counts[f];
+				int[] slots = family.slots;
+				int[] offsets = family.offsets;
+				for (int i = 0; i < blockSize; i++) {
+					int position = 0;
+					for (int v = 0; v < slots.length && position >= 0; v++) {
+						int state = states[slots[v]][i];
+						position = (state == CaseDatabase.MISSING_VALUE) ? -1 : position + state * offsets[v];
+					}
+					if (position >= 0) {
+						familyCounts[position]++;
+					}
+				}
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * @param variable         variable of the network
+	 * @param databaseVariable variable of the database with the same name
+	 * @return The index in the network of each state of the variable in the database
+	 * @throws InvalidStateException if a state of the database is not in the network
+	 */
+	private static int[] getStateIndices(Variable variable, Variable databaseVariable) throws InvalidStateException {
+		State[] databaseStates = databaseVariable.getStates();
+		int[] indices = new int[databaseStates.length];
+		for (int k = 0; k < databaseStates.length; k++) {
+			indices[k] = (variable == databaseVariable) ? k : variable.getStateIndex(databaseStates[k].getName());
+		}
+		return indices;
+	}
+
+	/**
+	 * A chance variable, its parents and its table
+	 */
+	private class Family {
+		private final Node node;
+
+		/**
+		 * Variables of the table, the child first
+		 */
+		private final List<Variable> variables;
+
+		private final int tableSize;
+
+		/**
+		 * For each variable of the table, position of its column in <code>databaseColumns</code>
+		 */
+		private final int[] slots;
+
+		/**
+		 * Offset of each variable of the table
+		 */
+		private final int[] offsets;
+
+		private double[] counts;
+
+		private Family(Node node, List<Variable> variables, int[] slots) {
+			this.node = node;
+			this.variables = new ArrayList<>(variables);
+			this.slots = slots;
+			this.offsets = TablePotential.calculateOffsets(TablePotential.calculateDimensions(this.variables));
+			this.tableSize = TablePotential.computeTableSize(this.variables);
+		}
+
+		/**
+		 * @return The current table of the node, which is the prior of the estimation
+		 * @throws IllegalStateException if the potential of the node is no longer a table of the same variables
+		 */
+		private TablePotential getCurrentTable() {
+			List<Potential> potentials = node.getPotentials();
+			if (potentials.size() != 1 || !(potentials.get(0) instanceof TablePotential) || !potentials.get(0)
+					.getVariables().equals(variables)) {
+				throw new IllegalStateException(
+						"The potential of " + node.getName() + " has changed since the estimation was created");
+			}
+			return (TablePotential) potentials.get(0);
+		}
+
+		/**
+		 * @return The table estimated from the counts and the prior
+		 */
+		private TablePotential estimate() {
+			TablePotential potential = getCurrentTable();
+			int numStates = variables.get(0).getNumStates();
+			int childOffset = offsets[0];
+			int initialPosition = potential.getInitialPosition();
+			double[] currentValues = potential.values;
+			double[] values = new double[counts.length];
+			for (int position = 0; position < counts.length; position++) {
+				if ((position / childOffset) % numStates != 0) {
+					// not the first state of the child in its configuration of the parents
+					continue;
+				}
+				double total = 0.0;
+				for (int k = 0; k < numStates; k++) {
+					int i = position + k * childOffset;
+					values[i] = counts[i] + pseudoCount + equivalentSampleSize * currentValues[initialPosition + i];
+					total += values[i];
+				}
+				for (int k = 0; k < numStates; k++) {
+					int i = position + k * childOffset;
+					values[i] = (total > 0.0) ? values[i] / total : currentValues[initialPosition + i];
+				}
+			}
+			TablePotential table = new TablePotential(variables, potential.getPotentialRole(), values);
+			table.setComment(potential.getComment());
+			return table;
+		}
+	}
+}
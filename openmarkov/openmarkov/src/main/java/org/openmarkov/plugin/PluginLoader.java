@@ -9,13 +9,24 @@ package org.openmarkov.plugin;
 
 import static org.openmarkov.plugin.Filter.filter;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+import org.apache.logging.log4j.LogManager;
+import org.openmarkov.plugin.processor.PluginIndexProcessor;
 import org.openmarkov.plugin.service.FilterIF;
 import org.openmarkov.plugin.service.PluginException;
 import org.openmarkov.plugin.service.PluginLoaderIF;
@@ -35,6 +46,11 @@ import org.openmarkov.plugin.service.PluginLoaderIF;
  * (#)PluginLoader.java 1.0    15/09/2011 19:08:10
  */
 public class PluginLoader implements PluginLoaderIF {
+	/**
+	 * Directory of the OpenMarkov classes in an element of the class path.
+	 */
+	private static final String OPENMARKOV_DIRECTORY = "org/openmarkov/";
+
 	private ClassLoader classLoader;
 
 	/**
@@ -68,20 +84,8 @@ public class PluginLoader implements PluginLoaderIF {
 	 */
 	public List<Class<?>> loadAllPlugins(FilterIF filter) throws PluginException {
 		List<Class<?>> classes = new ArrayList<>();
-		String classPath = System.getProperty("java.class.path", ".");
-		String[] classPathElements = classPath.split(File.pathSeparator);
-		for (String element : classPathElements) {
-			List<String> aResources = getResources(element);
-			for (String aResource : aResources) {
-				if (aResource.startsWith("org.openmarkov")) {
-					try {
-						Class<?> aClass = (Class<?>) classLoader.loadClass(aResource);
-						if (filter.checkPlugin(aClass))
-							classes.add(aClass);
-					} catch (Exception e) {
-					}
-				}
-			}
+		for (String element : getClassPathElements()) {
+			loadPlugins(element, filter, classes);
 		}
 		return classes;
 	}
@@ -96,6 +100,125 @@ public class PluginLoader implements PluginLoaderIF {
 		return loadAllPlugins(filter);
 	}
 
+	/**
+	 * Returns the plugins annotated by an annotation. They are read from the indices written at compile time by
+	 * <code>PluginIndexProcessor</code>, so only the plugins are loaded. The elements of the class path that hold
+	 * OpenMarkov classes but no index, for example the jars compiled without annotation processing, are scanned;
+	 * the other elements, such as the jars of third-party libraries, are skipped.
+	 *
+	 * @param annotation the annotation of the plugins.
+	 * @return the plugins annotated by the annotation.
+	 */
+	public List<Class<?>> loadAnnotatedPlugins(Class<? extends Annotation> annotation) throws PluginException {
+		FilterIF filter = filter().toBeAnnotatedBy(annotation);
+		List<Class<?>> classes = new ArrayList<>();
+		for (String className : getIndexedClassNames(annotation)) {
+			try {
+				Class<?> aClass = classLoader.loadClass(className);
+				if (filter.checkPlugin(aClass))
+					classes.add(aClass);
+			} catch (Exception | LinkageError e) {
+				LogManager.getLogger(PluginLoader.class).warn(
+						"Unable to load the plugin [" + className + "] of the index of " + annotation.getName(), e);
+			}
+		}
+		for (String element : getClassPathElements()) {
+			if (isUnindexedOpenMarkovElement(element)) {
+				LogManager.getLogger(PluginLoader.class).info(
+						"Scanning [" + element + "] for plugins because it has no plugin index");
+				loadPlugins(element, filter, classes);
+			}
+		}
+		return classes;
+	}
+
+	/**
+	 * Adds the plugins of an element of the class path.
+	 *
+	 * @param element the directory or jar file.
+	 * @param filter  the plugins filter to select plugins.
+	 * @param classes the list that receives the plugins.
+	 */
+	private void loadPlugins(String element, FilterIF filter, List<Class<?>> classes) {
+		List<String> aResources = getResources(element);
+		for (String aResource : aResources) {
+			if (aResource.startsWith("org.openmarkov")) {
+				try {
+					Class<?> aClass = (Class<?>) classLoader.loadClass(aResource);
+					if (filter.checkPlugin(aClass) && !classes.contains(aClass))
+						classes.add(aClass);
+				} catch (Exception e) {
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the elements of the class path.
+	 *
+	 * @return the directories and jar files of the class path.
+	 */
+	private String[] getClassPathElements() {
+		String classPath = System.getProperty("java.class.path", ".");
+		return classPath.split(File.pathSeparator);
+	}
+
+	/**
+	 * Checks whether an element of the class path holds OpenMarkov classes but was not compiled with
+	 * <code>PluginIndexProcessor</code>, which writes the index of every plugin annotation used in it.
+	 *
+	 * @param element the directory or jar file.
+	 * @return true if the element contains classes of <code>org.openmarkov</code> and no plugin indices.
+	 */
+	private boolean isUnindexedOpenMarkovElement(String element) {
+		File aFile = new File(element);
+		if (aFile.isDirectory()) {
+			return !new File(aFile, PluginIndexProcessor.INDEX_DIRECTORY).isDirectory()
+					&& new File(aFile, OPENMARKOV_DIRECTORY).isDirectory();
+		}
+		boolean hasOpenMarkovClasses = false;
+		try (ZipFile zipFile = new ZipFile(aFile)) {
+			Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+			while (zipEntries.hasMoreElements()) {
+				String name = zipEntries.nextElement().getName();
+				if (name.startsWith(PluginIndexProcessor.INDEX_DIRECTORY))
+					return false;
+				hasOpenMarkovClasses |= name.startsWith(OPENMARKOV_DIRECTORY);
+			}
+		} catch (IOException e) {
+		}
+		return hasOpenMarkovClasses;
+	}
+
+	/**
+	 * Returns the names of the classes in the indices of an annotation, of all the elements of the class path.
+	 *
+	 * @param annotation the annotation.
+	 * @return the names of the classes, empty if there is no index.
+	 */
+	private Set<String> getIndexedClassNames(Class<? extends Annotation> annotation) throws PluginException {
+		Set<String> classNames = new LinkedHashSet<>();
+		String indexName = PluginIndexProcessor.INDEX_DIRECTORY + annotation.getName();
+		try {
+			Enumeration<URL> indices = classLoader.getResources(indexName);
+			while (indices.hasMoreElements()) {
+				try (InputStream inputStream = indices.nextElement().openStream();
+					 BufferedReader reader = new BufferedReader(
+							 new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						line = line.trim();
+						if (!line.isEmpty())
+							classNames.add(line);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new PluginException("Unable to read plugin index [" + indexName + "]", e);
+		}
+		return classNames;
+	}
+
 	/**
 	 * Returns all resources matching with a pattern type.
 	 *
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) CISIAD, UNED, Spain,  2019. Licensed under the GPLv3 licence
+ * Unless required by applicable law or agreed to in writing,
+ * this code is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OF ANY KIND.
+ */
+
+package org.openmarkov.plugin.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that writes, at compile time, the index of the plugins that the managers load: for
+ * each plugin annotation, the file <code>META-INF/openmarkov/plugins/</code> followed by the qualified name
+ * of the annotation lists the classes annotated by it, one per line.
+ * <p>
+ * <code>PluginLoader</code> reads these files instead of loading every class of the class path to check its
+ * annotations. As a build may compile only some of the sources, the classes of an existing index that are
+ * still annotated are kept in the new one.
+ */
+@SupportedAnnotationTypes({ "org.openmarkov.core.inference.annotation.InferenceAnnotation",
+		"org.openmarkov.core.io.format.annotation.FormatType",
+		"org.openmarkov.core.io.database.plugin.CaseDatabaseFormat",
+		"org.openmarkov.core.model.network.constraint.annotation.Constraint",
+		"org.openmarkov.core.model.network.modelUncertainty.ProbDensFunctionType",
+		"org.openmarkov.core.model.network.potential.plugin.PotentialType",
+		"org.openmarkov.core.model.network.type.plugin.ProbNetType" })
+public class PluginIndexProcessor extends AbstractProcessor {
+
+	/**
+	 * Directory of the index files in the class path
+	 */
+	public static final String INDEX_DIRECTORY = "META-INF/openmarkov/plugins/";
+
+	/**
+	 * Binary names of the annotated classes, by qualified name of the annotation
+	 */
+	private Map<String, Set<String>> plugins = new HashMap<>();
+
+	@Override public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement annotation : annotations) {
+			String annotationName = annotation.getQualifiedName().toString();
+			Set<String> annotatedClasses = plugins.get(annotationName);
+			if (annotatedClasses == null) {
+				annotatedClasses = new TreeSet<>();
+				plugins.put(annotationName, annotatedClasses);
+			}
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if (element.getKind() == ElementKind.CLASS) {
+					annotatedClasses.add(
+							processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString());
+				}
+			}
+		}
+		if (roundEnv.processingOver()) {
+			writeIndex();
+		}
+		return false;
+	}
+
+	/**
+	 * Writes an index file for each annotation found during the compilation
+	 */
+	private void writeIndex() {
+		for (Map.Entry<String, Set<String>> entry : plugins.entrySet()) {
+			addIndexedClasses(entry.getKey(), entry.getValue());
+			try {
+				FileObject file = processingEnv.getFiler()
+						.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_DIRECTORY + entry.getKey());
+				try (Writer writer = file.openWriter()) {
+					for (String className : entry.getValue()) {
+						writer.write(className);
+						writer.write('\n');
+					}
+				}
+			} catch (IOException e) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+						"Unable to write the plugin index of " + entry.getKey() + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Adds the classes of the index of an annotation written by a previous compilation that still exist and are
+	 * annotated by it
+	 *
+	 * @param annotationName   qualified name of the annotation
+	 * @param annotatedClasses binary names of the classes annotated in this compilation
+	 */
+	private void addIndexedClasses(String annotationName, Set<String> annotatedClasses) {
+		FileObject file;
+		try {
+			file = processingEnv.getFiler()
+					.getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_DIRECTORY + annotationName);
+		} catch (IOException | IllegalArgumentException e) {
+			return; // There is no previous index
+		}
+		try (Reader fileReader = file.openReader(true); BufferedReader reader = new BufferedReader(fileReader)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String className = line.trim();
+				if (!className.isEmpty() && !annotatedClasses.contains(className) && isAnnotated(className,
+						annotationName)) {
+					annotatedClasses.add(className);
+				}
+			}
+		} catch (IOException e) {
+			// There is no previous index
+		}
+	}
+
+	/**
+	 * @param className      binary name of a class
+	 * @param annotationName qualified name of an annotation
+	 * @return true if the class exists and is annotated by the annotation
+	 */
+	private boolean isAnnotated(String className, String annotationName) {
+		TypeElement element = processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'));
+		if (element == null) {
+			return false;
+		}
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName()
+					.contentEquals(annotationName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -7,6 +7,7 @@
 
 package org.openmarkov.plugin.service;
 
+import java.lang.annotation.Annotation;
 import java.util.List;
 
 /**
@@ -47,4 +48,12 @@ public interface PluginLoaderIF {
 	 * @return all plugins from the system environment.
 	 */
     List<Class<?>> loadAllPlugins() throws PluginException;
+
+	/**
+	 * Returns the plugins annotated by an annotation.
+	 *
+	 * @param annotation the annotation of the plugins.
+	 * @return the plugins annotated by the annotation.
+	 */
+    List<Class<?>> loadAnnotatedPlugins(Class<? extends Annotation> annotation) throws PluginException;
 }